@@ -0,0 +1,154 @@
+package com.veeam.api;
+
+import com.veeam.bench.Fixtures;
+import com.veeam.dto.Pet;
+import com.veeam.dto.Store;
+import com.veeam.dto.User;
+import com.veeam.http.HttpTransport;
+
+import java.net.http.HttpRequest;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of building the HttpRequest of every *Api method, without sending it: URL formatting,
+ * body serialization and the JDK request builder. Lives in com.veeam.api because the request
+ * builders are package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestConstructionBenchmark {
+
+    private HttpTransport transport;
+    private PetApi petApi;
+    private StoreApi storeApi;
+    private UserApi userApi;
+    private Pet pet;
+    private Store order;
+    private User user;
+    private List<User> users;
+
+    @Setup
+    public void setUp() {
+        transport = HttpTransport.builder().baseUrl("http://127.0.0.1:8080/v2").build();
+        petApi = new PetApi(transport);
+        storeApi = new StoreApi(transport);
+        userApi = new UserApi(transport);
+        pet = Fixtures.pet();
+        order = Fixtures.order();
+        user = Fixtures.user();
+        users = Arrays.asList(Fixtures.user(), Fixtures.user(), Fixtures.user());
+    }
+
+    @TearDown
+    public void tearDown() {
+        transport.shutdown();
+    }
+
+    @Benchmark
+    public HttpRequest createPet() {
+        return petApi.createPetRequest(pet);
+    }
+
+    @Benchmark
+    public HttpRequest updatePet() {
+        return petApi.updatePetRequest(pet);
+    }
+
+    @Benchmark
+    public HttpRequest updatePetUsingPost() {
+        return petApi.updatePetUsingPostRequest(pet);
+    }
+
+    @Benchmark
+    public HttpRequest getPetsByStatus() {
+        return petApi.getPetsByStatusRequest("available");
+    }
+
+    @Benchmark
+    public HttpRequest getPetById() {
+        return petApi.getPetByIdRequest(pet.getId());
+    }
+
+    @Benchmark
+    public HttpRequest deletePet() {
+        return petApi.deletePetRequest(pet.getId(), "special-key");
+    }
+
+    @Benchmark
+    public HttpRequest placeOrder() {
+        return storeApi.placeOrderRequest(order);
+    }
+
+    @Benchmark
+    public HttpRequest getOrderById() {
+        return storeApi.getOrderByIdRequest(order.getId());
+    }
+
+    @Benchmark
+    public HttpRequest deleteOrder() {
+        return storeApi.deleteOrderRequest(order.getId());
+    }
+
+    @Benchmark
+    public HttpRequest getInventory() {
+        return storeApi.getInventoryRequest();
+    }
+
+    @Benchmark
+    public HttpRequest createUser() {
+        return userApi.createUserRequest(user);
+    }
+
+    @Benchmark
+    public HttpRequest createUsersWithArray() {
+        return userApi.createUsersWithArrayRequest(users);
+    }
+
+    @Benchmark
+    public HttpRequest createUsersWithList() {
+        return userApi.createUsersWithListRequest(users);
+    }
+
+    @Benchmark
+    public HttpRequest getUserByUsername() {
+        return userApi.getUserByUsernameRequest(user.getUsername());
+    }
+
+    @Benchmark
+    public HttpRequest updateUser() {
+        return userApi.updateUserRequest(user.getUsername(), user);
+    }
+
+    @Benchmark
+    public HttpRequest deleteUser() {
+        return userApi.deleteUserRequest(user.getUsername());
+    }
+
+    @Benchmark
+    public HttpRequest loginUser() {
+        return userApi.loginUserRequest(user.getUsername(), user.getPassword());
+    }
+
+    @Benchmark
+    public HttpRequest logoutUser() {
+        return userApi.logoutUserRequest();
+    }
+}
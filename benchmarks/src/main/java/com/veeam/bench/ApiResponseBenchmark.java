@@ -0,0 +1,65 @@
+package com.veeam.bench;
+
+import com.veeam.dto.Pet;
+import com.veeam.utils.ApiResponse;
+
+import java.net.http.HttpHeaders;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of wrapping a received body in an ApiResponse and of the ways tests read it:
+ * status only, decoded String body, and typed binding to a DTO.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiResponseBenchmark {
+
+    private byte[] body;
+    private HttpHeaders headers;
+
+    @Setup
+    public void setUp() {
+        body = Fixtures.pet().toJson().getBytes(StandardCharsets.UTF_8);
+        headers = HttpHeaders.of(Map.of("Content-Type", List.of("application/json"),
+                "Date", List.of("Sat, 18 Oct 2025 10:00:00 GMT")), (name, value) -> true);
+    }
+
+    @Benchmark
+    public int statusOnly() {
+        return new ApiResponse(200, body, headers, Duration.ZERO).getStatusCode();
+    }
+
+    @Benchmark
+    public String decodedBody() {
+        return new ApiResponse(200, body, headers, Duration.ZERO).getBody();
+    }
+
+    @Benchmark
+    public Pet boundDto() {
+        return new ApiResponse(200, body, headers, Duration.ZERO).as(Pet.class);
+    }
+
+    @Benchmark
+    public String syntheticResponse() {
+        return new ApiResponse(500, "Internal server error").getBody();
+    }
+}
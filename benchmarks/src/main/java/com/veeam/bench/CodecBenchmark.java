@@ -0,0 +1,150 @@
+package com.veeam.bench;
+
+import com.google.gson.Gson;
+import com.veeam.dto.Pet;
+import com.veeam.dto.Store;
+import com.veeam.dto.User;
+import com.veeam.json.GsonCodec;
+import com.veeam.json.JsonCodec;
+import com.veeam.json.JsonCodecs;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serialization, parsing and round trip of one Pet, User and Store per codec.
+ * "gson-per-call" reproduces the old DTO code that built a new Gson for every call.
+ * Add -prof gc for bytes allocated per operation (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecBenchmark {
+
+    @Param({"gson-per-call", "gson", "jackson", "handwritten", "generated"})
+    public String codec;
+
+    private JsonCodec json;
+    private Pet pet;
+    private User user;
+    private Store order;
+    private String petJson;
+    private String userJson;
+    private String orderJson;
+
+    @Setup
+    public void setUp() {
+        json = "gson-per-call".equals(codec) ? new PerCallGsonCodec() : JsonCodecs.byName(codec);
+        pet = Fixtures.pet();
+        user = Fixtures.user();
+        order = Fixtures.order();
+        petJson = json.toJson(pet);
+        userJson = json.toJson(user);
+        orderJson = json.toJson(order);
+    }
+
+    @Benchmark
+    public String petToJson() {
+        return json.toJson(pet);
+    }
+
+    @Benchmark
+    public Pet petFromJson() {
+        return json.fromJson(petJson, Pet.class);
+    }
+
+    @Benchmark
+    public String userToJson() {
+        return json.toJson(user);
+    }
+
+    @Benchmark
+    public User userFromJson() {
+        return json.fromJson(userJson, User.class);
+    }
+
+    @Benchmark
+    public String storeToJson() {
+        return json.toJson(order);
+    }
+
+    // What a write request used to pay: String, then a second pass encoding it for ofString
+    @Benchmark
+    public byte[] storeToBodyViaString() {
+        return json.toJson(order).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] storeToJsonBytes() {
+        return json.toJsonBytes(order);
+    }
+
+    @Benchmark
+    public byte[] petToJsonBytes() {
+        return json.toJsonBytes(pet);
+    }
+
+    @Benchmark
+    public Store storeFromJson() {
+        return json.fromJson(orderJson, Store.class);
+    }
+
+    @Benchmark
+    public Pet petRoundTrip() {
+        return json.fromJson(json.toJson(pet), Pet.class);
+    }
+
+    @Benchmark
+    public User userRoundTrip() {
+        return json.fromJson(json.toJson(user), User.class);
+    }
+
+    @Benchmark
+    public Store storeRoundTrip() {
+        return json.fromJson(json.toJson(order), Store.class);
+    }
+
+    // Baseline: the DTOs used to create a new Gson on every call
+    static final class PerCallGsonCodec implements JsonCodec {
+        @Override
+        public String name() {
+            return "gson-per-call";
+        }
+
+        @Override
+        public String toJson(Object value) {
+            return new Gson().toJson(value);
+        }
+
+        @Override
+        public <T> T fromJson(String json, Class<T> type) {
+            return new Gson().fromJson(json, type);
+        }
+
+        @Override
+        public String toJsonArray(List<?> values) {
+            return new Gson().toJson(values);
+        }
+
+        @Override
+        public <T> List<T> fromJsonArray(String json, Class<T> elementType) {
+            return new GsonCodec(new Gson()).fromJsonArray(json, elementType);
+        }
+    }
+}
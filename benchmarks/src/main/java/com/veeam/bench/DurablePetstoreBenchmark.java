@@ -0,0 +1,86 @@
+package com.veeam.bench;
+
+import com.veeam.dto.Pet;
+import com.veeam.server.DurablePetstore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Write throughput of DurablePetstore per sync policy, with concurrent writers so GROUP can share fsyncs.
+ * The log lives in a temporary directory on the default file system; point java.io.tmpdir at the disk
+ * to measure. Compare the scores against ALWAYS (one fsync per write) and NONE (no fsync at all).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class DurablePetstoreBenchmark {
+
+    @Param({"ALWAYS", "GROUP", "INTERVAL", "NONE"})
+    public DurablePetstore.SyncPolicy syncPolicy;
+
+    @Param({"100000"})
+    public int pets;
+
+    private Path directory;
+    private DurablePetstore store;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("durable-petstore");
+        store = DurablePetstore.builder(directory)
+                .syncPolicy(syncPolicy)
+                .snapshotInterval(null)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.out.printf("%n%s: %d fsyncs, %d MB logged%n", syncPolicy, store.getSyncs(), store.getLogBytes() >> 20);
+        store.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Pet savePet() {
+        long id = ThreadLocalRandom.current().nextInt(1, pets + 1);
+        Pet pet = new Pet();
+        pet.setId(id);
+        pet.setName("pet-" + id);
+        pet.setStatus("available");
+        return store.savePet(pet);
+    }
+
+    @Benchmark
+    public Pet updatePetStatus() {
+        long id = ThreadLocalRandom.current().nextInt(1, pets + 1);
+        Pet updated = store.updatePet(id, null, (id & 1) == 0 ? "sold" : "pending");
+        return updated != null ? updated : savePet();
+    }
+}
@@ -0,0 +1,93 @@
+package com.veeam.bench;
+
+import com.veeam.api.PetApi;
+import com.veeam.api.StoreApi;
+import com.veeam.api.UserApi;
+import com.veeam.dto.Pet;
+import com.veeam.dto.User;
+import com.veeam.http.HttpTransport;
+
+import java.net.http.HttpClient;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Whole API calls, from the *Api method to the parsed result, against a loopback endpoint
+ * that answers every request with the same Pet JSON. Single-threaded, so ops/sec and
+ * -prof gc allocation per call reflect the client path rather than contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EndToEndBenchmark {
+
+    private LoopbackServer server;
+    private HttpTransport transport;
+    private PetApi petApi;
+    private StoreApi storeApi;
+    private UserApi userApi;
+    private Pet pet;
+    private User user;
+
+    @Setup
+    public void setUp() throws Exception {
+        Logger.getLogger(PetApi.class.getName()).setLevel(Level.WARNING);  // keep header logging out of the measurement
+        pet = Fixtures.pet();
+        user = Fixtures.user();
+        server = new LoopbackServer(pet.toJson());
+        transport = HttpTransport.builder()
+                .baseUrl(server.getBaseUrl() + "/v2")
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        petApi = new PetApi(transport);
+        storeApi = new StoreApi(transport);
+        userApi = new UserApi(transport);
+    }
+
+    @TearDown
+    public void tearDown() {
+        transport.shutdown();
+        server.close();
+    }
+
+    @Benchmark
+    public Pet getPetById() {
+        return petApi.getPetById(pet.getId());
+    }
+
+    @Benchmark
+    public int createPet() {
+        return petApi.createPet(pet).getStatusCode();
+    }
+
+    @Benchmark
+    public int getInventory() {
+        return storeApi.getInventory().getStatusCode();
+    }
+
+    @Benchmark
+    public int createUser() {
+        return userApi.createUser(user).getStatusCode();
+    }
+
+    @Benchmark
+    public Pet getPetByIdAsync() {
+        return petApi.getPetByIdAsync(pet.getId()).join();
+    }
+}
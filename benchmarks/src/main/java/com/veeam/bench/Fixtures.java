@@ -0,0 +1,57 @@
+package com.veeam.bench;
+
+import com.veeam.dto.Pet;
+import com.veeam.dto.Store;
+import com.veeam.dto.User;
+
+import java.util.Arrays;
+
+/**
+ * Representative DTOs shared by the benchmarks.
+ */
+public final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    public static Pet pet() {
+        Pet pet = new Pet();
+        pet.setId(9_223_372_000_001L);
+        pet.setName("Rex");
+        pet.setStatus("available");
+        Pet.Category category = new Pet.Category();
+        category.setId(1);
+        category.setName("Dogs");
+        pet.setCategory(category);
+        pet.setPhotoUrls(Arrays.asList("https://example.com/photos/rex-1.jpg", "https://example.com/photos/rex-2.jpg"));
+        Pet.Tag tag = new Pet.Tag();
+        tag.setId(3);
+        tag.setName("friendly");
+        pet.setTags(Arrays.asList(tag));
+        return pet;
+    }
+
+    public static User user() {
+        User user = new User();
+        user.setId(1001);
+        user.setUsername("johnDoe");
+        user.setFirstName("John");
+        user.setLastName("Doe");
+        user.setEmail("johndoe@example.com");
+        user.setPassword("password123");
+        user.setPhone("123-456-7890");
+        user.setUserStatus(1);
+        return user;
+    }
+
+    public static Store order() {
+        Store order = new Store();
+        order.setId(10);
+        order.setPetId(9_223_372_000_001L);
+        order.setQuantity(2);
+        order.setShipDate("2024-12-31T20:35:51.374Z");
+        order.setStatus("placed");
+        order.setComplete(true);
+        return order;
+    }
+}
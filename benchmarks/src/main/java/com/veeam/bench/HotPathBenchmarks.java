@@ -0,0 +1,39 @@
+package com.veeam.bench;
+
+import java.util.Arrays;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the client hot-path benchmarks with the GC profiler and writes the results as JSON,
+ * so ops/sec and gc.alloc.rate.norm can be compared between releases.
+ * Usage: java -cp benchmarks.jar com.veeam.bench.HotPathBenchmarks [result.json] [extra JMH options]
+ */
+public final class HotPathBenchmarks {
+
+    private HotPathBenchmarks() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        String resultFile = args.length > 0 && args[0].endsWith(".json") ? args[0] : "jmh-result.json";
+        String[] jmhArgs = args.length > 0 && args[0].endsWith(".json")
+                ? Arrays.copyOfRange(args, 1, args.length)
+                : args;
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(jmhArgs))
+                .include("com\\.veeam\\.api\\.RequestConstructionBenchmark")
+                .include("CodecBenchmark")
+                .include("ApiResponseBenchmark")
+                .include("EndToEndBenchmark")
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile)
+                .build()).run();
+    }
+}
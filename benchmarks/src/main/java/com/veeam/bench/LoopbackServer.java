@@ -0,0 +1,73 @@
+package com.veeam.bench;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Minimal in-process HTTP endpoint answering every request with a fixed JSON body,
+ * so client-side costs can be measured without a remote server in the loop.
+ */
+public final class LoopbackServer implements AutoCloseable {
+
+    static {
+        // Headers and body are written separately; without TCP_NODELAY every keep-alive
+        // response waits for the client's delayed ACK (~40 ms on Linux).
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public LoopbackServer(String body) throws IOException {
+        this(body, 0);
+    }
+
+    /**
+     * @param body JSON body of every response
+     * @param delayMillis Simulated server latency; each delayed request holds a server thread
+     */
+    public LoopbackServer(String body, long delayMillis) throws IOException {
+        byte[] payload = body.getBytes(StandardCharsets.UTF_8);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4096);
+        this.executor = delayMillis > 0
+                ? Executors.newCachedThreadPool()
+                : Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, payload.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(payload);
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * @return Base URL of the server, e.g. http://127.0.0.1:54321
+     */
+    public String getBaseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
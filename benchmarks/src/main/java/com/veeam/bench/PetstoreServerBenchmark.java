@@ -0,0 +1,116 @@
+package com.veeam.bench;
+
+import com.veeam.api.PetApi;
+import com.veeam.api.StoreApi;
+import com.veeam.dto.Pet;
+import com.veeam.dto.Store;
+import com.veeam.http.HttpTransport;
+import com.veeam.server.InMemoryPetstore;
+import com.veeam.server.PetstoreServer;
+
+import java.net.http.HttpClient;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the embedded PetstoreServer under concurrent clients, through the real API classes.
+ * The store is preloaded with {@code pets} pets; findByStatus asks for a rare status, so its cost
+ * shows whether lookups go through the status index or scale with the number of stored pets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class PetstoreServerBenchmark {
+
+    private static final String[] STATUSES = {"available", "pending", "sold"};
+
+    @Param({"100000"})
+    public int pets;
+
+    @Param({"0"})
+    public int serverThreads;
+
+    private PetstoreServer server;
+    private HttpTransport transport;
+    private PetApi petApi;
+    private StoreApi storeApi;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        InMemoryPetstore store = new InMemoryPetstore();
+        for (int i = 1; i <= pets; i++) {
+            store.savePet(pet(i, i % 1000 == 0 ? "rare" : STATUSES[i % STATUSES.length]));
+        }
+        int threads = serverThreads > 0 ? serverThreads : Runtime.getRuntime().availableProcessors() * 2;
+        server = new PetstoreServer(0, threads, store);
+        transport = HttpTransport.builder()
+                .baseUrl(server.getBaseUrl())
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        petApi = new PetApi(transport);
+        storeApi = new StoreApi(transport);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.close();
+        transport.shutdown();
+    }
+
+    @Benchmark
+    public Pet getPetById() {
+        return petApi.getPetById(ThreadLocalRandom.current().nextInt(1, pets + 1));
+    }
+
+    @Benchmark
+    public int updatePet() {
+        long id = ThreadLocalRandom.current().nextInt(1, pets + 1);
+        return petApi.updatePet(pet(id, STATUSES[(int) (id % STATUSES.length)])).getStatusCode();
+    }
+
+    @Benchmark
+    public int findRareStatus() {
+        return petApi.getPetsByStatus("rare").getBodyLength();
+    }
+
+    @Benchmark
+    public int getInventory() {
+        return storeApi.getInventory().getBodyLength();
+    }
+
+    @Benchmark
+    public int placeOrder() {
+        Store order = new Store();
+        order.setPetId(ThreadLocalRandom.current().nextInt(1, pets + 1));
+        order.setQuantity(1);
+        order.setStatus("placed");
+        return storeApi.placeOrder(order).getStatusCode();
+    }
+
+    private static Pet pet(long id, String status) {
+        Pet pet = new Pet();
+        pet.setId(id);
+        pet.setName("pet-" + id);
+        pet.setStatus(status);
+        return pet;
+    }
+}
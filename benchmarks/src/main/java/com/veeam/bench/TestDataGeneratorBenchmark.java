@@ -0,0 +1,56 @@
+package com.veeam.bench;
+
+import com.veeam.data.TestDataGenerator;
+import com.veeam.dto.Pet;
+import com.veeam.dto.Store;
+import com.veeam.dto.User;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Objects per second and bytes allocated per object of TestDataGenerator, shared by all threads
+ * like in a parallel load run. Run with -prof gc.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class TestDataGeneratorBenchmark {
+
+    private TestDataGenerator generator;
+
+    @Setup
+    public void setUp() {
+        generator = TestDataGenerator.builder().seed(42).node(1).build();
+    }
+
+    @Benchmark
+    public Pet nextPet() {
+        return generator.nextPet();
+    }
+
+    @Benchmark
+    public User nextUser() {
+        return generator.nextUser();
+    }
+
+    @Benchmark
+    public Store nextOrder() {
+        return generator.nextOrder();
+    }
+}
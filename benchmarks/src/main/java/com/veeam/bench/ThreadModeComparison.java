@@ -0,0 +1,106 @@
+package com.veeam.bench;
+
+import com.veeam.http.HttpTransport;
+import com.veeam.http.VirtualThreads;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compares the blocking request path on platform threads and on virtual threads.
+ * Every caller thread loops over transport.execute() against a loopback server with simulated latency,
+ * so the number of requests in flight equals the number of callers.
+ *
+ * Usage: java -cp benchmarks/target/benchmarks.jar com.veeam.bench.ThreadModeComparison [callers] [seconds] [serverDelayMs]
+ */
+public final class ThreadModeComparison {
+
+    private ThreadModeComparison() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int callers = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        long delayMillis = args.length > 2 ? Long.parseLong(args[2]) : 50;
+
+        try (LoopbackServer server = new LoopbackServer("{\"available\":1}", delayMillis)) {
+            URI target = URI.create(server.getBaseUrl() + "/v2/store/inventory");
+            System.out.printf("callers=%d duration=%ds serverDelay=%dms%n", callers, seconds, delayMillis);
+            System.out.printf("%-9s %12s %10s %14s %16s%n", "mode", "requests/s", "errors", "peak threads", "heap/in-flight");
+
+            run("platform", Executors.newFixedThreadPool(callers), callers, seconds, target);
+            if (VirtualThreads.isSupported()) {
+                run("virtual", VirtualThreads.newExecutor(), callers, seconds, target);
+            } else {
+                System.out.printf("%-9s skipped, virtual threads need Java 21+ (running %s)%n", "virtual", Runtime.version());
+            }
+        }
+    }
+
+    private static void run(String mode, ExecutorService callerPool, int callers, int seconds, URI target)
+            throws Exception {
+        HttpTransport transport = HttpTransport.fromConfiguration()
+                .maxInFlight(callers)
+                .virtualThreads("virtual".equals(mode))
+                .build();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+
+        LongAdder completed = new LongAdder();
+        LongAdder errors = new LongAdder();
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger started = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(callers);
+        HttpRequest request = HttpRequest.newBuilder().uri(target).GET().build();
+
+        for (int i = 0; i < callers; i++) {
+            callerPool.execute(() -> {
+                started.incrementAndGet();
+                try {
+                    while (running.get()) {
+                        try {
+                            if (transport.execute(request).getStatusCode() == 200) {
+                                completed.increment();
+                            } else {
+                                errors.increment();
+                            }
+                        } catch (Exception e) {
+                            errors.increment();
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        // Measure memory once every caller is running and blocked in a request
+        TimeUnit.SECONDS.sleep(Math.max(1, seconds / 2));
+        int peakThreads = ManagementFactory.getThreadMXBean().getThreadCount();
+        long heapInFlight = memory.getHeapMemoryUsage().getUsed() - heapBefore;
+        long countedFrom = completed.sum();
+        long startNanos = System.nanoTime();
+        TimeUnit.SECONDS.sleep(seconds - seconds / 2);
+        double elapsed = (System.nanoTime() - startNanos) / 1e9;
+        long measured = completed.sum() - countedFrom;
+
+        running.set(false);
+        done.await(30, TimeUnit.SECONDS);
+        callerPool.shutdown();
+        transport.shutdown();
+
+        int inFlight = Math.max(1, started.get());
+        System.out.printf("%-9s %12.0f %10d %14d %13d KB%n", mode, measured / elapsed, errors.sum(),
+                peakThreads, heapInFlight / inFlight / 1024);
+    }
+}
@@ -0,0 +1,96 @@
+package com.veeam.bench;
+
+import com.veeam.http.HttpTransport;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Connection reuse through one shared transport versus the old one-client-per-API-instance setup.
+ * JUnit creates a test class instance per test method, so "perInstance" builds a fresh client
+ * every {@code callsPerInstance} calls. Throughput mode gives requests/sec, SampleTime gives p99.
+ *
+ * Run against a remote server (to include TLS handshakes) with -p url=https://petstore.swagger.io/v2/store/inventory
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class TransportBenchmark {
+
+    @Param({""})
+    public String url;
+
+    @Param({"1"})
+    public int callsPerInstance;
+
+    private LoopbackServer server;
+    private HttpTransport sharedTransport;
+    private URI target;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        if (url.isEmpty()) {
+            server = new LoopbackServer("{\"available\":1,\"sold\":2}");
+            target = URI.create(server.getBaseUrl() + "/v2/store/inventory");
+        } else {
+            target = URI.create(url);
+        }
+        sharedTransport = HttpTransport.fromConfiguration().build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sharedTransport.shutdown();
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class PerInstanceClient {
+        HttpTransport transport;
+        int calls;
+
+        HttpTransport next(int callsPerInstance) {
+            if (transport == null || calls++ % callsPerInstance == 0) {
+                transport = HttpTransport.fromConfiguration().build();
+            }
+            return transport;
+        }
+    }
+
+    @Benchmark
+    public int sharedTransport() throws Exception {
+        return call(sharedTransport);
+    }
+
+    @Benchmark
+    public int clientPerInstance(PerInstanceClient state) throws Exception {
+        return call(state.next(callsPerInstance));
+    }
+
+    private int call(HttpTransport transport) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder().uri(target).GET().build();
+        return transport.execute(request).getStatusCode();
+    }
+}
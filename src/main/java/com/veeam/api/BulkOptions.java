@@ -0,0 +1,46 @@
+package com.veeam.api;
+
+import com.veeam.config.TestConfiguration;
+
+/**
+ * How UserApi splits a bulk user import: users per request and requests in flight at once.
+ */
+public final class BulkOptions {
+
+    private final int chunkSize;
+    private final int parallelism;
+
+    /**
+     * @param chunkSize Users per createWithArray/createWithList request
+     * @param parallelism Chunks sent concurrently
+     */
+    public BulkOptions(int chunkSize, int parallelism) {
+        if (chunkSize <= 0 || parallelism <= 0) {
+            throw new IllegalArgumentException("Chunk size and parallelism must be positive: " + chunkSize + ", " + parallelism);
+        }
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Read bulk.chunkSize (default 1000) and bulk.parallelism (default 4).
+     * @return The configured options
+     */
+    public static BulkOptions fromConfiguration() {
+        return new BulkOptions(Integer.parseInt(TestConfiguration.getProperty("bulk.chunkSize", "1000")),
+                Integer.parseInt(TestConfiguration.getProperty("bulk.parallelism", "4")));
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    @Override
+    public String toString() {
+        return "chunkSize=" + chunkSize + ", parallelism=" + parallelism;
+    }
+}
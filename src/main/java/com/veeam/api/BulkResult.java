@@ -0,0 +1,114 @@
+package com.veeam.api;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Outcome of a chunked bulk user import, one ChunkResult per request sent.
+ */
+public final class BulkResult {
+
+    private final List<ChunkResult> chunks;
+    private final Duration elapsed;
+
+    BulkResult(List<ChunkResult> chunks, Duration elapsed) {
+        this.chunks = Collections.unmodifiableList(chunks);
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * @return Results in input order
+     */
+    public List<ChunkResult> getChunks() {
+        return chunks;
+    }
+
+    public List<ChunkResult> getFailedChunks() {
+        return chunks.stream().filter(chunk -> !chunk.isSuccessful()).collect(Collectors.toList());
+    }
+
+    public boolean isSuccessful() {
+        return chunks.stream().allMatch(ChunkResult::isSuccessful);
+    }
+
+    /**
+     * @return Users in chunks the server accepted
+     */
+    public long getCreated() {
+        return chunks.stream().filter(ChunkResult::isSuccessful).mapToLong(ChunkResult::getSize).sum();
+    }
+
+    /**
+     * @return Wall-clock time from the first request to the last response
+     */
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    public double getUsersPerSecond() {
+        return getCreated() / (Math.max(elapsed.toNanos(), 1) / 1e9);
+    }
+
+    @Override
+    public String toString() {
+        return chunks.size() + " chunks, " + getCreated() + " users created, " + getFailedChunks().size()
+                + " chunks failed in " + elapsed.toMillis() + " ms";
+    }
+
+    /**
+     * One createWithArray/createWithList request of the import.
+     */
+    public static final class ChunkResult {
+        private final int index;
+        private final int offset;
+        private final int size;
+        private final int statusCode;
+        private final String message;
+        private final Duration elapsed;
+
+        ChunkResult(int index, int offset, int size, int statusCode, String message, Duration elapsed) {
+            this.index = index;
+            this.offset = offset;
+            this.size = size;
+            this.statusCode = statusCode;
+            this.message = message;
+            this.elapsed = elapsed;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * @return Position of the chunk's first user in the input list
+         */
+        public int getOffset() {
+            return offset;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        /**
+         * @return Response body of a failed chunk, null for successful ones
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        public Duration getElapsed() {
+            return elapsed;
+        }
+
+        public boolean isSuccessful() {
+            return statusCode >= 200 && statusCode < 300;
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.veeam.api;
+
+import com.veeam.config.TestConfiguration;
+import com.veeam.dto.User;
+import com.veeam.utils.ApiResponse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.IntFunction;
+import java.util.logging.Logger;
+
+/**
+ * Finds the chunk size and parallelism for bulk user imports against one target.
+ * The calibration first ramps the chunk size at fixed parallelism, then ramps the parallelism
+ * at the chosen chunk size. Each step sends real createWithArray requests and measures users/s
+ * and chunk latency. A ramp stops at the knee: the first step that adds less than minGain
+ * throughput, or whose p99 chunk latency exceeds the limit. The last step before the knee wins,
+ * so the result is the smallest setting that reaches close to peak throughput.
+ * <p>
+ * A step never sends more than maxUsersPerStep users, and settings whose single round of chunks
+ * would exceed that end the ramp. The users of each step are deleted again after it is measured.
+ */
+public final class BulkTuner {
+
+    private static final Logger logger = Logger.getLogger(BulkTuner.class.getName());
+    private static final ConcurrentMap<String, CompletableFuture<BulkOptions>> calibrated = new ConcurrentHashMap<>();
+
+    private final UserApi userApi;
+    private final List<Integer> chunkSizes;
+    private final List<Integer> parallelisms;
+    private final int usersPerStep;
+    private final int maxUsersPerStep;
+    private final double minGain;
+    private final long maxLatencyMillis;
+
+    private BulkTuner(Builder builder) {
+        this.userApi = builder.userApi;
+        this.chunkSizes = builder.chunkSizes;
+        this.parallelisms = builder.parallelisms;
+        this.usersPerStep = builder.usersPerStep;
+        this.maxUsersPerStep = builder.maxUsersPerStep;
+        this.minGain = builder.minGain;
+        this.maxLatencyMillis = builder.maxLatencyMillis;
+    }
+
+    public static Builder builder(UserApi userApi) {
+        return new Builder(userApi);
+    }
+
+    /**
+     * Options for bulk imports through this UserApi: calibrated once per base URL when
+     * bulk.autoTune=true, otherwise BulkOptions.fromConfiguration(). The first caller for a URL runs
+     * the calibration on its own thread; concurrent callers for the same URL wait for its result,
+     * callers for other URLs are not held up.
+     * @param userApi The API the import is sent through
+     * @return Options to import with
+     */
+    public static BulkOptions optionsFor(UserApi userApi) {
+        if (!Boolean.parseBoolean(TestConfiguration.getProperty("bulk.autoTune", "false"))) {
+            return BulkOptions.fromConfiguration();
+        }
+        String url = userApi.getBaseUrl();
+        CompletableFuture<BulkOptions> calibration = new CompletableFuture<>();
+        CompletableFuture<BulkOptions> existing = calibrated.putIfAbsent(url, calibration);
+        if (existing != null) {
+            return existing.join();
+        }
+        try {
+            calibration.complete(builder(userApi).build().calibrate().getBest());
+        } catch (RuntimeException e) {
+            calibrated.remove(url, calibration);  // let a later call try again
+            calibration.completeExceptionally(e);
+            throw e;
+        }
+        return calibration.join();
+    }
+
+    /**
+     * Run the calibration. Each step creates between usersPerStep and maxUsersPerStep users named
+     * bulk-calibration-*, and deletes them once measured. When the target rejects the first chunk
+     * size, BulkOptions.fromConfiguration() is chosen; when it rejects the first parallelism, the
+     * best chunk size step is kept.
+     * @return The chosen options and every step measured
+     */
+    public Calibration calibrate() {
+        List<Step> steps = new ArrayList<>();
+        int parallelism = parallelisms.get(Math.min(1, parallelisms.size() - 1));
+        Step bestChunk = ramp(steps, chunkSizes, size -> new BulkOptions(size, parallelism));
+        if (bestChunk == null) {
+            BulkOptions configured = BulkOptions.fromConfiguration();
+            logger.warning("Bulk import calibration for " + userApi.getBaseUrl() + " failed at " + steps.get(0)
+                    + ", using " + configured);
+            return new Calibration(configured, steps);
+        }
+        int chunkSize = bestChunk.getOptions().getChunkSize();
+        Step best = ramp(steps, parallelisms, threads -> new BulkOptions(chunkSize, threads));
+        if (best == null) {
+            best = bestChunk;
+        }
+        logger.info("Bulk import calibrated for " + userApi.getBaseUrl() + ": " + best);
+        return new Calibration(best.getOptions(), steps);
+    }
+
+    // Returns null when the first setting of the ramp already fails
+    private Step ramp(List<Step> steps, List<Integer> values, IntFunction<BulkOptions> options) {
+        Step best = null;
+        for (int value : values) {
+            BulkOptions next = options.apply(value);
+            if (best != null && (long) next.getChunkSize() * next.getParallelism() > maxUsersPerStep) {
+                logger.fine("Calibration stops before " + next + ": one round exceeds " + maxUsersPerStep + " users");
+                break;  // values are ascending, so every later setting is larger still
+            }
+            Step step = measure(next);
+            steps.add(step);
+            if (best != null && (step.getUsersPerSecond() < best.getUsersPerSecond() * (1 + minGain)
+                    || step.getP99Millis() > maxLatencyMillis)) {
+                break;  // past the knee
+            }
+            if (!step.isSuccessful()) {
+                break;  // the target rejects this setting, e.g. request too large
+            }
+            best = step;
+        }
+        return best;
+    }
+
+    private Step measure(BulkOptions options) {
+        // A few rounds of chunks so every sender completes more than one request, within the cap
+        long rounds = (long) options.getChunkSize() * options.getParallelism() * 3;
+        int count = (int) Math.max(usersPerStep, Math.min(rounds, maxUsersPerStep));
+        List<User> users = new ArrayList<>(count);
+        String prefix = "bulk-calibration-" + Long.toString(System.nanoTime(), 36) + "-";
+        for (int i = 0; i < count; i++) {
+            User user = new User();
+            user.setUsername(prefix + i);
+            user.setPassword("calibration");
+            users.add(user);
+        }
+        BulkResult result = userApi.createUsersWithArrayChunked(users, options);
+        long[] latencies = result.getChunks().stream().mapToLong(chunk -> chunk.getElapsed().toNanos()).sorted().toArray();
+        long p50 = latencies[(int) Math.ceil(latencies.length * 0.50) - 1];
+        long p99 = latencies[(int) Math.ceil(latencies.length * 0.99) - 1];
+        Step step = new Step(options, result.getUsersPerSecond(), p50 / 1e6, p99 / 1e6, result.isSuccessful());
+        logger.fine("Calibration step " + step);
+        delete(users, result, options.getParallelism());
+        return step;
+    }
+
+    // Deletes the users of the accepted chunks, at most `parallelism` requests at a time
+    private void delete(List<User> users, BulkResult result, int parallelism) {
+        List<CompletableFuture<ApiResponse>> inFlight = new ArrayList<>();
+        int failed = 0;
+        for (BulkResult.ChunkResult chunk : result.getChunks()) {
+            if (!chunk.isSuccessful()) {
+                continue;
+            }
+            for (User user : users.subList(chunk.getOffset(), chunk.getOffset() + chunk.getSize())) {
+                inFlight.add(userApi.deleteUserAsync(user.getUsername()));
+                if (inFlight.size() == parallelism) {
+                    failed += awaitDeleted(inFlight);
+                }
+            }
+        }
+        failed += awaitDeleted(inFlight);
+        if (failed > 0) {
+            logger.warning(failed + " calibration users could not be deleted");
+        }
+    }
+
+    private static int awaitDeleted(List<CompletableFuture<ApiResponse>> inFlight) {
+        int failed = 0;
+        for (CompletableFuture<ApiResponse> delete : inFlight) {
+            ApiResponse response = delete.handle((ok, error) -> ok).join();
+            if (response == null || response.getStatusCode() != 200) {
+                failed++;
+            }
+        }
+        inFlight.clear();
+        return failed;
+    }
+
+    /**
+     * Result of a calibration run.
+     */
+    public static final class Calibration {
+        private final BulkOptions best;
+        private final List<Step> steps;
+
+        Calibration(BulkOptions best, List<Step> steps) {
+            this.best = best;
+            this.steps = Collections.unmodifiableList(steps);
+        }
+
+        public BulkOptions getBest() {
+            return best;
+        }
+
+        /**
+         * @return Every measured step, in the order it ran
+         */
+        public List<Step> getSteps() {
+            return steps;
+        }
+    }
+
+    /**
+     * Throughput and chunk latency of one setting.
+     */
+    public static final class Step {
+        private final BulkOptions options;
+        private final double usersPerSecond;
+        private final double p50Millis;
+        private final double p99Millis;
+        private final boolean successful;
+
+        Step(BulkOptions options, double usersPerSecond, double p50Millis, double p99Millis, boolean successful) {
+            this.options = options;
+            this.usersPerSecond = usersPerSecond;
+            this.p50Millis = p50Millis;
+            this.p99Millis = p99Millis;
+            this.successful = successful;
+        }
+
+        public BulkOptions getOptions() {
+            return options;
+        }
+
+        public double getUsersPerSecond() {
+            return usersPerSecond;
+        }
+
+        public double getP50Millis() {
+            return p50Millis;
+        }
+
+        public double getP99Millis() {
+            return p99Millis;
+        }
+
+        /**
+         * @return Whether every chunk of the step was accepted
+         */
+        public boolean isSuccessful() {
+            return successful;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s: %.0f users/s, chunk p50 %.1f ms, p99 %.1f ms%s",
+                    options, usersPerSecond, p50Millis, p99Millis, successful ? "" : ", failed chunks");
+        }
+    }
+
+    /**
+     * Ramp values and knee criteria of a calibration.
+     */
+    public static final class Builder {
+        private final UserApi userApi;
+        private List<Integer> chunkSizes = Arrays.asList(50, 100, 250, 500, 1000, 2500, 5000);
+        private List<Integer> parallelisms = Arrays.asList(1, 2, 4, 8, 16, 32);
+        private int usersPerStep = 5000;
+        private int maxUsersPerStep = 20_000;
+        private double minGain = 0.10;
+        private long maxLatencyMillis = 5000;
+
+        private Builder(UserApi userApi) {
+            this.userApi = userApi;
+        }
+
+        /**
+         * Chunk sizes to try, ascending.
+         */
+        public Builder chunkSizes(Integer... chunkSizes) {
+            this.chunkSizes = Arrays.asList(chunkSizes);
+            return this;
+        }
+
+        /**
+         * Parallelism values to try, ascending. The chunk size ramp runs at the second value.
+         */
+        public Builder parallelisms(Integer... parallelisms) {
+            this.parallelisms = Arrays.asList(parallelisms);
+            return this;
+        }
+
+        /**
+         * Minimum users sent per step; larger settings send more, up to maxUsersPerStep.
+         */
+        public Builder usersPerStep(int usersPerStep) {
+            this.usersPerStep = usersPerStep;
+            return this;
+        }
+
+        /**
+         * Most users a step may create, 20,000 by default. A ramp stops at the first setting
+         * whose chunk size times parallelism is above it.
+         */
+        public Builder maxUsersPerStep(int maxUsersPerStep) {
+            this.maxUsersPerStep = maxUsersPerStep;
+            return this;
+        }
+
+        /**
+         * Relative throughput gain a step must add to be worth taking, 0.10 by default.
+         */
+        public Builder minGain(double minGain) {
+            this.minGain = minGain;
+            return this;
+        }
+
+        /**
+         * Chunk p99 latency above which a setting is rejected, in milliseconds.
+         */
+        public Builder maxLatencyMillis(long maxLatencyMillis) {
+            this.maxLatencyMillis = maxLatencyMillis;
+            return this;
+        }
+
+        public BulkTuner build() {
+            if (chunkSizes.isEmpty() || parallelisms.isEmpty()) {
+                throw new IllegalArgumentException("Calibration needs at least one chunk size and one parallelism");
+            }
+            if (usersPerStep < 1 || maxUsersPerStep < usersPerStep) {
+                throw new IllegalArgumentException("Need 0 < usersPerStep <= maxUsersPerStep");
+            }
+            return new BulkTuner(this);
+        }
+    }
+}
@@ -1,26 +1,52 @@
 package com.veeam.api;
 
 import com.veeam.dto.Pet;
+import com.veeam.http.HttpTransport;
+import com.veeam.http.MultipartBody;
+import com.veeam.json.GeneratedCodec;
+import com.veeam.json.JsonAdapter;
+import com.veeam.json.JsonReader;
 import com.veeam.utils.ApiResponse;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.net.http.HttpHeaders;
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class PetApi {
 
-    private static final String BASE_URL = "https://petstore.swagger.io/v2/pet";  // Base URL for Pet API
-    private final HttpClient client;
+    private final String baseUrl;  // Base URL for Pet API, e.g. https://petstore.swagger.io/v2/pet
+    private final HttpTransport transport;
     private static final Logger logger = Logger.getLogger(PetApi.class.getName());  // Logger to track API interactions
 
-    // Constructor to initialize HTTP client
+    // Constructor using the shared HTTP transport
     public PetApi() {
-        this.client = HttpClient.newHttpClient();
+        this(HttpTransport.shared());
+    }
+
+    // Constructor for a dedicated transport (e.g. benchmarks or isolated runs)
+    public PetApi(HttpTransport transport) {
+        this.transport = transport;
+        this.baseUrl = transport.getBaseUrl() + "/pet";
     }
 
     /**
@@ -30,14 +56,25 @@ public class PetApi {
      * @return ApiResponse object containing status code and response body
      */
     public ApiResponse createPet(Pet pet) {
-        String url = BASE_URL;
-        HttpRequest request = HttpRequest.newBuilder()
+        return written(pet.getId(), executeRequest("POST /pet", createPetRequest(pet)));  // Executes the HTTP request and returns response
+    }
+
+    /**
+     * Create a new pet without blocking the calling thread.
+     * @param pet The pet to create
+     * @return Future completed with the ApiResponse
+     */
+    public CompletableFuture<ApiResponse> createPetAsync(Pet pet) {
+        return executeRequestAsync("POST /pet", createPetRequest(pet)).thenApply(response -> written(pet.getId(), response));
+    }
+
+    HttpRequest createPetRequest(Pet pet) {
+        String url = baseUrl;
+        return HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(pet.toJson()))  // Converting Pet object to JSON
+                .POST(HttpRequest.BodyPublishers.ofByteArray(pet.toJsonBytes()))  // Converting Pet object to JSON
                 .build();
-
-        return executeRequest(request);  // Executes the HTTP request and returns response
     }
 
     /**
@@ -47,14 +84,25 @@ public class PetApi {
      * @return ApiResponse object containing status code and response body
      */
     public ApiResponse updatePet(Pet pet) {
-        String url = BASE_URL;
-        HttpRequest request = HttpRequest.newBuilder()
+        return written(pet.getId(), executeRequest("PUT /pet", updatePetRequest(pet)));  // Executes the HTTP request and returns response
+    }
+
+    /**
+     * Update an existing pet's information without blocking the calling thread.
+     * @param pet The pet to update
+     * @return Future completed with the ApiResponse
+     */
+    public CompletableFuture<ApiResponse> updatePetAsync(Pet pet) {
+        return executeRequestAsync("PUT /pet", updatePetRequest(pet)).thenApply(response -> written(pet.getId(), response));
+    }
+
+    HttpRequest updatePetRequest(Pet pet) {
+        String url = baseUrl;
+        return HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .header("Content-Type", "application/json")
-                .PUT(HttpRequest.BodyPublishers.ofString(pet.toJson()))  // Using PUT for update
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(pet.toJsonBytes()))  // Using PUT for update
                 .build();
-
-        return executeRequest(request);  // Executes the HTTP request and returns response
     }
 
     /**
@@ -64,15 +112,26 @@ public class PetApi {
      * @return ApiResponse object containing status code and response body
      */
     public ApiResponse updatePetUsingPost(Pet pet) {
-        String url = String.format("%s/%d", BASE_URL, pet.getId());
-        HttpRequest request = HttpRequest.newBuilder()
+        return written(pet.getId(), executeRequest("POST /pet/{petId}", updatePetUsingPostRequest(pet)));
+    }
+
+    /**
+     * Update an existing pet's information using POST (with form data) without blocking the calling thread.
+     * @param pet The pet to update
+     * @return Future completed with the ApiResponse
+     */
+    public CompletableFuture<ApiResponse> updatePetUsingPostAsync(Pet pet) {
+        return executeRequestAsync("POST /pet/{petId}", updatePetUsingPostRequest(pet)).thenApply(response -> written(pet.getId(), response));
+    }
+
+    HttpRequest updatePetUsingPostRequest(Pet pet) {
+        String url = String.format("%s/%d", baseUrl, pet.getId());
+        return HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .header("Content-Type", "application/x-www-form-urlencoded")
                 .POST(HttpRequest.BodyPublishers.ofString(
                     String.format("name=%s&status=%s", pet.getName(), pet.getStatus())))
                 .build();
-        
-        return executeRequest(request);
     }
 
     /**
@@ -82,13 +141,78 @@ public class PetApi {
      * @return ApiResponse object containing status code and response body
      */
     public ApiResponse getPetsByStatus(String status) {
-        String url = BASE_URL + "/findByStatus?status=" + status;
-        HttpRequest request = HttpRequest.newBuilder()
+        return executeRequest("GET /pet/findByStatus", getPetsByStatusRequest(status));  // Executes the HTTP request and returns response
+    }
+
+    /**
+     * Get Pets by their status without blocking the calling thread.
+     * @param status The status to filter pets by (available, pending, sold)
+     * @return Future completed with the ApiResponse
+     */
+    public CompletableFuture<ApiResponse> getPetsByStatusAsync(String status) {
+        return executeRequestAsync("GET /pet/findByStatus", getPetsByStatusRequest(status));
+    }
+
+    HttpRequest getPetsByStatusRequest(String status) {
+        String url = baseUrl + "/findByStatus?status=" + status;
+        return HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .GET()  // GET request to retrieve pets by status
                 .build();
+    }
 
-        return executeRequest(request);  // Executes the HTTP request and returns response
+    /**
+     * Stream Pets by their status.
+     * The response body is parsed incrementally from the connection, one pet at a time,
+     * so memory stays constant no matter how many pets match the status.
+     * The stream holds the connection open; close it (try-with-resources) when done.
+     * @param status The status to filter pets by (available, pending, sold)
+     * @return Lazy stream of pets, empty if the request fails
+     */
+    public Stream<Pet> streamPetsByStatus(String status) {
+        HttpResponse<InputStream> response;
+        try {
+            response = transport.sendStreaming("GET /pet/findByStatus", getPetsByStatusRequest(status));
+        } catch (IOException | InterruptedException e) {
+            logger.severe("Error executing request: " + e.getMessage());
+            return Stream.empty();
+        }
+
+        JsonReader reader = new JsonReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8));
+        Runnable close = () -> {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+        if (response.statusCode() != 200) {
+            logger.warning("Error retrieving pets: " + response.statusCode());
+            close.run();
+            return Stream.empty();
+        }
+
+        Iterator<Pet> pets = new PetIterator(reader, GeneratedCodec.adapter(Pet.class));
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pets, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(close);
+    }
+
+    /**
+     * Call the action for every pet with the given status while the response is being read.
+     * @param status The status to filter pets by (available, pending, sold)
+     * @param action Callback invoked once per pet
+     * @return Number of pets passed to the action
+     */
+    public long forEachPetByStatus(String status, Consumer<? super Pet> action) {
+        long count = 0;
+        try (Stream<Pet> pets = streamPetsByStatus(status)) {
+            Iterator<Pet> iterator = pets.iterator();
+            while (iterator.hasNext()) {
+                action.accept(iterator.next());
+                count++;
+            }
+        }
+        return count;
     }
 
     /**
@@ -98,15 +222,29 @@ public class PetApi {
      * @return Pet object containing pet information, or null if not found
      */
     public Pet getPetById(long invalidPetId) {
-        String url = BASE_URL + "/" + invalidPetId;
-        HttpRequest request = HttpRequest.newBuilder()
+        return toPet(executeRequest("GET /pet/{petId}", getPetByIdRequest(invalidPetId)));
+    }
+
+    /**
+     * Get a pet by its ID without blocking the calling thread.
+     * @param petId The pet ID to retrieve
+     * @return Future completed with the Pet, or with null if not found
+     */
+    public CompletableFuture<Pet> getPetByIdAsync(long petId) {
+        return executeRequestAsync("GET /pet/{petId}", getPetByIdRequest(petId)).thenApply(this::toPet);
+    }
+
+    HttpRequest getPetByIdRequest(long petId) {
+        String url = baseUrl + "/" + petId;
+        return HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .GET()  // GET request to retrieve pet
                 .build();
+    }
 
-        ApiResponse response = executeRequest(request);
+    private Pet toPet(ApiResponse response) {
         if (response.getStatusCode() == 200) {
-            return Pet.fromJson(response.getBody());  // Convert JSON response to Pet object
+            return response.as(Pet.class);  // Bind JSON response bytes to Pet object
         } else {
             logger.warning("Error retrieving pet: " + response.getStatusCode());
             return null;
@@ -121,64 +259,198 @@ public class PetApi {
      * @return ApiResponse object containing status code and response body
      */
     public ApiResponse deletePet(long petId, String apiKey) {
-        String url = BASE_URL + "/" + petId;
-        HttpRequest request = HttpRequest.newBuilder()
+        return written(petId, executeRequest("DELETE /pet/{petId}", deletePetRequest(petId, apiKey)));  // Executes the HTTP request and returns response
+    }
+
+    /**
+     * Delete a pet by its ID without blocking the calling thread.
+     * @param petId The pet ID to delete
+     * @param apiKey The API key for authorization
+     * @return Future completed with the ApiResponse
+     */
+    public CompletableFuture<ApiResponse> deletePetAsync(long petId, String apiKey) {
+        return executeRequestAsync("DELETE /pet/{petId}", deletePetRequest(petId, apiKey)).thenApply(response -> written(petId, response));
+    }
+
+    HttpRequest deletePetRequest(long petId, String apiKey) {
+        String url = baseUrl + "/" + petId;
+        return HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .header("Content-Type", "application/json")
                 .header("api_key", apiKey)  // Add the API key in the header
                 .DELETE()
                 .build();
-
-        return executeRequest(request);  // Executes the HTTP request and returns response
     }
 
     /**
      * Upload an image for a pet.
      * This method allows uploading an image for a specific pet by its ID.
+     * The file is sent as multipart/form-data and streamed from disk while the request is written,
+     * so large images are never held in memory. Paths not found on disk are looked up on the classpath.
      * @param petId The pet ID to upload an image for
      * @param file The image file to upload
      * @param additionalMetadata Additional metadata to pass to the server
      * @return ApiResponse object containing status code and response body
      */
     public ApiResponse uploadImage(long petId, String file, String additionalMetadata) {
-        String url = BASE_URL + "/" + petId + "/uploadImage";
-        
+        ApiResponse invalid = validateUpload(file);
+        if (invalid != null) {
+            return invalid;
+        }
+        try {
+            return executeRequest("POST /pet/{petId}/uploadImage", uploadImageRequest(petId, file, additionalMetadata));
+        } catch (FileNotFoundException e) {
+            return new ApiResponse(400, "File not found: " + file);
+        }
+    }
+
+    /**
+     * Upload an image for a pet without blocking the calling thread.
+     * Many uploads can be started at once: each waits for an in-flight slot of the transport
+     * and only opens its file when it is sent.
+     * @param petId The pet ID to upload an image for
+     * @param file The image file to upload
+     * @param additionalMetadata Additional metadata to pass to the server
+     * @return Future completed with the ApiResponse
+     */
+    public CompletableFuture<ApiResponse> uploadImageAsync(long petId, String file, String additionalMetadata) {
+        ApiResponse invalid = validateUpload(file);
+        if (invalid != null) {
+            return CompletableFuture.completedFuture(invalid);
+        }
+        try {
+            return executeRequestAsync("POST /pet/{petId}/uploadImage", uploadImageRequest(petId, file, additionalMetadata));
+        } catch (FileNotFoundException e) {
+            return CompletableFuture.completedFuture(new ApiResponse(400, "File not found: " + file));
+        }
+    }
+
+    /**
+     * Upload several images for a pet concurrently.
+     * @param petId The pet ID to upload the images for
+     * @param files The image files to upload
+     * @param additionalMetadata Additional metadata sent with every image
+     * @return One ApiResponse per file, in the order of files
+     */
+    public List<ApiResponse> uploadImages(long petId, List<String> files, String additionalMetadata) {
+        List<CompletableFuture<ApiResponse>> uploads = new ArrayList<>(files.size());
+        for (String file : files) {
+            uploads.add(uploadImageAsync(petId, file, additionalMetadata));
+        }
+        List<ApiResponse> responses = new ArrayList<>(uploads.size());
+        for (CompletableFuture<ApiResponse> upload : uploads) {
+            responses.add(upload.join());
+        }
+        return responses;
+    }
+
+    // Create the streaming multipart request for uploadImage
+    HttpRequest uploadImageRequest(long petId, String file, String additionalMetadata) throws FileNotFoundException {
+        String url = baseUrl + "/" + petId + "/uploadImage";
+        String contentType = file.endsWith(".png") ? "image/png" : "image/jpeg";
+        MultipartBody body = new MultipartBody();
+        if (additionalMetadata != null) {
+            body.field("additionalMetadata", additionalMetadata);
+        }
+        Path path = Paths.get(file);
+        if (Files.isRegularFile(path)) {
+            body.file("file", path, contentType);
+        } else {
+            String resource = file.startsWith("/") ? file : "/" + file;
+            if (PetApi.class.getResource(resource) == null) {
+                throw new FileNotFoundException(file);
+            }
+            body.file("file", path.getFileName().toString(), contentType, () -> PetApi.class.getResourceAsStream(resource));
+        }
+        return HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("Content-Type", body.contentType())
+                .POST(body.publisher())
+                .build();
+    }
+
+    private static ApiResponse validateUpload(String file) {
         // Check if petId or file is missing
         if (file == null || file.isEmpty()) {
             return new ApiResponse(400, "File is required.");
         }
-        
+
         // Check for unsupported file types (e.g., if the file is not an image)
         if (!file.endsWith(".jpg") && !file.endsWith(".png")) {
             return new ApiResponse(415, "Unsupported file type.");
         }
-        
-        // Placeholder for file upload logic (assuming multipart form data)
-        // This would normally involve creating a multipart request to upload the file
-        
-        return new ApiResponse(200, "File uploaded successfully");  // Returning a placeholder response
+        return null;
     }
 
     /**
      * Execute the HTTP request and return the response.
      * This helper method sends the HTTP request and handles the response.
+     * Headers and bodies are not logged here; the transport's sampled RequestLog captures them off the request path.
+     * @param endpoint Endpoint name the call is recorded under in the transport metrics, e.g. "GET /pet/{petId}"
      * @param request The HTTP request to execute
      * @return ApiResponse object containing status code and response body
      */
-    private ApiResponse executeRequest(HttpRequest request) {
+    private ApiResponse executeRequest(String endpoint, HttpRequest request) {
         try {
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            return transport.execute(endpoint, request);
+        } catch (IOException | InterruptedException e) {
+            return failed(e);
+        }
+    }
 
-            // Log all response headers (Optional)
-            HttpHeaders headers = response.headers();
-            for (Map.Entry<String, List<String>> entry : headers.map().entrySet()) {
-                logger.info(entry.getKey() + ":" + entry.getValue());
+    /**
+     * Execute the HTTP request asynchronously.
+     * Errors are mapped to the same ApiResponse as in executeRequest, so the future never completes exceptionally.
+     * @param endpoint Endpoint name for the metrics, as in executeRequest
+     * @param request The HTTP request to execute
+     * @return Future completed with the ApiResponse
+     */
+    private CompletableFuture<ApiResponse> executeRequestAsync(String endpoint, HttpRequest request) {
+        return transport.executeAsync(endpoint, request)
+                .exceptionally(e -> failed(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e));
+    }
+
+    // A written pet makes its cached GET and the cached inventory stale; no-op without a response cache
+    private ApiResponse written(long petId, ApiResponse response) {
+        transport.invalidate(baseUrl + "/" + petId);
+        transport.invalidateEndpoint("GET /store/inventory");
+        return response;
+    }
+
+    private ApiResponse failed(Throwable e) {
+        logger.severe("Error executing request: " + e.getMessage());
+        return new ApiResponse(500, "Internal server error");
+    }
+
+    // Reads the elements of the top-level JSON array lazily, one Pet per next()
+    private static final class PetIterator implements Iterator<Pet> {
+        private final JsonReader reader;
+        private final JsonAdapter<Pet> adapter;
+        private boolean started;
+
+        PetIterator(JsonReader reader, JsonAdapter<Pet> adapter) {
+            this.reader = reader;
+            this.adapter = adapter;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!started) {
+                reader.beginArray();
+                started = true;
             }
+            while (reader.hasNext() && reader.skipNull()) {
+                // skip null elements, the stream is NONNULL
+            }
+            return reader.hasNext();
+        }
 
-            return new ApiResponse(response.statusCode(), response.body());
-        } catch (IOException | InterruptedException e) {
-            logger.severe("Error executing request: " + e.getMessage());
-            return new ApiResponse(500, "Internal server error");
+        @Override
+        public Pet next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return adapter.read(reader);
         }
     }
 }
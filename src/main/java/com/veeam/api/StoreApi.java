@@ -3,72 +3,118 @@ package com.veeam.api;
 
 import java.io.IOException;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.logging.Logger;
 
 import com.veeam.dto.Store;
+import com.veeam.http.HttpTransport;
 import com.veeam.utils.ApiResponse;
 
 public class StoreApi {
 
-    private static final String BASE_URL = "https://petstore.swagger.io/v2/store";  // Base URL for Store API
-    private final HttpClient client;
+    private final String baseUrl;  // Base URL for Store API
+    private final HttpTransport transport;
     private static final Logger logger = Logger.getLogger(StoreApi.class.getName());
 
     public StoreApi() {
-        this.client = HttpClient.newHttpClient();
+        this(HttpTransport.shared());
+    }
+
+    public StoreApi(HttpTransport transport) {
+        this.transport = transport;
+        this.baseUrl = transport.getBaseUrl() + "/store";
     }
     
     public ApiResponse placeOrder(Store order) {
-        String url = BASE_URL + "/order";
-        HttpRequest request = HttpRequest.newBuilder()
+        return written(order.getId(), executeRequest("POST /store/order", placeOrderRequest(order)));
+    }
+
+    public CompletableFuture<ApiResponse> placeOrderAsync(Store order) {
+        return executeRequestAsync("POST /store/order", placeOrderRequest(order)).thenApply(response -> written(order.getId(), response));
+    }
+
+    HttpRequest placeOrderRequest(Store order) {
+        String url = baseUrl + "/order";
+        return HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(order.toJson()))  // Convert Order to JSON
+                .POST(HttpRequest.BodyPublishers.ofByteArray(order.toJsonBytes()))  // Convert Order to JSON
                 .build();
-
-        return executeRequest(request);
     }
     
     public ApiResponse getOrderById(long orderId) {
-        String url = BASE_URL + "/order/" + orderId;
-        HttpRequest request = HttpRequest.newBuilder()
+        return executeRequest("GET /store/order/{orderId}", getOrderByIdRequest(orderId));
+    }
+
+    public CompletableFuture<ApiResponse> getOrderByIdAsync(long orderId) {
+        return executeRequestAsync("GET /store/order/{orderId}", getOrderByIdRequest(orderId));
+    }
+
+    HttpRequest getOrderByIdRequest(long orderId) {
+        String url = baseUrl + "/order/" + orderId;
+        return HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .GET()
                 .build();
-
-        return executeRequest(request);
     }
     
     public ApiResponse deleteOrder(long orderId) {
-        String url = BASE_URL + "/order/" + orderId;
-        HttpRequest request = HttpRequest.newBuilder()
+        return written(orderId, executeRequest("DELETE /store/order/{orderId}", deleteOrderRequest(orderId)));
+    }
+
+    public CompletableFuture<ApiResponse> deleteOrderAsync(long orderId) {
+        return executeRequestAsync("DELETE /store/order/{orderId}", deleteOrderRequest(orderId)).thenApply(response -> written(orderId, response));
+    }
+
+    HttpRequest deleteOrderRequest(long orderId) {
+        String url = baseUrl + "/order/" + orderId;
+        return HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .DELETE()
                 .build();
-
-        return executeRequest(request);
     }
     
     public ApiResponse getInventory() {
-        String url = BASE_URL + "/inventory";
-        HttpRequest request = HttpRequest.newBuilder()
+        return executeRequest("GET /store/inventory", getInventoryRequest());
+    }
+
+    public CompletableFuture<ApiResponse> getInventoryAsync() {
+        return executeRequestAsync("GET /store/inventory", getInventoryRequest());
+    }
+
+    HttpRequest getInventoryRequest() {
+        String url = baseUrl + "/inventory";
+        return HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .GET()
                 .build();
-
-        return executeRequest(request);
     }
     
-    private ApiResponse executeRequest(HttpRequest request) {
+    private ApiResponse executeRequest(String endpoint, HttpRequest request) {
         try {
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-            return new ApiResponse(response.statusCode(), response.body());
+            return transport.execute(endpoint, request);
         } catch (IOException | InterruptedException e) {
-            logger.severe("Error executing request: " + e.getMessage());
-            return new ApiResponse(500, "Internal server error");
+            return failed(e);
         }
     }
+
+    // Same error mapping as executeRequest, the returned future never completes exceptionally
+    private CompletableFuture<ApiResponse> executeRequestAsync(String endpoint, HttpRequest request) {
+        return transport.executeAsync(endpoint, request)
+                .exceptionally(e -> failed(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e));
+    }
+
+    // A written order makes its cached GET stale, and the inventory too since orders can change pet status counts
+    private ApiResponse written(long orderId, ApiResponse response) {
+        transport.invalidate(baseUrl + "/order/" + orderId);
+        transport.invalidateEndpoint("GET /store/inventory");
+        return response;
+    }
+
+    private ApiResponse failed(Throwable e) {
+        logger.severe("Error executing request: " + e.getMessage());
+        return new ApiResponse(500, "Internal server error");
+    }
 }
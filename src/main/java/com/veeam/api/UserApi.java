@@ -1,21 +1,37 @@
 package com.veeam.api;
 
 import com.veeam.dto.User;
+import com.veeam.http.HttpTransport;
+import com.veeam.json.GeneratedCodec;
+import com.veeam.json.JsonAdapter;
+import com.veeam.json.JsonArrayPublisher;
 import com.veeam.utils.ApiResponse;
 
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class UserApi {
 
-    private static final String BASE_URL = "https://petstore.swagger.io/v2/user";
-    private HttpClient client;
+    private final String baseUrl;
+    private final HttpTransport transport;
+    private static final JsonAdapter<User> USER_ADAPTER = GeneratedCodec.adapter(User.class);
+    private static final int BODY_BUFFER_SIZE = 16 * 1024;
 
     public UserApi() {
-        this.client = HttpClient.newHttpClient();
+        this(HttpTransport.shared());
+    }
+
+    public UserApi(HttpTransport transport) {
+        this.transport = transport;
+        this.baseUrl = transport.getBaseUrl() + "/user";
     }
 
     /**
@@ -24,14 +40,25 @@ public class UserApi {
      * @return ApiResponse object containing status code and response body
      */
     public ApiResponse createUser(User user) {
-        String url = BASE_URL;
-        HttpRequest request = HttpRequest.newBuilder()
+        return written(user.getUsername(), executeRequest("POST /user", createUserRequest(user)));
+    }
+
+    /**
+     * Create a new user without blocking the calling thread
+     * @param user The user to create
+     * @return Future completed with the ApiResponse
+     */
+    public CompletableFuture<ApiResponse> createUserAsync(User user) {
+        return executeRequestAsync("POST /user", createUserRequest(user)).thenApply(response -> written(user.getUsername(), response));
+    }
+
+    HttpRequest createUserRequest(User user) {
+        String url = baseUrl;
+        return HttpRequest.newBuilder()
             .uri(URI.create(url))
             .header("Content-Type", "application/json")
-            .POST(HttpRequest.BodyPublishers.ofString(user.toJson()))
+            .POST(HttpRequest.BodyPublishers.ofByteArray(user.toJsonBytes()))
             .build();
-
-        return executeRequest(request);
     }
 
     /**
@@ -40,14 +67,25 @@ public class UserApi {
      * @return ApiResponse object containing status code and response body
      */
     public ApiResponse createUsersWithArray(List<User> users) {
-        String url = BASE_URL + "/createWithArray";
-        HttpRequest request = HttpRequest.newBuilder()
+        return written(executeRequest("POST /user/createWithArray", createUsersWithArrayRequest(users)));
+    }
+
+    /**
+     * Create multiple users using an array of user objects without blocking the calling thread
+     * @param users Array of User objects to be created
+     * @return Future completed with the ApiResponse
+     */
+    public CompletableFuture<ApiResponse> createUsersWithArrayAsync(List<User> users) {
+        return executeRequestAsync("POST /user/createWithArray", createUsersWithArrayRequest(users)).thenApply(this::written);
+    }
+
+    HttpRequest createUsersWithArrayRequest(List<User> users) {
+        String url = baseUrl + "/createWithArray";
+        return HttpRequest.newBuilder()
             .uri(URI.create(url))
             .header("Content-Type", "application/json")
             .POST(HttpRequest.BodyPublishers.ofString(User.toJsonArray(users))) // Convert List to JSON array
             .build();
-
-        return executeRequest(request);
     }
 
     /**
@@ -56,14 +94,165 @@ public class UserApi {
      * @return ApiResponse object containing status code and response body
      */
     public ApiResponse createUsersWithList(List<User> users) {
-        String url = BASE_URL + "/createWithList";
-        HttpRequest request = HttpRequest.newBuilder()
+        return written(executeRequest("POST /user/createWithList", createUsersWithListRequest(users)));
+    }
+
+    /**
+     * Create multiple users using a list of user objects without blocking the calling thread
+     * @param users List of User objects to be created
+     * @return Future completed with the ApiResponse
+     */
+    public CompletableFuture<ApiResponse> createUsersWithListAsync(List<User> users) {
+        return executeRequestAsync("POST /user/createWithList", createUsersWithListRequest(users)).thenApply(this::written);
+    }
+
+    HttpRequest createUsersWithListRequest(List<User> users) {
+        String url = baseUrl + "/createWithList";
+        return HttpRequest.newBuilder()
             .uri(URI.create(url))
             .header("Content-Type", "application/json")
             .POST(HttpRequest.BodyPublishers.ofString(User.toJsonArray(users)))
             .build();
+    }
+
+    /**
+     * Create many users through createWithArray with the chunk size and parallelism of
+     * BulkTuner.optionsFor: calibrated against this target when bulk.autoTune=true,
+     * otherwise bulk.chunkSize and bulk.parallelism
+     * @param users Users to create
+     * @return Per-chunk results in input order
+     */
+    public BulkResult createUsersWithArrayChunked(List<User> users) {
+        return createUsersWithArrayChunked(users, BulkTuner.optionsFor(this));
+    }
+
+    /**
+     * Create many users through createWithList with the options of BulkTuner.optionsFor
+     * @param users Users to create
+     * @return Per-chunk results in input order
+     */
+    public BulkResult createUsersWithListChunked(List<User> users) {
+        return createUsersWithListChunked(users, BulkTuner.optionsFor(this));
+    }
+
+    /**
+     * Create many users through createWithArray, split into chunks sent in parallel.
+     * Each chunk's JSON is written into the request body while it is sent, so no String of the
+     * whole list (or of a whole chunk) is built. At most options.getParallelism() chunks are in
+     * flight; a failed chunk is reported in the result and does not stop the others.
+     * @param users Users to create
+     * @param options Chunk size and parallelism, e.g. BulkOptions.fromConfiguration()
+     * @return Per-chunk results in input order
+     */
+    public BulkResult createUsersWithArrayChunked(List<User> users, BulkOptions options) {
+        return createUsersWithArrayChunkedAsync(users, options).join();
+    }
+
+    /**
+     * Chunked createWithArray without blocking the calling thread
+     * @param users Users to create
+     * @param options Chunk size and parallelism
+     * @return Future completed with the per-chunk results, never exceptionally
+     */
+    public CompletableFuture<BulkResult> createUsersWithArrayChunkedAsync(List<User> users, BulkOptions options) {
+        return createChunked("POST /user/createWithArray", baseUrl + "/createWithArray", users, options);
+    }
+
+    /**
+     * Create many users through createWithList, split into chunks sent in parallel,
+     * like createUsersWithArrayChunked
+     * @param users Users to create
+     * @param options Chunk size and parallelism
+     * @return Per-chunk results in input order
+     */
+    public BulkResult createUsersWithListChunked(List<User> users, BulkOptions options) {
+        return createUsersWithListChunkedAsync(users, options).join();
+    }
+
+    /**
+     * Chunked createWithList without blocking the calling thread
+     * @param users Users to create
+     * @param options Chunk size and parallelism
+     * @return Future completed with the per-chunk results, never exceptionally
+     */
+    public CompletableFuture<BulkResult> createUsersWithListChunkedAsync(List<User> users, BulkOptions options) {
+        return createChunked("POST /user/createWithList", baseUrl + "/createWithList", users, options);
+    }
+
+    String getBaseUrl() {
+        return baseUrl;
+    }
+
+    HttpRequest createUsersChunkRequest(String url, List<User> chunk) {
+        return HttpRequest.newBuilder()
+            .uri(URI.create(url))
+            .header("Content-Type", "application/json")
+            .POST(new JsonArrayPublisher<>(chunk, USER_ADAPTER, BODY_BUFFER_SIZE))
+            .build();
+    }
+
+    // Starts `parallelism` senders; each takes the next unsent chunk when its previous one completes
+    private CompletableFuture<BulkResult> createChunked(String endpoint, String url, List<User> users, BulkOptions options) {
+        int chunkSize = options.getChunkSize();
+        int chunkCount = (users.size() + chunkSize - 1) / chunkSize;
+        BulkResult.ChunkResult[] results = new BulkResult.ChunkResult[chunkCount];
+        AtomicInteger nextChunk = new AtomicInteger();
+        long start = System.nanoTime();
+
+        List<CompletableFuture<Void>> senders = new ArrayList<>();
+        for (int i = 0; i < Math.min(options.getParallelism(), chunkCount); i++) {
+            CompletableFuture<Void> sender = new CompletableFuture<>();
+            senders.add(sender);
+            sendChunks(endpoint, url, users, chunkSize, nextChunk, results, sender);
+        }
+        return CompletableFuture.allOf(senders.toArray(new CompletableFuture[0]))
+            .whenComplete((done, error) -> transport.invalidateEndpoint("GET /user/{username}"))
+            .thenApply(done -> new BulkResult(Arrays.asList(results), Duration.ofNanos(System.nanoTime() - start)));
+    }
+
+    // Loops instead of chaining a future per chunk: futures that are already complete (open circuit,
+    // replay, failures) run their callback inline, and recursing there would grow the stack per chunk.
+    // Whichever of the loop and the callback gets to the chunk's flag second sends the next chunk.
+    private void sendChunks(String endpoint, String url, List<User> users, int chunkSize,
+                            AtomicInteger nextChunk, BulkResult.ChunkResult[] results, CompletableFuture<Void> sender) {
+        while (true) {
+            int index = nextChunk.getAndIncrement();
+            if (index >= results.length) {
+                sender.complete(null);
+                return;
+            }
+            int offset = index * chunkSize;
+            int size = Math.min(chunkSize, users.size() - offset);
+            long start = System.nanoTime();
+            AtomicBoolean handedOver = new AtomicBoolean();
+            CompletableFuture<ApiResponse> response;
+            try {
+                response = transport.executeAsync(endpoint, createUsersChunkRequest(url, users.subList(offset, offset + size)));
+            } catch (RuntimeException e) {
+                response = new CompletableFuture<>();
+                response.completeExceptionally(e);
+            }
+            response.whenComplete((chunkResponse, error) -> {
+                results[index] = chunkResult(index, offset, size, chunkResponse, error, Duration.ofNanos(System.nanoTime() - start));
+                if (!handedOver.compareAndSet(false, true)) {
+                    sendChunks(endpoint, url, users, chunkSize, nextChunk, results, sender);
+                }
+            });
+            if (handedOver.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
 
-        return executeRequest(request);
+    private static BulkResult.ChunkResult chunkResult(int index, int offset, int size, ApiResponse response,
+                                                      Throwable error, Duration elapsed) {
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            return new BulkResult.ChunkResult(index, offset, size, 0, cause.toString(), elapsed);
+        }
+        int status = response.getStatusCode();
+        boolean ok = status >= 200 && status < 300;
+        return new BulkResult.ChunkResult(index, offset, size, status, ok ? null : response.getBody(), elapsed);
     }
 
     /**
@@ -72,15 +261,25 @@ public class UserApi {
      * @return ApiResponse object containing status code and response body
      */
     public ApiResponse getUserByUsername(String username) {
-        String url = BASE_URL + "/user/" + username;
-        HttpRequest request = HttpRequest.newBuilder()
+        return executeRequest("GET /user/{username}", getUserByUsernameRequest(username));
+    }
+
+    /**
+     * Get a user by username without blocking the calling thread
+     * @param username The username of the user to retrieve
+     * @return Future completed with the ApiResponse
+     */
+    public CompletableFuture<ApiResponse> getUserByUsernameAsync(String username) {
+        return executeRequestAsync("GET /user/{username}", getUserByUsernameRequest(username));
+    }
+
+    HttpRequest getUserByUsernameRequest(String username) {
+        String url = baseUrl + "/" + username;
+        return HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .header("Content-Type", "application/json")
                 .GET()
                 .build();
-        
-        // Execute the request and return the response
-        return executeRequest(request);
     }
 
     /**
@@ -90,14 +289,26 @@ public class UserApi {
      * @return ApiResponse object containing status code and response body
      */
     public ApiResponse updateUser(String username, User user) {
-        String url = BASE_URL + "/" + username;
-        HttpRequest request = HttpRequest.newBuilder()
+        return executeRequest("PUT /user/{username}", updateUserRequest(username, user));
+    }
+
+    /**
+     * Update an existing user's data by username without blocking the calling thread
+     * @param username The username of the user to update
+     * @param user The updated user data
+     * @return Future completed with the ApiResponse
+     */
+    public CompletableFuture<ApiResponse> updateUserAsync(String username, User user) {
+        return executeRequestAsync("PUT /user/{username}", updateUserRequest(username, user));
+    }
+
+    HttpRequest updateUserRequest(String username, User user) {
+        String url = baseUrl + "/" + username;
+        return HttpRequest.newBuilder()
             .uri(URI.create(url))
             .header("Content-Type", "application/json")
-            .PUT(HttpRequest.BodyPublishers.ofString(user.toJson()))
+            .PUT(HttpRequest.BodyPublishers.ofByteArray(user.toJsonBytes()))
             .build();
-
-        return executeRequest(request);
     }
 
     /**
@@ -106,13 +317,24 @@ public class UserApi {
      * @return ApiResponse object containing status code and response body
      */
     public ApiResponse deleteUser(String username) {
-        String url = BASE_URL + "/" + username;
-        HttpRequest request = HttpRequest.newBuilder()
+        return executeRequest("DELETE /user/{username}", deleteUserRequest(username));
+    }
+
+    /**
+     * Delete a user by username without blocking the calling thread
+     * @param username The username of the user to delete
+     * @return Future completed with the ApiResponse
+     */
+    public CompletableFuture<ApiResponse> deleteUserAsync(String username) {
+        return executeRequestAsync("DELETE /user/{username}", deleteUserRequest(username));
+    }
+
+    HttpRequest deleteUserRequest(String username) {
+        String url = baseUrl + "/" + username;
+        return HttpRequest.newBuilder()
             .uri(URI.create(url))
             .DELETE()
             .build();
-
-        return executeRequest(request);
     }
 
     /**
@@ -122,13 +344,25 @@ public class UserApi {
      * @return ApiResponse object containing status code and response body
      */
     public ApiResponse loginUser(String username, String password) {
-        String url = BASE_URL + "/login?username=" + username + "&password=" + password;
-        HttpRequest request = HttpRequest.newBuilder()
+        return executeRequest("GET /user/login", loginUserRequest(username, password));
+    }
+
+    /**
+     * Log in a user without blocking the calling thread
+     * @param username The username of the user logging in
+     * @param password The password of the user logging in
+     * @return Future completed with the ApiResponse
+     */
+    public CompletableFuture<ApiResponse> loginUserAsync(String username, String password) {
+        return executeRequestAsync("GET /user/login", loginUserRequest(username, password));
+    }
+
+    HttpRequest loginUserRequest(String username, String password) {
+        String url = baseUrl + "/login?username=" + username + "&password=" + password;
+        return HttpRequest.newBuilder()
             .uri(URI.create(url))
             .GET()
             .build();
-
-        return executeRequest(request);
     }
 
     /**
@@ -136,30 +370,68 @@ public class UserApi {
      * @return ApiResponse object containing status code and response body
      */
     public ApiResponse logoutUser() {
-        String url = BASE_URL + "/logout";
-        HttpRequest request = HttpRequest.newBuilder()
+        return executeRequest("GET /user/logout", logoutUserRequest());
+    }
+
+    /**
+     * Log out the currently logged-in user without blocking the calling thread
+     * @return Future completed with the ApiResponse
+     */
+    public CompletableFuture<ApiResponse> logoutUserAsync() {
+        return executeRequestAsync("GET /user/logout", logoutUserRequest());
+    }
+
+    HttpRequest logoutUserRequest() {
+        String url = baseUrl + "/logout";
+        return HttpRequest.newBuilder()
             .uri(URI.create(url))
             .GET()
             .build();
-
-        return executeRequest(request);
     }
 
     /**
      * Execute the HTTP request and return the response
+     * @param endpoint Endpoint name the call is recorded under in the transport metrics, e.g. "GET /user/{username}"
      * @param request The HTTP request to execute
      * @return ApiResponse object containing status code and response body
      */
-    private ApiResponse executeRequest(HttpRequest request) {
+    private ApiResponse executeRequest(String endpoint, HttpRequest request) {
         try {
             // Send the request and get the response
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-            // Return the ApiResponse object for convenience
-            return new ApiResponse(response.statusCode(), response.body());
+            return transport.execute(endpoint, request);
         } catch (Exception e) {
-            e.printStackTrace();
-            return new ApiResponse(500, "Internal Server Error");
+            return failed(e);
+        }
+    }
+
+    /**
+     * Execute the HTTP request asynchronously
+     * Errors are mapped like in executeRequest, so the future never completes exceptionally
+     * @param endpoint Endpoint name for the metrics, as in executeRequest
+     * @param request The HTTP request to execute
+     * @return Future completed with the ApiResponse
+     */
+    private CompletableFuture<ApiResponse> executeRequestAsync(String endpoint, HttpRequest request) {
+        return transport.executeAsync(endpoint, request)
+            .exceptionally(e -> failed(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e));
+    }
+
+    // A created user replaces any cached GET of the same username; no-op without a response cache
+    private ApiResponse written(String username, ApiResponse response) {
+        if (username != null) {
+            transport.invalidate(baseUrl + "/" + username);
         }
+        return response;
+    }
+
+    // Bulk creates can replace any cached user
+    private ApiResponse written(ApiResponse response) {
+        transport.invalidateEndpoint("GET /user/{username}");
+        return response;
+    }
+
+    private ApiResponse failed(Throwable e) {
+        e.printStackTrace();
+        return new ApiResponse(500, "Internal Server Error");
     }
 }
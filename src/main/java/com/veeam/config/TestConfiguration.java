@@ -2,30 +2,175 @@ package com.veeam.config;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.FileInputStream;
+import java.util.Arrays;
+import java.util.Map;
 import java.util.Properties;
+import java.util.TreeMap;
 
 public class TestConfiguration {
-    private static Properties properties;
+    private static Properties properties = new Properties();
 
     static {
-        try (InputStream input = new FileInputStream("src/resources/config.properties")) {
-            properties = new Properties();
-            properties.load(input);
+        try (InputStream input = TestConfiguration.class.getResourceAsStream("/config.properties")) {
+            if (input != null) {
+                properties.load(input);
+            }
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Root URL of the Petstore API, e.g. -Dapi.url=http://localhost:8080/v2 for the embedded PetstoreServer.
+     */
     public static String getBaseUrl() {
-        return properties.getProperty("api.url", "https://petstore.swagger.io");
+        return getProperty("api.url", "https://petstore.swagger.io/v2");
     }
     
+    /**
+     * Per-request timeout in milliseconds, applied to requests that do not set their own.
+     */
     public static int getTimeout() {
-        return Integer.parseInt(properties.getProperty("timeout", "5000"));
+        return Integer.parseInt(getProperty("timeout", "5000"));
     }
-    
+
+    /**
+     * Retries of idempotent calls after a transport failure or transient 5xx, 0 disables retrying.
+     */
     public static int getRetryCount() {
-        return Integer.parseInt(properties.getProperty("retryCount", "3"));
+        return Integer.parseInt(getProperty("retryCount", "3"));
+    }
+
+    /**
+     * Upper bound of the first retry wait in milliseconds; it doubles per retry, with full jitter.
+     */
+    public static int getRetryBackoff() {
+        return Integer.parseInt(getProperty("http.retry.backoff", "100"));
+    }
+
+    /**
+     * Upper bound of any retry wait in milliseconds.
+     */
+    public static int getRetryMaxBackoff() {
+        return Integer.parseInt(getProperty("http.retry.maxBackoff", "2000"));
+    }
+
+    /**
+     * Latency percentile of an endpoint after which a duplicate GET is sent, 0 disables hedging.
+     */
+    public static double getHedgePercentile() {
+        return Double.parseDouble(getProperty("http.hedge.percentile", "0"));
+    }
+
+    /**
+     * Minimum hedge delay in milliseconds.
+     */
+    public static int getHedgeMinDelay() {
+        return Integer.parseInt(getProperty("http.hedge.minDelay", "20"));
+    }
+
+    /**
+     * Get a setting, letting a JVM system property (-Dkey=value) override the properties file.
+     * @param key The property key
+     * @param defaultValue The value to use when the key is not set anywhere
+     * @return The configured value
+     */
+    public static String getProperty(String key, String defaultValue) {
+        return System.getProperty(key, properties.getProperty(key, defaultValue));
+    }
+
+    /**
+     * Get every setting whose key starts with the prefix, system properties overriding the properties file.
+     * @param prefix The key prefix, e.g. "proxy.route."
+     * @return The matching settings keyed by the rest of the key, in key order
+     */
+    public static Map<String, String> getProperties(String prefix) {
+        Map<String, String> matching = new TreeMap<>();
+        for (Properties source : Arrays.asList(properties, System.getProperties())) {
+            for (String key : source.stringPropertyNames()) {
+                if (key.startsWith(prefix)) {
+                    matching.put(key.substring(prefix.length()), source.getProperty(key));
+                }
+            }
+        }
+        return matching;
+    }
+
+    /**
+     * Connect timeout of the shared HTTP client in milliseconds.
+     */
+    public static int getConnectTimeout() {
+        return Integer.parseInt(getProperty("http.connectTimeout", "10000"));
+    }
+
+    /**
+     * Preferred HTTP version of the shared client: HTTP_2 (falls back to HTTP/1.1) or HTTP_1_1.
+     */
+    public static String getHttpVersion() {
+        return getProperty("http.version", "HTTP_2");
+    }
+
+    /**
+     * Maximum number of idle connections kept per JVM, 0 means unbounded.
+     */
+    public static int getConnectionPoolSize() {
+        return Integer.parseInt(getProperty("http.poolSize", "0"));
+    }
+
+    /**
+     * Idle connection keep-alive in seconds.
+     */
+    public static int getKeepAlive() {
+        return Integer.parseInt(getProperty("http.keepAlive", "1200"));
+    }
+
+    /**
+     * Number of executor threads of the shared client, 0 keeps the JDK default executor.
+     */
+    public static int getExecutorThreads() {
+        return Integer.parseInt(getProperty("http.executorThreads", "0"));
+    }
+
+    /**
+     * Maximum number of requests in flight through the shared transport.
+     */
+    public static int getMaxInFlight() {
+        return Integer.parseInt(getProperty("http.maxInFlight", "256"));
+    }
+
+    /**
+     * Thread mode of the shared client executor: platform or virtual (Java 21+).
+     */
+    public static String getThreadMode() {
+        return getProperty("http.threadMode", "platform");
+    }
+
+    /**
+     * Whether concurrent identical GETs through the shared transport share one request.
+     */
+    public static boolean isCoalescingEnabled() {
+        return Boolean.parseBoolean(getProperty("http.coalesce", "false"));
+    }
+
+    /**
+     * How the shared transport reaches the API: live (default), record (live, appending every exchange
+     * to the replay file) or replay (answered from the replay file without a network).
+     */
+    public static String getHttpMode() {
+        return getProperty("http.mode", "live");
+    }
+
+    /**
+     * Exchange log used by record and replay mode.
+     */
+    public static String getReplayFile() {
+        return getProperty("http.replay.file", "target/petstore-exchanges.bin");
+    }
+
+    /**
+     * Replay speed relative to the recorded latencies; 0 answers at once.
+     */
+    public static double getReplaySpeed() {
+        return Double.parseDouble(getProperty("http.replay.speed", "0"));
     }
 }
@@ -0,0 +1,342 @@
+package com.veeam.data;
+
+import com.veeam.config.TestConfiguration;
+import com.veeam.dto.Pet;
+import com.veeam.dto.Store;
+import com.veeam.dto.User;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Seeded generator of Pet, User and Store fixtures with unique ids.
+ * <p>
+ * Every object is a pure function of (seed, node, index): its fields come from a hash of those
+ * values, not from a shared Random, so any thread can build object n without coordination and
+ * the same settings always give the same data. nextPet()/pets(count) hand out indexes from an
+ * atomic counter starting at 1, so parallel callers never get the same index.
+ * <p>
+ * Ids are node &lt;&lt; 40 | index, so JVMs with different node numbers (data.node) never
+ * collide. Index 0 is reserved: node 0 would turn it into id 0, which the store reads as "assign
+ * an id". User.id is an int and holds node &lt;&lt; 23 | index instead: unique for the first
+ * 8,388,607 users of up to 256 nodes. Usernames carry the full 64-bit id and are always unique.
+ */
+public final class TestDataGenerator {
+
+    static final int NODE_BITS = 16;
+    static final int INDEX_BITS = 40;
+    static final int USER_NODE_BITS = 8;
+    static final int USER_INDEX_BITS = 23;
+
+    private static final String[] PET_NAMES = {"Bella", "Max", "Luna", "Charlie", "Lucy", "Cooper", "Daisy", "Milo",
+            "Bailey", "Rocky", "Coco", "Buddy", "Lola", "Bear", "Sadie", "Tucker", "Molly", "Duke", "Stella", "Oliver"};
+    private static final String[] CATEGORIES = {"Dogs", "Cats", "Birds", "Fish", "Reptiles", "Rodents"};
+    // Cumulative weights out of 100: mostly dogs and cats, like a typical store
+    private static final int[] CATEGORY_WEIGHTS = {45, 75, 86, 94, 97, 100};
+    private static final String[] TAGS = {"friendly", "vaccinated", "young", "senior", "trained", "rescue", "hypoallergenic"};
+    private static final String[] PET_STATUSES = {"available", "pending", "sold"};
+    private static final int[] PET_STATUS_WEIGHTS = {60, 85, 100};
+    private static final String[] ORDER_STATUSES = {"placed", "approved", "delivered"};
+    private static final int[] ORDER_STATUS_WEIGHTS = {50, 80, 100};
+    private static final String[] FIRST_NAMES = {"James", "Mary", "John", "Patricia", "Robert", "Jennifer", "Michael",
+            "Linda", "David", "Elizabeth", "William", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Anna", "Jan"};
+    private static final String[] LAST_NAMES = {"Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller",
+            "Davis", "Novak", "Svoboda", "Wilson", "Anderson", "Taylor", "Thomas", "Moore", "Martin", "Lee", "Clark"};
+    private static final String[] DOMAINS = {"example.com", "example.org", "example.net", "test.local"};
+    private static final long SHIP_DATE_BASE = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    private static final long SHIP_DATE_RANGE = 730L * 24 * 3600 * 1000;  // two years
+
+    // Salts so that each field draws an independent value from the same (seed, index)
+    private static final long NAME = 1, CATEGORY = 2, STATUS = 3, TAG_COUNT = 4, TAG = 5, PHOTOS = 6,
+            FIRST = 7, LAST = 8, DOMAIN = 9, PHONE = 10, USER_STATUS = 11,
+            PET_REF = 12, QUANTITY = 13, SHIP = 14, ORDER_STATUS = 15, PASSWORD = 16;
+
+    private final long seed;
+    private final int node;
+    private final long petRange;
+    private final AtomicLong nextPet = new AtomicLong(1);
+    private final AtomicLong nextUser = new AtomicLong(1);
+    private final AtomicLong nextOrder = new AtomicLong(1);
+
+    private TestDataGenerator(Builder builder) {
+        if (builder.node < 0 || builder.node >= 1 << NODE_BITS) {
+            throw new IllegalArgumentException("Node must be in [0, " + (1 << NODE_BITS) + "): " + builder.node);
+        }
+        this.seed = builder.seed;
+        this.node = builder.node;
+        this.petRange = builder.petRange;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Generator from data.seed (default 42) and data.node. data.node is required: ids are only
+     * unique across JVMs when each one is given its own node, so there is no default to guess.
+     * @return A new generator
+     * @throws IllegalStateException If data.node is not set
+     */
+    public static TestDataGenerator fromConfiguration() {
+        String node = TestConfiguration.getProperty("data.node", null);
+        if (node == null) {
+            throw new IllegalStateException("data.node is not set: give each JVM generating test data its own node, 0-"
+                    + ((1 << NODE_BITS) - 1) + " (below " + (1 << USER_NODE_BITS) + " to build users)");
+        }
+        return builder()
+                .seed(Long.parseLong(TestConfiguration.getProperty("data.seed", "42")))
+                .node(Integer.parseInt(node))
+                .build();
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getNode() {
+        return node;
+    }
+
+    /**
+     * @return A pet with the next unused index
+     */
+    public Pet nextPet() {
+        return pet(nextPet.getAndIncrement());
+    }
+
+    /**
+     * @return A user with the next unused index
+     */
+    public User nextUser() {
+        return user(nextUser.getAndIncrement());
+    }
+
+    /**
+     * @return An order with the next unused index, for one of the first petRange pets
+     */
+    public Store nextOrder() {
+        return order(nextOrder.getAndIncrement());
+    }
+
+    /**
+     * Reserve count unused indexes and generate the pets lazily, one per element pulled.
+     * The stream may be parallel; element n is the same whichever thread builds it.
+     * @param count Number of pets
+     * @return Stream of new pets
+     */
+    public Stream<Pet> pets(long count) {
+        return indexes(nextPet, count).mapToObj(this::pet);
+    }
+
+    /**
+     * Reserve count unused indexes and generate the users lazily.
+     * @param count Number of users
+     * @return Stream of new users
+     */
+    public Stream<User> users(long count) {
+        return indexes(nextUser, count).mapToObj(this::user);
+    }
+
+    /**
+     * Reserve count unused indexes and generate the orders lazily.
+     * @param count Number of orders
+     * @return Stream of new orders
+     */
+    public Stream<Store> orders(long count) {
+        return indexes(nextOrder, count).mapToObj(this::order);
+    }
+
+    /**
+     * @param index Position in this generator's pet sequence
+     * @return The pet at that position; calling again returns an equal pet
+     */
+    public Pet pet(long index) {
+        Pet pet = new Pet();
+        pet.setId(id(index));
+        pet.setName(PET_NAMES[pick(index, NAME, PET_NAMES.length)] + "-" + Long.toString(index, 36));
+        pet.setStatus(PET_STATUSES[weighted(index, STATUS, PET_STATUS_WEIGHTS)]);
+
+        Pet.Category category = new Pet.Category();
+        int categoryIndex = weighted(index, CATEGORY, CATEGORY_WEIGHTS);
+        category.setId(categoryIndex + 1);
+        category.setName(CATEGORIES[categoryIndex]);
+        pet.setCategory(category);
+
+        int tagCount = pick(index, TAG_COUNT, 4);
+        List<Pet.Tag> tags = tagCount == 0 ? Collections.emptyList() : new ArrayList<>(tagCount);
+        int firstTag = pick(index, TAG, TAGS.length);
+        for (int i = 0; i < tagCount; i++) {
+            int tagIndex = (firstTag + i) % TAGS.length;  // distinct tags per pet
+            Pet.Tag tag = new Pet.Tag();
+            tag.setId(tagIndex + 1);
+            tag.setName(TAGS[tagIndex]);
+            tags.add(tag);
+        }
+        pet.setTags(tags);
+
+        String photo = "https://img.example.com/pets/" + pet.getId();
+        pet.setPhotoUrls(pick(index, PHOTOS, 3) == 0
+                ? Collections.singletonList(photo + "/0.jpg")
+                : Arrays.asList(photo + "/0.jpg", photo + "/1.jpg"));
+        return pet;
+    }
+
+    /**
+     * @param index Position in this generator's user sequence
+     * @return The user at that position
+     */
+    public User user(long index) {
+        User user = new User();
+        String first = FIRST_NAMES[pick(index, FIRST, FIRST_NAMES.length)];
+        String last = LAST_NAMES[pick(index, LAST, LAST_NAMES.length)];
+        // The username carries the full 64-bit id, so it stays unique where the int User.id cannot
+        String username = first.toLowerCase(Locale.ROOT) + "." + last.toLowerCase(Locale.ROOT) + "." + Long.toString(id(index), 36);
+        user.setId(userId(index));
+        user.setUsername(username);
+        user.setFirstName(first);
+        user.setLastName(last);
+        user.setEmail(username + "@" + DOMAINS[pick(index, DOMAIN, DOMAINS.length)]);
+        user.setPassword(Long.toString(hash(index, PASSWORD) & Long.MAX_VALUE, 36));
+        user.setPhone(phone(Math.floorMod(hash(index, PHONE), 1_000_000_000L)));
+        user.setUserStatus(pick(index, USER_STATUS, 10) == 0 ? 0 : 1);  // 10% inactive
+        return user;
+    }
+
+    /**
+     * @param index Position in this generator's order sequence
+     * @return The order at that position, for one of the first petRange pets (indexes 1 to petRange) of this node
+     */
+    public Store order(long index) {
+        Store order = new Store();
+        order.setId(id(index));
+        order.setPetId(id(1 + Math.floorMod(hash(index, PET_REF), petRange)));
+        // 1 with probability 1/2, 2 with 1/4, ... capped at 5
+        order.setQuantity(Math.min(5, 1 + Long.numberOfTrailingZeros(hash(index, QUANTITY) | 1L << 62)));
+        order.setShipDate(shipDate(SHIP_DATE_BASE + Math.floorMod(hash(index, SHIP), SHIP_DATE_RANGE)));
+        String status = ORDER_STATUSES[weighted(index, ORDER_STATUS, ORDER_STATUS_WEIGHTS)];
+        order.setStatus(status);
+        order.setComplete("delivered".equals(status));
+        return order;
+    }
+
+    long id(long index) {
+        if (index <= 0 || index >= 1L << INDEX_BITS) {
+            throw new IllegalArgumentException("Index out of range: " + index);
+        }
+        return (long) node << INDEX_BITS | index;
+    }
+
+    int userId(long index) {
+        if (index <= 0) {
+            throw new IllegalArgumentException("Index out of range: " + index);
+        }
+        if (index >= 1L << USER_INDEX_BITS || node >= 1 << USER_NODE_BITS) {
+            throw new IllegalStateException("User.id is an int: unique ids need node < " + (1 << USER_NODE_BITS)
+                    + " and fewer than " + (1L << USER_INDEX_BITS) + " users per node");
+        }
+        return node << USER_INDEX_BITS | (int) index;
+    }
+
+    // yyyy-MM-dd'T'HH:mm:ss.SSS'Z' in UTC, like Store.getShipDateAsDate expects, without a DateTimeFormatter
+    private static String shipDate(long epochMillis) {
+        LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(epochMillis, 86_400_000L));
+        int millisOfDay = (int) Math.floorMod(epochMillis, 86_400_000L);
+        char[] text = "0000-00-00T00:00:00.000Z".toCharArray();
+        digits(text, 0, 4, date.getYear());
+        digits(text, 5, 2, date.getMonthValue());
+        digits(text, 8, 2, date.getDayOfMonth());
+        digits(text, 11, 2, millisOfDay / 3_600_000);
+        digits(text, 14, 2, millisOfDay / 60_000 % 60);
+        digits(text, 17, 2, millisOfDay / 1000 % 60);
+        digits(text, 20, 3, millisOfDay % 1000);
+        return new String(text);
+    }
+
+    private static void digits(char[] text, int offset, int width, int value) {
+        for (int i = offset + width - 1; i >= offset; i--, value /= 10) {
+            text[i] = (char) ('0' + value % 10);
+        }
+    }
+
+    private static String phone(long digits) {
+        char[] phone = {'+', '4', '2', '0', '0', '0', '0', '0', '0', '0', '0', '0', '0'};
+        for (int i = phone.length - 1; digits > 0; i--, digits /= 10) {
+            phone[i] = (char) ('0' + digits % 10);
+        }
+        return new String(phone);
+    }
+
+    private static LongStream indexes(AtomicLong counter, long count) {
+        long start = counter.getAndAdd(count);
+        return LongStream.range(start, start + count);
+    }
+
+    private int pick(long index, long salt, int bound) {
+        return (int) Math.floorMod(hash(index, salt), (long) bound);
+    }
+
+    private int weighted(long index, long salt, int[] cumulativePercent) {
+        int draw = pick(index, salt, 100);
+        int i = 0;
+        while (draw >= cumulativePercent[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    // SplitMix64 finalizer over (seed, node, index, salt): cheap, allocation-free and well mixed
+    private long hash(long index, long salt) {
+        long z = seed + node * 0x9E3779B97F4A7C15L + index * 0xBF58476D1CE4E5B9L + salt * 0x94D049BB133111EBL;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Settings of a generator.
+     */
+    public static final class Builder {
+        private long seed = 42;
+        private int node;
+        private long petRange = 1000;
+
+        private Builder() {
+        }
+
+        /**
+         * Seed of the field values; ids do not depend on it.
+         */
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Number of this JVM or worker, 0 to 65535; generators with different nodes never share ids.
+         */
+        public Builder node(int node) {
+            this.node = node;
+            return this;
+        }
+
+        /**
+         * Orders refer to one of the first petRange pets of the same node, 1000 by default.
+         */
+        public Builder petRange(long petRange) {
+            this.petRange = petRange;
+            return this;
+        }
+
+        public TestDataGenerator build() {
+            return new TestDataGenerator(this);
+        }
+    }
+}
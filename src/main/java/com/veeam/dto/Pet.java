@@ -1,8 +1,10 @@
 package com.veeam.dto;
 
-import com.google.gson.Gson;
+import com.veeam.json.JsonCodecs;
+import com.veeam.json.JsonSerializable;
 import java.util.List;
 
+@JsonSerializable
 public class Pet {
 
     private long id;
@@ -63,17 +65,21 @@ public class Pet {
 
     // Method to convert Pet object to JSON string
     public String toJson() {
-        Gson gson = new Gson();
-        return gson.toJson(this);  // Convert the current object to a JSON string
+        return JsonCodecs.getDefault().toJson(this);  // Convert the current object to a JSON string
+    }
+
+    // Method to convert Pet object to UTF-8 JSON bytes for a request body, without an intermediate String
+    public byte[] toJsonBytes() {
+        return JsonCodecs.getDefault().toJsonBytes(this);
     }
 
     // Method to convert JSON string to Pet object
     public static Pet fromJson(String json) {
-        Gson gson = new Gson();
-        return gson.fromJson(json, Pet.class);  // Convert JSON string to Pet object
+        return JsonCodecs.getDefault().fromJson(json, Pet.class);  // Convert JSON string to Pet object
     }
 
     // Inner Category class
+    @JsonSerializable
     public static class Category {
         private long id;
         private String name;
@@ -97,6 +103,7 @@ public class Pet {
     }
 
     // Inner Tag class
+    @JsonSerializable
     public static class Tag {
         private long id;
         private String name;
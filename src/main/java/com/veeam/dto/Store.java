@@ -5,8 +5,10 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 
-import com.google.gson.Gson;
+import com.veeam.json.JsonCodecs;
+import com.veeam.json.JsonSerializable;
 
+@JsonSerializable
 public class Store {
     private long id;
     private long petId;
@@ -40,6 +42,10 @@ public class Store {
         this.quantity = quantity;
     }
 
+    public String getShipDate() {
+        return shipDate;
+    }
+
     public void setShipDate(String shipDate) {
         this.shipDate = shipDate; 
     }
@@ -72,7 +78,16 @@ public class Store {
     
     // Method to convert Pet object to JSON string
     public String toJson() {
-        Gson gson = new Gson();
-        return gson.toJson(this);  // Convert the current object to a JSON string
+        return JsonCodecs.getDefault().toJson(this);  // Convert the current object to a JSON string
+    }
+
+    // Method to convert the order to UTF-8 JSON bytes for a request body, without an intermediate String
+    public byte[] toJsonBytes() {
+        return JsonCodecs.getDefault().toJsonBytes(this);
+    }
+
+    // Method to convert JSON string to Store object
+    public static Store fromJson(String json) {
+        return JsonCodecs.getDefault().fromJson(json, Store.class);
     }
 }
@@ -1,11 +1,11 @@
 package com.veeam.dto;
 
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
+import com.veeam.json.JsonCodecs;
+import com.veeam.json.JsonSerializable;
 
-import java.lang.reflect.Type;
 import java.util.List;
 
+@JsonSerializable
 public class User {
     private int id;
     private String username;
@@ -86,8 +86,15 @@ public class User {
      * @return JSON representation of the User object
      */
     public String toJson() {
-        Gson gson = new Gson();
-        return gson.toJson(this);  // Converting User object to JSON string
+        return JsonCodecs.getDefault().toJson(this);  // Converting User object to JSON string
+    }
+
+    /**
+     * Convert the User object to UTF-8 JSON bytes, without an intermediate String
+     * @return JSON representation of the User object, owned by the caller
+     */
+    public byte[] toJsonBytes() {
+        return JsonCodecs.getDefault().toJsonBytes(this);
     }
 
     /**
@@ -96,8 +103,7 @@ public class User {
      * @return The User object
      */
     public static User fromJson(String json) {
-        Gson gson = new Gson();
-        return gson.fromJson(json, User.class);  // Converting JSON string to User object
+        return JsonCodecs.getDefault().fromJson(json, User.class);  // Converting JSON string to User object
     }
 
     /**
@@ -106,8 +112,7 @@ public class User {
      * @return JSON string representing the list of users
      */
     public static String toJsonArray(List<User> users) {
-        Gson gson = new Gson();
-        return gson.toJson(users);
+        return JsonCodecs.getDefault().toJsonArray(users);
     }
 
 }
@@ -0,0 +1,162 @@
+package com.veeam.http;
+
+import com.veeam.config.TestConfiguration;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * In-flight limit that follows the server's capacity with additive increase, multiplicative decrease.
+ * Every completed request is a sample. A request that failed without a response, was rejected
+ * as overloaded (429, 503, 504), or finds the smoothed latency of its endpoint above
+ * latencyTolerance times that endpoint's recent minimum latency shrinks the limit by backoffRatio.
+ * Latency is compared per endpoint so that a mix of fast and slow calls is not mistaken for queueing. Other samples grow it by 1/limit,
+ * about +1 per round trip, but only while the limit is actually in use.
+ * After a decrease, samples of requests sent before it are not counted again, so one congestion
+ * episode costs one decrease instead of one per request that was already queued.
+ */
+public final class AdaptiveLimit {
+
+    // The minimum latency is re-measured over windows of this many samples, so it can rise again
+    private static final int MIN_LATENCY_WINDOW = 500;
+    private static final double SMOOTHING = 0.05;
+
+    private final int initialLimit;
+    private final int minLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+
+    private final AtomicLong limit;  // double bits
+    private final ConcurrentMap<String, Baseline> baselines = new ConcurrentHashMap<>();
+    private final LongAdder decreases = new LongAdder();
+    private volatile long decreasedAt = System.nanoTime();
+
+    /**
+     * @param initialLimit Limit before the first sample
+     * @param minLimit The limit never drops below this
+     * @param backoffRatio Factor applied on overload, e.g. 0.9
+     * @param latencyTolerance Smoothed latency over the minimum latency that counts as queueing, e.g. 2.0
+     */
+    public AdaptiveLimit(int initialLimit, int minLimit, double backoffRatio, double latencyTolerance) {
+        if (minLimit <= 0 || initialLimit < minLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 0 < minLimit <= initialLimit: " + minLimit + ", " + initialLimit);
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Backoff ratio must be between 0 and 1: " + backoffRatio);
+        }
+        if (latencyTolerance <= 1) {
+            throw new IllegalArgumentException("Latency tolerance must be above 1: " + latencyTolerance);
+        }
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.limit = new AtomicLong(Double.doubleToLongBits(initialLimit));
+    }
+
+    /**
+     * Limit from http.adaptiveLimit.* settings, or null when http.adaptiveLimit is not true:
+     * initial (default 20), min (default 1), backoffRatio (default 0.9), latencyTolerance (default 2.0).
+     * @return The configured limit or null
+     */
+    public static AdaptiveLimit fromConfiguration() {
+        if (!Boolean.parseBoolean(TestConfiguration.getProperty("http.adaptiveLimit", "false"))) {
+            return null;
+        }
+        return new AdaptiveLimit(
+                Integer.parseInt(TestConfiguration.getProperty("http.adaptiveLimit.initial", "20")),
+                Integer.parseInt(TestConfiguration.getProperty("http.adaptiveLimit.min", "1")),
+                Double.parseDouble(TestConfiguration.getProperty("http.adaptiveLimit.backoffRatio", "0.9")),
+                Double.parseDouble(TestConfiguration.getProperty("http.adaptiveLimit.latencyTolerance", "2.0")));
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    /**
+     * @return The current limit
+     */
+    public int getLimit() {
+        return (int) Double.longBitsToDouble(limit.get());
+    }
+
+    /**
+     * @return How often the limit was cut
+     */
+    public long getDecreases() {
+        return decreases.sum();
+    }
+
+    /**
+     * Feed one completed request and get the limit to apply.
+     * @param endpoint Endpoint whose latency baseline the sample is compared with, null for untracked calls
+     * @param startNanos System.nanoTime() when the request was sent
+     * @param latencyNanos Time until the response, or until the failure
+     * @param status HTTP status, 0 when there was no response
+     * @param inFlight Requests in flight including this one
+     * @param maxLimit Upper bound, the transport's maxInFlight
+     * @return The new limit
+     */
+    int onSample(String endpoint, long startNanos, long latencyNanos, int status, int inFlight, int maxLimit) {
+        boolean queueing = baselines.computeIfAbsent(endpoint == null ? "" : endpoint, key -> new Baseline())
+                .track(latencyNanos, latencyTolerance);
+        boolean overloaded = status == 0 || status == 429 || status == 503 || status == 504 || queueing;
+        if (overloaded) {
+            long now = System.nanoTime();
+            if (startNanos - decreasedAt >= 0) {
+                decreasedAt = now;
+                decreases.increment();
+                return update(current -> Math.max(minLimit, current * backoffRatio), maxLimit);
+            }
+            return Math.min(getLimit(), maxLimit);
+        }
+        double current = Double.longBitsToDouble(limit.get());
+        if (inFlight * 2 < current) {
+            return Math.min((int) current, maxLimit);  // the limit is not what holds requests back
+        }
+        return update(value -> Math.min(maxLimit, value + 1 / value), maxLimit);
+    }
+
+    private int update(DoubleUnaryOperator change, int maxLimit) {
+        long bits;
+        double next;
+        do {
+            bits = limit.get();
+            next = change.applyAsDouble(Double.longBitsToDouble(bits));
+        } while (!limit.compareAndSet(bits, Double.doubleToLongBits(next)));
+        return Math.min((int) next, maxLimit);
+    }
+
+    /**
+     * Smoothed and recent minimum latency of one endpoint.
+     */
+    private static final class Baseline {
+        private final AtomicLong smoothedLatency = new AtomicLong(Double.doubleToLongBits(0));  // double bits, ns
+        private final AtomicLong minLatency = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong windowMinLatency = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicInteger windowSamples = new AtomicInteger();
+
+        // Updates the smoothed and the windowed minimum latency; true when the smoothed one shows queueing
+        boolean track(long latencyNanos, double latencyTolerance) {
+            windowMinLatency.accumulateAndGet(latencyNanos, Math::min);
+            minLatency.accumulateAndGet(latencyNanos, Math::min);
+            if (windowSamples.incrementAndGet() >= MIN_LATENCY_WINDOW) {
+                windowSamples.set(0);
+                minLatency.set(windowMinLatency.getAndSet(Long.MAX_VALUE));
+            }
+            long bits;
+            double smoothed;
+            do {
+                bits = smoothedLatency.get();
+                double previous = Double.longBitsToDouble(bits);
+                smoothed = previous == 0 ? latencyNanos : previous + SMOOTHING * (latencyNanos - previous);
+            } while (!smoothedLatency.compareAndSet(bits, Double.doubleToLongBits(smoothed)));
+            return smoothed > latencyTolerance * minLatency.get();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.veeam.http;
+
+import com.veeam.utils.ApiResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Collections;
+import java.util.Optional;
+import javax.net.ssl.SSLSession;
+
+/**
+ * HttpResponse over an already buffered ApiResponse, for streaming calls answered without a live body,
+ * e.g. when exchanges are recorded or replayed.
+ */
+final class BufferedResponse implements HttpResponse<InputStream> {
+
+    private final HttpRequest request;
+    private final ApiResponse response;
+    private final InputStream body;
+
+    BufferedResponse(HttpRequest request, ApiResponse response) {
+        this.request = request;
+        this.response = response;
+        this.body = new ByteArrayInputStream(response.getBodyBytes());
+    }
+
+    @Override
+    public int statusCode() {
+        return response.getStatusCode();
+    }
+
+    @Override
+    public HttpRequest request() {
+        return request;
+    }
+
+    @Override
+    public Optional<HttpResponse<InputStream>> previousResponse() {
+        return Optional.empty();
+    }
+
+    @Override
+    public HttpHeaders headers() {
+        HttpHeaders headers = response.getHeaders();
+        return headers != null ? headers : HttpHeaders.of(Collections.emptyMap(), (name, value) -> true);
+    }
+
+    @Override
+    public InputStream body() {
+        return body;
+    }
+
+    @Override
+    public Optional<SSLSession> sslSession() {
+        return Optional.empty();
+    }
+
+    @Override
+    public URI uri() {
+        return request.uri();
+    }
+
+    @Override
+    public HttpClient.Version version() {
+        return HttpClient.Version.HTTP_1_1;
+    }
+}
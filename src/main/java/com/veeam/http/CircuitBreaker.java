@@ -0,0 +1,275 @@
+package com.veeam.http;
+
+import com.veeam.config.TestConfiguration;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Circuit breakers per endpoint, so a backend that is down costs callers microseconds instead of a timeout each.
+ * Each endpoint keeps the outcomes of its last windowSize calls. Once at least minimumCalls are in the
+ * window and the share of failures (no response or 5xx) or of calls slower than slowCallDuration
+ * reaches its threshold, the circuit opens and calls are rejected without being sent. After
+ * openDuration it lets probeCalls through (half-open): if they all succeed it closes, if one fails it opens again.
+ * State changes swap an immutable state object with compareAndSet, so concurrent callers agree
+ * on one transition without locks; outcomes are counted in a ring of atomic slots.
+ */
+public final class CircuitBreaker {
+
+    /**
+     * Phase of one endpoint's circuit.
+     */
+    public enum Phase {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final int SUCCESS = 0;
+    private static final int FAILURE = 1;
+    private static final int SLOW = 2;
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int probeCalls;
+    private final ConcurrentHashMap<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+    private CircuitBreaker(Builder builder) {
+        this.windowSize = builder.windowSize;
+        this.minimumCalls = Math.min(builder.minimumCalls, builder.windowSize);
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.slowCallRateThreshold = builder.slowCallRateThreshold;
+        this.slowCallNanos = builder.slowCallDuration.toNanos();
+        this.openNanos = builder.openDuration.toNanos();
+        this.probeCalls = builder.probeCalls;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Breaker from http.breaker.* settings, or null when http.breaker is not true:
+     * failureRate and slowCallRate in percent (default 50 and 80), slowCall and open in ms (default 2000 and 5000),
+     * window (default 50), minimumCalls (default 20), probes (default 3).
+     * @return The configured breaker or null
+     */
+    public static CircuitBreaker fromConfiguration() {
+        if (!Boolean.parseBoolean(TestConfiguration.getProperty("http.breaker", "false"))) {
+            return null;
+        }
+        return builder()
+                .failureRateThreshold(Double.parseDouble(TestConfiguration.getProperty("http.breaker.failureRate", "50")))
+                .slowCallRateThreshold(Double.parseDouble(TestConfiguration.getProperty("http.breaker.slowCallRate", "80")))
+                .slowCallDuration(Duration.ofMillis(Long.parseLong(TestConfiguration.getProperty("http.breaker.slowCall", "2000"))))
+                .openDuration(Duration.ofMillis(Long.parseLong(TestConfiguration.getProperty("http.breaker.open", "5000"))))
+                .windowSize(Integer.parseInt(TestConfiguration.getProperty("http.breaker.window", "50")))
+                .minimumCalls(Integer.parseInt(TestConfiguration.getProperty("http.breaker.minimumCalls", "20")))
+                .probeCalls(Integer.parseInt(TestConfiguration.getProperty("http.breaker.probes", "3")))
+                .build();
+    }
+
+    /**
+     * @return Current phase of the endpoint's circuit, CLOSED for endpoints not called yet
+     */
+    public Phase getPhase(String endpoint) {
+        Circuit circuit = circuits.get(endpoint);
+        return circuit == null ? Phase.CLOSED : circuit.state.get().phase;
+    }
+
+    /**
+     * Ask whether a call may be sent.
+     * @return true to send it; false when the circuit is open and the call should fail at once
+     */
+    boolean tryAcquire(String endpoint) {
+        return circuit(endpoint).tryAcquire(System.nanoTime());
+    }
+
+    /**
+     * Feed the outcome of a call that was sent.
+     * @param status HTTP status, 0 when there was no response
+     */
+    void onResult(String endpoint, int status, long latencyNanos) {
+        int outcome = status == 0 || status >= 500 ? FAILURE : latencyNanos > slowCallNanos ? SLOW : SUCCESS;
+        circuit(endpoint).onResult(outcome, System.nanoTime());
+    }
+
+    private Circuit circuit(String endpoint) {
+        Circuit circuit = circuits.get(endpoint);
+        return circuit != null ? circuit : circuits.computeIfAbsent(endpoint, key -> new Circuit());
+    }
+
+    // Immutable apart from the half-open counters; every transition installs a new instance
+    private static final class State {
+        final Phase phase;
+        final long since;
+        final AtomicInteger probePermits;
+        final AtomicInteger probeSuccesses;
+
+        State(Phase phase, long since, int probes) {
+            this.phase = phase;
+            this.since = since;
+            this.probePermits = phase == Phase.HALF_OPEN ? new AtomicInteger(probes) : null;
+            this.probeSuccesses = phase == Phase.HALF_OPEN ? new AtomicInteger() : null;
+        }
+    }
+
+    private final class Circuit {
+        final AtomicReference<State> state = new AtomicReference<>(new State(Phase.CLOSED, System.nanoTime(), 0));
+        final AtomicIntegerArray window = new AtomicIntegerArray(windowSize);
+        final AtomicLong cursor = new AtomicLong();
+        final AtomicInteger failures = new AtomicInteger();
+        final AtomicInteger slowCalls = new AtomicInteger();
+
+        boolean tryAcquire(long now) {
+            while (true) {
+                State current = state.get();
+                switch (current.phase) {
+                    case CLOSED:
+                        return true;
+                    case OPEN:
+                        if (now - current.since < openNanos) {
+                            return false;
+                        }
+                        break;
+                    default:
+                        if (current.probePermits.getAndUpdate(permits -> Math.max(permits - 1, 0)) > 0) {
+                            return true;
+                        }
+                        // Probes that never reported (e.g. the caller was interrupted) must not stall the circuit
+                        if (now - current.since < openNanos) {
+                            return false;
+                        }
+                }
+                state.compareAndSet(current, new State(Phase.HALF_OPEN, now, probeCalls));
+            }
+        }
+
+        void onResult(int outcome, long now) {
+            State current = state.get();
+            if (current.phase == Phase.HALF_OPEN) {
+                if (outcome != SUCCESS) {
+                    state.compareAndSet(current, new State(Phase.OPEN, now, 0));
+                } else if (current.probeSuccesses.incrementAndGet() >= probeCalls
+                        && state.compareAndSet(current, new State(Phase.CLOSED, now, 0))) {
+                    clearWindow();
+                }
+                return;
+            }
+            if (current.phase == Phase.OPEN) {
+                return;  // sent before the circuit opened
+            }
+            long index = cursor.getAndIncrement();
+            int previous = window.getAndSet((int) (index % windowSize), outcome + 1);  // 0 marks an empty slot
+            count(previous - 1, -1);
+            count(outcome, 1);
+            long calls = Math.min(index + 1, windowSize);
+            if (calls >= minimumCalls
+                    && (failures.get() * 100.0 / calls >= failureRateThreshold || slowCalls.get() * 100.0 / calls >= slowCallRateThreshold)
+                    && state.compareAndSet(current, new State(Phase.OPEN, now, 0))) {
+                clearWindow();
+            }
+        }
+
+        private void count(int outcome, int delta) {
+            if (outcome == FAILURE) {
+                failures.addAndGet(delta);
+            } else if (outcome == SLOW) {
+                slowCalls.addAndGet(delta);
+            }
+        }
+
+        // Only the thread that won the transition clears; the window starts over after every phase change
+        private void clearWindow() {
+            for (int i = 0; i < windowSize; i++) {
+                count(window.getAndSet(i, 0) - 1, -1);
+            }
+            cursor.set(0);
+        }
+    }
+
+    /**
+     * Thresholds and timings of the breakers, the same for every endpoint.
+     */
+    public static final class Builder {
+        private int windowSize = 50;
+        private int minimumCalls = 20;
+        private double failureRateThreshold = 50;
+        private double slowCallRateThreshold = 80;
+        private Duration slowCallDuration = Duration.ofSeconds(2);
+        private Duration openDuration = Duration.ofSeconds(5);
+        private int probeCalls = 3;
+
+        private Builder() {
+        }
+
+        /**
+         * Number of recent calls the rates are computed over, 50 by default.
+         */
+        public Builder windowSize(int windowSize) {
+            this.windowSize = windowSize;
+            return this;
+        }
+
+        /**
+         * Calls needed in the window before the circuit may open, 20 by default.
+         */
+        public Builder minimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+            return this;
+        }
+
+        /**
+         * Percentage of failed calls (no response or 5xx) that opens the circuit, 50 by default.
+         */
+        public Builder failureRateThreshold(double percent) {
+            this.failureRateThreshold = percent;
+            return this;
+        }
+
+        /**
+         * Percentage of slow calls that opens the circuit, 80 by default; above 100 disables it.
+         */
+        public Builder slowCallRateThreshold(double percent) {
+            this.slowCallRateThreshold = percent;
+            return this;
+        }
+
+        /**
+         * Calls taking longer than this count as slow, 2 s by default.
+         */
+        public Builder slowCallDuration(Duration slowCallDuration) {
+            this.slowCallDuration = slowCallDuration;
+            return this;
+        }
+
+        /**
+         * How long an open circuit rejects calls before probing, 5 s by default.
+         */
+        public Builder openDuration(Duration openDuration) {
+            this.openDuration = openDuration;
+            return this;
+        }
+
+        /**
+         * Calls let through while half-open; all must succeed to close, 3 by default.
+         */
+        public Builder probeCalls(int probeCalls) {
+            this.probeCalls = probeCalls;
+            return this;
+        }
+
+        public CircuitBreaker build() {
+            if (windowSize <= 0 || minimumCalls <= 0 || probeCalls <= 0) {
+                throw new IllegalArgumentException("Window size, minimum calls and probe calls must be positive");
+            }
+            return new CircuitBreaker(this);
+        }
+    }
+}
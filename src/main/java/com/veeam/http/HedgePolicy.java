@@ -0,0 +1,46 @@
+package com.veeam.http;
+
+import com.veeam.metrics.EndpointMetrics;
+
+import java.time.Duration;
+
+/**
+ * Sends a duplicate GET when the first one is slower than a latency percentile of its endpoint,
+ * and takes whichever answers first. Costs a few percent more requests to cut the tail.
+ * The delay is read from the endpoint's own latency histogram, so no hedge is sent before
+ * enough calls have been seen.
+ */
+public final class HedgePolicy {
+
+    private static final long MIN_SAMPLES = 50;
+    private static final long REFRESH_NANOS = Duration.ofSeconds(1).toNanos();
+
+    private final double percentile;
+    private final Duration minDelay;
+
+    /**
+     * @param percentile Latency percentile after which a hedge is sent, e.g. 95
+     * @param minDelay Never hedge earlier than this, however fast the endpoint usually is
+     */
+    public HedgePolicy(double percentile, Duration minDelay) {
+        if (percentile <= 0 || percentile >= 100) {
+            throw new IllegalArgumentException("Hedge percentile must be between 0 and 100: " + percentile);
+        }
+        this.percentile = percentile;
+        this.minDelay = minDelay;
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    /**
+     * @return Nanoseconds to wait before hedging, or -1 while the endpoint has too few samples
+     */
+    long delayNanos(EndpointMetrics metrics) {
+        if (metrics.getCount() < MIN_SAMPLES) {
+            return -1;
+        }
+        return Math.max(metrics.latencyAtPercentile(percentile, REFRESH_NANOS), minDelay.toNanos());
+    }
+}
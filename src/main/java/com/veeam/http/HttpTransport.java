@@ -0,0 +1,981 @@
+package com.veeam.http;
+
+import com.veeam.config.TestConfiguration;
+import com.veeam.logging.RequestLog;
+import com.veeam.metrics.ApiMetrics;
+import com.veeam.replay.ExchangeRecorder;
+import com.veeam.replay.ExchangeReplayer;
+import com.veeam.utils.ApiResponse;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.logging.Logger;
+
+/**
+ * HTTP transport shared by PetApi, StoreApi and UserApi.
+ * One transport owns one HttpClient, so every API instance built on it shares the same
+ * connection pool, selector thread and TLS sessions instead of opening its own.
+ */
+public final class HttpTransport {
+
+    private static final Logger logger = Logger.getLogger(HttpTransport.class.getName());
+    private static final String DEFAULT_BASE_URL = "https://petstore.swagger.io/v2";
+    private static volatile HttpTransport shared;
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final Duration requestTimeout;
+    private final ExecutorService ownedExecutor;
+    private final InFlightLimiter limiter;
+    private final AdaptiveLimit adaptiveLimit;
+    private final int maxInFlight;
+    private final ApiMetrics metrics;
+    private final RequestLog requestLog;
+    private final RetryPolicy retryPolicy;
+    private final HedgePolicy hedgePolicy;
+    private final ResponseCache responseCache;
+    private final RequestCoalescer coalescer;
+    private final CircuitBreaker circuitBreaker;
+    private final ExchangeRecorder exchangeRecorder;
+    private final ExchangeReplayer exchangeReplayer;
+
+    private HttpTransport(Builder builder) {
+        applyConnectionPoolSettings(builder.poolSize, builder.keepAlive);
+
+        HttpClient.Builder clientBuilder = HttpClient.newBuilder()
+                .version(builder.version)
+                .followRedirects(HttpClient.Redirect.NORMAL);
+        if (builder.connectTimeout != null) {
+            clientBuilder.connectTimeout(builder.connectTimeout);
+        }
+
+        ExecutorService created = null;
+        if (builder.executor != null) {
+            clientBuilder.executor(builder.executor);
+        } else {
+            created = createExecutor(builder);
+            if (created != null) {
+                clientBuilder.executor(created);
+            }
+        }
+
+        this.ownedExecutor = created;
+        this.client = clientBuilder.build();
+        this.baseUrl = stripTrailingSlash(builder.baseUrl);
+        this.requestTimeout = builder.requestTimeout;
+        this.maxInFlight = builder.maxInFlight;
+        this.adaptiveLimit = builder.adaptiveLimit;
+        this.limiter = new InFlightLimiter(adaptiveLimit != null
+                ? Math.min(adaptiveLimit.getInitialLimit(), maxInFlight) : maxInFlight);
+        this.metrics = builder.metrics;
+        this.requestLog = builder.requestLog;
+        this.retryPolicy = builder.retryPolicy;
+        this.hedgePolicy = builder.hedgePolicy;
+        this.responseCache = builder.responseCache;
+        this.coalescer = builder.coalesceGets ? new RequestCoalescer() : null;
+        this.circuitBreaker = builder.circuitBreaker;
+        this.exchangeRecorder = builder.exchangeRecorder;
+        this.exchangeReplayer = builder.exchangeReplayer;
+    }
+
+    /**
+     * Get the process-wide transport, created on first use from TestConfiguration.
+     * @return The shared transport
+     */
+    public static HttpTransport shared() {
+        HttpTransport transport = shared;
+        if (transport == null) {
+            synchronized (HttpTransport.class) {
+                transport = shared;
+                if (transport == null) {
+                    transport = fromConfiguration().build();
+                    shared = transport;
+                }
+            }
+        }
+        return transport;
+    }
+
+    /**
+     * Create a builder preset with the values from TestConfiguration.
+     * @return Builder that can be adjusted before building a dedicated transport
+     */
+    public static Builder fromConfiguration() {
+        return builder()
+                .baseUrl(TestConfiguration.getBaseUrl())
+                .requestTimeout(Duration.ofMillis(TestConfiguration.getTimeout()))
+                .retryPolicy(new RetryPolicy(TestConfiguration.getRetryCount(),
+                        Duration.ofMillis(TestConfiguration.getRetryBackoff()),
+                        Duration.ofMillis(TestConfiguration.getRetryMaxBackoff())))
+                .hedgePolicy(TestConfiguration.getHedgePercentile() > 0
+                        ? new HedgePolicy(TestConfiguration.getHedgePercentile(), Duration.ofMillis(TestConfiguration.getHedgeMinDelay()))
+                        : null)
+                .version(HttpClient.Version.valueOf(TestConfiguration.getHttpVersion()))
+                .connectTimeout(Duration.ofMillis(TestConfiguration.getConnectTimeout()))
+                .connectionPoolSize(TestConfiguration.getConnectionPoolSize())
+                .keepAlive(Duration.ofSeconds(TestConfiguration.getKeepAlive()))
+                .executorThreads(TestConfiguration.getExecutorThreads())
+                .virtualThreads("virtual".equalsIgnoreCase(TestConfiguration.getThreadMode()))
+                .maxInFlight(TestConfiguration.getMaxInFlight())
+                .responseCache(ResponseCache.fromConfiguration())
+                .coalesceGets(TestConfiguration.isCoalescingEnabled())
+                .adaptiveLimit(AdaptiveLimit.fromConfiguration())
+                .circuitBreaker(CircuitBreaker.fromConfiguration())
+                .exchangeRecorder(ExchangeRecorder.fromConfiguration())
+                .exchangeReplayer(ExchangeReplayer.fromConfiguration());
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public HttpClient getClient() {
+        return client;
+    }
+
+    /**
+     * @return Root URL the API classes build their endpoints on, without a trailing slash
+     */
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * Send the request on the shared client.
+     * The body is kept as raw bytes; it is only decoded if the caller asks for it.
+     * The transport request timeout is applied when the request does not carry its own.
+     * @param request The HTTP request to send
+     * @return ApiResponse with status, raw body, headers and elapsed time
+     */
+    public ApiResponse execute(HttpRequest request) throws IOException, InterruptedException {
+        return execute(null, request);
+    }
+
+    /**
+     * Send the request and record it in the metrics under the given endpoint.
+     * @param endpoint Method and path template, e.g. "GET /pet/{petId}", or null to skip metrics
+     * @param request The HTTP request to send
+     * @return ApiResponse with status, raw body, headers and elapsed time
+     */
+    public ApiResponse execute(String endpoint, HttpRequest request) throws IOException, InterruptedException {
+        if (isCached(endpoint, request)) {
+            String url = request.uri().toString();
+            ResponseCache.Entry entry = responseCache.lookup(url);
+            if (entry != null && entry.isFresh()) {
+                responseCache.recordHit();
+                return entry.response;
+            }
+            long version = responseCache.version(endpoint, url);
+            return cached(endpoint, url, entry, fetch(endpoint, conditional(request, entry)), version);
+        }
+        try {
+            return fetch(endpoint, request);
+        } finally {
+            invalidateWritten(request);
+        }
+    }
+
+    private ApiResponse send(String endpoint, HttpRequest request) throws IOException, InterruptedException {
+        if (isHedged(endpoint, request)) {
+            return await(sendAsync(endpoint, request));
+        }
+        for (int attempt = 0; ; attempt++) {
+            ApiResponse response;
+            try {
+                response = sendOnce(endpoint, request);
+            } catch (IOException e) {
+                if (!retryPolicy.shouldRetry(request, attempt, e)) {
+                    throw e;
+                }
+                pauseBeforeRetry(endpoint, attempt);
+                continue;
+            }
+            if (!retryPolicy.shouldRetry(request, attempt, response.getStatusCode())) {
+                return response;
+            }
+            pauseBeforeRetry(endpoint, attempt);
+        }
+    }
+
+    private ApiResponse sendOnce(String endpoint, HttpRequest request) throws IOException, InterruptedException {
+        if (exchangeReplayer != null) {
+            return replay(endpoint, request);
+        }
+        limiter.acquireInterruptibly();
+        long start = System.nanoTime();
+        int status = 0;
+        try {
+            HttpResponse<byte[]> response = client.send(withDefaults(request), HttpResponse.BodyHandlers.ofByteArray());
+            status = response.statusCode();
+            return record(endpoint, request, capture(request, toApiResponse(response, start)));
+        } catch (IOException e) {
+            recordFailure(endpoint, request, start, e);
+            throw e;
+        } finally {
+            release(endpoint, start, status);
+        }
+    }
+
+    private void pauseBeforeRetry(String endpoint, int attempt) throws InterruptedException {
+        if (endpoint != null) {
+            metrics.endpoint(endpoint).recordRetry();
+        }
+        Duration backoff = retryPolicy.backoff(attempt);
+        Thread.sleep(backoff.toMillis(), backoff.getNano() % 1_000_000);
+    }
+
+    /**
+     * Send the request and hand the body over as an InputStream instead of buffering it.
+     * The in-flight slot is held until the body stream is closed, so callers must close it.
+     * @param request The HTTP request to send
+     * @return The HTTP response with an unread body
+     */
+    public HttpResponse<InputStream> sendStreaming(HttpRequest request) throws IOException, InterruptedException {
+        return sendStreaming(null, request);
+    }
+
+    /**
+     * Streaming variant of execute(endpoint, request). The call is recorded when the body stream
+     * is closed, with the bytes actually read and the time until close. The adaptive limit and the
+     * circuit breaker are fed the time until the response headers instead, which does not depend on
+     * how slowly the caller reads.
+     * @param endpoint Method and path template, or null to skip metrics
+     * @param request The HTTP request to send
+     * @return The HTTP response with an unread body
+     */
+    public HttpResponse<InputStream> sendStreaming(String endpoint, HttpRequest request) throws IOException, InterruptedException {
+        if (exchangeRecorder != null || exchangeReplayer != null) {
+            // Exchanges are logged and replayed whole, so the body is buffered and handed out as a stream;
+            // execute() asks the circuit breaker itself
+            ApiResponse buffered = execute(endpoint, request);
+            return new BufferedResponse(request, buffered);
+        }
+        if (isRejected(endpoint)) {
+            metrics.endpoint(endpoint).recordRejected();
+            throw new IOException("Circuit open for " + endpoint);
+        }
+        limiter.acquireInterruptibly();
+        long start = System.nanoTime();
+        HttpResponse<InputStream> response;
+        try {
+            response = client.send(withDefaults(request), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            release(endpoint, start, 0);
+            if (e instanceof IOException) {
+                recordFailure(endpoint, request, start, e);
+            }
+            throw e;
+        }
+        long headersNanos = System.nanoTime() - start;
+        int status = response.statusCode();
+        InputStream body = new FilterInputStream(response.body()) {
+            private boolean closed;
+            private long bytesRead;
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    bytesRead++;
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = super.read(buffer, offset, length);
+                if (read > 0) {
+                    bytesRead += read;
+                }
+                return read;
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (!closed) {
+                    closed = true;
+                    release(endpoint, start, headersNanos, status);
+                    long elapsed = System.nanoTime() - start;
+                    if (endpoint != null) {
+                        metrics.endpoint(endpoint).record(status, elapsed, requestBytes(request), bytesRead);
+                        if (circuitBreaker != null) {
+                            circuitBreaker.onResult(endpoint, status, headersNanos);
+                        }
+                    }
+                    if (requestLog != null) {
+                        requestLog.log(label(endpoint, request), request.uri(), status, elapsed, requestBytes(request),
+                                bytesRead, response.headers(), null, null);
+                    }
+                }
+                super.close();
+            }
+        };
+        return new StreamingResponse(response, body);
+    }
+
+    /**
+     * Send the request without blocking the calling thread.
+     * When the in-flight limit is reached the request waits for a free slot instead of being sent.
+     * @param request The HTTP request to send
+     * @return Future completed with the ApiResponse, or exceptionally with the transport error
+     */
+    public CompletableFuture<ApiResponse> executeAsync(HttpRequest request) {
+        return executeAsync(null, request);
+    }
+
+    /**
+     * Async variant of execute(endpoint, request).
+     * @param endpoint Method and path template, or null to skip metrics
+     * @param request The HTTP request to send
+     * @return Future completed with the ApiResponse, or exceptionally with the transport error
+     */
+    public CompletableFuture<ApiResponse> executeAsync(String endpoint, HttpRequest request) {
+        if (isCached(endpoint, request)) {
+            String url = request.uri().toString();
+            ResponseCache.Entry entry = responseCache.lookup(url);
+            if (entry != null && entry.isFresh()) {
+                responseCache.recordHit();
+                return CompletableFuture.completedFuture(entry.response);
+            }
+            long version = responseCache.version(endpoint, url);
+            return fetchAsync(endpoint, conditional(request, entry))
+                    .thenApply(response -> cached(endpoint, url, entry, response, version));
+        }
+        return fetchAsync(endpoint, request).whenComplete((response, error) -> invalidateWritten(request));
+    }
+
+    // Sends, or joins an identical GET already in flight when coalescing is on. Only the call that
+    // sends asks the circuit breaker, so followers neither use up half-open probes nor count as rejected
+    private ApiResponse fetch(String endpoint, HttpRequest request) throws IOException, InterruptedException {
+        if (coalescer == null || !"GET".equals(request.method())) {
+            return sendIfPermitted(endpoint, request);
+        }
+        return coalescer.execute(coalescingKey(request), () -> sendIfPermitted(endpoint, request), () -> recordCoalesced(endpoint));
+    }
+
+    private CompletableFuture<ApiResponse> fetchAsync(String endpoint, HttpRequest request) {
+        if (coalescer == null || !"GET".equals(request.method())) {
+            return sendIfPermittedAsync(endpoint, request);
+        }
+        return coalescer.executeAsync(coalescingKey(request), () -> sendIfPermittedAsync(endpoint, request), () -> recordCoalesced(endpoint));
+    }
+
+    private ApiResponse sendIfPermitted(String endpoint, HttpRequest request) throws IOException, InterruptedException {
+        return isRejected(endpoint) ? rejected(endpoint) : send(endpoint, request);
+    }
+
+    private CompletableFuture<ApiResponse> sendIfPermittedAsync(String endpoint, HttpRequest request) {
+        return isRejected(endpoint) ? CompletableFuture.completedFuture(rejected(endpoint)) : sendAsync(endpoint, request);
+    }
+
+    // Requests are identical when URL and headers match, e.g. a revalidation only joins one with the same If-None-Match
+    private static String coalescingKey(HttpRequest request) {
+        Map<String, List<String>> headers = request.headers().map();
+        String url = request.uri().toString();
+        return headers.isEmpty() ? url : url + ' ' + headers;
+    }
+
+    // Checked once per sent call, before retries and hedges, so an open circuit costs no backoff either
+    private boolean isRejected(String endpoint) {
+        return circuitBreaker != null && endpoint != null && !circuitBreaker.tryAcquire(endpoint);
+    }
+
+    private ApiResponse rejected(String endpoint) {
+        metrics.endpoint(endpoint).recordRejected();
+        return new ApiResponse(503, "{\"code\":503,\"type\":\"circuit_open\",\"message\":\"Circuit open for " + endpoint + "\"}");
+    }
+
+    private void recordCoalesced(String endpoint) {
+        if (endpoint != null) {
+            metrics.endpoint(endpoint).recordCoalesced();
+        }
+    }
+
+    private CompletableFuture<ApiResponse> sendAsync(String endpoint, HttpRequest request) {
+        HttpRequest prepared = withDefaults(request);
+        if (isHedged(endpoint, prepared)) {
+            long delay = hedgePolicy.delayNanos(metrics.endpoint(endpoint));
+            if (delay >= 0) {
+                return hedged(endpoint, prepared, delay);
+            }
+        }
+        return withRetries(endpoint, prepared, 0, null);
+    }
+
+    // abandoned, when not null, completes once the call's result is no longer needed (a lost hedge)
+    private CompletableFuture<ApiResponse> withRetries(String endpoint, HttpRequest request, int attempt,
+                                                       CompletableFuture<?> abandoned) {
+        return sendOnceAsync(endpoint, request, abandoned).handle((response, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            boolean retry = cause == null
+                    ? retryPolicy.shouldRetry(request, attempt, response.getStatusCode())
+                    : retryPolicy.shouldRetry(request, attempt, cause);
+            if (!retry || abandoned != null && abandoned.isDone()) {
+                return cause == null ? CompletableFuture.completedFuture(response) : CompletableFuture.<ApiResponse>failedFuture(cause);
+            }
+            if (endpoint != null) {
+                metrics.endpoint(endpoint).recordRetry();
+            }
+            Executor afterBackoff = CompletableFuture.delayedExecutor(retryPolicy.backoff(attempt).toNanos(), TimeUnit.NANOSECONDS);
+            return CompletableFuture.supplyAsync(() -> attempt + 1, afterBackoff)
+                    .thenCompose(next -> withRetries(endpoint, request, next, abandoned));
+        }).thenCompose(next -> next);
+    }
+
+    // An abandoned request is cancelled, frees its in-flight slot and is neither recorded nor sampled
+    private CompletableFuture<ApiResponse> sendOnceAsync(String endpoint, HttpRequest prepared, CompletableFuture<?> abandoned) {
+        if (exchangeReplayer != null) {
+            return replayAsync(endpoint, prepared);
+        }
+        return limiter.acquire()
+                .thenCompose(granted -> {
+                    if (abandoned != null && abandoned.isDone()) {
+                        limiter.release();
+                        return CompletableFuture.<ApiResponse>failedFuture(new CancellationException("Abandoned before it was sent"));
+                    }
+                    long start = System.nanoTime();
+                    CompletableFuture<HttpResponse<byte[]>> sent;
+                    try {
+                        sent = client.sendAsync(prepared, HttpResponse.BodyHandlers.ofByteArray());
+                    } catch (RuntimeException e) {
+                        release(endpoint, start, 0);
+                        throw e;
+                    }
+                    if (abandoned != null) {
+                        abandoned.whenComplete((done, error) -> sent.cancel(true));
+                    }
+                    return sent
+                            .handle((response, error) -> {
+                                if (error != null) {
+                                    if (abandoned == null || !abandoned.isDone()) {
+                                        recordFailure(endpoint, prepared, start, error);
+                                    }
+                                    throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+                                }
+                                return record(endpoint, prepared, capture(prepared, toApiResponse(response, start)));
+                            })
+                            .whenComplete((response, error) -> {
+                                if (error != null && abandoned != null && abandoned.isDone()) {
+                                    limiter.release();
+                                } else {
+                                    release(endpoint, start, error == null ? response.getStatusCode() : 0);
+                                }
+                            });
+                });
+    }
+
+    // Replayed calls hold no in-flight slot but are recorded like sent ones, with the recorded latency
+    private ApiResponse replay(String endpoint, HttpRequest request) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        try {
+            return record(endpoint, request, exchangeReplayer.respond(request));
+        } catch (IOException e) {
+            recordFailure(endpoint, request, start, e);
+            throw e;
+        }
+    }
+
+    private CompletableFuture<ApiResponse> replayAsync(String endpoint, HttpRequest request) {
+        long start = System.nanoTime();
+        return exchangeReplayer.respondAsync(request).handle((response, error) -> {
+            if (error != null) {
+                recordFailure(endpoint, request, start, error);
+                throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+            }
+            return record(endpoint, request, response);
+        });
+    }
+
+    // Appends a live exchange to the record log; a failing log is reported but does not fail the call
+    private ApiResponse capture(HttpRequest request, ApiResponse response) {
+        if (exchangeRecorder != null) {
+            long sentAtMicros = System.currentTimeMillis() * 1000 - response.getElapsed().toNanos() / 1000;
+            try {
+                exchangeRecorder.record(request, response, sentAtMicros);
+            } catch (IOException e) {
+                logger.warning("Could not record " + request.method() + " " + request.uri() + ": " + e);
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Send the request, and a duplicate if it has not completed after the hedge delay.
+     * The first successful answer wins; the call only fails when every copy sent has failed.
+     */
+    private CompletableFuture<ApiResponse> hedged(String endpoint, HttpRequest request, long delayNanos) {
+        CompletableFuture<ApiResponse> result = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        BiConsumer<ApiResponse, Throwable> complete = (response, error) -> {
+            if (error == null) {
+                result.complete(response);
+            } else if (pending.decrementAndGet() == 0) {
+                result.completeExceptionally(error);
+            }
+        };
+        // Once result completes, the copy still in flight is cancelled; the winner is already done
+        withRetries(endpoint, request, 0, result).whenComplete(complete);
+        Executor afterDelay = CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS);
+        afterDelay.execute(() -> {
+            if (!result.isDone() && pending.getAndIncrement() > 0) {
+                metrics.endpoint(endpoint).recordHedge();
+                withRetries(endpoint, request, 0, result).whenComplete(complete);
+            }
+        });
+        return result;
+    }
+
+    private boolean isCached(String endpoint, HttpRequest request) {
+        return responseCache != null && "GET".equals(request.method()) && responseCache.caches(endpoint);
+    }
+
+    // Revalidate an expired entry instead of fetching it again when the server gave it an ETag
+    private static HttpRequest conditional(HttpRequest request, ResponseCache.Entry entry) {
+        if (entry == null || entry.etag == null) {
+            return request;
+        }
+        return HttpRequest.newBuilder(request, (name, value) -> true)
+                .header("If-None-Match", entry.etag)
+                .build();
+    }
+
+    private ApiResponse cached(String endpoint, String url, ResponseCache.Entry entry, ApiResponse response, long version) {
+        if (entry != null && response.getStatusCode() == 304) {
+            return responseCache.renew(entry, url, version);
+        }
+        responseCache.recordMiss();
+        responseCache.store(endpoint, url, response, version);
+        return response;
+    }
+
+    // A write to a URL makes the cached read of the same URL stale, e.g. DELETE /pet/1 and GET /pet/1
+    private void invalidateWritten(HttpRequest request) {
+        if (responseCache != null && !"GET".equals(request.method())) {
+            responseCache.invalidate(request.uri().toString());
+        }
+    }
+
+    /**
+     * Drop the cached response of a URL whose resource was changed by a request to another URL,
+     * e.g. GET /pet/1 after PUT /pet. Does nothing without a response cache.
+     * @param url Full URL of the cached GET
+     */
+    public void invalidate(String url) {
+        if (responseCache != null) {
+            responseCache.invalidate(url);
+        }
+    }
+
+    /**
+     * Drop every cached response of an endpoint, e.g. "GET /store/inventory" after a pet changed status.
+     * Does nothing without a response cache.
+     */
+    public void invalidateEndpoint(String endpoint) {
+        if (responseCache != null) {
+            responseCache.invalidateEndpoint(endpoint);
+        }
+    }
+
+    /**
+     * @return GETs answered with the response of an identical request in flight, 0 when coalescing is off
+     */
+    public long getCoalesced() {
+        return coalescer == null ? 0 : coalescer.getCoalesced();
+    }
+
+    /**
+     * @return Per-endpoint circuit breakers, or null when calls are never failed fast
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * @return Log live exchanges are appended to, or null when not recording
+     */
+    public ExchangeRecorder getExchangeRecorder() {
+        return exchangeRecorder;
+    }
+
+    /**
+     * @return Log requests are answered from instead of the network, or null when not replaying
+     */
+    public ExchangeReplayer getExchangeReplayer() {
+        return exchangeReplayer;
+    }
+
+    /**
+     * @return Cache of GET responses, or null when caching is off
+     */
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    // Hedging needs the endpoint's latency history and is only safe for reads
+    private boolean isHedged(String endpoint, HttpRequest request) {
+        return hedgePolicy != null && endpoint != null && "GET".equals(request.method());
+    }
+
+    static ApiResponse await(CompletableFuture<ApiResponse> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * @return Metrics registry this transport records into
+     */
+    public ApiMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return Number of requests currently holding an in-flight slot
+     */
+    public int getInFlight() {
+        return limiter.inFlight();
+    }
+
+    /**
+     * @return Current in-flight limit: maxInFlight, or the value an AdaptiveLimit settled on
+     */
+    public int getInFlightLimit() {
+        return limiter.limit();
+    }
+
+    /**
+     * Stop the executor created by this transport, if any. The JDK client itself has no close
+     * method before Java 21; its connections are released once it becomes unreachable.
+     */
+    public void shutdown() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    // Gives the permit back and, with an adaptive limit, moves the limit by this request's outcome
+    private void release(String endpoint, long startNanos, int status) {
+        release(endpoint, startNanos, System.nanoTime() - startNanos, status);
+    }
+
+    private void release(String endpoint, long startNanos, long latencyNanos, int status) {
+        if (adaptiveLimit != null) {
+            int limit = adaptiveLimit.onSample(endpoint, startNanos, latencyNanos, status, limiter.inFlight(), maxInFlight);
+            if (limit != limiter.limit()) {
+                limiter.setLimit(limit);
+            }
+        }
+        limiter.release();
+    }
+
+    private ApiResponse record(String endpoint, HttpRequest request, ApiResponse response) {
+        long elapsed = response.getElapsed().toNanos();
+        if (endpoint != null) {
+            metrics.endpoint(endpoint).record(response.getStatusCode(), elapsed, requestBytes(request), response.getBodyLength());
+            if (circuitBreaker != null) {
+                circuitBreaker.onResult(endpoint, response.getStatusCode(), elapsed);
+            }
+        }
+        if (requestLog != null) {
+            requestLog.log(label(endpoint, request), request.uri(), response.getStatusCode(), elapsed, requestBytes(request),
+                    response.getBodyLength(), response.getHeaders(), response.getBodyBytes(), null);
+        }
+        return response;
+    }
+
+    private void recordFailure(String endpoint, HttpRequest request, long startNanos, Throwable error) {
+        long elapsed = System.nanoTime() - startNanos;
+        if (endpoint != null) {
+            metrics.endpoint(endpoint).record(0, elapsed, requestBytes(request), 0);
+            if (circuitBreaker != null) {
+                circuitBreaker.onResult(endpoint, 0, elapsed);
+            }
+        }
+        if (requestLog != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            requestLog.log(label(endpoint, request), request.uri(), 0, elapsed, requestBytes(request), 0, null, null, cause);
+        }
+    }
+
+    private static String label(String endpoint, HttpRequest request) {
+        return endpoint != null ? endpoint : request.method();
+    }
+
+    // Known for the string and byte array publishers the API classes use, -1 otherwise
+    private static long requestBytes(HttpRequest request) {
+        return request.bodyPublisher().map(HttpRequest.BodyPublisher::contentLength).orElse(0L);
+    }
+
+    private static ApiResponse toApiResponse(HttpResponse<byte[]> response, long startNanos) {
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - startNanos);
+        return new ApiResponse(response.statusCode(), response.body(), response.headers(), elapsed);
+    }
+
+    private HttpRequest withDefaults(HttpRequest request) {
+        if (requestTimeout == null || request.timeout().isPresent()) {
+            return request;
+        }
+        return HttpRequest.newBuilder(request, (name, value) -> true)
+                .timeout(requestTimeout)
+                .build();
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    // Executor owned by the transport, or null to keep the JDK default
+    private static ExecutorService createExecutor(Builder builder) {
+        if (builder.virtualThreads) {
+            if (VirtualThreads.isSupported()) {
+                return VirtualThreads.newExecutor();
+            }
+            logger.warning("Virtual threads need Java 21+, using platform threads on " + Runtime.version());
+        }
+        if (builder.executorThreads > 0) {
+            return Executors.newFixedThreadPool(builder.executorThreads, daemonThreads("petstore-http"));
+        }
+        return null;
+    }
+
+    /**
+     * The JDK client reads its pool limits from system properties once, when the first client
+     * is created, so they can only be set if nobody has set them before.
+     */
+    private static void applyConnectionPoolSettings(int poolSize, Duration keepAlive) {
+        if (poolSize > 0 && System.getProperty("jdk.httpclient.connectionPoolSize") == null) {
+            System.setProperty("jdk.httpclient.connectionPoolSize", String.valueOf(poolSize));
+        }
+        if (keepAlive != null && System.getProperty("jdk.httpclient.keepalive.timeout") == null) {
+            System.setProperty("jdk.httpclient.keepalive.timeout", String.valueOf(keepAlive.getSeconds()));
+        }
+    }
+
+    static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Builder for a transport with its own client, e.g. for benchmarks or isolated runs.
+     */
+    public static final class Builder {
+        private String baseUrl = DEFAULT_BASE_URL;
+        private HttpClient.Version version = HttpClient.Version.HTTP_2;
+        private Duration connectTimeout;
+        private Duration requestTimeout;
+        private Duration keepAlive;
+        private int poolSize;
+        private int executorThreads;
+        private Executor executor;
+        private boolean virtualThreads;
+        private int maxInFlight = 256;
+        private ApiMetrics metrics = ApiMetrics.global();
+        private RequestLog requestLog = RequestLog.global();
+        private RetryPolicy retryPolicy = RetryPolicy.none();
+        private HedgePolicy hedgePolicy;
+        private ResponseCache responseCache;
+        private boolean coalesceGets;
+        private AdaptiveLimit adaptiveLimit;
+        private CircuitBreaker circuitBreaker;
+        private ExchangeRecorder exchangeRecorder;
+        private ExchangeReplayer exchangeReplayer;
+
+        private Builder() {
+        }
+
+        /**
+         * Root URL of the Petstore API, e.g. http://localhost:8080/v2 for the embedded PetstoreServer.
+         */
+        public Builder baseUrl(String baseUrl) {
+            this.baseUrl = baseUrl;
+            return this;
+        }
+
+        /**
+         * Preferred HTTP version. HTTP_2 is negotiated over TLS and falls back to HTTP/1.1.
+         */
+        public Builder version(HttpClient.Version version) {
+            this.version = version;
+            return this;
+        }
+
+        public Builder connectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        /**
+         * Timeout applied to every request that does not set its own.
+         */
+        public Builder requestTimeout(Duration requestTimeout) {
+            this.requestTimeout = requestTimeout;
+            return this;
+        }
+
+        /**
+         * Maximum idle connections kept by the JDK pool, 0 means unbounded. Process-wide.
+         */
+        public Builder connectionPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+            return this;
+        }
+
+        /**
+         * How long idle connections stay in the pool. Process-wide.
+         */
+        public Builder keepAlive(Duration keepAlive) {
+            this.keepAlive = keepAlive;
+            return this;
+        }
+
+        /**
+         * Size of a fixed executor owned by the transport, 0 keeps the JDK default executor.
+         */
+        public Builder executorThreads(int executorThreads) {
+            this.executorThreads = executorThreads;
+            return this;
+        }
+
+        /**
+         * Executor supplied by the caller, takes precedence over executorThreads.
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Run the client executor on virtual threads (Java 21+), a thread per task instead of a pool.
+         * Ignored when an explicit executor is set; falls back to executorThreads on older runtimes.
+         */
+        public Builder virtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        /**
+         * Maximum number of requests sent concurrently through this transport, sync and async combined.
+         */
+        public Builder maxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * Registry the calls are recorded into, ApiMetrics.global() by default.
+         */
+        public Builder metrics(ApiMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * Sampled request log, RequestLog.global() by default, or null to log nothing.
+         */
+        public Builder requestLog(RequestLog requestLog) {
+            this.requestLog = requestLog;
+            return this;
+        }
+
+        /**
+         * Retries of idempotent calls after failures and transient 5xx, none by default.
+         */
+        public Builder retryPolicy(RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        /**
+         * Hedged GETs, or null (the default) to never send duplicates.
+         */
+        public Builder hedgePolicy(HedgePolicy hedgePolicy) {
+            this.hedgePolicy = hedgePolicy;
+            return this;
+        }
+
+        /**
+         * Cache of GET responses for the endpoints it has a TTL for, or null (the default) to always send.
+         */
+        public Builder responseCache(ResponseCache responseCache) {
+            this.responseCache = responseCache;
+            return this;
+        }
+
+        /**
+         * Move the in-flight limit between the AdaptiveLimit's minimum and maxInFlight by observed
+         * latency and overload, or null (the default) to keep it fixed at maxInFlight.
+         */
+        public Builder adaptiveLimit(AdaptiveLimit adaptiveLimit) {
+            this.adaptiveLimit = adaptiveLimit;
+            return this;
+        }
+
+        /**
+         * Fail calls to an endpoint at once with a 503 while its circuit is open, or null (the default) to always send.
+         */
+        public Builder circuitBreaker(CircuitBreaker circuitBreaker) {
+            this.circuitBreaker = circuitBreaker;
+            return this;
+        }
+
+        /**
+         * Append every exchange sent to this log, or null (the default) to record nothing.
+         */
+        public Builder exchangeRecorder(ExchangeRecorder exchangeRecorder) {
+            this.exchangeRecorder = exchangeRecorder;
+            return this;
+        }
+
+        /**
+         * Answer requests from this recorded log instead of sending them, or null (the default) to use the network.
+         */
+        public Builder exchangeReplayer(ExchangeReplayer exchangeReplayer) {
+            this.exchangeReplayer = exchangeReplayer;
+            return this;
+        }
+
+        /**
+         * Let concurrent identical GETs share one request and its response, off by default.
+         */
+        public Builder coalesceGets(boolean coalesceGets) {
+            this.coalesceGets = coalesceGets;
+            return this;
+        }
+
+        public HttpTransport build() {
+            return new HttpTransport(this);
+        }
+    }
+}
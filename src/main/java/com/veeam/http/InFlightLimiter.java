@@ -0,0 +1,103 @@
+package com.veeam.http;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounds the number of requests in flight without blocking the caller.
+ * A caller over the limit gets a pending future that completes when another request releases its permit.
+ * The limit can be moved while requests are in flight, e.g. by an AdaptiveLimit; lowering it lets
+ * the requests in flight finish and only holds back new ones.
+ */
+final class InFlightLimiter {
+
+    private static final CompletableFuture<Void> GRANTED = CompletableFuture.completedFuture(null);
+
+    private volatile int limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ConcurrentLinkedQueue<CompletableFuture<Void>> waiters = new ConcurrentLinkedQueue<>();
+
+    InFlightLimiter(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("In-flight limit must be positive: " + limit);
+        }
+        this.limit = limit;
+    }
+
+    /**
+     * @return Future completed once a permit is held; the holder must call release()
+     */
+    CompletableFuture<Void> acquire() {
+        if (waiters.isEmpty() && tryAcquire()) {
+            return GRANTED;
+        }
+        CompletableFuture<Void> waiter = new CompletableFuture<>();
+        waiters.add(waiter);
+        drain();
+        return waiter;
+    }
+
+    /**
+     * Blocking variant of acquire() for the synchronous request path.
+     */
+    void acquireInterruptibly() throws InterruptedException {
+        CompletableFuture<Void> permit = acquire();
+        try {
+            permit.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());  // waiters are never completed exceptionally
+        } catch (InterruptedException e) {
+            if (!permit.cancel(false)) {
+                release();  // granted while we were interrupted, give it back
+            }
+            throw e;
+        }
+    }
+
+    void release() {
+        inFlight.decrementAndGet();
+        drain();
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    int limit() {
+        return limit;
+    }
+
+    void setLimit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("In-flight limit must be positive: " + limit);
+        }
+        int previous = this.limit;
+        this.limit = limit;
+        if (limit > previous) {
+            drain();
+        }
+    }
+
+    private boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    // Hand free permits to queued waiters; re-checked after every enqueue so no wake-up is lost
+    private void drain() {
+        while (!waiters.isEmpty() && tryAcquire()) {
+            CompletableFuture<Void> waiter = waiters.poll();
+            if (waiter == null || !waiter.complete(null)) {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.veeam.http;
+
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * multipart/form-data request body that streams file parts instead of buffering them.
+ * The part headers are small byte arrays; each file is published with BodyPublishers.ofFile
+ * (or ofInputStream), which reads it in chunks as the connection accepts data and opens it
+ * only when the request is actually sent. A body can be published more than once.
+ */
+public final class MultipartBody {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final String boundary = "----petstore" + UUID.randomUUID().toString().replace("-", "");
+    private final List<HttpRequest.BodyPublisher> parts = new ArrayList<>();
+
+    /**
+     * Add a text field.
+     * @param name Form field name
+     * @param value Field value, sent as UTF-8
+     * @return This body
+     */
+    public MultipartBody field(String name, String value) {
+        parts.add(bytes("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"" + escape(name) + "\"\r\n"
+                + "Content-Type: text/plain; charset=UTF-8\r\n\r\n"
+                + value + "\r\n"));
+        return this;
+    }
+
+    /**
+     * Add a file part read from disk while the request is sent.
+     * @param name Form field name
+     * @param file File to send
+     * @param contentType Media type of the file, e.g. image/png
+     * @return This body
+     * @throws FileNotFoundException if the file does not exist or is not readable
+     */
+    public MultipartBody file(String name, Path file, String contentType) throws FileNotFoundException {
+        if (!Files.isRegularFile(file) || !Files.isReadable(file)) {
+            throw new FileNotFoundException(file.toString());
+        }
+        parts.add(partHeader(name, file.getFileName().toString(), contentType));
+        parts.add(HttpRequest.BodyPublishers.ofFile(file));
+        parts.add(HttpRequest.BodyPublishers.ofByteArray(CRLF));
+        return this;
+    }
+
+    /**
+     * Add a file part from a stream, e.g. a classpath resource. The length is unknown,
+     * so the request is sent with chunked transfer encoding.
+     * @param name Form field name
+     * @param filename File name reported to the server
+     * @param contentType Media type of the content
+     * @param content Opens a fresh stream each time the body is published
+     * @return This body
+     */
+    public MultipartBody file(String name, String filename, String contentType, Supplier<? extends InputStream> content) {
+        parts.add(partHeader(name, filename, contentType));
+        parts.add(HttpRequest.BodyPublishers.ofInputStream(content));
+        parts.add(HttpRequest.BodyPublishers.ofByteArray(CRLF));
+        return this;
+    }
+
+    /**
+     * @return Value for the Content-Type header, including the boundary
+     */
+    public String contentType() {
+        return "multipart/form-data; boundary=" + boundary;
+    }
+
+    /**
+     * @return Publisher of all parts followed by the closing boundary
+     */
+    public HttpRequest.BodyPublisher publisher() {
+        List<HttpRequest.BodyPublisher> all = new ArrayList<>(parts);
+        all.add(bytes("--" + boundary + "--\r\n"));
+        return HttpRequest.BodyPublishers.concat(all.toArray(new HttpRequest.BodyPublisher[0]));
+    }
+
+    private HttpRequest.BodyPublisher partHeader(String name, String filename, String contentType) {
+        return bytes("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"" + escape(name) + "\"; filename=\"" + escape(filename) + "\"\r\n"
+                + "Content-Type: " + contentType + "\r\n\r\n");
+    }
+
+    private static HttpRequest.BodyPublisher bytes(String text) {
+        return HttpRequest.BodyPublishers.ofByteArray(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String escape(String value) {
+        return value.replace("\"", "%22").replace("\r", "%0D").replace("\n", "%0A");
+    }
+}
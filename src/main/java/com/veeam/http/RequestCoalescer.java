@@ -0,0 +1,99 @@
+package com.veeam.http;
+
+import com.veeam.utils.ApiResponse;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for identical GETs: the first caller for a key sends the request, callers that
+ * arrive while it is in flight get the same response instead of sending their own.
+ * A key is only registered while its request is in flight, so nothing is cached after completion.
+ * The first caller registers with putIfAbsent, a CAS on an empty map bin; followers only read the map.
+ */
+final class RequestCoalescer {
+
+    private final ConcurrentHashMap<String, CompletableFuture<ApiResponse>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Blocking variant: the leader sends on the calling thread, followers wait for its response.
+     * @param key Identity of the request, see HttpTransport.coalescingKey
+     * @param send Sends the request when this caller is the leader
+     * @param onCoalesced Run when this caller joined a request in flight
+     */
+    ApiResponse execute(String key, BlockingSend send, Runnable onCoalesced) throws IOException, InterruptedException {
+        CompletableFuture<ApiResponse> flight = new CompletableFuture<>();
+        CompletableFuture<ApiResponse> leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            coalesced.increment();
+            onCoalesced.run();
+            return HttpTransport.await(leader);
+        }
+        ApiResponse response;
+        try {
+            response = send.send();
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            land(key, flight, null, e);
+            throw e;
+        }
+        land(key, flight, response, null);
+        return response;
+    }
+
+    /**
+     * Non-blocking variant. Followers get a copy of the leader's future, so completing or
+     * cancelling it does not affect the other callers.
+     */
+    CompletableFuture<ApiResponse> executeAsync(String key, Supplier<CompletableFuture<ApiResponse>> send, Runnable onCoalesced) {
+        CompletableFuture<ApiResponse> flight = new CompletableFuture<>();
+        CompletableFuture<ApiResponse> leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            coalesced.increment();
+            onCoalesced.run();
+            return leader.copy();
+        }
+        CompletableFuture<ApiResponse> sent;
+        try {
+            sent = send.get();
+        } catch (RuntimeException e) {
+            land(key, flight, null, e);
+            throw e;
+        }
+        sent.whenComplete((response, error) -> land(key, flight, response, error));
+        return sent;
+    }
+
+    /**
+     * @return Calls that joined a request in flight instead of sending one
+     */
+    long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * @return Distinct requests currently in flight
+     */
+    int inFlight() {
+        return inFlight.size();
+    }
+
+    // Unregister before completing, so a caller arriving after the response sends a fresh request
+    private void land(String key, CompletableFuture<ApiResponse> flight, ApiResponse response, Throwable error) {
+        inFlight.remove(key, flight);
+        if (error == null) {
+            flight.complete(response);
+        } else {
+            flight.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+        }
+    }
+
+    @FunctionalInterface
+    interface BlockingSend {
+        ApiResponse send() throws IOException, InterruptedException;
+    }
+}
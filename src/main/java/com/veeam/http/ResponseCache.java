@@ -0,0 +1,296 @@
+package com.veeam.http;
+
+import com.veeam.config.TestConfiguration;
+import com.veeam.utils.ApiResponse;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Client-side cache of successful GET responses, consulted by HttpTransport before sending.
+ * Only endpoints with a TTL are cached. A fresh entry is returned without a request; an expired
+ * entry that came with an ETag is revalidated with If-None-Match, and a 304 renews it.
+ * Size is bounded with LRU eviction per segment: keys are spread over segments, each an
+ * access-ordered LinkedHashMap behind its own lock, so readers of different keys rarely contend.
+ * Writes through the transport invalidate the written URI; the API classes also invalidate
+ * entries whose content depends on a write to another URI, like the inventory.
+ * <p>
+ * A response fetched across an invalidation of its URL or endpoint is not stored, it may be
+ * stale. Invalidations are counted per segment and per endpoint, so a write elsewhere does not
+ * drop responses in flight for unrelated keys.
+ */
+public final class ResponseCache {
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final Map<String, Long> ttlNanos;
+    // Bumped by invalidateEndpoint; only cached endpoints have one, others have nothing to invalidate
+    private final Map<String, AtomicLong> generations;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder revalidations = new LongAdder();
+
+    private ResponseCache(Builder builder) {
+        int perSegment = Math.max(1, (builder.maxEntries + SEGMENTS - 1) / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+        this.ttlNanos = new HashMap<>();
+        this.generations = new HashMap<>();
+        builder.ttls.forEach((endpoint, ttl) -> {
+            ttlNanos.put(endpoint, ttl.toNanos());
+            generations.put(endpoint, new AtomicLong());
+        });
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Cache from http.cache.* settings, or null when http.cache.enabled is not true.
+     * TTLs in ms: http.cache.ttl.pet, .order and .user (default 30000), http.cache.ttl.inventory (default 1000).
+     * @return The configured cache or null
+     */
+    public static ResponseCache fromConfiguration() {
+        if (!Boolean.parseBoolean(TestConfiguration.getProperty("http.cache.enabled", "false"))) {
+            return null;
+        }
+        return builder()
+                .maxEntries(Integer.parseInt(TestConfiguration.getProperty("http.cache.size", "10000")))
+                .ttl("GET /pet/{petId}", ttl("http.cache.ttl.pet", "30000"))
+                .ttl("GET /store/order/{orderId}", ttl("http.cache.ttl.order", "30000"))
+                .ttl("GET /store/inventory", ttl("http.cache.ttl.inventory", "1000"))
+                .ttl("GET /user/{username}", ttl("http.cache.ttl.user", "30000"))
+                .build();
+    }
+
+    private static Duration ttl(String key, String defaultMillis) {
+        return Duration.ofMillis(Long.parseLong(TestConfiguration.getProperty(key, defaultMillis)));
+    }
+
+    /**
+     * @return Whether responses of this endpoint are cached
+     */
+    public boolean caches(String endpoint) {
+        return endpoint != null && ttlNanos.containsKey(endpoint);
+    }
+
+    /**
+     * Remove the entry of one URL, e.g. after the resource was written.
+     * @param url Full request URL
+     */
+    public void invalidate(String url) {
+        segment(url).remove(url);
+    }
+
+    /**
+     * Remove every entry of an endpoint, e.g. "GET /store/inventory".
+     */
+    public void invalidateEndpoint(String endpoint) {
+        AtomicLong generation = generations.get(endpoint);
+        if (generation == null) {
+            return;
+        }
+        generation.incrementAndGet();
+        for (Segment segment : segments) {
+            segment.removeEndpoint(endpoint);
+        }
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return Calls answered from the cache without a request, including renewed (304) entries
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return Conditional requests answered with 304 Not Modified
+     */
+    public long getRevalidations() {
+        return revalidations.sum();
+    }
+
+    // --- used by HttpTransport ---
+
+    Entry lookup(String url) {
+        return segment(url).get(url);
+    }
+
+    /**
+     * Invalidations so far that affect the URL: those of its segment plus those of its endpoint.
+     * Both counts only grow, so the sum changes whenever either does.
+     */
+    long version(String endpoint, String url) {
+        return segment(url).invalidations() + generations.get(endpoint).get();
+    }
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    /**
+     * Store a response fetched by a request sent at versionAtSend, unless the URL or endpoint was invalidated since.
+     */
+    void store(String endpoint, String url, ApiResponse response, long versionAtSend) {
+        if (response.getStatusCode() != 200) {
+            return;
+        }
+        Segment segment = segment(url);
+        segment.putIfCurrent(url, new Entry(endpoint, response, System.nanoTime() + ttlNanos.get(endpoint),
+                response.getHeader("ETag").orElse(null)), versionAtSend);
+    }
+
+    /**
+     * The server confirmed the cached entry with 304; keep it for another TTL, unless the URL was
+     * invalidated after the conditional request was sent at versionAtSend.
+     */
+    ApiResponse renew(Entry entry, String url, long versionAtSend) {
+        revalidations.increment();
+        hits.increment();
+        segment(url).putIfCurrent(url, new Entry(entry.endpoint, entry.response, System.nanoTime() + ttlNanos.get(entry.endpoint),
+                entry.etag), versionAtSend);
+        return entry.response;
+    }
+
+    private Segment segment(String url) {
+        int hash = url.hashCode();
+        return segments[(hash ^ hash >>> 16) & (SEGMENTS - 1)];
+    }
+
+    /**
+     * A cached response and when it expires.
+     */
+    static final class Entry {
+        final String endpoint;
+        final ApiResponse response;
+        final long expiresAtNanos;
+        final String etag;
+
+        Entry(String endpoint, ApiResponse response, long expiresAtNanos, String etag) {
+            this.endpoint = endpoint;
+            this.response = response;
+            this.expiresAtNanos = expiresAtNanos;
+            this.etag = etag;
+        }
+
+        boolean isFresh() {
+            return System.nanoTime() - expiresAtNanos < 0;
+        }
+    }
+
+    private final class Segment {
+        private final LinkedHashMap<String, Entry> entries;
+        // Bumped by remove and clear; any key of this segment may have been the one invalidated
+        private long invalidations;
+
+        Segment(int capacity) {
+            this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        synchronized Entry get(String url) {
+            return entries.get(url);
+        }
+
+        synchronized long invalidations() {
+            return invalidations;
+        }
+
+        // Checked under the segment lock, so an invalidation of this key cannot slip in between.
+        // invalidateEndpoint bumps the generation before removing from each segment, so a put that
+        // passes the check here is removed by it afterwards.
+        synchronized void putIfCurrent(String url, Entry entry, long versionAtSend) {
+            if (invalidations + generations.get(entry.endpoint).get() == versionAtSend) {
+                entries.put(url, entry);
+            }
+        }
+
+        synchronized void remove(String url) {
+            invalidations++;
+            entries.remove(url);
+        }
+
+        synchronized void removeEndpoint(String endpoint) {
+            for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+                if (endpoint.equals(it.next().endpoint)) {
+                    it.remove();
+                }
+            }
+        }
+
+        synchronized void clear() {
+            invalidations++;
+            entries.clear();
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Size and per-endpoint TTLs of a cache.
+     */
+    public static final class Builder {
+        private int maxEntries = 10_000;
+        private final Map<String, Duration> ttls = new HashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Upper bound of cached responses over all endpoints, 10000 by default.
+         */
+        public Builder maxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * Cache an endpoint's responses for the given time.
+         * @param endpoint Endpoint name as recorded in the metrics, e.g. "GET /pet/{petId}"
+         */
+        public Builder ttl(String endpoint, Duration ttl) {
+            ttls.put(endpoint, ttl);
+            return this;
+        }
+
+        public ResponseCache build() {
+            return new ResponseCache(this);
+        }
+    }
+}
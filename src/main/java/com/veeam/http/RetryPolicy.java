@@ -0,0 +1,63 @@
+package com.veeam.http;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * When and how long to wait before sending a request again.
+ * Only idempotent methods are retried, after a transport failure (including a timeout) or a
+ * transient 5xx. Waits grow exponentially from the base backoff up to the maximum, with full
+ * jitter so clients that failed together do not retry together.
+ */
+public final class RetryPolicy {
+
+    private static final Set<String> IDEMPOTENT = Set.of("GET", "HEAD", "OPTIONS", "PUT", "DELETE");
+    private static final Set<Integer> TRANSIENT = Set.of(500, 502, 503, 504);
+
+    private final int maxRetries;
+    private final Duration baseBackoff;
+    private final Duration maxBackoff;
+
+    /**
+     * @param maxRetries Retries after the first attempt, 0 disables retrying
+     * @param baseBackoff Upper bound of the first wait
+     * @param maxBackoff Upper bound of any wait
+     */
+    public RetryPolicy(int maxRetries, Duration baseBackoff, Duration maxBackoff) {
+        this.maxRetries = Math.max(maxRetries, 0);
+        this.baseBackoff = baseBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    public static RetryPolicy none() {
+        return new RetryPolicy(0, Duration.ZERO, Duration.ZERO);
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    boolean shouldRetry(HttpRequest request, int attempt, int status) {
+        return attempt < maxRetries && IDEMPOTENT.contains(request.method()) && TRANSIENT.contains(status);
+    }
+
+    boolean shouldRetry(HttpRequest request, int attempt, Throwable error) {
+        return attempt < maxRetries && IDEMPOTENT.contains(request.method()) && error instanceof IOException;
+    }
+
+    /**
+     * @param attempt Zero-based number of the attempt that just failed
+     * @return Random wait between zero and min(maxBackoff, baseBackoff * 2^attempt)
+     */
+    Duration backoff(int attempt) {
+        long base = baseBackoff.toNanos();
+        long max = maxBackoff.toNanos();
+        int shift = Math.min(Math.max(attempt, 0), 62);
+        // Saturates at maxBackoff instead of shifting base past Long.MAX_VALUE
+        long ceiling = base > max >> shift ? max : base << shift;
+        return ceiling <= 0 ? Duration.ZERO : Duration.ofNanos(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+}
@@ -0,0 +1,50 @@
+package com.veeam.http;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.logging.Logger;
+
+/**
+ * Access to virtual threads (Java 21+) while the project still compiles for Java 17.
+ * The factory method is looked up reflectively, so callers can ask for virtual threads on any
+ * runtime and fall back to platform threads when they are not available.
+ */
+public final class VirtualThreads {
+
+    private static final Logger logger = Logger.getLogger(VirtualThreads.class.getName());
+    private static final Method NEW_EXECUTOR = lookup();
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return true when the running JVM can create virtual threads
+     */
+    public static boolean isSupported() {
+        return NEW_EXECUTOR != null;
+    }
+
+    /**
+     * Create an executor that starts a new virtual thread per task.
+     * @return The executor, or null when the runtime has no virtual threads
+     */
+    public static ExecutorService newExecutor() {
+        if (NEW_EXECUTOR == null) {
+            return null;
+        }
+        try {
+            return (ExecutorService) NEW_EXECUTOR.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            logger.warning("Virtual threads unavailable: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static Method lookup() {
+        try {
+            return java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;  // Java 20 or older
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.veeam.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Codec on the adapters generated at compile time for @JsonSerializable DTOs.
+ * No reflection on the hot path; output is byte-for-byte the same as Gson's.
+ * Stateless, so one instance can be shared by all threads.
+ */
+public final class GeneratedCodec implements JsonCodec {
+
+    @Override
+    public String name() {
+        return "generated";
+    }
+
+    @Override
+    public String toJson(Object value) {
+        JsonWriter writer = new JsonWriter();
+        write(writer, value);
+        return writer.toString();
+    }
+
+    // Encodes into the thread's scratch buffer, then one exact-size copy the caller may keep
+    @Override
+    public byte[] toJsonBytes(Object value) {
+        Utf8Buffer buffer = Utf8Buffer.scratch();
+        write(new JsonWriter(buffer), value);
+        return buffer.toByteArray();
+    }
+
+    @Override
+    public <T> T fromJson(String json, Class<T> type) {
+        JsonReader reader = new JsonReader(json);
+        if (reader.peek() == JsonReader.Token.END_DOCUMENT || reader.skipNull()) {
+            return null;
+        }
+        return adapter(type).read(reader);
+    }
+
+    @Override
+    public <T> T fromJson(byte[] json, Charset charset, Class<T> type) {
+        JsonReader reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(json), charset));
+        if (reader.peek() == JsonReader.Token.END_DOCUMENT || reader.skipNull()) {
+            return null;
+        }
+        return adapter(type).read(reader);
+    }
+
+    @Override
+    public String toJsonArray(List<?> values) {
+        JsonWriter writer = new JsonWriter();
+        if (values == null) {
+            writer.nullValue();
+        } else {
+            writer.beginArray();
+            for (Object value : values) {
+                write(writer, value);
+            }
+            writer.endArray();
+        }
+        return writer.toString();
+    }
+
+    @Override
+    public <T> List<T> fromJsonArray(String json, Class<T> elementType) {
+        JsonReader reader = new JsonReader(json);
+        if (reader.peek() == JsonReader.Token.END_DOCUMENT || reader.skipNull()) {
+            return null;
+        }
+        JsonAdapter<T> adapter = adapter(elementType);
+        List<T> values = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            values.add(reader.skipNull() ? null : adapter.read(reader));
+        }
+        reader.endArray();
+        return values;
+    }
+
+    /**
+     * @param type A @JsonSerializable DTO class
+     * @return Its generated adapter
+     */
+    public static <T> JsonAdapter<T> adapter(Class<T> type) {
+        JsonAdapter<T> adapter = GeneratedJsonAdapters.get(type);
+        if (adapter == null) {
+            throw new IllegalArgumentException("No generated JSON adapter for " + type.getName() + ", is it @JsonSerializable?");
+        }
+        return adapter;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void write(JsonWriter writer, Object value) {
+        if (value == null) {
+            writer.nullValue();
+        } else {
+            adapter((Class<Object>) value.getClass()).write(writer, value);
+        }
+    }
+}
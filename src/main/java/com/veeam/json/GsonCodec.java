@@ -0,0 +1,48 @@
+package com.veeam.json;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.util.List;
+
+/**
+ * Reflective codec backed by a single Gson instance.
+ * Gson is thread-safe and caches its type adapters, so they are built once per type instead of once per call.
+ */
+public final class GsonCodec implements JsonCodec {
+
+    private final Gson gson;
+
+    public GsonCodec() {
+        this(new Gson());
+    }
+
+    public GsonCodec(Gson gson) {
+        this.gson = gson;
+    }
+
+    @Override
+    public String name() {
+        return "gson";
+    }
+
+    @Override
+    public String toJson(Object value) {
+        return gson.toJson(value);
+    }
+
+    @Override
+    public <T> T fromJson(String json, Class<T> type) {
+        return gson.fromJson(json, type);
+    }
+
+    @Override
+    public String toJsonArray(List<?> values) {
+        return gson.toJson(values);
+    }
+
+    @Override
+    public <T> List<T> fromJsonArray(String json, Class<T> elementType) {
+        return gson.fromJson(json, TypeToken.getParameterized(List.class, elementType).getType());
+    }
+}
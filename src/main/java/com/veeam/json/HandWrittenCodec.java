@@ -0,0 +1,344 @@
+package com.veeam.json;
+
+import com.veeam.dto.Pet;
+import com.veeam.dto.Store;
+import com.veeam.dto.User;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Codec with hand-written field mappings for the Petstore DTOs on top of JsonWriter and JsonReader.
+ * No reflection and no intermediate trees; output matches Gson's for the same objects.
+ * Stateless, so one instance can be shared by all threads.
+ */
+public final class HandWrittenCodec implements JsonCodec {
+
+    @Override
+    public String name() {
+        return "handwritten";
+    }
+
+    @Override
+    public String toJson(Object value) {
+        JsonWriter writer = new JsonWriter();
+        write(writer, value);
+        return writer.toString();
+    }
+
+    // Encodes into the thread's scratch buffer, then one exact-size copy the caller may keep
+    @Override
+    public byte[] toJsonBytes(Object value) {
+        Utf8Buffer buffer = Utf8Buffer.scratch();
+        write(new JsonWriter(buffer), value);
+        return buffer.toByteArray();
+    }
+
+    @Override
+    public <T> T fromJson(String json, Class<T> type) {
+        JsonReader reader = new JsonReader(json);
+        if (nullOrEmpty(reader)) {
+            return null;
+        }
+        return type.cast(read(reader, type));
+    }
+
+    @Override
+    public String toJsonArray(List<?> values) {
+        JsonWriter writer = new JsonWriter();
+        if (values == null) {
+            writer.nullValue();
+        } else {
+            writer.beginArray();
+            for (Object value : values) {
+                write(writer, value);
+            }
+            writer.endArray();
+        }
+        return writer.toString();
+    }
+
+    @Override
+    public <T> List<T> fromJsonArray(String json, Class<T> elementType) {
+        JsonReader reader = new JsonReader(json);
+        if (nullOrEmpty(reader)) {
+            return null;
+        }
+        List<T> values = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            values.add(nullOrEmpty(reader) ? null : elementType.cast(read(reader, elementType)));
+        }
+        reader.endArray();
+        return values;
+    }
+
+    private static void write(JsonWriter writer, Object value) {
+        if (value == null) {
+            writer.nullValue();
+        } else if (value instanceof Pet) {
+            writePet(writer, (Pet) value);
+        } else if (value instanceof User) {
+            writeUser(writer, (User) value);
+        } else if (value instanceof Store) {
+            writeStore(writer, (Store) value);
+        } else {
+            throw new IllegalArgumentException("No JSON mapping for " + value.getClass().getName());
+        }
+    }
+
+    private static Object read(JsonReader reader, Class<?> type) {
+        if (type == Pet.class) {
+            return readPet(reader);
+        } else if (type == User.class) {
+            return readUser(reader);
+        } else if (type == Store.class) {
+            return readStore(reader);
+        }
+        throw new IllegalArgumentException("No JSON mapping for " + type.getName());
+    }
+
+    // Consumes a null value (or an empty document) and reports whether there was one
+    private static boolean nullOrEmpty(JsonReader reader) {
+        JsonReader.Token token = reader.peek();
+        if (token == JsonReader.Token.NULL) {
+            reader.nextNull();
+            return true;
+        }
+        return token == JsonReader.Token.END_DOCUMENT;
+    }
+
+    public static void writePet(JsonWriter writer, Pet pet) {
+        writer.beginObject();
+        writer.name("id").value(pet.getId());
+        if (pet.getName() != null) {
+            writer.name("name").value(pet.getName());
+        }
+        if (pet.getStatus() != null) {
+            writer.name("status").value(pet.getStatus());
+        }
+        if (pet.getCategory() != null) {
+            writer.name("category");
+            writer.beginObject();
+            writer.name("id").value(pet.getCategory().getId());
+            if (pet.getCategory().getName() != null) {
+                writer.name("name").value(pet.getCategory().getName());
+            }
+            writer.endObject();
+        }
+        if (pet.getPhotoUrls() != null) {
+            writer.name("photoUrls").beginArray();
+            for (String photoUrl : pet.getPhotoUrls()) {
+                writer.value(photoUrl);
+            }
+            writer.endArray();
+        }
+        if (pet.getTags() != null) {
+            writer.name("tags").beginArray();
+            for (Pet.Tag tag : pet.getTags()) {
+                if (tag == null) {
+                    writer.nullValue();
+                    continue;
+                }
+                writer.beginObject();
+                writer.name("id").value(tag.getId());
+                if (tag.getName() != null) {
+                    writer.name("name").value(tag.getName());
+                }
+                writer.endObject();
+            }
+            writer.endArray();
+        }
+        writer.endObject();
+    }
+
+    public static Pet readPet(JsonReader reader) {
+        Pet pet = new Pet();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (nullOrEmpty(reader)) {
+                continue;
+            }
+            switch (name) {
+                case "id":
+                    pet.setId(reader.nextLong());
+                    break;
+                case "name":
+                    pet.setName(reader.nextString());
+                    break;
+                case "status":
+                    pet.setStatus(reader.nextString());
+                    break;
+                case "category":
+                    Pet.Category category = new Pet.Category();
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String field = reader.nextName();
+                        if (nullOrEmpty(reader)) {
+                            continue;
+                        }
+                        if ("id".equals(field)) {
+                            category.setId(reader.nextLong());
+                        } else if ("name".equals(field)) {
+                            category.setName(reader.nextString());
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                    pet.setCategory(category);
+                    break;
+                case "photoUrls":
+                    List<String> photoUrls = new ArrayList<>();
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        photoUrls.add(nullOrEmpty(reader) ? null : reader.nextString());
+                    }
+                    reader.endArray();
+                    pet.setPhotoUrls(photoUrls);
+                    break;
+                case "tags":
+                    List<Pet.Tag> tags = new ArrayList<>();
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        if (nullOrEmpty(reader)) {
+                            tags.add(null);
+                            continue;
+                        }
+                        Pet.Tag tag = new Pet.Tag();
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            String field = reader.nextName();
+                            if (nullOrEmpty(reader)) {
+                                continue;
+                            }
+                            if ("id".equals(field)) {
+                                tag.setId(reader.nextLong());
+                            } else if ("name".equals(field)) {
+                                tag.setName(reader.nextString());
+                            } else {
+                                reader.skipValue();
+                            }
+                        }
+                        reader.endObject();
+                        tags.add(tag);
+                    }
+                    reader.endArray();
+                    pet.setTags(tags);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return pet;
+    }
+
+    public static void writeUser(JsonWriter writer, User user) {
+        writer.beginObject();
+        writer.name("id").value(user.getId());
+        stringField(writer, "username", user.getUsername());
+        stringField(writer, "firstName", user.getFirstName());
+        stringField(writer, "lastName", user.getLastName());
+        stringField(writer, "email", user.getEmail());
+        stringField(writer, "password", user.getPassword());
+        stringField(writer, "phone", user.getPhone());
+        writer.name("userStatus").value(user.getUserStatus());
+        writer.endObject();
+    }
+
+    public static User readUser(JsonReader reader) {
+        User user = new User();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (nullOrEmpty(reader)) {
+                continue;
+            }
+            switch (name) {
+                case "id":
+                    user.setId(reader.nextInt());
+                    break;
+                case "username":
+                    user.setUsername(reader.nextString());
+                    break;
+                case "firstName":
+                    user.setFirstName(reader.nextString());
+                    break;
+                case "lastName":
+                    user.setLastName(reader.nextString());
+                    break;
+                case "email":
+                    user.setEmail(reader.nextString());
+                    break;
+                case "password":
+                    user.setPassword(reader.nextString());
+                    break;
+                case "phone":
+                    user.setPhone(reader.nextString());
+                    break;
+                case "userStatus":
+                    user.setUserStatus(reader.nextInt());
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return user;
+    }
+
+    public static void writeStore(JsonWriter writer, Store order) {
+        writer.beginObject();
+        writer.name("id").value(order.getId());
+        writer.name("petId").value(order.getPetId());
+        writer.name("quantity").value(order.getQuantity());
+        stringField(writer, "shipDate", order.getShipDate());
+        stringField(writer, "status", order.getStatus());
+        writer.name("complete").value(order.isComplete());
+        writer.endObject();
+    }
+
+    public static Store readStore(JsonReader reader) {
+        Store order = new Store();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (nullOrEmpty(reader)) {
+                continue;
+            }
+            switch (name) {
+                case "id":
+                    order.setId(reader.nextLong());
+                    break;
+                case "petId":
+                    order.setPetId(reader.nextLong());
+                    break;
+                case "quantity":
+                    order.setQuantity(reader.nextInt());
+                    break;
+                case "shipDate":
+                    order.setShipDate(reader.nextString());
+                    break;
+                case "status":
+                    order.setStatus(reader.nextString());
+                    break;
+                case "complete":
+                    order.setComplete(reader.nextBoolean());
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return order;
+    }
+
+    // Gson leaves null fields out of the output
+    private static void stringField(JsonWriter writer, String name, String value) {
+        if (value != null) {
+            writer.name(name).value(value);
+        }
+    }
+}
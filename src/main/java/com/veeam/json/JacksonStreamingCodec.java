@@ -0,0 +1,358 @@
+package com.veeam.json;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.veeam.dto.Pet;
+import com.veeam.dto.Store;
+import com.veeam.dto.User;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Codec on Jackson's streaming API (jackson-core) with explicit field mappings, no databind.
+ * The JsonFactory is thread-safe and recycles its buffers, so one instance serves all threads.
+ * Output is equivalent JSON to Gson's, but Jackson does not HTML-escape characters such as '<' or '='.
+ */
+public final class JacksonStreamingCodec implements JsonCodec {
+
+    private final JsonFactory factory = new JsonFactory();
+
+    @Override
+    public String name() {
+        return "jackson";
+    }
+
+    @Override
+    public String toJson(Object value) {
+        StringWriter out = new StringWriter(256);
+        try (JsonGenerator generator = factory.createGenerator(out)) {
+            write(generator, value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    @Override
+    public byte[] toJsonBytes(Object value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try (JsonGenerator generator = factory.createGenerator(out, JsonEncoding.UTF8)) {
+            write(generator, value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public <T> T fromJson(String json, Class<T> type) {
+        try (JsonParser parser = factory.createParser(json)) {
+            JsonToken token = parser.nextToken();
+            if (token == null || token == JsonToken.VALUE_NULL) {
+                return null;
+            }
+            return type.cast(read(parser, type));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public <T> T fromJson(byte[] json, Charset charset, Class<T> type) {
+        if (!StandardCharsets.UTF_8.equals(charset)) {
+            return fromJson(new String(json, charset), type);
+        }
+        try (JsonParser parser = factory.createParser(json)) {
+            JsonToken token = parser.nextToken();
+            if (token == null || token == JsonToken.VALUE_NULL) {
+                return null;
+            }
+            return type.cast(read(parser, type));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String toJsonArray(List<?> values) {
+        StringWriter out = new StringWriter(256);
+        try (JsonGenerator generator = factory.createGenerator(out)) {
+            if (values == null) {
+                generator.writeNull();
+            } else {
+                generator.writeStartArray();
+                for (Object value : values) {
+                    write(generator, value);
+                }
+                generator.writeEndArray();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    @Override
+    public <T> List<T> fromJsonArray(String json, Class<T> elementType) {
+        try (JsonParser parser = factory.createParser(json)) {
+            JsonToken token = parser.nextToken();
+            if (token == null || token == JsonToken.VALUE_NULL) {
+                return null;
+            }
+            List<T> values = new ArrayList<>();
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                values.add(parser.currentToken() == JsonToken.VALUE_NULL ? null : elementType.cast(read(parser, elementType)));
+            }
+            return values;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void write(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof Pet) {
+            writePet(generator, (Pet) value);
+        } else if (value instanceof User) {
+            writeUser(generator, (User) value);
+        } else if (value instanceof Store) {
+            writeStore(generator, (Store) value);
+        } else {
+            throw new IllegalArgumentException("No JSON mapping for " + value.getClass().getName());
+        }
+    }
+
+    // The parser is positioned on the START_OBJECT of the value
+    private static Object read(JsonParser parser, Class<?> type) throws IOException {
+        if (type == Pet.class) {
+            return readPet(parser);
+        } else if (type == User.class) {
+            return readUser(parser);
+        } else if (type == Store.class) {
+            return readStore(parser);
+        }
+        throw new IllegalArgumentException("No JSON mapping for " + type.getName());
+    }
+
+    private static void writePet(JsonGenerator generator, Pet pet) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", pet.getId());
+        stringField(generator, "name", pet.getName());
+        stringField(generator, "status", pet.getStatus());
+        if (pet.getCategory() != null) {
+            generator.writeObjectFieldStart("category");
+            generator.writeNumberField("id", pet.getCategory().getId());
+            stringField(generator, "name", pet.getCategory().getName());
+            generator.writeEndObject();
+        }
+        if (pet.getPhotoUrls() != null) {
+            generator.writeArrayFieldStart("photoUrls");
+            for (String photoUrl : pet.getPhotoUrls()) {
+                generator.writeString(photoUrl);
+            }
+            generator.writeEndArray();
+        }
+        if (pet.getTags() != null) {
+            generator.writeArrayFieldStart("tags");
+            for (Pet.Tag tag : pet.getTags()) {
+                if (tag == null) {
+                    generator.writeNull();
+                    continue;
+                }
+                generator.writeStartObject();
+                generator.writeNumberField("id", tag.getId());
+                stringField(generator, "name", tag.getName());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndObject();
+    }
+
+    private static Pet readPet(JsonParser parser) throws IOException {
+        Pet pet = new Pet();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (name) {
+                case "id":
+                    pet.setId(parser.getValueAsLong());
+                    break;
+                case "name":
+                    pet.setName(parser.getValueAsString());
+                    break;
+                case "status":
+                    pet.setStatus(parser.getValueAsString());
+                    break;
+                case "category":
+                    Pet.Category category = new Pet.Category();
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String field = parser.getCurrentName();
+                        if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                            continue;
+                        }
+                        if ("id".equals(field)) {
+                            category.setId(parser.getValueAsLong());
+                        } else if ("name".equals(field)) {
+                            category.setName(parser.getValueAsString());
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    pet.setCategory(category);
+                    break;
+                case "photoUrls":
+                    List<String> photoUrls = new ArrayList<>();
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        photoUrls.add(parser.getValueAsString());
+                    }
+                    pet.setPhotoUrls(photoUrls);
+                    break;
+                case "tags":
+                    List<Pet.Tag> tags = new ArrayList<>();
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+                            tags.add(null);
+                            continue;
+                        }
+                        Pet.Tag tag = new Pet.Tag();
+                        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                            String field = parser.getCurrentName();
+                            if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                                continue;
+                            }
+                            if ("id".equals(field)) {
+                                tag.setId(parser.getValueAsLong());
+                            } else if ("name".equals(field)) {
+                                tag.setName(parser.getValueAsString());
+                            } else {
+                                parser.skipChildren();
+                            }
+                        }
+                        tags.add(tag);
+                    }
+                    pet.setTags(tags);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return pet;
+    }
+
+    private static void writeUser(JsonGenerator generator, User user) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", user.getId());
+        stringField(generator, "username", user.getUsername());
+        stringField(generator, "firstName", user.getFirstName());
+        stringField(generator, "lastName", user.getLastName());
+        stringField(generator, "email", user.getEmail());
+        stringField(generator, "password", user.getPassword());
+        stringField(generator, "phone", user.getPhone());
+        generator.writeNumberField("userStatus", user.getUserStatus());
+        generator.writeEndObject();
+    }
+
+    private static User readUser(JsonParser parser) throws IOException {
+        User user = new User();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (name) {
+                case "id":
+                    user.setId(parser.getValueAsInt());
+                    break;
+                case "username":
+                    user.setUsername(parser.getValueAsString());
+                    break;
+                case "firstName":
+                    user.setFirstName(parser.getValueAsString());
+                    break;
+                case "lastName":
+                    user.setLastName(parser.getValueAsString());
+                    break;
+                case "email":
+                    user.setEmail(parser.getValueAsString());
+                    break;
+                case "password":
+                    user.setPassword(parser.getValueAsString());
+                    break;
+                case "phone":
+                    user.setPhone(parser.getValueAsString());
+                    break;
+                case "userStatus":
+                    user.setUserStatus(parser.getValueAsInt());
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return user;
+    }
+
+    private static void writeStore(JsonGenerator generator, Store order) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", order.getId());
+        generator.writeNumberField("petId", order.getPetId());
+        generator.writeNumberField("quantity", order.getQuantity());
+        stringField(generator, "shipDate", order.getShipDate());
+        stringField(generator, "status", order.getStatus());
+        generator.writeBooleanField("complete", order.isComplete());
+        generator.writeEndObject();
+    }
+
+    private static Store readStore(JsonParser parser) throws IOException {
+        Store order = new Store();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (name) {
+                case "id":
+                    order.setId(parser.getValueAsLong());
+                    break;
+                case "petId":
+                    order.setPetId(parser.getValueAsLong());
+                    break;
+                case "quantity":
+                    order.setQuantity(parser.getValueAsInt());
+                    break;
+                case "shipDate":
+                    order.setShipDate(parser.getValueAsString());
+                    break;
+                case "status":
+                    order.setStatus(parser.getValueAsString());
+                    break;
+                case "complete":
+                    order.setComplete(parser.getValueAsBoolean());
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return order;
+    }
+
+    // Gson leaves null fields out of the output
+    private static void stringField(JsonGenerator generator, String name, String value) throws IOException {
+        if (value != null) {
+            generator.writeStringField(name, value);
+        }
+    }
+}
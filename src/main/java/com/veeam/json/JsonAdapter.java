@@ -0,0 +1,19 @@
+package com.veeam.json;
+
+/**
+ * Streaming reader and writer for one DTO type, generated for every @JsonSerializable class.
+ * Adapters are stateless singletons and safe to share between threads.
+ * @param <T> The DTO type
+ */
+public interface JsonAdapter<T> {
+
+    /**
+     * Write the value as a JSON object; null fields are left out like Gson does.
+     */
+    void write(JsonWriter writer, T value);
+
+    /**
+     * Read a JSON object into a new value; unknown fields are skipped.
+     */
+    T read(JsonReader reader);
+}
@@ -0,0 +1,126 @@
+package com.veeam.json;
+
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Request body that writes a list of DTOs as one JSON array while the request is sent.
+ * Elements are serialized with their generated adapter straight into UTF-8 buffers of about bufferSize bytes,
+ * one buffer per unit of demand from the HTTP client, so at most a few buffers of the array
+ * exist at any time instead of the whole document as one String.
+ * The length is unknown up front, so the request goes out with chunked transfer encoding.
+ * Every subscription starts from the first element again, so the body can be re-sent on retry.
+ */
+public final class JsonArrayPublisher<T> implements HttpRequest.BodyPublisher {
+
+    private final List<? extends T> values;
+    private final JsonAdapter<T> adapter;
+    private final int bufferSize;
+
+    /**
+     * @param values Elements to write, read by index while the body is sent
+     * @param adapter Adapter of the element type, e.g. GeneratedCodec.adapter(User.class)
+     * @param bufferSize Approximate size of each published buffer in bytes
+     */
+    public JsonArrayPublisher(List<? extends T> values, JsonAdapter<T> adapter, int bufferSize) {
+        this.values = values;
+        this.adapter = adapter;
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public long contentLength() {
+        return -1;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        subscriber.onSubscribe(new ArraySubscription(subscriber));
+    }
+
+    // Serializes on the thread that signals demand; the wip counter keeps onNext calls serial
+    private final class ArraySubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super ByteBuffer> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final Utf8Buffer text = new Utf8Buffer(bufferSize + 1024);
+        private int next = -1;  // -1 until the opening bracket is written
+
+        ArraySubscription(Flow.Subscriber<? super ByteBuffer> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancel();
+                subscriber.onError(new IllegalArgumentException("Non-positive request: " + n));
+                return;
+            }
+            demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled.set(true);
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                while (demand.get() > 0 && !cancelled.get() && next <= values.size()) {
+                    ByteBuffer buffer;
+                    try {
+                        buffer = nextBuffer();
+                    } catch (RuntimeException e) {
+                        cancelled.set(true);
+                        subscriber.onError(e);
+                        return;
+                    }
+                    demand.decrementAndGet();
+                    subscriber.onNext(buffer);
+                    if (next > values.size() && !cancelled.get()) {
+                        subscriber.onComplete();
+                    }
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        // Fills one buffer; next == size + 1 once the closing bracket is written
+        private ByteBuffer nextBuffer() {
+            text.reset();
+            if (next < 0) {
+                text.append('[');
+                next = 0;
+            }
+            int size = values.size();
+            while (next < size && text.size() < bufferSize) {
+                if (next > 0) {
+                    text.append(',');
+                }
+                T value = values.get(next++);
+                if (value == null) {
+                    text.append("null");
+                } else {
+                    adapter.write(new JsonWriter(text), value);
+                }
+            }
+            if (next == size) {
+                text.append(']');
+                next++;
+            }
+            return ByteBuffer.wrap(text.toByteArray());  // the client may still hold the buffer after the next fill
+        }
+    }
+}
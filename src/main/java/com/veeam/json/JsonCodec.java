@@ -0,0 +1,41 @@
+package com.veeam.json;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * JSON serialization used by the DTOs and API classes.
+ * Implementations are stateless or immutable after construction and may be shared by all threads.
+ */
+public interface JsonCodec {
+
+    /**
+     * @return Name used to select the codec with the json.codec setting
+     */
+    String name();
+
+    String toJson(Object value);
+
+    /**
+     * Serialize to UTF-8 bytes, e.g. for a request body. Codecs that can write bytes directly
+     * override this to skip the String and the separate encoding pass.
+     * @return A new array owned by the caller
+     */
+    default byte[] toJsonBytes(Object value) {
+        return toJson(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    <T> T fromJson(String json, Class<T> type);
+
+    /**
+     * Bind raw response bytes. Codecs that can parse bytes directly override this to skip the String.
+     */
+    default <T> T fromJson(byte[] json, Charset charset, Class<T> type) {
+        return fromJson(new String(json, charset), type);
+    }
+
+    String toJsonArray(List<?> values);
+
+    <T> List<T> fromJsonArray(String json, Class<T> elementType);
+}
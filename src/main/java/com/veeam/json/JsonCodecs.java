@@ -0,0 +1,56 @@
+package com.veeam.json;
+
+import com.veeam.config.TestConfiguration;
+
+/**
+ * Holds the codec used by the DTOs. Selected with the json.codec setting (generated, gson, jackson,
+ * handwritten) and created once, since all codecs are safe to share between threads.
+ */
+public final class JsonCodecs {
+
+    private static volatile JsonCodec defaultCodec;
+
+    private JsonCodecs() {
+    }
+
+    public static JsonCodec getDefault() {
+        JsonCodec codec = defaultCodec;
+        if (codec == null) {
+            synchronized (JsonCodecs.class) {
+                codec = defaultCodec;
+                if (codec == null) {
+                    codec = byName(TestConfiguration.getProperty("json.codec", "generated"));
+                    defaultCodec = codec;
+                }
+            }
+        }
+        return codec;
+    }
+
+    /**
+     * Replace the codec used by the DTOs, e.g. to compare implementations in one run.
+     * @param codec The codec to use from now on
+     */
+    public static void setDefault(JsonCodec codec) {
+        defaultCodec = codec;
+    }
+
+    /**
+     * @param name generated, gson, jackson or handwritten
+     * @return A new codec instance
+     */
+    public static JsonCodec byName(String name) {
+        switch (name.toLowerCase()) {
+            case "gson":
+                return new GsonCodec();
+            case "jackson":
+                return new JacksonStreamingCodec();
+            case "handwritten":
+                return new HandWrittenCodec();
+            case "generated":
+                return new GeneratedCodec();
+            default:
+                throw new IllegalArgumentException("Unknown JSON codec: " + name);
+        }
+    }
+}
@@ -0,0 +1,418 @@
+package com.veeam.json;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+
+/**
+ * Minimal pull-based JSON reader without reflection or intermediate trees.
+ * Reads incrementally from a Reader through a fixed buffer, so documents of any size can be
+ * consumed value by value. Like Gson it accepts numbers written as strings and vice versa.
+ * Not thread-safe; create one per document.
+ */
+public final class JsonReader implements Closeable {
+
+    public enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+    }
+
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_OBJECT = 2;
+    private static final int NONEMPTY_OBJECT = 3;
+    private static final int DANGLING_NAME = 4;
+    private static final int EMPTY_ARRAY = 5;
+    private static final int NONEMPTY_ARRAY = 6;
+
+    private final Reader in;
+    private char[] buffer;
+    private int pos;
+    private int limit;
+
+    private int[] stack = new int[32];
+    private int depth = 1;
+    private Token peeked;
+
+    public JsonReader(Reader in) {
+        this.in = in;
+        this.buffer = new char[8192];
+    }
+
+    public JsonReader(String json) {
+        this.in = null;
+        this.buffer = json.toCharArray();
+        this.limit = buffer.length;
+    }
+
+    public Token peek() {
+        if (peeked != null) {
+            return peeked;
+        }
+        int scope = stack[depth - 1];
+        int c;
+        switch (scope) {
+            case EMPTY_ARRAY:
+                c = nextNonWhitespace();
+                if (c == ']') {
+                    return peeked = Token.END_ARRAY;
+                }
+                stack[depth - 1] = NONEMPTY_ARRAY;
+                return peeked = valueToken(c);
+            case NONEMPTY_ARRAY:
+                c = nextNonWhitespace();
+                if (c == ']') {
+                    return peeked = Token.END_ARRAY;
+                }
+                expect(c, ',');
+                pos++;
+                return peeked = valueToken(nextNonWhitespace());
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT:
+                c = nextNonWhitespace();
+                if (c == '}') {
+                    return peeked = Token.END_OBJECT;
+                }
+                if (scope == NONEMPTY_OBJECT) {
+                    expect(c, ',');
+                    pos++;
+                    c = nextNonWhitespace();
+                }
+                expect(c, '"');
+                return peeked = Token.NAME;
+            case DANGLING_NAME:
+                expect(nextNonWhitespace(), ':');
+                pos++;
+                stack[depth - 1] = NONEMPTY_OBJECT;
+                return peeked = valueToken(nextNonWhitespace());
+            case EMPTY_DOCUMENT:
+                stack[depth - 1] = NONEMPTY_DOCUMENT;
+                return peeked = valueToken(nextNonWhitespace());
+            default:
+                c = nextNonWhitespace();
+                if (c != -1) {
+                    throw syntaxError("Unexpected content after the document");
+                }
+                return peeked = Token.END_DOCUMENT;
+        }
+    }
+
+    public boolean hasNext() {
+        Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    public void beginObject() {
+        consume(Token.BEGIN_OBJECT);
+        pos++;
+        push(EMPTY_OBJECT);
+    }
+
+    public void endObject() {
+        consume(Token.END_OBJECT);
+        pos++;
+        depth--;
+    }
+
+    public void beginArray() {
+        consume(Token.BEGIN_ARRAY);
+        pos++;
+        push(EMPTY_ARRAY);
+    }
+
+    public void endArray() {
+        consume(Token.END_ARRAY);
+        pos++;
+        depth--;
+    }
+
+    public String nextName() {
+        consume(Token.NAME);
+        String name = readQuoted();
+        stack[depth - 1] = DANGLING_NAME;
+        return name;
+    }
+
+    public String nextString() {
+        Token token = peek();
+        if (token == Token.STRING) {
+            peeked = null;
+            return readQuoted();
+        }
+        if (token == Token.NUMBER || token == Token.BOOLEAN) {
+            peeked = null;
+            return readLiteral();
+        }
+        throw syntaxError("Expected a string but was " + token);
+    }
+
+    public long nextLong() {
+        Token token = peek();
+        if (token != Token.NUMBER && token != Token.STRING) {
+            throw syntaxError("Expected a number but was " + token);
+        }
+        peeked = null;
+        String text = token == Token.STRING ? readQuoted() : readLiteral();
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            double value = Double.parseDouble(text);
+            if (value != (long) value) {
+                throw syntaxError("Expected a long but was " + text);
+            }
+            return (long) value;
+        }
+    }
+
+    public int nextInt() {
+        long value = nextLong();
+        if (value != (int) value) {
+            throw syntaxError("Expected an int but was " + value);
+        }
+        return (int) value;
+    }
+
+    public boolean nextBoolean() {
+        Token token = peek();
+        if (token != Token.BOOLEAN && token != Token.STRING) {
+            throw syntaxError("Expected a boolean but was " + token);
+        }
+        peeked = null;
+        String text = token == Token.STRING ? readQuoted() : readLiteral();
+        if ("true".equals(text)) {
+            return true;
+        }
+        if ("false".equals(text)) {
+            return false;
+        }
+        throw syntaxError("Expected a boolean but was " + text);
+    }
+
+    public void nextNull() {
+        consume(Token.NULL);
+        String text = readLiteral();
+        if (!"null".equals(text)) {
+            throw syntaxError("Expected null but was " + text);
+        }
+    }
+
+    /**
+     * Consume the next value if it is null.
+     * @return true when a null was consumed
+     */
+    public boolean skipNull() {
+        if (peek() == Token.NULL) {
+            nextNull();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Skip the next value, including nested objects and arrays, e.g. a field the DTO does not know.
+     */
+    public void skipValue() {
+        switch (peek()) {
+            case BEGIN_OBJECT:
+                beginObject();
+                while (hasNext()) {
+                    nextName();
+                    skipValue();
+                }
+                endObject();
+                break;
+            case BEGIN_ARRAY:
+                beginArray();
+                while (hasNext()) {
+                    skipValue();
+                }
+                endArray();
+                break;
+            case STRING:
+                peeked = null;
+                readQuoted();
+                break;
+            case NAME:
+                nextName();
+                skipValue();
+                break;
+            case NUMBER:
+            case BOOLEAN:
+            case NULL:
+                peeked = null;
+                readLiteral();
+                break;
+            default:
+                throw syntaxError("Nothing to skip at " + peek());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (in != null) {
+            in.close();
+        }
+    }
+
+    private void consume(Token expected) {
+        Token token = peek();
+        if (token != expected) {
+            throw syntaxError("Expected " + expected + " but was " + token);
+        }
+        peeked = null;
+    }
+
+    private void push(int scope) {
+        if (depth == stack.length) {
+            int[] grown = new int[depth * 2];
+            System.arraycopy(stack, 0, grown, 0, depth);
+            stack = grown;
+        }
+        stack[depth++] = scope;
+    }
+
+    private Token valueToken(int c) {
+        switch (c) {
+            case '{': return Token.BEGIN_OBJECT;
+            case '[': return Token.BEGIN_ARRAY;
+            case '"': return Token.STRING;
+            case 't':
+            case 'f': return Token.BOOLEAN;
+            case 'n': return Token.NULL;
+            case -1: throw syntaxError("Unexpected end of input");
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return Token.NUMBER;
+                }
+                throw syntaxError("Unexpected character '" + (char) c + "'");
+        }
+    }
+
+    // Reads a quoted string starting at the opening quote
+    private String readQuoted() {
+        pos++;  // opening quote
+        StringBuilder builder = null;
+        while (true) {
+            int start = pos;
+            while (pos < limit) {
+                char c = buffer[pos];
+                if (c == '"') {
+                    String chunk = new String(buffer, start, pos - start);
+                    pos++;
+                    return builder == null ? chunk : builder.append(chunk).toString();
+                }
+                if (c == '\\') {
+                    if (builder == null) {
+                        builder = new StringBuilder(Math.max(16, (pos - start) * 2));
+                    }
+                    builder.append(buffer, start, pos - start);
+                    pos++;
+                    builder.append(readEscape());
+                    start = pos;
+                    continue;
+                }
+                pos++;
+            }
+            if (builder == null) {
+                builder = new StringBuilder(Math.max(16, (pos - start) * 2));
+            }
+            builder.append(buffer, start, pos - start);
+            if (!fill(1)) {
+                throw syntaxError("Unterminated string");
+            }
+        }
+    }
+
+    private char readEscape() {
+        if (!fill(1)) {
+            throw syntaxError("Unterminated escape sequence");
+        }
+        char escaped = buffer[pos++];
+        switch (escaped) {
+            case 'u':
+                if (!fill(4)) {
+                    throw syntaxError("Unterminated escape sequence");
+                }
+                int value = Integer.parseInt(new String(buffer, pos, 4), 16);
+                pos += 4;
+                return (char) value;
+            case 't': return '\t';
+            case 'b': return '\b';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 'f': return '\f';
+            default: return escaped;  // '"', '\\', '/' and anything lenient
+        }
+    }
+
+    // Reads an unquoted number, true, false or null
+    private String readLiteral() {
+        StringBuilder builder = null;
+        while (true) {
+            int start = pos;
+            while (pos < limit) {
+                char c = buffer[pos];
+                if (c == ',' || c == '}' || c == ']' || c == ':' || c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+                    String chunk = new String(buffer, start, pos - start);
+                    return builder == null ? chunk : builder.append(chunk).toString();
+                }
+                pos++;
+            }
+            if (builder == null) {
+                builder = new StringBuilder();
+            }
+            builder.append(buffer, start, pos - start);
+            if (!fill(1)) {
+                return builder.toString();
+            }
+        }
+    }
+
+    private int nextNonWhitespace() {
+        while (pos < limit || fill(1)) {
+            char c = buffer[pos];
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return c;
+            }
+            pos++;
+        }
+        return -1;
+    }
+
+    private void expect(int actual, char expected) {
+        if (actual != expected) {
+            throw syntaxError("Expected '" + expected + "' but was " + (actual == -1 ? "end of input" : "'" + (char) actual + "'"));
+        }
+    }
+
+    /**
+     * Make sure at least {@code minimum} unread chars are buffered.
+     * @return false when the input ends first
+     */
+    private boolean fill(int minimum) {
+        if (in == null) {
+            return limit - pos >= minimum;
+        }
+        if (pos > 0) {
+            System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+        try {
+            while (limit < minimum) {
+                int read = in.read(buffer, limit, buffer.length - limit);
+                if (read == -1) {
+                    return false;
+                }
+                limit += read;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return true;
+    }
+
+    private IllegalStateException syntaxError(String message) {
+        return new IllegalStateException(message + " at position " + pos);
+    }
+}
@@ -0,0 +1,16 @@
+package com.veeam.json;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a DTO for which JsonAdapterProcessor generates a reflection-free JsonAdapter at compile time.
+ * Fields are written in declaration order through their getters and read through their setters;
+ * supported field types are long, int, boolean, String, other annotated DTOs and Lists of those.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface JsonSerializable {
+}
@@ -0,0 +1,200 @@
+package com.veeam.json;
+
+/**
+ * Minimal streaming JSON writer without reflection or intermediate trees.
+ * Strings are escaped exactly like Gson's default (HTML-safe) writer, so output is byte-for-byte
+ * identical to {@code new Gson().toJson(...)} for the same field order.
+ * Writes into a StringBuilder, or straight into UTF-8 bytes when created on a Utf8Buffer.
+ * Not thread-safe; create one per serialization.
+ */
+public final class JsonWriter {
+
+    // Same escapes as Gson's HTML-safe writer, indexed by ASCII code; null means written as-is
+    private static final String[] REPLACEMENTS = new String[128];
+
+    static {
+        for (int c = 0; c < 0x20; c++) {
+            REPLACEMENTS[c] = String.format("\\u%04x", c);
+        }
+        REPLACEMENTS['"'] = "\\\"";
+        REPLACEMENTS['\\'] = "\\\\";
+        REPLACEMENTS['\t'] = "\\t";
+        REPLACEMENTS['\b'] = "\\b";
+        REPLACEMENTS['\n'] = "\\n";
+        REPLACEMENTS['\r'] = "\\r";
+        REPLACEMENTS['\f'] = "\\f";
+        REPLACEMENTS['<'] = "\\u003c";
+        REPLACEMENTS['>'] = "\\u003e";
+        REPLACEMENTS['&'] = "\\u0026";
+        REPLACEMENTS['='] = "\\u003d";
+        REPLACEMENTS['\''] = "\\u0027";
+    }
+
+    private final StringBuilder out;
+    private final Utf8Buffer bytes;
+    private boolean comma;
+
+    public JsonWriter() {
+        this(new StringBuilder(256));
+    }
+
+    public JsonWriter(StringBuilder out) {
+        this.out = out;
+        this.bytes = null;
+    }
+
+    /**
+     * @param bytes Buffer the JSON is appended to as UTF-8; toString() is not available
+     */
+    public JsonWriter(Utf8Buffer bytes) {
+        this.out = null;
+        this.bytes = bytes;
+    }
+
+    public JsonWriter beginObject() {
+        separator();
+        append('{');
+        comma = false;
+        return this;
+    }
+
+    public JsonWriter endObject() {
+        append('}');
+        comma = true;
+        return this;
+    }
+
+    public JsonWriter beginArray() {
+        separator();
+        append('[');
+        comma = false;
+        return this;
+    }
+
+    public JsonWriter endArray() {
+        append(']');
+        comma = true;
+        return this;
+    }
+
+    public JsonWriter name(String name) {
+        separator();
+        string(name);
+        append(':');
+        comma = false;
+        return this;
+    }
+
+    public JsonWriter value(String value) {
+        separator();
+        if (value == null) {
+            append("null");
+        } else {
+            string(value);
+        }
+        comma = true;
+        return this;
+    }
+
+    public JsonWriter value(long value) {
+        separator();
+        append(value);
+        comma = true;
+        return this;
+    }
+
+    public JsonWriter value(boolean value) {
+        separator();
+        append(value);
+        comma = true;
+        return this;
+    }
+
+    public JsonWriter nullValue() {
+        separator();
+        append("null");
+        comma = true;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        if (out == null) {
+            throw new IllegalStateException("JSON was written to a Utf8Buffer");
+        }
+        return out.toString();
+    }
+
+    private void append(char c) {
+        if (bytes != null) {
+            bytes.append(c);
+        } else {
+            out.append(c);
+        }
+    }
+
+    private void append(String text) {
+        if (bytes != null) {
+            bytes.append(text);
+        } else {
+            out.append(text);
+        }
+    }
+
+    private void append(String text, int start, int end) {
+        if (bytes != null) {
+            bytes.append(text, start, end);
+        } else {
+            out.append(text, start, end);
+        }
+    }
+
+    private void append(long value) {
+        if (bytes != null) {
+            bytes.append(value);
+        } else {
+            out.append(value);
+        }
+    }
+
+    private void append(boolean value) {
+        append(value ? "true" : "false");
+    }
+
+    private void separator() {
+        if (comma) {
+            append(',');
+        }
+    }
+
+    private void string(String value) {
+        append('"');
+        int last = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String replacement;
+            if (c < 128) {
+                replacement = REPLACEMENTS[c];
+                if (replacement == null) {
+                    continue;
+                }
+            } else if (c == '\u2028') {
+                replacement = "\\u2028";
+            } else if (c == '\u2029') {
+                replacement = "\\u2029";
+            } else {
+                continue;
+            }
+            if (last < i) {
+                append(value, last, i);
+            }
+            append(replacement);
+            last = i + 1;
+        }
+        if (last < length) {
+            append(value, last, length);
+        }
+        append('"');
+    }
+}
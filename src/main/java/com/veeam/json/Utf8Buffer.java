@@ -0,0 +1,134 @@
+package com.veeam.json;
+
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer that JsonWriter encodes into as UTF-8 while writing, so JSON goes from
+ * DTO fields to bytes in one pass without a String in between.
+ * Meant to be reused: reset() keeps the capacity. Not thread-safe.
+ */
+public final class Utf8Buffer {
+
+    private static final ThreadLocal<Utf8Buffer> SCRATCH = ThreadLocal.withInitial(() -> new Utf8Buffer(1024));
+    // Buffers that grew beyond this are not kept by the thread-local scratch buffer
+    private static final int MAX_RETAINED = 64 * 1024;
+
+    private byte[] bytes;
+    private int size;
+
+    public Utf8Buffer(int initialCapacity) {
+        this.bytes = new byte[Math.max(initialCapacity, 16)];
+    }
+
+    /**
+     * Get the calling thread's scratch buffer, emptied. The content is only valid until the
+     * next scratch() call on the same thread, so copy it out with toByteArray().
+     * @return The thread's reusable buffer
+     */
+    public static Utf8Buffer scratch() {
+        Utf8Buffer buffer = SCRATCH.get();
+        if (buffer.bytes.length > MAX_RETAINED) {
+            buffer = new Utf8Buffer(1024);
+            SCRATCH.set(buffer);
+        }
+        buffer.size = 0;
+        return buffer;
+    }
+
+    public void reset() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Exact-size copy of the content
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+
+    void append(char c) {
+        if (c < 0x80) {
+            ensure(1);
+            bytes[size++] = (byte) c;
+        } else {
+            append(String.valueOf(c), 0, 1);
+        }
+    }
+
+    void append(CharSequence text) {
+        append(text, 0, text.length());
+    }
+
+    void append(CharSequence text, int start, int end) {
+        ensure(end - start);
+        byte[] out = bytes;
+        int position = size;
+        int i = start;
+        // ASCII fast path: one byte per char, capacity already ensured
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                break;
+            }
+            out[position++] = (byte) c;
+        }
+        size = position;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                ensure(1);
+                bytes[size++] = (byte) c;
+            } else if (c < 0x800) {
+                ensure(2);
+                bytes[size++] = (byte) (0xc0 | c >> 6);
+                bytes[size++] = (byte) (0x80 | c & 0x3f);
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                ensure(4);
+                bytes[size++] = (byte) (0xf0 | codePoint >> 18);
+                bytes[size++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+                bytes[size++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+                bytes[size++] = (byte) (0x80 | codePoint & 0x3f);
+            } else if (Character.isSurrogate(c)) {
+                ensure(1);
+                bytes[size++] = '?';  // unpaired surrogate, replaced like String.getBytes(UTF_8)
+            } else {
+                ensure(3);
+                bytes[size++] = (byte) (0xe0 | c >> 12);
+                bytes[size++] = (byte) (0x80 | c >> 6 & 0x3f);
+                bytes[size++] = (byte) (0x80 | c & 0x3f);
+            }
+        }
+    }
+
+    void append(long value) {
+        if (value == Long.MIN_VALUE) {
+            append(Long.toString(value));
+            return;
+        }
+        ensure(20);
+        if (value < 0) {
+            bytes[size++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = size + digits - 1; i >= size; i--) {
+            bytes[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        size += digits;
+    }
+
+    private void ensure(int additional) {
+        if (size + additional > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additional));
+        }
+    }
+}
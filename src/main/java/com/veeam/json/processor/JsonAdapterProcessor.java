@@ -0,0 +1,334 @@
+package com.veeam.json.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a JsonAdapter for every class annotated with com.veeam.json.JsonSerializable,
+ * plus the GeneratedJsonAdapters registry used by GeneratedCodec.
+ * The annotation is referenced by name so the processor can be compiled before the rest of the module.
+ */
+public class JsonAdapterProcessor extends AbstractProcessor {
+
+    private static final String ANNOTATION = "com.veeam.json.JsonSerializable";
+    private static final String REGISTRY_PACKAGE = "com.veeam.json";
+    private static final String REGISTRY_NAME = "GeneratedJsonAdapters";
+
+    private final List<TypeElement> generated = new ArrayList<>();
+    private boolean registryWritten;
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(ANNOTATION);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement annotation = processingEnv.getElementUtils().getTypeElement(ANNOTATION);
+        int before = generated.size();
+        if (annotation != null) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (registryWritten) {
+                    error(element, "@JsonSerializable type generated after " + REGISTRY_NAME + " was written");
+                    continue;
+                }
+                if (element.getKind() != ElementKind.CLASS) {
+                    error(element, "@JsonSerializable is only supported on classes");
+                    continue;
+                }
+                TypeElement type = (TypeElement) element;
+                try {
+                    writeAdapter(type);
+                    generated.add(type);
+                } catch (IOException e) {
+                    error(type, "Could not write JSON adapter: " + e.getMessage());
+                }
+            }
+        }
+        // Written in the first round that adds no types, which is before the last one, so javac still
+        // compiles the registry like any other source instead of warning about a last-round file
+        if (!registryWritten && !generated.isEmpty() && generated.size() == before && !roundEnv.processingOver()) {
+            registryWritten = true;
+            try {
+                writeRegistry();
+            } catch (IOException e) {
+                error(generated.get(0), "Could not write " + REGISTRY_NAME + ": " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    private void writeAdapter(TypeElement type) throws IOException {
+        String packageName = packageOf(type);
+        String adapterName = adapterName(type);
+        String dto = type.getQualifiedName().toString();
+
+        StringBuilder write = new StringBuilder();
+        StringBuilder read = new StringBuilder();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            Set<Modifier> modifiers = field.getModifiers();
+            if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+                continue;
+            }
+            String name = field.getSimpleName().toString();
+            TypeMirror fieldType = field.asType();
+            String getter = accessor(type, field, fieldType.getKind() == TypeKind.BOOLEAN ? "is" : "get", 0);
+            String setter = accessor(type, field, "set", 1);
+            if (getter == null || setter == null) {
+                continue;
+            }
+            appendWrite(write, field, name, "value." + getter + "()", fieldType);
+            appendRead(read, field, name, setter, fieldType);
+        }
+
+        StringBuilder source = new StringBuilder();
+        source.append("package ").append(packageName).append(";\n\n")
+              .append("import com.veeam.json.JsonAdapter;\n")
+              .append("import com.veeam.json.JsonReader;\n")
+              .append("import com.veeam.json.JsonWriter;\n\n")
+              .append("/**\n * Generated by JsonAdapterProcessor from ").append(dto).append(", do not edit.\n */\n")
+              .append("public final class ").append(adapterName).append(" implements JsonAdapter<").append(dto).append("> {\n\n")
+              .append("    public static final ").append(adapterName).append(" INSTANCE = new ").append(adapterName).append("();\n\n")
+              .append("    private ").append(adapterName).append("() {\n    }\n\n")
+              .append("    @Override\n")
+              .append("    public void write(JsonWriter writer, ").append(dto).append(" value) {\n")
+              .append("        writer.beginObject();\n")
+              .append(write)
+              .append("        writer.endObject();\n")
+              .append("    }\n\n")
+              .append("    @Override\n")
+              .append("    public ").append(dto).append(" read(JsonReader reader) {\n")
+              .append("        ").append(dto).append(" value = new ").append(dto).append("();\n")
+              .append("        reader.beginObject();\n")
+              .append("        while (reader.hasNext()) {\n")
+              .append("            String name = reader.nextName();\n")
+              .append("            if (reader.skipNull()) {\n")
+              .append("                continue;\n")
+              .append("            }\n")
+              .append("            switch (name) {\n")
+              .append(read)
+              .append("                default:\n")
+              .append("                    reader.skipValue();\n")
+              .append("            }\n")
+              .append("        }\n")
+              .append("        reader.endObject();\n")
+              .append("        return value;\n")
+              .append("    }\n")
+              .append("}\n");
+
+        String qualifiedAdapter = packageName.isEmpty() ? adapterName : packageName + "." + adapterName;
+        try (Writer out = processingEnv.getFiler().createSourceFile(qualifiedAdapter, type).openWriter()) {
+            out.write(source.toString());
+        }
+    }
+
+    private void appendWrite(StringBuilder out, VariableElement field, String name, String getterCall, TypeMirror type) {
+        String kind = valueKind(field, type);
+        if (kind == null) {
+            return;
+        }
+        if (type.getKind().isPrimitive()) {
+            out.append("        writer.name(\"").append(name).append("\").value(").append(getterCall).append(");\n");
+            return;
+        }
+        out.append("        if (").append(getterCall).append(" != null) {\n");
+        if (kind.equals("list")) {
+            TypeMirror element = ((DeclaredType) type).getTypeArguments().get(0);
+            String elementType = element.toString();
+            out.append("            writer.name(\"").append(name).append("\").beginArray();\n")
+               .append("            for (").append(elementType).append(" element : ").append(getterCall).append(") {\n");
+            if (isString(element)) {
+                out.append("                writer.value(element);\n");
+            } else {
+                out.append("                if (element == null) {\n")
+                   .append("                    writer.nullValue();\n")
+                   .append("                } else {\n")
+                   .append("                    ").append(adapterReference(element)).append(".write(writer, element);\n")
+                   .append("                }\n");
+            }
+            out.append("            }\n")
+               .append("            writer.endArray();\n");
+        } else if (kind.equals("string")) {
+            out.append("            writer.name(\"").append(name).append("\").value(").append(getterCall).append(");\n");
+        } else {
+            out.append("            writer.name(\"").append(name).append("\");\n")
+               .append("            ").append(adapterReference(type)).append(".write(writer, ").append(getterCall).append(");\n");
+        }
+        out.append("        }\n");
+    }
+
+    private void appendRead(StringBuilder out, VariableElement field, String name, String setter, TypeMirror type) {
+        String kind = valueKind(field, type);
+        if (kind == null) {
+            return;
+        }
+        out.append("                case \"").append(name).append("\": {\n");
+        switch (kind) {
+            case "long":
+                out.append("                    value.").append(setter).append("(reader.nextLong());\n");
+                break;
+            case "int":
+                out.append("                    value.").append(setter).append("(reader.nextInt());\n");
+                break;
+            case "boolean":
+                out.append("                    value.").append(setter).append("(reader.nextBoolean());\n");
+                break;
+            case "string":
+                out.append("                    value.").append(setter).append("(reader.nextString());\n");
+                break;
+            case "list":
+                TypeMirror element = ((DeclaredType) type).getTypeArguments().get(0);
+                String elementType = element.toString();
+                String elementRead = isString(element) ? "reader.nextString()" : adapterReference(element) + ".read(reader)";
+                out.append("                    java.util.List<").append(elementType).append("> list = new java.util.ArrayList<>();\n")
+                   .append("                    reader.beginArray();\n")
+                   .append("                    while (reader.hasNext()) {\n")
+                   .append("                        list.add(reader.skipNull() ? null : ").append(elementRead).append(");\n")
+                   .append("                    }\n")
+                   .append("                    reader.endArray();\n")
+                   .append("                    value.").append(setter).append("(list);\n");
+                break;
+            default:
+                out.append("                    value.").append(setter).append("(").append(adapterReference(type)).append(".read(reader));\n");
+        }
+        out.append("                    break;\n")
+           .append("                }\n");
+    }
+
+    /**
+     * @return long, int, boolean, string, list or object; null (with a compile error) when unsupported
+     */
+    private String valueKind(VariableElement field, TypeMirror type) {
+        switch (type.getKind()) {
+            case LONG:
+                return "long";
+            case INT:
+                return "int";
+            case BOOLEAN:
+                return "boolean";
+            case DECLARED:
+                if (isString(type)) {
+                    return "string";
+                }
+                TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+                if (element.getQualifiedName().contentEquals("java.util.List")) {
+                    List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+                    if (arguments.size() == 1 && (isString(arguments.get(0)) || isSerializable(arguments.get(0)))) {
+                        return "list";
+                    }
+                } else if (isSerializable(type)) {
+                    return "object";
+                }
+                break;
+            default:
+                break;
+        }
+        error(field, "Unsupported field type for @JsonSerializable: " + type);
+        return null;
+    }
+
+    private void writeRegistry() throws IOException {
+        StringBuilder source = new StringBuilder();
+        source.append("package ").append(REGISTRY_PACKAGE).append(";\n\n")
+              .append("/**\n * Generated by JsonAdapterProcessor, do not edit.\n * Maps every @JsonSerializable type to its adapter without reflection.\n */\n")
+              .append("public final class ").append(REGISTRY_NAME).append(" {\n\n")
+              .append("    private ").append(REGISTRY_NAME).append("() {\n    }\n\n")
+              .append("    /**\n     * @return The generated adapter for the type, or null if it is not @JsonSerializable\n     */\n")
+              .append("    @SuppressWarnings(\"unchecked\")\n")
+              .append("    public static <T> JsonAdapter<T> get(Class<T> type) {\n");
+        for (TypeElement type : generated) {
+            source.append("        if (type == ").append(type.getQualifiedName()).append(".class) {\n")
+                  .append("            return (JsonAdapter<T>) ").append(adapterReference(type.asType())).append(";\n")
+                  .append("        }\n");
+        }
+        source.append("        return null;\n")
+              .append("    }\n")
+              .append("}\n");
+        Element[] origins = generated.toArray(new Element[0]);
+        try (Writer out = processingEnv.getFiler().createSourceFile(REGISTRY_PACKAGE + "." + REGISTRY_NAME, origins).openWriter()) {
+            out.write(source.toString());
+        }
+    }
+
+    private String accessor(TypeElement type, VariableElement field, String prefix, int parameters) {
+        String name = field.getSimpleName().toString();
+        String expected = prefix + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if (method.getSimpleName().contentEquals(expected) && method.getParameters().size() == parameters
+                    && method.getModifiers().contains(Modifier.PUBLIC)) {
+                return expected;
+            }
+        }
+        error(field, "@JsonSerializable field '" + name + "' needs a public " + expected + " method");
+        return null;
+    }
+
+    private boolean isString(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED
+                && ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().contentEquals("java.lang.String");
+    }
+
+    private boolean isSerializable(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        Element element = ((DeclaredType) type).asElement();
+        for (javax.lang.model.element.AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(ANNOTATION)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String adapterReference(TypeMirror type) {
+        TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+        String packageName = packageOf(element);
+        return (packageName.isEmpty() ? "" : packageName + ".") + adapterName(element) + ".INSTANCE";
+    }
+
+    // Pet -> PetJsonAdapter, Pet.Category -> Pet_CategoryJsonAdapter
+    private static String adapterName(TypeElement type) {
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        Element enclosing = type.getEnclosingElement();
+        while (enclosing instanceof TypeElement) {
+            name.insert(0, enclosing.getSimpleName() + "_");
+            enclosing = enclosing.getEnclosingElement();
+        }
+        return name.append("JsonAdapter").toString();
+    }
+
+    private String packageOf(TypeElement type) {
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(type);
+        return packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
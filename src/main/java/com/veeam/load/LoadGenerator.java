@@ -0,0 +1,291 @@
+package com.veeam.load;
+
+import com.veeam.config.TestConfiguration;
+import com.veeam.http.HttpTransport;
+import com.veeam.proxy.FaultInjectionProxy;
+import com.veeam.server.PetstoreServer;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * Open-loop load generator over PetApi, StoreApi and UserApi.
+ * Requests are started at a fixed arrival rate regardless of how fast earlier ones complete;
+ * each request is timed from its scheduled start, so queueing in the client, the in-flight
+ * limiter or the server is part of the reported latency instead of silently lowering the rate.
+ * Requests still outstanding when the drain timeout ends are recorded as timeouts at that deadline,
+ * so the slowest requests of an overloaded run are not left out of the percentiles.
+ * Run standalone with: java com.veeam.load.LoadGenerator (settings as -Dload.* properties, see main).
+ */
+public final class LoadGenerator {
+
+    private static final Logger logger = Logger.getLogger(LoadGenerator.class.getName());
+
+    private final LoadMix mix;
+    private final double rate;
+    private final Duration duration;
+    private final Duration warmup;
+    private final Duration drainTimeout;
+    private final long seed;
+
+    private LoadGenerator(Builder builder) {
+        if (builder.rate <= 0) {
+            throw new IllegalArgumentException("Arrival rate must be positive: " + builder.rate);
+        }
+        this.mix = builder.mix;
+        this.rate = builder.rate;
+        this.duration = builder.duration;
+        this.warmup = builder.warmup;
+        this.drainTimeout = builder.drainTimeout;
+        this.seed = builder.seed;
+    }
+
+    public static Builder builder(LoadMix mix) {
+        return new Builder(mix);
+    }
+
+    /**
+     * Run the schedule on the calling thread, then wait up to the drain timeout for outstanding
+     * requests. Requests scheduled during the warmup are sent but not recorded.
+     * @return Report over the measured interval
+     */
+    public LoadReport run() throws InterruptedException {
+        List<LoadMix.Operation> operations = mix.getOperations();
+        Map<LoadMix.Operation, Stats> stats = new ConcurrentHashMap<>();
+        for (LoadMix.Operation operation : operations) {
+            stats.put(operation, new Stats());
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        Set<Pending> outstanding = ConcurrentHashMap.newKeySet();
+        double intervalNanos = 1e9 / rate;
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        for (long sequence = 0; ; sequence++) {
+            long intended = start + (long) (sequence * intervalNanos);
+            if (intended >= end) {
+                break;
+            }
+            parkUntil(intended);
+            LoadMix.Operation operation = mix.pick(random.nextInt(mix.getTotalWeight()));
+            boolean measured = intended >= measureFrom;
+            long sent = System.nanoTime();
+            CompletableFuture<Integer> call;
+            try {
+                call = operation.call(sequence);
+            } catch (RuntimeException e) {
+                call = CompletableFuture.failedFuture(e);
+            }
+            Pending pending = new Pending(stats.get(operation), intended, sent, measured);
+            outstanding.add(pending);
+            call.whenComplete((status, error) -> {
+                pending.complete(System.nanoTime(), error == null ? status : 500, false);
+                outstanding.remove(pending);
+            });
+        }
+
+        long drainDeadline = System.nanoTime() + drainTimeout.toNanos();
+        while (!outstanding.isEmpty() && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        int timedOut = 0;
+        for (Pending pending : outstanding) {
+            if (pending.complete(drainDeadline, 0, true)) {
+                timedOut++;
+            }
+        }
+        if (timedOut > 0) {
+            logger.warning(timedOut + " requests still outstanding after " + drainTimeout + ", recorded as timeouts");
+        }
+
+        List<LoadReport.EndpointResult> results = new ArrayList<>();
+        for (LoadMix.Operation operation : operations) {
+            results.add(stats.get(operation).toResult(operation.getName()));
+        }
+        return new LoadReport(duration, rate, results);
+    }
+
+    private static void parkUntil(long deadline) throws InterruptedException {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    /**
+     * Run a load test from system properties and print the report:
+     * load.rate (req/s), load.duration and load.warmup (seconds), load.mix (see LoadMix),
+     * load.seed, load.embedded=true to target an in-process PetstoreServer instead of api.url.
+     * With proxy.route.* or proxy.default set, the load goes through a FaultInjectionProxy in front of the target.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        double rate = Double.parseDouble(TestConfiguration.getProperty("load.rate", "50"));
+        int seconds = Integer.parseInt(TestConfiguration.getProperty("load.duration", "30"));
+        int warmupSeconds = Integer.parseInt(TestConfiguration.getProperty("load.warmup", "5"));
+        String mixSpec = TestConfiguration.getProperty("load.mix", LoadMix.DEFAULT_MIX);
+        long seed = Long.parseLong(TestConfiguration.getProperty("load.seed", "42"));
+        boolean embedded = Boolean.parseBoolean(TestConfiguration.getProperty("load.embedded", "false"));
+
+        PetstoreServer server = embedded ? PetstoreServer.start() : null;
+        FaultInjectionProxy proxy = FaultInjectionProxy.fromConfiguration(server != null ? server.getBaseUrl() : TestConfiguration.getBaseUrl());
+        HttpTransport.Builder transportBuilder = HttpTransport.fromConfiguration();
+        if (proxy != null) {
+            transportBuilder.baseUrl(proxy.getBaseUrl());
+        } else if (server != null) {
+            transportBuilder.baseUrl(server.getBaseUrl());
+        }
+        HttpTransport transport = transportBuilder.build();
+        try {
+            LoadMix mix = LoadMix.parse(mixSpec, transport);
+            LoadMix.seed(transport);
+            transport.getMetrics().reset();  // keep the seeding calls out of the exported metrics
+            LoadReport report = builder(mix)
+                    .rate(rate)
+                    .duration(Duration.ofSeconds(seconds))
+                    .warmup(Duration.ofSeconds(warmupSeconds))
+                    .seed(seed)
+                    .build()
+                    .run();
+            System.out.print(report.format());
+        } finally {
+            transport.shutdown();
+            if (proxy != null) {
+                System.out.printf("Fault proxy: %d forwarded, %d injected errors, %d resets%n",
+                        proxy.getForwarded(), proxy.getInjectedErrors(), proxy.getResets());
+                proxy.close();
+            }
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    // A started request; recorded exactly once, by its completion or by the drain deadline
+    private static final class Pending {
+        private final Stats stats;
+        private final long intended;
+        private final long sent;
+        private final boolean measured;
+        private final AtomicBoolean recorded = new AtomicBoolean();
+
+        Pending(Stats stats, long intended, long sent, boolean measured) {
+            this.stats = stats;
+            this.intended = intended;
+            this.sent = sent;
+            this.measured = measured;
+        }
+
+        boolean complete(long completed, int status, boolean timedOut) {
+            if (!recorded.compareAndSet(false, true)) {
+                return false;
+            }
+            if (measured) {
+                stats.record(intended, sent, completed, status, timedOut);
+            }
+            return measured;
+        }
+    }
+
+    // Per-endpoint recording; written concurrently from the completion threads
+    private static final class Stats {
+        private final Histogram latency = new ConcurrentHistogram(3);
+        private final Histogram serviceTime = new ConcurrentHistogram(3);
+        private final ConcurrentHashMap<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+
+        void record(long intended, long sent, long completed, int status, boolean timedOut) {
+            latency.recordValue(completed - intended);
+            serviceTime.recordValue(completed - sent);
+            statusCounts.computeIfAbsent(status, key -> new LongAdder()).increment();
+            if (status < 200 || status >= 300) {
+                errors.increment();
+            }
+            if (timedOut) {
+                timeouts.increment();
+            }
+        }
+
+        LoadReport.EndpointResult toResult(String name) {
+            Map<Integer, Long> counts = new TreeMap<>();
+            statusCounts.forEach((status, count) -> counts.put(status, count.sum()));
+            return new LoadReport.EndpointResult(name, latency.copy(), serviceTime.copy(), counts, errors.sum(), timeouts.sum());
+        }
+    }
+
+    /**
+     * Settings of a load run.
+     */
+    public static final class Builder {
+        private final LoadMix mix;
+        private double rate = 50;
+        private Duration duration = Duration.ofSeconds(30);
+        private Duration warmup = Duration.ZERO;
+        private Duration drainTimeout = Duration.ofSeconds(30);
+        private long seed = 42;
+
+        private Builder(LoadMix mix) {
+            this.mix = mix;
+        }
+
+        /**
+         * Requests started per second, across all endpoints of the mix.
+         */
+        public Builder rate(double rate) {
+            this.rate = rate;
+            return this;
+        }
+
+        public Builder duration(Duration duration) {
+            this.duration = duration;
+            return this;
+        }
+
+        /**
+         * Time at the target rate before recording starts, e.g. for connection setup and JIT.
+         */
+        public Builder warmup(Duration warmup) {
+            this.warmup = warmup;
+            return this;
+        }
+
+        /**
+         * How long to wait for outstanding requests once the schedule has ended. Requests still
+         * outstanding then are recorded as timeouts (status 0) with their latency up to this deadline.
+         */
+        public Builder drainTimeout(Duration drainTimeout) {
+            this.drainTimeout = drainTimeout;
+            return this;
+        }
+
+        /**
+         * Seed of the endpoint draw, so runs with the same mix send the same sequence.
+         */
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public LoadGenerator build() {
+            return new LoadGenerator(this);
+        }
+    }
+}
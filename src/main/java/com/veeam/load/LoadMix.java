@@ -0,0 +1,193 @@
+package com.veeam.load;
+
+import com.veeam.api.PetApi;
+import com.veeam.api.StoreApi;
+import com.veeam.api.UserApi;
+import com.veeam.dto.Pet;
+import com.veeam.dto.Store;
+import com.veeam.dto.User;
+import com.veeam.http.HttpTransport;
+import com.veeam.utils.ApiResponse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongFunction;
+
+/**
+ * Weighted set of endpoints the load generator draws from, each driven through the async
+ * methods of PetApi, StoreApi and UserApi.
+ * Endpoints are named like the Petstore spec, e.g. "GET /pet/{petId}" or "POST /store/order".
+ */
+public final class LoadMix {
+
+    /** Default mix: mostly reads, like a browsing client. */
+    public static final String DEFAULT_MIX =
+            "GET /pet/{petId}=50,GET /pet/findByStatus=10,GET /store/inventory=15,POST /store/order=10,PUT /pet=10,GET /user/{username}=5";
+
+    // Ids of the data seeded before the run, so reads hit existing entities
+    static final long FIRST_PET_ID = 7_300_000L;
+    static final int SEEDED = 100;
+    private static final String[] STATUSES = {"available", "pending", "sold"};
+
+    private final List<Operation> operations;
+    private final int[] cumulativeWeights;
+    private final int totalWeight;
+
+    private LoadMix(List<Operation> operations) {
+        if (operations.isEmpty()) {
+            throw new IllegalArgumentException("Load mix has no endpoints");
+        }
+        this.operations = Collections.unmodifiableList(operations);
+        this.cumulativeWeights = new int[operations.size()];
+        int sum = 0;
+        for (int i = 0; i < operations.size(); i++) {
+            sum += operations.get(i).weight;
+            cumulativeWeights[i] = sum;
+        }
+        this.totalWeight = sum;
+    }
+
+    /**
+     * Build a mix from a spec like "GET /pet/{petId}=60,GET /store/inventory=40".
+     * @param spec Comma separated endpoint=weight pairs
+     * @param transport Transport the API classes send through
+     * @return The mix
+     */
+    public static LoadMix parse(String spec, HttpTransport transport) {
+        Map<String, LongFunction<CompletableFuture<Integer>>> available = endpoints(
+                new PetApi(transport), new StoreApi(transport), new UserApi(transport));
+        List<Operation> operations = new ArrayList<>();
+        for (String entry : spec.split(",")) {
+            int separator = entry.lastIndexOf('=');
+            String name = (separator < 0 ? entry : entry.substring(0, separator)).trim();
+            int weight = separator < 0 ? 1 : Integer.parseInt(entry.substring(separator + 1).trim());
+            LongFunction<CompletableFuture<Integer>> call = available.get(name);
+            if (call == null) {
+                throw new IllegalArgumentException("Unknown endpoint '" + name + "', expected one of " + available.keySet());
+            }
+            if (weight > 0) {
+                operations.add(new Operation(name, weight, call));
+            }
+        }
+        return new LoadMix(operations);
+    }
+
+    /**
+     * Create the pets, orders and users the read endpoints look up.
+     * @param transport Transport the API classes send through
+     */
+    public static void seed(HttpTransport transport) {
+        PetApi petApi = new PetApi(transport);
+        StoreApi storeApi = new StoreApi(transport);
+        UserApi userApi = new UserApi(transport);
+        List<CompletableFuture<ApiResponse>> pending = new ArrayList<>();
+        for (int i = 0; i < SEEDED; i++) {
+            pending.add(petApi.createPetAsync(pet(FIRST_PET_ID + i)));
+            pending.add(storeApi.placeOrderAsync(order(i + 1, FIRST_PET_ID + i)));
+            pending.add(userApi.createUserAsync(user(i)));
+        }
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+    }
+
+    public List<Operation> getOperations() {
+        return operations;
+    }
+
+    /**
+     * @param draw A uniformly distributed value in [0, total weight)
+     * @return The endpoint drawn
+     */
+    Operation pick(int draw) {
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (draw < cumulativeWeights[i]) {
+                return operations.get(i);
+            }
+        }
+        return operations.get(operations.size() - 1);
+    }
+
+    int getTotalWeight() {
+        return totalWeight;
+    }
+
+    // Every call completes with the HTTP status; transport failures complete with 500 like executeRequest
+    private static Map<String, LongFunction<CompletableFuture<Integer>>> endpoints(PetApi petApi, StoreApi storeApi, UserApi userApi) {
+        Map<String, LongFunction<CompletableFuture<Integer>>> endpoints = new LinkedHashMap<>();
+        // getPetByIdAsync only returns the Pet, null stands for any non-200 answer
+        endpoints.put("GET /pet/{petId}", n -> petApi.getPetByIdAsync(FIRST_PET_ID + n % SEEDED)
+                .thenApply(pet -> pet != null ? 200 : 404));
+        endpoints.put("GET /pet/findByStatus", n -> status(petApi.getPetsByStatusAsync(STATUSES[(int) (n % STATUSES.length)])));
+        endpoints.put("POST /pet", n -> status(petApi.createPetAsync(pet(FIRST_PET_ID + SEEDED + n))));
+        endpoints.put("PUT /pet", n -> status(petApi.updatePetAsync(pet(FIRST_PET_ID + n % SEEDED))));
+        endpoints.put("GET /store/inventory", n -> status(storeApi.getInventoryAsync()));
+        endpoints.put("POST /store/order", n -> status(storeApi.placeOrderAsync(order(SEEDED + 1 + n, FIRST_PET_ID + n % SEEDED))));
+        endpoints.put("GET /store/order/{orderId}", n -> status(storeApi.getOrderByIdAsync(1 + n % SEEDED)));
+        endpoints.put("GET /user/{username}", n -> status(userApi.getUserByUsernameAsync("loaduser" + n % SEEDED)));
+        endpoints.put("GET /user/login", n -> status(userApi.loginUserAsync("loaduser" + n % SEEDED, "secret")));
+        return endpoints;
+    }
+
+    private static CompletableFuture<Integer> status(CompletableFuture<ApiResponse> response) {
+        return response.thenApply(ApiResponse::getStatusCode);
+    }
+
+    private static Pet pet(long id) {
+        Pet pet = new Pet();
+        pet.setId(id);
+        pet.setName("load-" + id);
+        pet.setStatus(STATUSES[(int) (id % STATUSES.length)]);
+        return pet;
+    }
+
+    private static Store order(long id, long petId) {
+        Store order = new Store();
+        order.setId(id);
+        order.setPetId(petId);
+        order.setQuantity(1);
+        order.setStatus("placed");
+        return order;
+    }
+
+    private static User user(int index) {
+        User user = new User();
+        user.setId(index + 1);
+        user.setUsername("loaduser" + index);
+        user.setPassword("secret");
+        return user;
+    }
+
+    /**
+     * One endpoint of the mix.
+     */
+    public static final class Operation {
+        private final String name;
+        private final int weight;
+        private final LongFunction<CompletableFuture<Integer>> call;
+
+        Operation(String name, int weight, LongFunction<CompletableFuture<Integer>> call) {
+            this.name = name;
+            this.weight = weight;
+            this.call = call;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        /**
+         * @param sequence Request number, used to vary ids and payloads
+         * @return Future completed with the HTTP status code
+         */
+        CompletableFuture<Integer> call(long sequence) {
+            return call.apply(sequence);
+        }
+    }
+}
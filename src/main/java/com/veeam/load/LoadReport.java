@@ -0,0 +1,162 @@
+package com.veeam.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Outcome of a load run: per-endpoint throughput, error rate and latency percentiles.
+ * Latencies are measured from the time a request was scheduled to start, not from when it was
+ * actually sent, so a stalled client or server shows up in the percentiles (coordinated omission
+ * corrected). The service time, measured from the actual send, is reported alongside.
+ */
+public final class LoadReport {
+
+    private final Duration elapsed;
+    private final double targetRate;
+    private final List<EndpointResult> endpoints;
+
+    LoadReport(Duration elapsed, double targetRate, List<EndpointResult> endpoints) {
+        this.elapsed = elapsed;
+        this.targetRate = targetRate;
+        this.endpoints = Collections.unmodifiableList(endpoints);
+    }
+
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    public double getTargetRate() {
+        return targetRate;
+    }
+
+    public List<EndpointResult> getEndpoints() {
+        return endpoints;
+    }
+
+    public long getTotalCount() {
+        return endpoints.stream().mapToLong(EndpointResult::getCount).sum();
+    }
+
+    public long getTotalErrors() {
+        return endpoints.stream().mapToLong(EndpointResult::getErrors).sum();
+    }
+
+    public long getTotalTimeouts() {
+        return endpoints.stream().mapToLong(EndpointResult::getTimeouts).sum();
+    }
+
+    /**
+     * @return Completed requests per second over the measured interval
+     */
+    public double getThroughput() {
+        return getTotalCount() / seconds(elapsed);
+    }
+
+    /**
+     * @return Human readable table, latencies in milliseconds
+     */
+    public String format() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "Target %.1f req/s, achieved %.1f req/s over %.1f s, %d requests, %.2f%% errors%n",
+                targetRate, getThroughput(), seconds(elapsed), getTotalCount(), percent(getTotalErrors(), getTotalCount())));
+        if (getTotalTimeouts() > 0) {
+            out.append(String.format(Locale.ROOT, "%d requests timed out at the drain deadline (status 0)%n", getTotalTimeouts()));
+        }
+        out.append(String.format(Locale.ROOT, "%-28s %9s %9s %8s %9s %9s %9s %9s %9s %12s%n",
+                "endpoint", "count", "req/s", "errors", "p50", "p90", "p99", "p99.9", "max", "svc p99"));
+        for (EndpointResult endpoint : endpoints) {
+            Histogram latency = endpoint.getLatency();
+            out.append(String.format(Locale.ROOT, "%-28s %9d %9.1f %7.2f%% %9.2f %9.2f %9.2f %9.2f %9.2f %12.2f%n",
+                    endpoint.getName(), endpoint.getCount(), endpoint.getCount() / seconds(elapsed),
+                    percent(endpoint.getErrors(), endpoint.getCount()),
+                    millis(latency.getValueAtPercentile(50)), millis(latency.getValueAtPercentile(90)),
+                    millis(latency.getValueAtPercentile(99)), millis(latency.getValueAtPercentile(99.9)),
+                    millis(latency.getMaxValue()), millis(endpoint.getServiceTime().getValueAtPercentile(99))));
+        }
+        return out.toString();
+    }
+
+    @Override
+    public String toString() {
+        return format();
+    }
+
+    private static double seconds(Duration duration) {
+        return Math.max(duration.toNanos(), 1) / 1e9;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static double percent(long part, long total) {
+        return total == 0 ? 0 : part * 100.0 / total;
+    }
+
+    /**
+     * Results of one endpoint of the mix.
+     */
+    public static final class EndpointResult {
+        private final String name;
+        private final Histogram latency;
+        private final Histogram serviceTime;
+        private final Map<Integer, Long> statusCounts;
+        private final long errors;
+        private final long timeouts;
+
+        EndpointResult(String name, Histogram latency, Histogram serviceTime, Map<Integer, Long> statusCounts, long errors,
+                       long timeouts) {
+            this.name = name;
+            this.latency = latency;
+            this.serviceTime = serviceTime;
+            this.statusCounts = Collections.unmodifiableMap(statusCounts);
+            this.errors = errors;
+            this.timeouts = timeouts;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return Nanoseconds from the scheduled start to completion (coordinated omission corrected)
+         */
+        public Histogram getLatency() {
+            return latency;
+        }
+
+        /**
+         * @return Nanoseconds from the actual send to completion
+         */
+        public Histogram getServiceTime() {
+            return serviceTime;
+        }
+
+        public Map<Integer, Long> getStatusCounts() {
+            return statusCounts;
+        }
+
+        public long getCount() {
+            return latency.getTotalCount();
+        }
+
+        /**
+         * @return Requests answered with a status outside 2xx, or failed in the transport
+         */
+        public long getErrors() {
+            return errors;
+        }
+
+        /**
+         * @return Requests still outstanding at the drain deadline; recorded with status 0 and counted in getErrors()
+         */
+        public long getTimeouts() {
+            return timeouts;
+        }
+    }
+}
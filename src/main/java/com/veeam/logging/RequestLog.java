@@ -0,0 +1,279 @@
+package com.veeam.logging;
+
+import com.veeam.config.TestConfiguration;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.http.HttpHeaders;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * Structured request/response log written off the request path.
+ * Callers only fill a slot of a preallocated ring buffer (no locks, no formatting, no I/O);
+ * a single background thread formats the entries and writes them to the file in batches.
+ * Successful calls are sampled at the configured rate. Failures (no response, 4xx, 5xx) and
+ * calls slower than the threshold are always logged, with response headers and the start of
+ * the body. When the writer falls behind, new entries are dropped and counted instead of
+ * blocking the caller.
+ */
+public final class RequestLog implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(RequestLog.class.getName());
+    private static final int MAX_BODY_CHARS = 2048;
+    private static volatile RequestLog global;
+
+    private final Slot[] slots;
+    private final int mask;
+    private final double sampleRate;
+    private final long slowNanos;
+    private final Path file;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final AtomicLong flushed = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writerThread;
+    private volatile boolean closed;
+
+    /**
+     * @param file File the entries are appended to
+     * @param capacity Ring buffer slots, rounded up to a power of two
+     * @param sampleRate Fraction of successful calls logged, 0 to 1
+     * @param slowThreshold Calls at least this slow are always logged in full
+     */
+    public RequestLog(Path file, int capacity, double sampleRate, Duration slowThreshold) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = size - 1;
+        this.sampleRate = sampleRate;
+        this.slowNanos = slowThreshold.toNanos();
+        this.file = file;
+        this.writerThread = new Thread(this::drainLoop, "petstore-request-log");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Get the process-wide log, created on first use from TestConfiguration and flushed on JVM exit.
+     * @return The shared request log
+     */
+    public static RequestLog global() {
+        RequestLog log = global;
+        if (log == null) {
+            synchronized (RequestLog.class) {
+                log = global;
+                if (log == null) {
+                    log = new RequestLog(
+                            Paths.get(TestConfiguration.getProperty("log.file", "target/petstore-requests.log")),
+                            Integer.parseInt(TestConfiguration.getProperty("log.bufferSize", "8192")),
+                            Double.parseDouble(TestConfiguration.getProperty("log.sampleRate", "0.01")),
+                            Duration.ofMillis(Long.parseLong(TestConfiguration.getProperty("log.slowThreshold", "1000"))));
+                    Runtime.getRuntime().addShutdownHook(new Thread(log::close, "petstore-request-log-flush"));
+                    global = log;
+                }
+            }
+        }
+        return log;
+    }
+
+    /**
+     * Offer a completed call. Cheap when the call is not sampled: one random draw and two comparisons.
+     * @param endpoint Endpoint name, e.g. "GET /pet/{petId}"
+     * @param uri Request URI
+     * @param status HTTP status, 0 when the call failed without a response
+     * @param latencyNanos Time from send to completion
+     * @param requestBytes Request body size, negative when unknown
+     * @param responseBytes Response body size
+     * @param headers Response headers, may be null
+     * @param body Response body; not copied, so it must not be modified afterwards
+     * @param error Transport failure, null when a response was received
+     */
+    public void log(String endpoint, Object uri, int status, long latencyNanos, long requestBytes, long responseBytes,
+                    HttpHeaders headers, byte[] body, Throwable error) {
+        boolean failed = status == 0 || status >= 400;
+        boolean slow = latencyNanos >= slowNanos;
+        Kind kind = failed ? Kind.FAILED : slow ? Kind.SLOW : Kind.SAMPLED;
+        if (kind == Kind.SAMPLED && (sampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return;
+        }
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed.get() >= slots.length || closed) {
+                dropped.increment();
+                return;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        Slot slot = slots[(int) (sequence & mask)];
+        slot.timestamp = System.currentTimeMillis();
+        slot.kind = kind;
+        slot.endpoint = endpoint;
+        slot.uri = uri;
+        slot.status = status;
+        slot.latencyNanos = latencyNanos;
+        slot.requestBytes = requestBytes;
+        slot.responseBytes = responseBytes;
+        slot.headers = kind == Kind.SAMPLED ? null : headers;
+        slot.body = kind == Kind.SAMPLED ? null : body;
+        slot.error = error;
+        slot.published = sequence;  // volatile write publishes the fields above
+    }
+
+    /**
+     * @return Entries discarded because the writer could not keep up
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Block until every entry offered so far is written and flushed.
+     */
+    public void flush() {
+        long target = claimed.get();
+        while (flushed.get() < target && writerThread.isAlive()) {
+            LockSupport.unpark(writerThread);
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    /**
+     * Write the remaining entries and stop the writer thread.
+     */
+    @Override
+    public void close() {
+        flush();
+        closed = true;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(1_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drainLoop() {
+        Writer out = null;
+        StringBuilder line = new StringBuilder(512);
+        long next = 0;
+        boolean dirty = false;
+        try {
+            while (true) {
+                Slot slot = slots[(int) (next & mask)];
+                if (slot.published == next) {
+                    if (out == null) {
+                        out = open();
+                    }
+                    line.setLength(0);
+                    format(slot, line);
+                    slot.headers = null;  // let the body and headers be collected
+                    slot.body = null;
+                    slot.uri = null;
+                    slot.error = null;
+                    consumed.lazySet(++next);
+                    out.append(line);
+                    dirty = true;
+                    continue;
+                }
+                if (dirty) {
+                    out.flush();  // one write per batch, when the ring is empty
+                    dirty = false;
+                    flushed.set(next);
+                }
+                if (closed) {
+                    break;
+                }
+                LockSupport.parkNanos(1_000_000);
+            }
+        } catch (IOException e) {
+            logger.warning("Request log stopped, could not write " + file + ": " + e);
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    logger.warning("Could not close " + file + ": " + e);
+                }
+            }
+        }
+    }
+
+    private Writer open() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        return new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024);
+    }
+
+    // One line per entry: timestamp kind endpoint status latency bytes uri [error] [headers] [body]
+    private static void format(Slot slot, StringBuilder line) {
+        line.append(Instant.ofEpochMilli(slot.timestamp)).append(' ')
+                .append(slot.kind).append(' ')
+                .append(slot.endpoint).append(' ')
+                .append("status=").append(slot.status)
+                .append(" latencyMs=").append(slot.latencyNanos / 1_000_000).append('.')
+                .append(slot.latencyNanos / 100_000 % 10)
+                .append(" requestBytes=").append(slot.requestBytes)
+                .append(" responseBytes=").append(slot.responseBytes)
+                .append(" uri=").append(slot.uri);
+        if (slot.error != null) {
+            line.append(" error=\"").append(slot.error).append('"');
+        }
+        if (slot.headers != null) {
+            line.append(" headers={");
+            String separator = "";
+            for (Map.Entry<String, List<String>> header : slot.headers.map().entrySet()) {
+                line.append(separator).append(header.getKey()).append('=').append(String.join(",", header.getValue()));
+                separator = "; ";
+            }
+            line.append('}');
+        }
+        if (slot.body != null && slot.body.length > 0) {
+            String body = new String(slot.body, 0, Math.min(slot.body.length, MAX_BODY_CHARS), StandardCharsets.UTF_8);
+            line.append(" body=").append(body.replace('\n', ' ').replace('\r', ' '));
+            if (slot.body.length > MAX_BODY_CHARS) {
+                line.append("...");
+            }
+        }
+        line.append('\n');
+    }
+
+    enum Kind {
+        SAMPLED, SLOW, FAILED
+    }
+
+    // Preallocated entry; fields are plain and published by the volatile write of 'published'
+    private static final class Slot {
+        volatile long published = -1;
+        long timestamp;
+        Kind kind;
+        String endpoint;
+        Object uri;
+        int status;
+        long latencyNanos;
+        long requestBytes;
+        long responseBytes;
+        HttpHeaders headers;
+        byte[] body;
+        Throwable error;
+    }
+}
@@ -0,0 +1,96 @@
+package com.veeam.metrics;
+
+import com.veeam.config.TestConfiguration;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Registry of per-endpoint metrics recorded by HttpTransport for every call of the API classes.
+ * The process-wide registry is used by the shared transport; dedicated transports can be given
+ * their own, e.g. to profile one load run in isolation.
+ * With -Dmetrics.export=dir the global registry is written to dir as JSON, CSV and Prometheus
+ * text when the JVM exits, so every test or load run leaves a per-endpoint latency profile.
+ */
+public final class ApiMetrics {
+
+    private static final Logger logger = Logger.getLogger(ApiMetrics.class.getName());
+    private static final ApiMetrics GLOBAL = new ApiMetrics();
+
+    static {
+        String exportDir = TestConfiguration.getProperty("metrics.export", "");
+        if (!exportDir.isEmpty()) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> GLOBAL.export(Paths.get(exportDir)), "petstore-metrics-export"));
+        }
+    }
+
+    private final ConcurrentHashMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+
+    public static ApiMetrics global() {
+        return GLOBAL;
+    }
+
+    /**
+     * @param endpoint Method and path template, e.g. "PUT /pet" or "GET /store/inventory"
+     * @return The live metrics of the endpoint, created on first use
+     */
+    public EndpointMetrics endpoint(String endpoint) {
+        EndpointMetrics metrics = endpoints.get(endpoint);
+        return metrics != null ? metrics : endpoints.computeIfAbsent(endpoint, EndpointMetrics::new);
+    }
+
+    /**
+     * @return Snapshot of every endpoint seen so far, sorted by endpoint name
+     */
+    public List<EndpointSnapshot> snapshot() {
+        List<EndpointSnapshot> snapshots = new ArrayList<>();
+        for (EndpointMetrics metrics : endpoints.values()) {
+            snapshots.add(metrics.snapshot());
+        }
+        snapshots.sort(Comparator.comparing(EndpointSnapshot::getEndpoint));
+        return snapshots;
+    }
+
+    /**
+     * Zero all endpoints, e.g. after a warmup phase.
+     */
+    public void reset() {
+        endpoints.values().forEach(EndpointMetrics::reset);
+    }
+
+    public String toJson() {
+        return MetricsExporter.toJson(snapshot());
+    }
+
+    public String toCsv() {
+        return MetricsExporter.toCsv(snapshot());
+    }
+
+    public String toPrometheus() {
+        return MetricsExporter.toPrometheus(snapshot());
+    }
+
+    /**
+     * Write petstore-metrics.json, .csv and .prom into the directory.
+     * @param directory Target directory, created if missing
+     */
+    public void export(Path directory) {
+        List<EndpointSnapshot> snapshots = snapshot();
+        try {
+            Files.createDirectories(directory);
+            Files.write(directory.resolve("petstore-metrics.json"), MetricsExporter.toJson(snapshots).getBytes(StandardCharsets.UTF_8));
+            Files.write(directory.resolve("petstore-metrics.csv"), MetricsExporter.toCsv(snapshots).getBytes(StandardCharsets.UTF_8));
+            Files.write(directory.resolve("petstore-metrics.prom"), MetricsExporter.toPrometheus(snapshots).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            logger.warning("Could not export metrics to " + directory + ": " + e);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.veeam.metrics;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live counters of one endpoint, e.g. "GET /pet/{petId}".
+ * Recording is lock-free: LongAdders for the counters and ConcurrentHistograms, whose writers
+ * never block each other, for the latency distribution of the endpoint and of each status.
+ */
+public final class EndpointMetrics {
+
+    private final String endpoint;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder requestBytes = new LongAdder();
+    private final LongAdder responseBytes = new LongAdder();
+    private final ConcurrentHashMap<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final Histogram latency = new ConcurrentHistogram(3);
+    private final ConcurrentHashMap<Integer, Histogram> statusLatency = new ConcurrentHashMap<>();
+
+    // Last percentile query, reused by callers that ask on every request (hedging)
+    private volatile PercentileValue cachedPercentile;
+
+    EndpointMetrics(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * Record one completed call.
+     * @param status HTTP status, or 0 when the call failed without a response
+     * @param latencyNanos Time from send to the full response
+     * @param requestBytes Request body size, or a negative value when unknown
+     * @param responseBytes Response body size
+     */
+    public void record(int status, long latencyNanos, long requestBytes, long responseBytes) {
+        count.increment();
+        long nanos = Math.max(latencyNanos, 0);
+        latency.recordValue(nanos);
+        if (requestBytes > 0) {
+            this.requestBytes.add(requestBytes);
+        }
+        if (responseBytes > 0) {
+            this.responseBytes.add(responseBytes);
+        }
+        LongAdder perStatus = statusCounts.get(status);
+        if (perStatus == null) {
+            perStatus = statusCounts.computeIfAbsent(status, key -> new LongAdder());
+        }
+        perStatus.increment();
+        Histogram perStatusLatency = statusLatency.get(status);
+        if (perStatusLatency == null) {
+            perStatusLatency = statusLatency.computeIfAbsent(status, key -> new ConcurrentHistogram(3));
+        }
+        perStatusLatency.recordValue(nanos);
+        if (status == 0 || status >= 400) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * Count a request sent again after a failed attempt.
+     */
+    public void recordRetry() {
+        retries.increment();
+    }
+
+    /**
+     * Count a duplicate request sent because the first one was slow.
+     */
+    public void recordHedge() {
+        hedges.increment();
+    }
+
+    /**
+     * Count a call that shared the response of an identical request already in flight instead of sending its own.
+     */
+    public void recordCoalesced() {
+        coalesced.increment();
+    }
+
+    /**
+     * Count a call failed at once by an open circuit breaker, without being sent.
+     */
+    public void recordRejected() {
+        rejected.increment();
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Latency percentile of the live histogram, recomputed at most once per {@code maxAgeNanos}.
+     * @return Latency in nanoseconds, 0 before the first call
+     */
+    public long latencyAtPercentile(double percentile, long maxAgeNanos) {
+        long now = System.nanoTime();
+        PercentileValue cached = cachedPercentile;
+        if (cached == null || cached.percentile != percentile || now - cached.computedAt > maxAgeNanos) {
+            cached = new PercentileValue(percentile, latency.getValueAtPercentile(percentile), now);
+            cachedPercentile = cached;
+        }
+        return cached.value;
+    }
+
+    /**
+     * @return Point-in-time copy of the counters and the latency histograms
+     */
+    public EndpointSnapshot snapshot() {
+        Map<Integer, Long> statuses = new TreeMap<>();
+        statusCounts.forEach((status, adder) -> statuses.put(status, adder.sum()));
+        Map<Integer, Histogram> statusLatencies = new TreeMap<>();
+        statusLatency.forEach((status, histogram) -> statusLatencies.put(status, histogram.copy()));
+        return new EndpointSnapshot(endpoint, count.sum(), errors.sum(), retries.sum(), hedges.sum(),
+                coalesced.sum(), rejected.sum(), requestBytes.sum(), responseBytes.sum(), statuses, latency.copy(),
+                statusLatencies);
+    }
+
+    void reset() {
+        count.reset();
+        errors.reset();
+        retries.reset();
+        hedges.reset();
+        coalesced.reset();
+        rejected.reset();
+        requestBytes.reset();
+        responseBytes.reset();
+        statusCounts.clear();
+        latency.reset();
+        statusLatency.clear();
+        cachedPercentile = null;
+    }
+
+    private static final class PercentileValue {
+        final double percentile;
+        final long value;
+        final long computedAt;
+
+        PercentileValue(double percentile, long value, long computedAt) {
+            this.percentile = percentile;
+            this.value = value;
+            this.computedAt = computedAt;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.veeam.metrics;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Immutable view of one endpoint's metrics at the time of the snapshot. Latencies in nanoseconds.
+ */
+public final class EndpointSnapshot {
+
+    private final String endpoint;
+    private final long count;
+    private final long errors;
+    private final long retries;
+    private final long hedges;
+    private final long coalesced;
+    private final long rejected;
+    private final long requestBytes;
+    private final long responseBytes;
+    private final Map<Integer, Long> statusCounts;
+    private final Histogram latency;
+    private final Map<Integer, Histogram> statusLatencies;
+
+    EndpointSnapshot(String endpoint, long count, long errors, long retries, long hedges, long coalesced, long rejected,
+                     long requestBytes, long responseBytes, Map<Integer, Long> statusCounts, Histogram latency,
+                     Map<Integer, Histogram> statusLatencies) {
+        this.endpoint = endpoint;
+        this.count = count;
+        this.errors = errors;
+        this.retries = retries;
+        this.hedges = hedges;
+        this.coalesced = coalesced;
+        this.rejected = rejected;
+        this.requestBytes = requestBytes;
+        this.responseBytes = responseBytes;
+        this.statusCounts = Collections.unmodifiableMap(statusCounts);
+        this.latency = latency;
+        this.statusLatencies = Collections.unmodifiableMap(statusLatencies);
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return Calls answered with 4xx/5xx or failed without a response
+     */
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return Attempts sent again after a transport failure or transient 5xx
+     */
+    public long getRetries() {
+        return retries;
+    }
+
+    /**
+     * @return Duplicate GETs sent because the first was slower than the hedge percentile
+     */
+    public long getHedges() {
+        return hedges;
+    }
+
+    /**
+     * @return Calls answered with the response of an identical GET already in flight, not counted in getCount()
+     */
+    public long getCoalesced() {
+        return coalesced;
+    }
+
+    /**
+     * @return Calls failed at once by an open circuit breaker, not counted in getCount()
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    /**
+     * @return Calls per HTTP status, 0 standing for calls without a response
+     */
+    public Map<Integer, Long> getStatusCounts() {
+        return statusCounts;
+    }
+
+    public Histogram getLatency() {
+        return latency;
+    }
+
+    public long getLatencyPercentile(double percentile) {
+        return latency.getTotalCount() == 0 ? 0 : latency.getValueAtPercentile(percentile);
+    }
+
+    public double getMeanLatency() {
+        return latency.getTotalCount() == 0 ? 0 : latency.getMean();
+    }
+
+    /**
+     * @return Latency distribution per HTTP status, e.g. to tell fast 404s from slow 200s
+     */
+    public Map<Integer, Histogram> getStatusLatencies() {
+        return statusLatencies;
+    }
+
+    /**
+     * @return Latency percentile of the calls answered with this status, 0 when there were none
+     */
+    public long getLatencyPercentile(int status, double percentile) {
+        Histogram histogram = statusLatencies.get(status);
+        return histogram == null || histogram.getTotalCount() == 0 ? 0 : histogram.getValueAtPercentile(percentile);
+    }
+}
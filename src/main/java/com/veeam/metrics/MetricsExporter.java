@@ -0,0 +1,209 @@
+package com.veeam.metrics;
+
+import com.veeam.json.JsonWriter;
+import org.HdrHistogram.Histogram;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Renders endpoint snapshots as JSON, CSV or Prometheus text exposition format.
+ * JSON and CSV report latencies in microseconds, Prometheus in seconds as its conventions require.
+ * Latency is exported per endpoint and, separately, per endpoint and status.
+ */
+public final class MetricsExporter {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p99_9"};
+
+    private MetricsExporter() {
+    }
+
+    public static String toJson(List<EndpointSnapshot> snapshots) {
+        JsonWriter writer = new JsonWriter().beginArray();
+        for (EndpointSnapshot snapshot : snapshots) {
+            writer.beginObject()
+                    .name("endpoint").value(snapshot.getEndpoint())
+                    .name("count").value(snapshot.getCount())
+                    .name("errors").value(snapshot.getErrors())
+                    .name("retries").value(snapshot.getRetries())
+                    .name("hedges").value(snapshot.getHedges())
+                    .name("coalesced").value(snapshot.getCoalesced())
+                    .name("rejected").value(snapshot.getRejected())
+                    .name("requestBytes").value(snapshot.getRequestBytes())
+                    .name("responseBytes").value(snapshot.getResponseBytes());
+            writer.name("statuses").beginObject();
+            for (Map.Entry<Integer, Long> status : snapshot.getStatusCounts().entrySet()) {
+                writer.name(String.valueOf(status.getKey())).value(status.getValue());
+            }
+            writer.endObject();
+            writer.name("latencyMicros").beginObject()
+                    .name("mean").value(micros((long) snapshot.getMeanLatency()));
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                writer.name(PERCENTILE_NAMES[i]).value(micros(snapshot.getLatencyPercentile(PERCENTILES[i])));
+            }
+            writer.name("max").value(micros(snapshot.getLatency().getMaxValue()))
+                    .endObject();
+            writer.name("latencyMicrosByStatus").beginObject();
+            for (Map.Entry<Integer, Histogram> status : snapshot.getStatusLatencies().entrySet()) {
+                Histogram latency = status.getValue();
+                writer.name(String.valueOf(status.getKey())).beginObject()
+                        .name("mean").value(micros((long) mean(latency)));
+                for (int i = 0; i < PERCENTILES.length; i++) {
+                    writer.name(PERCENTILE_NAMES[i]).value(micros(percentile(latency, PERCENTILES[i])));
+                }
+                writer.name("max").value(micros(latency.getMaxValue())).endObject();
+            }
+            writer.endObject()
+                    .endObject();
+        }
+        return writer.endArray().toString();
+    }
+
+    /**
+     * One row per endpoint; status counts are packed into one column as status:count pairs,
+     * and so are the per-status latencies, one column per percentile.
+     */
+    public static String toCsv(List<EndpointSnapshot> snapshots) {
+        StringBuilder out = new StringBuilder("endpoint,count,errors,retries,hedges,request_bytes,response_bytes,statuses,mean_us");
+        for (String name : PERCENTILE_NAMES) {
+            out.append(',').append(name).append("_us");
+        }
+        out.append(",max_us,coalesced,rejected");  // new columns go last so existing positions stay
+        for (String name : PERCENTILE_NAMES) {
+            out.append(",status_").append(name).append("_us");
+        }
+        out.append(",status_max_us\n");
+        for (EndpointSnapshot snapshot : snapshots) {
+            out.append(csvField(snapshot.getEndpoint())).append(',')
+                    .append(snapshot.getCount()).append(',')
+                    .append(snapshot.getErrors()).append(',')
+                    .append(snapshot.getRetries()).append(',')
+                    .append(snapshot.getHedges()).append(',')
+                    .append(snapshot.getRequestBytes()).append(',')
+                    .append(snapshot.getResponseBytes()).append(',');
+            String separator = "";
+            for (Map.Entry<Integer, Long> status : snapshot.getStatusCounts().entrySet()) {
+                out.append(separator).append(status.getKey()).append(':').append(status.getValue());
+                separator = ";";
+            }
+            out.append(',').append(micros((long) snapshot.getMeanLatency()));
+            for (double percentile : PERCENTILES) {
+                out.append(',').append(micros(snapshot.getLatencyPercentile(percentile)));
+            }
+            out.append(',').append(micros(snapshot.getLatency().getMaxValue()))
+                    .append(',').append(snapshot.getCoalesced())
+                    .append(',').append(snapshot.getRejected());
+            for (double percentile : PERCENTILES) {
+                out.append(',');
+                statusLatencies(out, snapshot, latency -> percentile(latency, percentile));
+            }
+            out.append(',');
+            statusLatencies(out, snapshot, Histogram::getMaxValue);
+            out.append('\n');
+        }
+        return out.toString();
+    }
+
+    public static String toPrometheus(List<EndpointSnapshot> snapshots) {
+        StringBuilder out = new StringBuilder();
+        header(out, "petstore_client_requests_total", "counter", "Completed API calls by endpoint and HTTP status (0 = no response).");
+        for (EndpointSnapshot snapshot : snapshots) {
+            for (Map.Entry<Integer, Long> status : snapshot.getStatusCounts().entrySet()) {
+                out.append("petstore_client_requests_total{endpoint=\"").append(label(snapshot.getEndpoint()))
+                        .append("\",status=\"").append(status.getKey()).append("\"} ").append(status.getValue()).append('\n');
+            }
+        }
+        counter(out, snapshots, "petstore_client_errors_total", "API calls answered with 4xx/5xx or without a response.", EndpointSnapshot::getErrors);
+        counter(out, snapshots, "petstore_client_retries_total", "Attempts sent again after a failure or transient 5xx.", EndpointSnapshot::getRetries);
+        counter(out, snapshots, "petstore_client_hedges_total", "Duplicate GETs sent after the hedge delay.", EndpointSnapshot::getHedges);
+        counter(out, snapshots, "petstore_client_coalesced_total", "GETs that shared the response of an identical request in flight.", EndpointSnapshot::getCoalesced);
+        counter(out, snapshots, "petstore_client_rejected_total", "Calls failed at once by an open circuit breaker.", EndpointSnapshot::getRejected);
+        counter(out, snapshots, "petstore_client_request_bytes_total", "Request body bytes sent.", EndpointSnapshot::getRequestBytes);
+        counter(out, snapshots, "petstore_client_response_bytes_total", "Response body bytes received.", EndpointSnapshot::getResponseBytes);
+
+        header(out, "petstore_client_latency_seconds", "summary", "API call latency from send to full response.");
+        for (EndpointSnapshot snapshot : snapshots) {
+            String endpoint = label(snapshot.getEndpoint());
+            for (double percentile : PERCENTILES) {
+                out.append("petstore_client_latency_seconds{endpoint=\"").append(endpoint)
+                        .append("\",quantile=\"").append(format(percentile / 100)).append("\"} ")
+                        .append(format(snapshot.getLatencyPercentile(percentile) / 1e9)).append('\n');
+            }
+            out.append("petstore_client_latency_seconds_sum{endpoint=\"").append(endpoint).append("\"} ")
+                    .append(format(snapshot.getMeanLatency() * snapshot.getLatency().getTotalCount() / 1e9)).append('\n');
+            out.append("petstore_client_latency_seconds_count{endpoint=\"").append(endpoint).append("\"} ")
+                    .append(snapshot.getLatency().getTotalCount()).append('\n');
+        }
+
+        header(out, "petstore_client_status_latency_seconds", "summary", "API call latency by endpoint and HTTP status (0 = no response).");
+        for (EndpointSnapshot snapshot : snapshots) {
+            for (Map.Entry<Integer, Histogram> status : snapshot.getStatusLatencies().entrySet()) {
+                String labels = "endpoint=\"" + label(snapshot.getEndpoint()) + "\",status=\"" + status.getKey() + "\"";
+                Histogram latency = status.getValue();
+                for (double percentile : PERCENTILES) {
+                    out.append("petstore_client_status_latency_seconds{").append(labels)
+                            .append(",quantile=\"").append(format(percentile / 100)).append("\"} ")
+                            .append(format(percentile(latency, percentile) / 1e9)).append('\n');
+                }
+                out.append("petstore_client_status_latency_seconds_sum{").append(labels).append("} ")
+                        .append(format(mean(latency) * latency.getTotalCount() / 1e9)).append('\n');
+                out.append("petstore_client_status_latency_seconds_count{").append(labels).append("} ")
+                        .append(latency.getTotalCount()).append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    // status:micros pairs separated by ';', like the statuses column
+    private static void statusLatencies(StringBuilder out, EndpointSnapshot snapshot, ToLongFunction<Histogram> value) {
+        String separator = "";
+        for (Map.Entry<Integer, Histogram> status : snapshot.getStatusLatencies().entrySet()) {
+            out.append(separator).append(status.getKey()).append(':').append(micros(value.applyAsLong(status.getValue())));
+            separator = ";";
+        }
+    }
+
+    private static long percentile(Histogram latency, double percentile) {
+        return latency.getTotalCount() == 0 ? 0 : latency.getValueAtPercentile(percentile);
+    }
+
+    private static double mean(Histogram latency) {
+        return latency.getTotalCount() == 0 ? 0 : latency.getMean();
+    }
+
+    private static void counter(StringBuilder out, List<EndpointSnapshot> snapshots, String name, String help,
+                                ToLongFunction<EndpointSnapshot> value) {
+        header(out, name, "counter", help);
+        for (EndpointSnapshot snapshot : snapshots) {
+            out.append(name).append("{endpoint=\"").append(label(snapshot.getEndpoint())).append("\"} ")
+                    .append(value.applyAsLong(snapshot)).append('\n');
+        }
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static long micros(long nanos) {
+        return nanos / 1_000;
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.9g", value);
+    }
+
+    private static String label(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,386 @@
+package com.veeam.proxy;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.veeam.config.TestConfiguration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * HTTP proxy on the loopback interface that forwards to a Petstore (the public one, or a
+ * PetstoreServer) and degrades the traffic per route with a FaultRule: added latency from a
+ * distribution plus jitter, a bandwidth limit on response bodies, injected error responses and
+ * connections closed without a response. Point the API classes at getBaseUrl() to measure how
+ * throughput and tail latency hold up, e.g. with LoadGenerator.
+ * Routes are paths relative to the API root, optionally with a method and {parameters}:
+ * "/pet/findByStatus", "/user/login", "GET /pet/{petId}". The most specific matching route wins;
+ * requests no route matches get the default rule. Random draws are seeded per request number,
+ * so a run with the same seed and request order injects the same faults.
+ * Latency is waited out on the proxy's threads, so threads bounds the requests it can delay at once.
+ */
+public final class FaultInjectionProxy implements AutoCloseable {
+
+    static {
+        // Same as PetstoreServer: without TCP_NODELAY keep-alive responses wait for the client's delayed ACK
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private static final Logger logger = Logger.getLogger(FaultInjectionProxy.class.getName());
+    private static final Set<String> HOP_BY_HOP = new HashSet<>(Arrays.asList(
+            "connection", "content-length", "date", "expect", "host", "keep-alive", "proxy-authorization",
+            "proxy-connection", "te", "trailer", "transfer-encoding", "upgrade"));
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final HttpClient client;
+    private final String target;
+    private final String basePath;
+    private final List<Route> routes;
+    private final FaultRule defaultRule;
+    private final long seed;
+    private final AtomicLong requests = new AtomicLong();
+    private final LongAdder forwarded = new LongAdder();
+    private final LongAdder injectedErrors = new LongAdder();
+    private final LongAdder resets = new LongAdder();
+
+    private FaultInjectionProxy(Builder builder) throws IOException {
+        URI targetUri = URI.create(builder.target);
+        this.target = builder.target.endsWith("/") ? builder.target.substring(0, builder.target.length() - 1) : builder.target;
+        String path = targetUri.getRawPath() == null ? "" : targetUri.getRawPath();
+        this.basePath = path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+        this.routes = new ArrayList<>(builder.routes);
+        routes.sort(Comparator.comparingInt((Route route) -> route.specificity).reversed());
+        this.defaultRule = builder.defaultRule;
+        this.seed = builder.seed;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(builder.threads, runnable -> {
+            Thread thread = new Thread(runnable, "petstore-fault-proxy-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), builder.port), 4096);
+        server.createContext(basePath.isEmpty() ? "/" : basePath, this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * @param target Root URL to forward to, e.g. https://petstore.swagger.io/v2 or PetstoreServer.getBaseUrl()
+     */
+    public static Builder builder(String target) {
+        return new Builder(target);
+    }
+
+    /**
+     * Proxy in front of the target from proxy.* settings, or null when no faults are configured:
+     * proxy.route.&lt;route&gt; and proxy.default take FaultRule specs, e.g.
+     * -Dproxy.route./pet/findByStatus=latency=lognormal:20:250,bandwidth=65536; proxy.port (default 0, a free port),
+     * proxy.threads (default 256) and proxy.seed (default 42).
+     * @return The started proxy, or null
+     */
+    public static FaultInjectionProxy fromConfiguration(String target) throws IOException {
+        Map<String, String> routes = TestConfiguration.getProperties("proxy.route.");
+        String defaultRule = TestConfiguration.getProperty("proxy.default", "");
+        if (routes.isEmpty() && defaultRule.isEmpty()) {
+            return null;
+        }
+        Builder builder = builder(target)
+                .port(Integer.parseInt(TestConfiguration.getProperty("proxy.port", "0")))
+                .threads(Integer.parseInt(TestConfiguration.getProperty("proxy.threads", "256")))
+                .seed(Long.parseLong(TestConfiguration.getProperty("proxy.seed", "42")));
+        if (!defaultRule.isEmpty()) {
+            builder.defaultRule(FaultRule.parse(defaultRule));
+        }
+        for (Map.Entry<String, String> route : routes.entrySet()) {
+            builder.route(route.getKey(), FaultRule.parse(route.getValue()));
+        }
+        FaultInjectionProxy proxy = builder.build();
+        logger.info("Fault injection proxy for " + target + " listening on " + proxy.getBaseUrl() + ", routes " + routes.keySet());
+        return proxy;
+    }
+
+    /**
+     * Run the proxy standalone with the proxy.* settings:
+     * java -Dproxy.route./user/login=error=0.1 com.veeam.proxy.FaultInjectionProxy [target]
+     */
+    public static void main(String[] args) throws IOException {
+        String target = args.length > 0 ? args[0] : TestConfiguration.getBaseUrl();
+        if (fromConfiguration(target) == null) {
+            System.err.println("No faults configured; set proxy.route.<route> or proxy.default, e.g. -Dproxy.default=latency=fixed:50");
+        }
+    }
+
+    /**
+     * @return Root URL to use as api.url instead of the target, e.g. http://127.0.0.1:54321/v2
+     */
+    public String getBaseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + basePath;
+    }
+
+    /**
+     * @return Requests forwarded to the target
+     */
+    public long getForwarded() {
+        return forwarded.sum();
+    }
+
+    /**
+     * @return Requests answered with an injected error status
+     */
+    public long getInjectedErrors() {
+        return injectedErrors.sum();
+    }
+
+    /**
+     * @return Connections closed without a response
+     */
+    public long getResets() {
+        return resets.sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getRawPath().substring(basePath.length());
+            FaultRule rule = ruleFor(method, path);
+            SplittableRandom random = new SplittableRandom(seed + requests.getAndIncrement() * 0x9E3779B97F4A7C15L);
+            double roll = random.nextDouble();
+            byte[] body = readAll(exchange.getRequestBody());
+
+            if (roll < rule.getResetRate()) {
+                resets.increment();
+                return;  // closing an exchange without response headers drops the connection
+            }
+            long delay = rule.getLatency().sampleNanos(random);
+            if (rule.getJitterNanos() > 0) {
+                delay += random.nextLong(-rule.getJitterNanos(), rule.getJitterNanos() + 1);
+            }
+            if (delay > 0) {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            }
+            if (roll < rule.getResetRate() + rule.getErrorRate()) {
+                injectedErrors.increment();
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                String json = "{\"code\":" + rule.getErrorStatus() + ",\"type\":\"fault_injected\",\"message\":\"Injected by FaultInjectionProxy\"}";
+                send(exchange, rule.getErrorStatus(), json.getBytes(StandardCharsets.UTF_8), rule);
+                return;
+            }
+            forward(exchange, method, path, body, rule);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            logger.warning("Proxying " + exchange.getRequestMethod() + " " + exchange.getRequestURI() + " failed: " + e);
+            if (exchange.getResponseCode() == -1) {
+                send(exchange, 502, new byte[0], FaultRule.none());
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void forward(HttpExchange exchange, String method, String path, byte[] body, FaultRule rule)
+            throws IOException, InterruptedException {
+        String query = exchange.getRequestURI().getRawQuery();
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(target + path + (query == null ? "" : "?" + query)))
+                .method(method, body.length == 0 ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofByteArray(body));
+        for (Map.Entry<String, List<String>> header : exchange.getRequestHeaders().entrySet()) {
+            if (!HOP_BY_HOP.contains(header.getKey().toLowerCase(Locale.ROOT))) {
+                for (String value : header.getValue()) {
+                    request.header(header.getKey(), value);
+                }
+            }
+        }
+        HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        forwarded.increment();
+        Headers headers = exchange.getResponseHeaders();
+        for (Map.Entry<String, List<String>> header : response.headers().map().entrySet()) {
+            if (!HOP_BY_HOP.contains(header.getKey().toLowerCase(Locale.ROOT)) && !header.getKey().startsWith(":")) {
+                headers.put(header.getKey(), header.getValue());
+            }
+        }
+        send(exchange, response.statusCode(), response.body(), rule);
+    }
+
+    // Writes the body in slices paced to the rule's bandwidth
+    private static void send(HttpExchange exchange, int status, byte[] body, FaultRule rule) throws IOException {
+        boolean empty = body.length == 0 || "HEAD".equals(exchange.getRequestMethod()) || status == 204 || status == 304;
+        exchange.sendResponseHeaders(status, empty ? -1 : body.length);
+        if (empty) {
+            return;
+        }
+        OutputStream out = exchange.getResponseBody();
+        long bytesPerSecond = rule.getBytesPerSecond();
+        if (bytesPerSecond <= 0) {
+            out.write(body);
+            out.close();
+            return;
+        }
+        int slice = (int) Math.max(1, Math.min(64 * 1024, bytesPerSecond / 50));  // about 20 ms per slice
+        long start = System.nanoTime();
+        for (int offset = 0; offset < body.length; offset += slice) {
+            int length = Math.min(slice, body.length - offset);
+            out.write(body, offset, length);
+            out.flush();
+            long due = start + (offset + length) * 1_000_000_000L / bytesPerSecond;
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while sending", e);
+                }
+            }
+        }
+        out.close();
+    }
+
+    private FaultRule ruleFor(String method, String path) {
+        for (Route route : routes) {
+            if ((route.method == null || route.method.equals(method)) && route.pattern.matcher(path).matches()) {
+                return route.rule;
+            }
+        }
+        return defaultRule;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        try (InputStream body = in) {
+            return body.readAllBytes();
+        }
+    }
+
+    // "[METHOD ]/path/{param}" matching the path and anything below it
+    private static final class Route {
+        final String method;
+        final Pattern pattern;
+        final FaultRule rule;
+        final int specificity;
+
+        Route(String spec, FaultRule rule) {
+            String trimmed = spec.trim();
+            int space = trimmed.indexOf(' ');
+            this.method = space > 0 ? trimmed.substring(0, space).toUpperCase(Locale.ROOT) : null;
+            String path = space > 0 ? trimmed.substring(space + 1).trim() : trimmed;
+            if (!path.startsWith("/")) {
+                path = "/" + path;
+            }
+            StringBuilder regex = new StringBuilder();
+            int literal = 0;
+            for (String part : path.substring(1).split("/", -1)) {
+                regex.append('/');
+                if (part.startsWith("{") && part.endsWith("}")) {
+                    regex.append("[^/]+");
+                } else {
+                    regex.append(Pattern.quote(part));
+                    literal += part.length() + 1;
+                }
+            }
+            regex.append("(/.*)?");
+            this.pattern = Pattern.compile(regex.toString());
+            this.rule = rule;
+            this.specificity = literal * 2 + (method != null ? 1 : 0);
+        }
+    }
+
+    /**
+     * Target, routes and server settings of a proxy.
+     */
+    public static final class Builder {
+        private final String target;
+        private final List<Route> routes = new ArrayList<>();
+        private FaultRule defaultRule = FaultRule.none();
+        private int port;
+        private int threads = 256;
+        private long seed = 42;
+
+        private Builder(String target) {
+            this.target = target;
+        }
+
+        /**
+         * Apply the rule to a route, e.g. "/pet/findByStatus" or "GET /pet/{petId}", relative to the API root.
+         */
+        public Builder route(String route, FaultRule rule) {
+            routes.add(new Route(route, rule));
+            return this;
+        }
+
+        /**
+         * Rule for requests no route matches, FaultRule.none() by default.
+         */
+        public Builder defaultRule(FaultRule defaultRule) {
+            this.defaultRule = defaultRule;
+            return this;
+        }
+
+        /**
+         * Port on the loopback interface, 0 (the default) picks a free one.
+         */
+        public Builder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * Threads serving requests, 256 by default; each one is busy while its request is delayed.
+         */
+        public Builder threads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * Seed of the per-request random draws, 42 by default.
+         */
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Start the proxy.
+         */
+        public FaultInjectionProxy build() throws IOException {
+            return new FaultInjectionProxy(this);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.veeam.proxy;
+
+import java.time.Duration;
+
+/**
+ * Network conditions the FaultInjectionProxy applies to one route. Each request first draws
+ * whether its connection is reset, then whether it gets an injected error, then its latency
+ * (distribution plus uniform jitter); the response body is sent at the bandwidth limit.
+ */
+public final class FaultRule {
+
+    private static final FaultRule NONE = builder().build();
+
+    private final LatencyDistribution latency;
+    private final long jitterNanos;
+    private final long bytesPerSecond;
+    private final double resetRate;
+    private final double errorRate;
+    private final int errorStatus;
+
+    private FaultRule(Builder builder) {
+        this.latency = builder.latency;
+        this.jitterNanos = builder.jitter.toNanos();
+        this.bytesPerSecond = builder.bytesPerSecond;
+        this.resetRate = builder.resetRate;
+        this.errorRate = builder.errorRate;
+        this.errorStatus = builder.errorStatus;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return Rule that forwards requests unchanged
+     */
+    public static FaultRule none() {
+        return NONE;
+    }
+
+    /**
+     * Parse comma-separated settings, e.g. "latency=lognormal:20:250,jitter=5,bandwidth=65536,reset=0.01,error=0.05:503".
+     * latency takes a LatencyDistribution spec in ms, jitter is in ms, bandwidth in bytes/s,
+     * reset and error are rates between 0 and 1, error optionally with the status to answer (default 503).
+     */
+    public static FaultRule parse(String spec) {
+        Builder builder = builder();
+        for (String setting : spec.split(",")) {
+            if (setting.isBlank()) {
+                continue;
+            }
+            int equals = setting.indexOf('=');
+            if (equals < 0) {
+                throw new IllegalArgumentException("Expected key=value in fault rule: " + setting);
+            }
+            String key = setting.substring(0, equals).trim();
+            String value = setting.substring(equals + 1).trim();
+            try {
+                switch (key) {
+                    case "latency":
+                        builder.latency(LatencyDistribution.parse(value));
+                        break;
+                    case "jitter":
+                        builder.jitter(Duration.ofNanos(Math.round(Double.parseDouble(value) * 1_000_000)));
+                        break;
+                    case "bandwidth":
+                        builder.bandwidth(Long.parseLong(value));
+                        break;
+                    case "reset":
+                        builder.resetRate(Double.parseDouble(value));
+                        break;
+                    case "error": {
+                        String[] parts = value.split(":");
+                        builder.errorRate(Double.parseDouble(parts[0]));
+                        if (parts.length > 1) {
+                            builder.errorStatus(Integer.parseInt(parts[1]));
+                        }
+                        break;
+                    }
+                    default:
+                        throw new IllegalArgumentException("Unknown fault setting: " + key);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid fault setting: " + setting, e);
+            }
+        }
+        return builder.build();
+    }
+
+    public LatencyDistribution getLatency() {
+        return latency;
+    }
+
+    public long getJitterNanos() {
+        return jitterNanos;
+    }
+
+    /**
+     * @return Response bandwidth in bytes per second, 0 for unlimited
+     */
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    public double getResetRate() {
+        return resetRate;
+    }
+
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    public int getErrorStatus() {
+        return errorStatus;
+    }
+
+    /**
+     * Settings of one rule, all off by default.
+     */
+    public static final class Builder {
+        private LatencyDistribution latency = LatencyDistribution.none();
+        private Duration jitter = Duration.ZERO;
+        private long bytesPerSecond;
+        private double resetRate;
+        private double errorRate;
+        private int errorStatus = 503;
+
+        private Builder() {
+        }
+
+        /**
+         * Latency added before the request is forwarded.
+         */
+        public Builder latency(LatencyDistribution latency) {
+            this.latency = latency;
+            return this;
+        }
+
+        /**
+         * Uniform random latency between -jitter and +jitter added to the drawn latency (never below 0).
+         */
+        public Builder jitter(Duration jitter) {
+            this.jitter = jitter;
+            return this;
+        }
+
+        /**
+         * Send response bodies at most this fast, 0 (the default) for unlimited.
+         */
+        public Builder bandwidth(long bytesPerSecond) {
+            this.bytesPerSecond = bytesPerSecond;
+            return this;
+        }
+
+        /**
+         * Share of requests whose connection is closed without a response.
+         */
+        public Builder resetRate(double resetRate) {
+            this.resetRate = resetRate;
+            return this;
+        }
+
+        /**
+         * Share of requests answered with errorStatus instead of being forwarded.
+         */
+        public Builder errorRate(double errorRate) {
+            this.errorRate = errorRate;
+            return this;
+        }
+
+        /**
+         * Status of injected errors, 503 by default.
+         */
+        public Builder errorStatus(int errorStatus) {
+            this.errorStatus = errorStatus;
+            return this;
+        }
+
+        public FaultRule build() {
+            if (resetRate < 0 || errorRate < 0 || resetRate + errorRate > 1) {
+                throw new IllegalArgumentException("Reset and error rates must be >= 0 and add up to at most 1");
+            }
+            if (bytesPerSecond < 0 || jitter.isNegative()) {
+                throw new IllegalArgumentException("Bandwidth and jitter must not be negative");
+            }
+            return new FaultRule(this);
+        }
+    }
+}
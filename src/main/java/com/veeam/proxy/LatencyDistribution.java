@@ -0,0 +1,97 @@
+package com.veeam.proxy;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+
+/**
+ * Distribution the FaultInjectionProxy draws the added latency of each request from.
+ * Real services are rarely uniform: logNormal(median, p99) gives the long right tail of a loaded
+ * backend, normal(mean, stddev) a symmetric spread around a network round trip.
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    /**
+     * @param random Source of randomness, seeded per request for reproducible runs
+     * @return Latency to add in nanoseconds, never negative
+     */
+    long sampleNanos(SplittableRandom random);
+
+    static LatencyDistribution none() {
+        return random -> 0;
+    }
+
+    static LatencyDistribution fixed(Duration latency) {
+        long nanos = latency.toNanos();
+        return random -> nanos;
+    }
+
+    /**
+     * Every latency between min and max equally likely.
+     */
+    static LatencyDistribution uniform(Duration min, Duration max) {
+        long low = min.toNanos();
+        long high = max.toNanos();
+        if (high < low) {
+            throw new IllegalArgumentException("max < min");
+        }
+        return random -> low == high ? low : random.nextLong(low, high + 1);
+    }
+
+    /**
+     * Normal distribution cut off at 0.
+     */
+    static LatencyDistribution normal(Duration mean, Duration stddev) {
+        double mu = mean.toNanos();
+        double sigma = stddev.toNanos();
+        return random -> Math.max(0, Math.round(mu + sigma * Sampling.gaussian(random)));
+    }
+
+    /**
+     * Log-normal distribution through the given median and 99th percentile, e.g. 20 ms and 250 ms.
+     */
+    static LatencyDistribution logNormal(Duration median, Duration p99) {
+        if (p99.compareTo(median) < 0 || median.isZero() || median.isNegative()) {
+            throw new IllegalArgumentException("Need 0 < median <= p99");
+        }
+        double mu = Math.log(median.toNanos());
+        double sigma = (Math.log(p99.toNanos()) - mu) / Sampling.Z_P99;
+        return random -> Math.round(Math.exp(mu + sigma * Sampling.gaussian(random)));
+    }
+
+    /**
+     * Exponential distribution with the given mean, e.g. queueing delay.
+     */
+    static LatencyDistribution exponential(Duration mean) {
+        double nanos = mean.toNanos();
+        return random -> Math.round(-nanos * Math.log(1 - random.nextDouble()));
+    }
+
+    /**
+     * Parse a distribution in milliseconds: "fixed:20", "uniform:10:50", "normal:40:10",
+     * "lognormal:20:250" (median, p99), "exponential:30" or "none".
+     */
+    static LatencyDistribution parse(String spec) {
+        String[] parts = spec.trim().split(":");
+        try {
+            switch (parts[0].toLowerCase()) {
+                case "none":
+                    return none();
+                case "fixed":
+                    return fixed(Sampling.millis(parts, 1));
+                case "uniform":
+                    return uniform(Sampling.millis(parts, 1), Sampling.millis(parts, 2));
+                case "normal":
+                    return normal(Sampling.millis(parts, 1), Sampling.millis(parts, 2));
+                case "lognormal":
+                    return logNormal(Sampling.millis(parts, 1), Sampling.millis(parts, 2));
+                case "exponential":
+                    return exponential(Sampling.millis(parts, 1));
+                default:
+                    throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid latency distribution: " + spec, e);
+        }
+    }
+}
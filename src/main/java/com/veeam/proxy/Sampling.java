@@ -0,0 +1,27 @@
+package com.veeam.proxy;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+
+/**
+ * Helpers of the LatencyDistribution factories.
+ */
+final class Sampling {
+
+    // z-score of the 99th percentile of the standard normal distribution
+    static final double Z_P99 = 2.3263478740408408;
+
+    private Sampling() {
+    }
+
+    // Box-Muller; one of the pair is dropped to keep the samplers stateless
+    static double gaussian(SplittableRandom random) {
+        double u = 1 - random.nextDouble();
+        double v = random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * v);
+    }
+
+    static Duration millis(String[] parts, int index) {
+        return Duration.ofNanos(Math.round(Double.parseDouble(parts[index]) * 1_000_000));
+    }
+}
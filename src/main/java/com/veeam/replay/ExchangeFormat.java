@@ -0,0 +1,169 @@
+package com.veeam.replay;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Binary layout of the exchange log, shared by the recorder and the replayer.
+ * <pre>
+ * file:   "PSXL" version:int record*
+ * record: length:int fingerprint:long sentAtMicros:long latencyNanos:long
+ *         method:str uri:str requestHeaders requestBody:bytes
+ *         status:int responseHeaders responseBody:bytes
+ * str:    length:int UTF-8     bytes: length:int raw     headers: count:int (name:str value:str)*
+ * </pre>
+ * length counts the bytes after itself, so a reader can skip records and detect a torn last record.
+ * All numbers are big-endian.
+ */
+final class ExchangeFormat {
+
+    static final int LOG_MAGIC = 0x5053584C;    // "PSXL"
+    static final int INDEX_MAGIC = 0x50535849;  // "PSXI"
+    static final int VERSION = 1;
+    static final int LOG_HEADER = 8;
+    static final int INDEX_HEADER = 20;          // magic, version, indexed log length, count
+    static final int INDEX_ENTRY = 16;           // fingerprint, record offset
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private ExchangeFormat() {
+    }
+
+    /**
+     * Identity of a request for replay: method, URI and body, except for multipart bodies whose
+     * boundaries are random per request.
+     */
+    static long fingerprint(String method, String uri, byte[] body) {
+        long hash = FNV_OFFSET;
+        hash = fnv(hash, method.getBytes(StandardCharsets.UTF_8));
+        hash = (hash ^ ' ') * FNV_PRIME;
+        hash = fnv(hash, uri.getBytes(StandardCharsets.UTF_8));
+        hash = (hash ^ '\n') * FNV_PRIME;
+        return fnv(hash, body);
+    }
+
+    private static long fnv(long hash, byte[] bytes) {
+        for (byte b : bytes) {
+            hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Read the body of a request by subscribing to its publisher once more. The publishers the API
+     * classes use (byte array, JsonArrayPublisher) can be subscribed repeatedly. Multipart bodies are
+     * not read: they are large and not comparable between runs.
+     * @return The body bytes, empty for requests without a body
+     */
+    static byte[] body(HttpRequest request) throws IOException {
+        if (!request.bodyPublisher().isPresent()
+                || request.headers().firstValue("Content-Type").orElse("").startsWith("multipart/")) {
+            return new byte[0];
+        }
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        request.bodyPublisher().get().subscribe(new Flow.Subscriber<ByteBuffer>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                byte[] chunk = new byte[item.remaining()];
+                item.get(chunk);
+                out.write(chunk, 0, chunk.length);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                result.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                result.complete(out.toByteArray());
+            }
+        });
+        try {
+            return result.get(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading the request body", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IOException("Could not read the request body of " + request.uri(), e);
+        }
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    static void writeHeaders(DataOutputStream out, HttpHeaders headers) throws IOException {
+        List<String[]> pairs = new ArrayList<>();
+        if (headers != null) {
+            for (Map.Entry<String, List<String>> header : headers.map().entrySet()) {
+                for (String value : header.getValue()) {
+                    pairs.add(new String[]{header.getKey(), value});
+                }
+            }
+        }
+        out.writeInt(pairs.size());
+        for (String[] pair : pairs) {
+            writeString(out, pair[0]);
+            writeString(out, pair[1]);
+        }
+    }
+
+    static String readString(ByteBuffer in) {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    static byte[] readBytes(ByteBuffer in) {
+        byte[] value = new byte[in.getInt()];
+        in.get(value);
+        return value;
+    }
+
+    static void skipBytes(ByteBuffer in) {
+        int length = in.getInt();
+        in.position(in.position() + length);
+    }
+
+    static void skipHeaders(ByteBuffer in) {
+        int count = in.getInt();
+        for (int i = 0; i < count * 2; i++) {
+            skipBytes(in);
+        }
+    }
+
+    static HttpHeaders readHeaders(ByteBuffer in) {
+        int count = in.getInt();
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            String name = readString(in);
+            headers.computeIfAbsent(name, key -> new ArrayList<>()).add(readString(in));
+        }
+        return HttpHeaders.of(headers, (name, value) -> true);
+    }
+}
@@ -0,0 +1,144 @@
+package com.veeam.replay;
+
+import com.veeam.config.TestConfiguration;
+import com.veeam.utils.ApiResponse;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Appends every exchange sent through the transport to a binary log (see ExchangeFormat) that
+ * ExchangeReplayer can serve later without a network. Records are encoded on the calling thread
+ * and appended under a lock through a buffer, so the file only grows at the end; an existing
+ * capture is extended, not replaced.
+ */
+public final class ExchangeRecorder implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(ExchangeRecorder.class.getName());
+
+    private final Path file;
+    private final OutputStream out;
+    private final LongAdder recorded = new LongAdder();
+    private boolean closed;
+
+    /**
+     * @param file Log to append to, created with its header if it does not exist
+     */
+    public ExchangeRecorder(Path file) throws IOException {
+        this.file = file;
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        boolean fresh = !Files.exists(file) || Files.size(file) == 0;
+        this.out = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024);
+        if (fresh) {
+            DataOutputStream header = new DataOutputStream(out);
+            header.writeInt(ExchangeFormat.LOG_MAGIC);
+            header.writeInt(ExchangeFormat.VERSION);
+        }
+    }
+
+    /**
+     * Recorder for http.mode=record, appending to http.replay.file (default target/petstore-exchanges.bin).
+     * The log is flushed when the JVM exits.
+     * @return The recorder, or null in any other mode
+     */
+    public static ExchangeRecorder fromConfiguration() {
+        if (!"record".equals(TestConfiguration.getHttpMode())) {
+            return null;
+        }
+        Path file = Paths.get(TestConfiguration.getReplayFile());
+        try {
+            ExchangeRecorder recorder = new ExchangeRecorder(file);
+            Runtime.getRuntime().addShutdownHook(new Thread(recorder::close, "petstore-exchange-recorder-close"));
+            logger.info("Recording HTTP exchanges to " + file.toAbsolutePath());
+            return recorder;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot record to " + file, e);
+        }
+    }
+
+    /**
+     * Append one exchange.
+     * @param request The request as sent
+     * @param response Its response
+     * @param sentAtMicros Epoch microseconds when the request was sent
+     */
+    public void record(HttpRequest request, ApiResponse response, long sentAtMicros) throws IOException {
+        String method = request.method();
+        String uri = request.uri().toString();
+        byte[] requestBody = ExchangeFormat.body(request);
+        byte[] responseBody = response.getBodyBytes();
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256 + requestBody.length + responseBody.length);
+        DataOutputStream record = new DataOutputStream(buffer);
+        record.writeInt(0);  // length, patched below
+        record.writeLong(ExchangeFormat.fingerprint(method, uri, requestBody));
+        record.writeLong(sentAtMicros);
+        record.writeLong(response.getElapsed() == null ? 0 : response.getElapsed().toNanos());
+        ExchangeFormat.writeString(record, method);
+        ExchangeFormat.writeString(record, uri);
+        ExchangeFormat.writeHeaders(record, request.headers());
+        ExchangeFormat.writeBytes(record, requestBody);
+        record.writeInt(response.getStatusCode());
+        ExchangeFormat.writeHeaders(record, response.getHeaders());
+        ExchangeFormat.writeBytes(record, responseBody);
+        byte[] bytes = buffer.toByteArray();
+        int length = bytes.length - 4;
+        bytes[0] = (byte) (length >>> 24);
+        bytes[1] = (byte) (length >>> 16);
+        bytes[2] = (byte) (length >>> 8);
+        bytes[3] = (byte) length;
+
+        synchronized (this) {
+            if (closed) {
+                throw new IOException("Recorder closed: " + file);
+            }
+            out.write(bytes);
+        }
+        recorded.increment();
+    }
+
+    /**
+     * @return Exchanges appended by this recorder
+     */
+    public long getRecorded() {
+        return recorded.sum();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Write buffered records to the file.
+     */
+    public synchronized void flush() throws IOException {
+        if (!closed) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            out.close();
+        } catch (IOException e) {
+            logger.warning("Could not close exchange log " + file + ": " + e);
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.veeam.replay;
+
+import com.veeam.config.TestConfiguration;
+import com.veeam.utils.ApiResponse;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Serves responses from a log written by ExchangeRecorder instead of sending requests.
+ * The log and an index next to it (file + ".idx", rebuilt when the log has changed) are memory-mapped.
+ * The index holds (fingerprint, record offset) pairs sorted by fingerprint, so a lookup is a binary
+ * search over the mapped file and reads only the one record it answers with.
+ * A request that was recorded several times, e.g. GET /pet/1 before and after an update, gets the
+ * recorded responses in their original order; after the last one it keeps getting the last.
+ * With a speed above 0 each response is delayed by its recorded latency divided by the speed.
+ */
+public final class ExchangeReplayer {
+
+    private static final Logger logger = Logger.getLogger(ExchangeReplayer.class.getName());
+
+    private final Path file;
+    private final ByteBuffer log;
+    private final ByteBuffer index;
+    private final int count;
+    private final double speed;
+    private final ConcurrentHashMap<Long, AtomicInteger> served = new ConcurrentHashMap<>();
+    private final LongAdder misses = new LongAdder();
+
+    private ExchangeReplayer(Path file, ByteBuffer log, ByteBuffer index, double speed) {
+        this.file = file;
+        this.log = log;
+        this.index = index;
+        this.count = index.getInt(16);
+        this.speed = speed;
+    }
+
+    /**
+     * Map a recorded log for replay, building its index first if it is missing or stale.
+     * @param file Log written by ExchangeRecorder
+     * @param speed 0 answers at once; 1 reproduces the recorded latencies, 2 halves them
+     */
+    public static ExchangeReplayer open(Path file, double speed) throws IOException {
+        ByteBuffer log = map(file);
+        if (log.remaining() < ExchangeFormat.LOG_HEADER || log.getInt(0) != ExchangeFormat.LOG_MAGIC) {
+            throw new IOException("Not an exchange log: " + file);
+        }
+        if (log.getInt(4) != ExchangeFormat.VERSION) {
+            throw new IOException("Unsupported exchange log version " + log.getInt(4) + ": " + file);
+        }
+        Path indexFile = file.resolveSibling(file.getFileName() + ".idx");
+        ByteBuffer index = Files.exists(indexFile) ? map(indexFile) : null;
+        if (index == null || index.remaining() < ExchangeFormat.INDEX_HEADER || index.getInt(0) != ExchangeFormat.INDEX_MAGIC
+                || index.getLong(8) != log.capacity()) {
+            writeIndex(log, indexFile);
+            index = map(indexFile);
+        }
+        return new ExchangeReplayer(file, log, index, speed);
+    }
+
+    /**
+     * Replayer for http.mode=replay over http.replay.file, at http.replay.speed (default 0).
+     * @return The replayer, or null in any other mode
+     */
+    public static ExchangeReplayer fromConfiguration() {
+        if (!"replay".equals(TestConfiguration.getHttpMode())) {
+            return null;
+        }
+        Path file = Paths.get(TestConfiguration.getReplayFile());
+        try {
+            ExchangeReplayer replayer = open(file, TestConfiguration.getReplaySpeed());
+            logger.info("Replaying " + replayer.size() + " HTTP exchanges from " + file.toAbsolutePath());
+            return replayer;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot replay " + file, e);
+        }
+    }
+
+    /**
+     * @return Number of recorded exchanges
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return Requests that had no recorded exchange
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Answer a request from the log, waiting out its latency on the calling thread when speed is above 0.
+     * @throws IOException When the request was never recorded
+     */
+    public ApiResponse respond(HttpRequest request) throws IOException, InterruptedException {
+        Replayed replayed = lookup(request);
+        if (replayed.delayNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(replayed.delayNanos);
+        }
+        return replayed.response;
+    }
+
+    /**
+     * Non-blocking variant of respond; the delay runs on a timer instead of a thread.
+     * @return Future completed with the response, or exceptionally when the request was never recorded
+     */
+    public CompletableFuture<ApiResponse> respondAsync(HttpRequest request) {
+        Replayed replayed;
+        try {
+            replayed = lookup(request);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (replayed.delayNanos <= 0) {
+            return CompletableFuture.completedFuture(replayed.response);
+        }
+        return CompletableFuture.supplyAsync(() -> replayed.response,
+                CompletableFuture.delayedExecutor(replayed.delayNanos, TimeUnit.NANOSECONDS));
+    }
+
+    private Replayed lookup(HttpRequest request) throws IOException {
+        String uri = request.uri().toString();
+        long fingerprint = ExchangeFormat.fingerprint(request.method(), uri, ExchangeFormat.body(request));
+        int first = firstEntry(fingerprint);
+        if (first < 0) {
+            misses.increment();
+            throw new IOException("No recorded exchange for " + request.method() + " " + uri + " in " + file);
+        }
+        int last = first;
+        while (last + 1 < count && fingerprintAt(last + 1) == fingerprint) {
+            last++;
+        }
+        int occurrence = served.computeIfAbsent(fingerprint, key -> new AtomicInteger()).getAndIncrement();
+        long offset = index.getLong(ExchangeFormat.INDEX_HEADER + Math.min(first + occurrence, last) * ExchangeFormat.INDEX_ENTRY + 8);
+        return read((int) offset);
+    }
+
+    private Replayed read(int offset) {
+        ByteBuffer in = log.duplicate();
+        in.position(offset + 4 + 8 + 8);  // length, fingerprint, sent at
+        long latencyNanos = in.getLong();
+        ExchangeFormat.skipBytes(in);    // method
+        ExchangeFormat.skipBytes(in);    // uri
+        ExchangeFormat.skipHeaders(in);
+        ExchangeFormat.skipBytes(in);    // request body
+        int status = in.getInt();
+        HttpHeaders headers = ExchangeFormat.readHeaders(in);
+        byte[] body = ExchangeFormat.readBytes(in);
+        long delay = speed > 0 ? (long) (latencyNanos / speed) : 0;
+        return new Replayed(new ApiResponse(status, body, headers, Duration.ofNanos(latencyNanos)), delay);
+    }
+
+    // Leftmost entry with the fingerprint, or -1
+    private int firstEntry(long fingerprint) {
+        int low = 0;
+        int high = count - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long value = fingerprintAt(mid);
+            if (value < fingerprint) {
+                low = mid + 1;
+            } else {
+                if (value == fingerprint) {
+                    found = mid;
+                }
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private long fingerprintAt(int entry) {
+        return index.getLong(ExchangeFormat.INDEX_HEADER + entry * ExchangeFormat.INDEX_ENTRY);
+    }
+
+    // The mapping stays valid after the channel is closed
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Exchange logs above 2 GB must be split: " + file);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    // Scans the log once and writes the sorted (fingerprint, offset) pairs; a torn last record is ignored
+    private static void writeIndex(ByteBuffer log, Path indexFile) throws IOException {
+        long[] fingerprints = new long[1024];
+        long[] offsets = new long[1024];
+        int size = 0;
+        int position = ExchangeFormat.LOG_HEADER;
+        int end = log.capacity();
+        while (position + 12 <= end) {
+            int length = log.getInt(position);
+            if (length < 8 || position + 4L + length > end) {
+                break;
+            }
+            if (size == fingerprints.length) {
+                fingerprints = Arrays.copyOf(fingerprints, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            fingerprints[size] = log.getLong(position + 4);
+            offsets[size] = position;
+            size++;
+            position += 4 + length;
+        }
+        sort(fingerprints, offsets, 0, size - 1);
+
+        Path temporary = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 64 * 1024))) {
+            out.writeInt(ExchangeFormat.INDEX_MAGIC);
+            out.writeInt(ExchangeFormat.VERSION);
+            out.writeLong(end);
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeLong(fingerprints[i]);
+                out.writeLong(offsets[i]);
+            }
+        }
+        Files.move(temporary, indexFile, StandardCopyOption.REPLACE_EXISTING);
+        logger.info("Indexed " + size + " exchanges into " + indexFile);
+    }
+
+    // Quicksort of the parallel arrays by (fingerprint, offset); offsets are unique, so the order is total
+    private static void sort(long[] keys, long[] values, int low, int high) {
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            long pivotKey = keys[mid];
+            long pivotValue = values[mid];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (compare(keys[i], values[i], pivotKey, pivotValue) < 0) {
+                    i++;
+                }
+                while (compare(keys[j], values[j], pivotKey, pivotValue) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    long key = keys[i];
+                    keys[i] = keys[j];
+                    keys[j] = key;
+                    long value = values[i];
+                    values[i] = values[j];
+                    values[j] = value;
+                    i++;
+                    j--;
+                }
+            }
+            // Recurse into the smaller part, loop on the larger, so the stack stays O(log n)
+            if (j - low < high - i) {
+                sort(keys, values, low, j);
+                low = i;
+            } else {
+                sort(keys, values, i, high);
+                high = j;
+            }
+        }
+    }
+
+    private static int compare(long key, long value, long otherKey, long otherValue) {
+        int byKey = Long.compare(key, otherKey);
+        return byKey != 0 ? byKey : Long.compare(value, otherValue);
+    }
+
+    private static final class Replayed {
+        final ApiResponse response;
+        final long delayNanos;
+
+        Replayed(ApiResponse response, long delayNanos) {
+            this.response = response;
+            this.delayNanos = delayNanos;
+        }
+    }
+}
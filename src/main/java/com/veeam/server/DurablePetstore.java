@@ -0,0 +1,498 @@
+package com.veeam.server;
+
+import com.veeam.dto.Pet;
+import com.veeam.dto.Store;
+import com.veeam.dto.User;
+import com.veeam.json.GeneratedCodec;
+import com.veeam.json.JsonAdapter;
+import com.veeam.json.JsonReader;
+import com.veeam.json.JsonWriter;
+import com.veeam.json.Utf8Buffer;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * InMemoryPetstore that survives restarts, for soak tests against PetstoreServer.
+ * Every mutation is applied in memory and appended to a write-ahead log (WriteAheadLog) before the
+ * call returns; how durable it is by then depends on the SyncPolicy. Snapshots write the live pets,
+ * orders and users into one compacted file and drop the log segments they cover. Opening a directory
+ * memory-maps the newest snapshot and replays the log segments written after it.
+ * Mutations of the same key are logged in the order they were applied (striped locks), so replaying
+ * the log always ends in the state the store had.
+ */
+public final class DurablePetstore extends InMemoryPetstore implements AutoCloseable {
+
+    /**
+     * When appended mutations are forced to disk.
+     */
+    public enum SyncPolicy {
+        /** fsync after every mutation, one at a time */
+        ALWAYS,
+        /** fsync before the mutation returns; concurrent mutations share one fsync (group commit) */
+        GROUP,
+        /** Write every mutation to the OS, fsync every syncInterval; a power loss can lose that interval */
+        INTERVAL,
+        /** Write every mutation to the OS and never fsync; survives a crash of the process, not of the machine */
+        NONE
+    }
+
+    static final byte PUT_PET = 1;
+    static final byte DELETE_PET = 2;
+    static final byte PUT_ORDER = 3;
+    static final byte DELETE_ORDER = 4;
+    static final byte PUT_USER = 5;
+    static final byte DELETE_USER = 6;
+    static final byte CLEAR = 7;
+    static final byte END = 8;
+
+    private static final Logger logger = Logger.getLogger(DurablePetstore.class.getName());
+    private static final int SNAPSHOT_MAGIC = 0x5053534E;  // "PSSN"
+    private static final int STRIPES = 64;
+
+    private final Path directory;
+    private final WriteAheadLog log;
+    private final Object[] stripes = new Object[STRIPES];
+    private final Object snapshotLock = new Object();
+    private final ScheduledExecutorService snapshotter;
+    private final JsonAdapter<Pet> petAdapter = GeneratedCodec.adapter(Pet.class);
+    private final JsonAdapter<Store> orderAdapter = GeneratedCodec.adapter(Store.class);
+    private final JsonAdapter<User> userAdapter = GeneratedCodec.adapter(User.class);
+    private final long recovered;
+
+    private DurablePetstore(Builder builder) throws IOException {
+        this.directory = builder.directory;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+        Files.createDirectories(directory);
+        long start = System.nanoTime();
+        long covered = loadSnapshot();
+        long records = 0;
+        long lastSegment = covered;
+        for (long segment : segments()) {
+            if (segment > covered) {
+                records += replay(WriteAheadLog.segmentFile(directory, segment));
+            }
+            lastSegment = Math.max(lastSegment, segment);
+        }
+        this.recovered = records;
+        logger.info(String.format("Recovered %d pets, %d orders, %d users from %s in %d ms (%d log records)",
+                getPetCount(), getOrderCount(), getUserCount(), directory, (System.nanoTime() - start) / 1_000_000, records));
+        this.log = new WriteAheadLog(directory, lastSegment, builder.syncPolicy, builder.syncInterval);
+
+        if (builder.snapshotInterval != null) {
+            this.snapshotter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "petstore-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = builder.snapshotInterval.toMillis();
+            snapshotter.scheduleWithFixedDelay(this::snapshotQuietly, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            this.snapshotter = null;
+        }
+    }
+
+    /**
+     * @param directory Where the log segments and snapshots are kept, created if missing
+     */
+    public static Builder builder(Path directory) {
+        return new Builder(directory);
+    }
+
+    /**
+     * Open a directory with group commit and a snapshot every 5 minutes.
+     */
+    public static DurablePetstore open(Path directory) throws IOException {
+        return builder(directory).build();
+    }
+
+    @Override
+    public Pet savePet(Pet pet) {
+        Pet saved;
+        long sequence;
+        // The id picks the stripe, so it must be known first; otherwise every new pet would share stripe 0
+        // and an update or delete of its id, under another stripe, could be logged before the create
+        assignPetId(pet);
+        synchronized (stripe(pet.getId())) {
+            saved = super.savePet(pet);
+            sequence = log.append(PUT_PET, encode(petAdapter, saved));
+        }
+        log.await(sequence);
+        return saved;
+    }
+
+    @Override
+    public Pet updatePet(long id, String name, String status) {
+        Pet updated;
+        long sequence;
+        synchronized (stripe(id)) {
+            updated = super.updatePet(id, name, status);
+            if (updated == null) {
+                return null;
+            }
+            sequence = log.append(PUT_PET, encode(petAdapter, updated));
+        }
+        log.await(sequence);
+        return updated;
+    }
+
+    @Override
+    public Pet deletePet(long id) {
+        Pet removed;
+        long sequence;
+        synchronized (stripe(id)) {
+            removed = super.deletePet(id);
+            if (removed == null) {
+                return null;
+            }
+            sequence = log.append(DELETE_PET, ByteBuffer.allocate(8).putLong(id).array());
+        }
+        log.await(sequence);
+        return removed;
+    }
+
+    @Override
+    public Store placeOrder(Store order) {
+        Store placed;
+        long sequence;
+        assignOrderId(order);
+        synchronized (stripe(order.getId())) {
+            placed = super.placeOrder(order);
+            sequence = log.append(PUT_ORDER, encode(orderAdapter, placed));
+        }
+        log.await(sequence);
+        return placed;
+    }
+
+    @Override
+    public Store deleteOrder(long id) {
+        Store removed;
+        long sequence;
+        synchronized (stripe(id)) {
+            removed = super.deleteOrder(id);
+            if (removed == null) {
+                return null;
+            }
+            sequence = log.append(DELETE_ORDER, ByteBuffer.allocate(8).putLong(id).array());
+        }
+        log.await(sequence);
+        return removed;
+    }
+
+    @Override
+    public User saveUser(User user) {
+        long sequence;
+        synchronized (stripe(user.getUsername().hashCode())) {
+            super.saveUser(user);
+            sequence = log.append(PUT_USER, encode(userAdapter, user));
+        }
+        log.await(sequence);
+        return user;
+    }
+
+    @Override
+    public User deleteUser(String username) {
+        User removed;
+        long sequence;
+        synchronized (stripe(username.hashCode())) {
+            removed = super.deleteUser(username);
+            if (removed == null) {
+                return null;
+            }
+            sequence = log.append(DELETE_USER, username.getBytes(StandardCharsets.UTF_8));
+        }
+        log.await(sequence);
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        log.await(clearHoldingStripes(0));
+    }
+
+    // Takes every stripe in ascending order, so no mutation is applied before the clear but logged after it
+    private long clearHoldingStripes(int stripe) {
+        if (stripe == STRIPES) {
+            super.clear();
+            return log.append(CLEAR, new byte[0]);
+        }
+        synchronized (stripes[stripe]) {
+            return clearHoldingStripes(stripe + 1);
+        }
+    }
+
+    /**
+     * Write the current state into a new snapshot and delete the log segments and older snapshots it replaces.
+     * Mutations continue meanwhile; they go to a new log segment, which is replayed on top of the snapshot.
+     * @return The snapshot file
+     */
+    public Path snapshot() throws IOException {
+        synchronized (snapshotLock) {
+            long start = System.nanoTime();
+            long covered = log.rotate();
+            Path file = snapshotFile(covered);
+            Path temporary = directory.resolve(file.getFileName() + ".tmp");
+            long[] count = new long[1];
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 256 * 1024))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(WriteAheadLog.VERSION);
+                out.writeLong(covered);
+                try {
+                    forEachPet(pet -> writeRecord(out, PUT_PET, encode(petAdapter, pet), count));
+                    forEachOrder(order -> writeRecord(out, PUT_ORDER, encode(orderAdapter, order), count));
+                    forEachUser(user -> writeRecord(out, PUT_USER, encode(userAdapter, user), count));
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                writeRecord(out, END, ByteBuffer.allocate(8).putLong(count[0]).array(), new long[1]);
+            }
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            for (long segment : segments()) {
+                if (segment <= covered) {
+                    Files.deleteIfExists(WriteAheadLog.segmentFile(directory, segment));
+                }
+            }
+            for (long older : snapshots()) {
+                if (older < covered) {
+                    Files.deleteIfExists(snapshotFile(older));
+                }
+            }
+            logger.info(String.format("Snapshot of %d entities written to %s in %d ms",
+                    count[0], file, (System.nanoTime() - start) / 1_000_000));
+            return file;
+        }
+    }
+
+    /**
+     * @return Log records replayed on top of the snapshot when the store was opened
+     */
+    public long getRecoveredRecords() {
+        return recovered;
+    }
+
+    /**
+     * @return fsyncs of the write-ahead log since the store was opened
+     */
+    public long getSyncs() {
+        return log.getSyncs();
+    }
+
+    /**
+     * @return Bytes appended to the write-ahead log since the store was opened
+     */
+    public long getLogBytes() {
+        return log.getBytesWritten();
+    }
+
+    /**
+     * Stop the snapshot timer and flush and close the log. Mutations after close fail.
+     */
+    @Override
+    public void close() throws IOException {
+        if (snapshotter != null) {
+            snapshotter.shutdownNow();
+        }
+        synchronized (snapshotLock) {
+            log.close();
+        }
+    }
+
+    private Object stripe(long key) {
+        return stripes[(int) ((key ^ (key >>> 32)) & (STRIPES - 1))];
+    }
+
+    private static <T> byte[] encode(JsonAdapter<T> adapter, T value) {
+        Utf8Buffer buffer = Utf8Buffer.scratch();
+        adapter.write(new JsonWriter(buffer), value);
+        return buffer.toByteArray();
+    }
+
+    private static <T> T decode(JsonAdapter<T> adapter, byte[] payload) {
+        return adapter.read(new JsonReader(new String(payload, StandardCharsets.UTF_8)));
+    }
+
+    private static void writeRecord(DataOutputStream out, byte type, byte[] payload, long[] count) {
+        try {
+            out.writeInt(payload.length);
+            out.writeInt(WriteAheadLog.crc(type, payload, 0, payload.length));
+            out.writeByte(type);
+            out.write(payload);
+            count[0]++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Applies a recovered record to the in-memory maps only, without logging it again
+    private void apply(byte type, byte[] payload) {
+        switch (type) {
+            case PUT_PET: {
+                Pet pet = super.savePet(decode(petAdapter, payload));
+                reserveIds(pet.getId(), 0);
+                break;
+            }
+            case DELETE_PET:
+                super.deletePet(ByteBuffer.wrap(payload).getLong());
+                break;
+            case PUT_ORDER: {
+                Store order = super.placeOrder(decode(orderAdapter, payload));
+                reserveIds(0, order.getId());
+                break;
+            }
+            case DELETE_ORDER:
+                super.deleteOrder(ByteBuffer.wrap(payload).getLong());
+                break;
+            case PUT_USER:
+                super.saveUser(decode(userAdapter, payload));
+                break;
+            case DELETE_USER:
+                super.deleteUser(new String(payload, StandardCharsets.UTF_8));
+                break;
+            case CLEAR:
+                super.clear();
+                break;
+            default:
+                throw new IllegalStateException("Unknown record type " + type);
+        }
+    }
+
+    // Loads the newest complete snapshot; returns the last log segment it covers, 0 without snapshot
+    private long loadSnapshot() throws IOException {
+        List<Long> candidates = snapshots();
+        Collections.reverse(candidates);
+        for (long covered : candidates) {
+            Path file = snapshotFile(covered);
+            ByteBuffer mapped = WriteAheadLog.map(file);
+            if (mapped.limit() < 16 || mapped.getInt(0) != SNAPSHOT_MAGIC || mapped.getInt(4) != WriteAheadLog.VERSION) {
+                logger.warning("Skipping unreadable snapshot " + file);
+                continue;
+            }
+            boolean[] complete = new boolean[1];
+            WriteAheadLog.read(mapped, 16, (type, payload) -> {
+                if (type == END) {
+                    complete[0] = true;
+                } else {
+                    apply(type, payload);
+                }
+            });
+            if (complete[0]) {
+                return covered;
+            }
+            logger.warning("Skipping incomplete snapshot " + file);
+            super.clear();
+        }
+        return 0;
+    }
+
+    private long replay(Path segment) throws IOException {
+        ByteBuffer mapped = WriteAheadLog.map(segment);
+        if (mapped.limit() < WriteAheadLog.HEADER || mapped.getInt(0) != WriteAheadLog.SEGMENT_MAGIC) {
+            logger.warning("Skipping unreadable log segment " + segment);
+            return 0;
+        }
+        return WriteAheadLog.read(mapped, WriteAheadLog.HEADER, this::apply);
+    }
+
+    private Path snapshotFile(long covered) {
+        return directory.resolve(String.format("snapshot-%016d.snap", covered));
+    }
+
+    private List<Long> segments() throws IOException {
+        return numbered("wal-", ".log");
+    }
+
+    private List<Long> snapshots() throws IOException {
+        return numbered("snapshot-", ".snap");
+    }
+
+    // Sorted numbers of the files named prefix + number + suffix
+    private List<Long> numbered(String prefix, String suffix) throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    numbers.add(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())));
+                } catch (NumberFormatException e) {
+                    logger.warning("Ignoring " + file);
+                }
+            }
+        }
+        Collections.sort(numbers);
+        return numbers;
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            logger.warning("Snapshot failed: " + e);
+        }
+    }
+
+    /**
+     * Durability settings of a DurablePetstore.
+     */
+    public static final class Builder {
+        private final Path directory;
+        private SyncPolicy syncPolicy = SyncPolicy.GROUP;
+        private Duration syncInterval = Duration.ofMillis(100);
+        private Duration snapshotInterval = Duration.ofMinutes(5);
+
+        private Builder(Path directory) {
+            this.directory = directory;
+        }
+
+        /**
+         * When mutations are forced to disk, GROUP by default.
+         */
+        public Builder syncPolicy(SyncPolicy syncPolicy) {
+            this.syncPolicy = syncPolicy;
+            return this;
+        }
+
+        /**
+         * Time between fsyncs with SyncPolicy.INTERVAL, 100 ms by default.
+         */
+        public Builder syncInterval(Duration syncInterval) {
+            this.syncInterval = syncInterval;
+            return this;
+        }
+
+        /**
+         * Time between automatic snapshots, 5 minutes by default, or null to only snapshot on request.
+         */
+        public Builder snapshotInterval(Duration snapshotInterval) {
+            this.snapshotInterval = snapshotInterval;
+            return this;
+        }
+
+        public DurablePetstore build() throws IOException {
+            return new DurablePetstore(this);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.veeam.server;
+
+import com.veeam.dto.Pet;
+import com.veeam.dto.Store;
+import com.veeam.dto.User;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Thread-safe in-memory data behind PetstoreServer.
+ * Pets are also indexed by status, so findByStatus and the inventory never scan all pets.
+ * The index is updated inside the per-key compute of the pet map, so it always matches the stored pets.
+ */
+public class InMemoryPetstore {
+
+    private final ConcurrentHashMap<Long, Pet> pets = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<Long>> petsByStatus = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Store> orders = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, User> users = new ConcurrentHashMap<>();
+    private final AtomicLong petIds = new AtomicLong(1_000_000);
+    private final AtomicLong orderIds = new AtomicLong(1_000_000);
+
+    /**
+     * Create or replace a pet, like PUT /pet on the real Petstore. A pet without id gets one assigned,
+     * above every id saved so far.
+     */
+    public Pet savePet(Pet pet) {
+        assignPetId(pet);
+        pets.compute(pet.getId(), (id, previous) -> {
+            if (previous != null) {
+                unindex(id, previous.getStatus());
+            }
+            index(id, pet.getStatus());
+            return pet;
+        });
+        return pet;
+    }
+
+    /**
+     * Give a pet without id the next free one, or keep later ids above the pet's own.
+     * Calling it again for the same pet changes nothing.
+     */
+    void assignPetId(Pet pet) {
+        if (pet.getId() <= 0) {
+            pet.setId(petIds.incrementAndGet());
+        } else {
+            petIds.accumulateAndGet(pet.getId(), Math::max);
+        }
+    }
+
+    public Pet getPet(long id) {
+        return pets.get(id);
+    }
+
+    /**
+     * Update name and/or status of an existing pet (form update).
+     * @return The updated pet, or null if it does not exist
+     */
+    public Pet updatePet(long id, String name, String status) {
+        return pets.computeIfPresent(id, (key, previous) -> {
+            Pet updated = copy(previous);
+            if (name != null) {
+                updated.setName(name);
+            }
+            if (status != null) {
+                updated.setStatus(status);
+                unindex(key, previous.getStatus());
+                index(key, status);
+            }
+            return updated;
+        });
+    }
+
+    public Pet deletePet(long id) {
+        Pet[] removed = new Pet[1];
+        pets.computeIfPresent(id, (key, previous) -> {
+            unindex(key, previous.getStatus());
+            removed[0] = previous;
+            return null;
+        });
+        return removed[0];
+    }
+
+    /**
+     * Visit the pets with the given status through the status index.
+     * @return Number of pets visited
+     */
+    public int forEachPetWithStatus(String status, Consumer<Pet> action) {
+        Set<Long> ids = petsByStatus.get(status);
+        if (ids == null) {
+            return 0;
+        }
+        int count = 0;
+        for (Long id : ids) {
+            Pet pet = pets.get(id);
+            if (pet != null && status.equals(pet.getStatus())) {  // skip a pet whose status is changing right now
+                action.accept(pet);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public List<Pet> findPetsByStatus(String status) {
+        List<Pet> found = new ArrayList<>();
+        forEachPetWithStatus(status, found::add);
+        return found;
+    }
+
+    /**
+     * @return Pet count per status, read from the index sizes; pets without status are not listed
+     */
+    public Map<String, Integer> getInventory() {
+        Map<String, Integer> inventory = new LinkedHashMap<>();
+        for (Map.Entry<String, Set<Long>> entry : petsByStatus.entrySet()) {
+            int size = entry.getValue().size();
+            if (size > 0 && !entry.getKey().isEmpty()) {
+                inventory.put(entry.getKey(), size);
+            }
+        }
+        return inventory;
+    }
+
+    public int getPetCount() {
+        return pets.size();
+    }
+
+    /**
+     * Store an order, assigning an id above every id placed so far when it has none.
+     */
+    public Store placeOrder(Store order) {
+        assignOrderId(order);
+        orders.put(order.getId(), order);
+        return order;
+    }
+
+    /**
+     * Give an order without id the next free one, or keep later ids above the order's own.
+     */
+    void assignOrderId(Store order) {
+        if (order.getId() <= 0) {
+            order.setId(orderIds.incrementAndGet());
+        } else {
+            orderIds.accumulateAndGet(order.getId(), Math::max);
+        }
+    }
+
+    public Store getOrder(long id) {
+        return orders.get(id);
+    }
+
+    public Store deleteOrder(long id) {
+        return orders.remove(id);
+    }
+
+    public User saveUser(User user) {
+        users.put(user.getUsername(), user);
+        return user;
+    }
+
+    public User getUser(String username) {
+        return users.get(username);
+    }
+
+    public User deleteUser(String username) {
+        return users.remove(username);
+    }
+
+    /**
+     * Remove everything, e.g. between benchmark iterations.
+     */
+    public void clear() {
+        pets.clear();
+        petsByStatus.clear();
+        orders.clear();
+        users.clear();
+    }
+
+    // Visitors and id reservation for DurablePetstore's snapshots and recovery
+
+    void forEachPet(Consumer<Pet> action) {
+        pets.values().forEach(action);
+    }
+
+    void forEachOrder(Consumer<Store> action) {
+        orders.values().forEach(action);
+    }
+
+    void forEachUser(Consumer<User> action) {
+        users.values().forEach(action);
+    }
+
+    int getOrderCount() {
+        return orders.size();
+    }
+
+    public int getUserCount() {
+        return users.size();
+    }
+
+    // Recovered ids must not be handed out again to new pets and orders
+    void reserveIds(long petId, long orderId) {
+        petIds.accumulateAndGet(petId, Math::max);
+        orderIds.accumulateAndGet(orderId, Math::max);
+    }
+
+    private void index(long id, String status) {
+        petsByStatus.computeIfAbsent(statusKey(status), key -> ConcurrentHashMap.newKeySet()).add(id);
+    }
+
+    private void unindex(long id, String status) {
+        Set<Long> ids = petsByStatus.get(statusKey(status));
+        if (ids != null) {
+            ids.remove(id);
+        }
+    }
+
+    // Pets without status are indexed too, so the index covers every stored pet
+    private static String statusKey(String status) {
+        return status == null ? "" : status;
+    }
+
+    private static Pet copy(Pet pet) {
+        Pet copy = new Pet();
+        copy.setId(pet.getId());
+        copy.setName(pet.getName());
+        copy.setStatus(pet.getStatus());
+        copy.setCategory(pet.getCategory());
+        copy.setPhotoUrls(pet.getPhotoUrls());
+        copy.setTags(pet.getTags());
+        return copy;
+    }
+}
@@ -0,0 +1,171 @@
+package com.veeam.server;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Single pass over a multipart/form-data body. Part contents are scanned for the boundary
+ * byte by byte from a buffered stream, so file parts are counted without being held in memory.
+ */
+final class MultipartReader {
+
+    private final InputStream in;
+    private final byte[] delimiter;
+    private boolean started;
+    private boolean finished;
+
+    /**
+     * @param in Request body
+     * @param contentType Value of the Content-Type header
+     * @throws IllegalArgumentException if the content type is not multipart/form-data with a boundary
+     */
+    MultipartReader(InputStream in, String contentType) {
+        String boundary = boundary(contentType);
+        if (boundary == null) {
+            throw new IllegalArgumentException("Not multipart/form-data: " + contentType);
+        }
+        this.in = new BufferedInputStream(in, 16384);
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Move to the next part.
+     * @return The part headers, or null after the last part
+     */
+    Part next() throws IOException {
+        if (finished) {
+            return null;
+        }
+        if (!skipToFirstBoundary()) {
+            finished = true;
+            return null;
+        }
+        Part part = new Part();
+        for (String line; !(line = readLine()).isEmpty(); ) {
+            int colon = line.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+            String name = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = line.substring(colon + 1).trim();
+            if ("content-disposition".equals(name)) {
+                part.name = parameter(value, "name");
+                part.filename = parameter(value, "filename");
+            } else if ("content-type".equals(name)) {
+                part.contentType = value;
+            }
+        }
+        return part;
+    }
+
+    /**
+     * Read the content of the current part up to the next boundary.
+     * @param keep Copy of the content is kept in Part.text when true, e.g. for small fields
+     */
+    void readContent(Part part, boolean keep) throws IOException {
+        ByteArrayOutputStream text = keep ? new ByteArrayOutputStream() : null;
+        long size = 0;
+        int matched = 0;
+        while (true) {
+            int b = in.read();
+            if (b < 0) {
+                finished = true;
+                break;
+            }
+            if (b == (delimiter[matched] & 0xff)) {
+                if (++matched == delimiter.length) {
+                    break;
+                }
+                continue;
+            }
+            // Bytes of a partial match were content; '\r' only starts the delimiter, so no overlap is possible
+            size += matched;
+            if (text != null) {
+                text.write(delimiter, 0, matched);
+            }
+            matched = b == '\r' ? 1 : 0;
+            if (matched == 0) {
+                size++;
+                if (text != null) {
+                    text.write(b);
+                }
+            }
+        }
+        part.size = size;
+        part.text = text == null ? null : text.toString(StandardCharsets.UTF_8);
+        afterDelimiter();
+    }
+
+    // The body starts with "--boundary" without the leading CRLF
+    private boolean skipToFirstBoundary() throws IOException {
+        if (started) {
+            return true;
+        }
+        started = true;
+        int matched = 2;  // as if the CRLF before the first boundary had been read
+        while (matched < delimiter.length) {
+            int b = in.read();
+            if (b < 0) {
+                return false;
+            }
+            matched = b == (delimiter[matched] & 0xff) ? matched + 1 : b == '-' ? 3 : 2;
+        }
+        return afterDelimiter();
+    }
+
+    // After a boundary: "--" ends the body, otherwise a CRLF precedes the next part's headers
+    private boolean afterDelimiter() throws IOException {
+        int first = in.read();
+        int second = in.read();
+        if (first == '-' && second == '-' || first < 0) {
+            finished = true;
+            return false;
+        }
+        return true;
+    }
+
+    private String readLine() throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+        for (int b; (b = in.read()) >= 0 && b != '\n'; ) {
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    private static String boundary(String contentType) {
+        if (contentType == null || !contentType.toLowerCase(Locale.ROOT).startsWith("multipart/form-data")) {
+            return null;
+        }
+        String boundary = parameter(contentType, "boundary");
+        return boundary == null || boundary.isEmpty() ? null : boundary;
+    }
+
+    private static String parameter(String header, String name) {
+        for (String parameter : header.split(";")) {
+            int equals = parameter.indexOf('=');
+            if (equals > 0 && parameter.substring(0, equals).trim().equalsIgnoreCase(name)) {
+                String value = parameter.substring(equals + 1).trim();
+                return value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")
+                        ? value.substring(1, value.length() - 1) : value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Headers of one part and, once read, its size.
+     */
+    static final class Part {
+        String name;
+        String filename;
+        String contentType;
+        long size;
+        String text;
+    }
+}
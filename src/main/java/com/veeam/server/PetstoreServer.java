@@ -0,0 +1,522 @@
+package com.veeam.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.veeam.dto.Pet;
+import com.veeam.dto.Store;
+import com.veeam.dto.User;
+import com.veeam.json.GeneratedCodec;
+import com.veeam.json.JsonAdapter;
+import com.veeam.json.JsonReader;
+import com.veeam.json.JsonWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * In-process stand-in for the public Petstore, serving the /pet, /store and /user endpoints
+ * that PetApi, StoreApi and UserApi call, so the suite and the load tools can run offline and
+ * without the rate limits and latency of petstore.swagger.io.
+ * Responses mirror the real server: DTOs as JSON, other results as {"code","type","message"}.
+ * Start it, then point the client at it with -Dapi.url=http://localhost:port/v2 or
+ * HttpTransport.builder().baseUrl(server.getBaseUrl()).
+ */
+public final class PetstoreServer implements AutoCloseable {
+
+    static {
+        // Headers and body are written separately; without TCP_NODELAY every keep-alive
+        // response waits for the client's delayed ACK (~40 ms on Linux).
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private static final Logger logger = Logger.getLogger(PetstoreServer.class.getName());
+    private static final String BASE_PATH = "/v2";
+
+    private final InMemoryPetstore store;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final JsonAdapter<Pet> petAdapter = GeneratedCodec.adapter(Pet.class);
+    private final JsonAdapter<Store> orderAdapter = GeneratedCodec.adapter(Store.class);
+    private final JsonAdapter<User> userAdapter = GeneratedCodec.adapter(User.class);
+
+    /**
+     * Start a server on the given port of the loopback interface.
+     * @param port The port to listen on, 0 picks a free one
+     * @param threads Number of request handling threads
+     * @param store The data to serve, e.g. shared between restarts
+     */
+    public PetstoreServer(int port, int threads, InMemoryPetstore store) throws IOException {
+        this.store = store;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 4096);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "petstore-server-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.createContext(BASE_PATH + "/pet", exchange -> handle(exchange, this::handlePet));
+        server.createContext(BASE_PATH + "/store", exchange -> handle(exchange, this::handleStore));
+        server.createContext(BASE_PATH + "/user", exchange -> handle(exchange, this::handleUser));
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Start a server with an empty store on a free port.
+     */
+    public static PetstoreServer start() throws IOException {
+        return new PetstoreServer(0, Runtime.getRuntime().availableProcessors() * 2, new InMemoryPetstore());
+    }
+
+    /**
+     * Run the server standalone: java com.veeam.server.PetstoreServer [port] [threads] [dataDir] [syncPolicy]
+     * With a data directory the state is kept in a DurablePetstore there (sync policy GROUP by default)
+     * and survives restarts.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors() * 2;
+        InMemoryPetstore store = new InMemoryPetstore();
+        if (args.length > 2) {
+            DurablePetstore durable = DurablePetstore.builder(Paths.get(args[2]))
+                    .syncPolicy(args.length > 3 ? DurablePetstore.SyncPolicy.valueOf(args[3].toUpperCase()) : DurablePetstore.SyncPolicy.GROUP)
+                    .build();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    durable.close();
+                } catch (IOException e) {
+                    logger.warning("Could not close " + args[2] + ": " + e);
+                }
+            }, "petstore-store-close"));
+            store = durable;
+        }
+        PetstoreServer server = new PetstoreServer(port, threads, store);
+        logger.info("Petstore stand-in listening on " + server.getBaseUrl());
+    }
+
+    /**
+     * @return Root URL to configure as api.url, e.g. http://127.0.0.1:54321/v2
+     */
+    public String getBaseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + BASE_PATH;
+    }
+
+    public InMemoryPetstore getStore() {
+        return store;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handlePet(HttpExchange exchange, String[] path) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (path.length == 0) {
+            if (!"POST".equals(method) && !"PUT".equals(method)) {
+                sendMessage(exchange, 405, "unknown", "Method not allowed");
+                return;
+            }
+            Pet pet = readBody(exchange, petAdapter);
+            if (pet == null) {
+                sendMessage(exchange, 405, "unknown", "Invalid input");
+                return;
+            }
+            sendJson(exchange, 200, write(petAdapter, store.savePet(pet)));
+            return;
+        }
+        if (path.length == 1 && "findByStatus".equals(path[0]) && "GET".equals(method)) {
+            sendPetsByStatus(exchange, queryParameters(exchange.getRequestURI().getRawQuery()).get("status"));
+            return;
+        }
+        Long petId = parseId(path[0]);
+        if (petId == null) {
+            sendMessage(exchange, 404, "unknown", "java.lang.NumberFormatException: For input string: \"" + path[0] + "\"");
+            return;
+        }
+        if (path.length == 2 && "uploadImage".equals(path[1]) && "POST".equals(method)) {
+            uploadImage(exchange, petId);
+            return;
+        }
+        if (path.length != 1) {
+            sendMessage(exchange, 404, "unknown", "Not found");
+            return;
+        }
+        switch (method) {
+            case "GET": {
+                Pet pet = store.getPet(petId);
+                if (pet == null) {
+                    sendMessage(exchange, 404, "error", "Pet not found");
+                } else {
+                    sendCacheable(exchange, write(petAdapter, pet));
+                }
+                break;
+            }
+            case "POST": {
+                Map<String, String> form = queryParameters(readString(exchange));
+                Pet pet = store.updatePet(petId, form.get("name"), form.get("status"));
+                if (pet == null) {
+                    sendMessage(exchange, 404, "unknown", "not found");
+                } else {
+                    sendMessage(exchange, 200, "unknown", String.valueOf(petId));
+                }
+                break;
+            }
+            case "DELETE":
+                drain(exchange.getRequestBody());
+                if (store.deletePet(petId) == null) {
+                    sendEmpty(exchange, 404);
+                } else {
+                    sendMessage(exchange, 200, "unknown", String.valueOf(petId));
+                }
+                break;
+            default:
+                sendMessage(exchange, 405, "unknown", "Method not allowed");
+        }
+    }
+
+    // Streams through the multipart body; the file part is counted, not stored
+    private void uploadImage(HttpExchange exchange, long petId) throws IOException {
+        if (store.getPet(petId) == null) {
+            drain(exchange.getRequestBody());
+            sendMessage(exchange, 404, "error", "Pet not found");
+            return;
+        }
+        MultipartReader reader;
+        try {
+            reader = new MultipartReader(exchange.getRequestBody(), exchange.getRequestHeaders().getFirst("Content-Type"));
+        } catch (IllegalArgumentException e) {
+            drain(exchange.getRequestBody());
+            sendMessage(exchange, 415, "error", "Unsupported Media Type");
+            return;
+        }
+        String metadata = null;
+        String filename = null;
+        long size = -1;
+        for (MultipartReader.Part part; (part = reader.next()) != null; ) {
+            boolean isFile = part.filename != null;
+            reader.readContent(part, !isFile);
+            if (isFile && "file".equals(part.name)) {
+                filename = part.filename;
+                size = part.size;
+            } else if ("additionalMetadata".equals(part.name)) {
+                metadata = part.text;
+            }
+        }
+        drain(exchange.getRequestBody());
+        if (filename == null) {
+            sendMessage(exchange, 400, "error", "File is required.");
+            return;
+        }
+        sendMessage(exchange, 200, "unknown", "additionalMetadata: " + metadata + "\nFile uploaded to ./" + filename + ", " + size + " bytes");
+    }
+
+    private void handleStore(HttpExchange exchange, String[] path) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (path.length == 1 && "inventory".equals(path[0]) && "GET".equals(method)) {
+            JsonWriter writer = new JsonWriter().beginObject();
+            for (Map.Entry<String, Integer> entry : store.getInventory().entrySet()) {
+                writer.name(entry.getKey()).value(entry.getValue());
+            }
+            sendCacheable(exchange, writer.endObject().toString());
+            return;
+        }
+        if (path.length == 0 || !"order".equals(path[0])) {
+            sendMessage(exchange, 404, "unknown", "Not found");
+            return;
+        }
+        if (path.length == 1 && "POST".equals(method)) {
+            Store order = readBody(exchange, orderAdapter);
+            if (order == null) {
+                sendMessage(exchange, 400, "unknown", "Invalid Order");
+            } else {
+                sendJson(exchange, 200, write(orderAdapter, store.placeOrder(order)));
+            }
+            return;
+        }
+        Long orderId = path.length == 2 ? parseId(path[1]) : null;
+        if (orderId == null) {
+            sendMessage(exchange, 404, "unknown", "Order not found");
+            return;
+        }
+        if ("GET".equals(method)) {
+            Store order = store.getOrder(orderId);
+            if (order == null) {
+                sendMessage(exchange, 404, "error", "Order not found");
+            } else {
+                sendCacheable(exchange, write(orderAdapter, order));
+            }
+        } else if ("DELETE".equals(method)) {
+            if (store.deleteOrder(orderId) == null) {
+                sendMessage(exchange, 404, "unknown", "Order Not Found");
+            } else {
+                sendMessage(exchange, 200, "unknown", String.valueOf(orderId));
+            }
+        } else {
+            sendMessage(exchange, 405, "unknown", "Method not allowed");
+        }
+    }
+
+    private void handleUser(HttpExchange exchange, String[] path) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (path.length == 0 && "POST".equals(method)) {
+            User user = readBody(exchange, userAdapter);
+            if (user == null || user.getUsername() == null) {
+                sendMessage(exchange, 400, "unknown", "Invalid user");
+            } else {
+                store.saveUser(user);
+                sendMessage(exchange, 200, "unknown", String.valueOf(user.getId()));
+            }
+            return;
+        }
+        if (path.length == 0) {
+            sendMessage(exchange, 405, "unknown", "Method not allowed");
+            return;
+        }
+        String name = path[0];
+        if (path.length == 1 && ("createWithArray".equals(name) || "createWithList".equals(name)) && "POST".equals(method)) {
+            int created = readUsers(exchange);
+            if (created < 0) {
+                sendMessage(exchange, 400, "unknown", "Invalid input");
+            } else {
+                sendMessage(exchange, 200, "unknown", "ok");
+            }
+            return;
+        }
+        if (path.length == 1 && "login".equals(name) && "GET".equals(method)) {
+            Map<String, String> query = queryParameters(exchange.getRequestURI().getRawQuery());
+            if (query.get("username") == null || query.get("password") == null) {
+                sendMessage(exchange, 400, "unknown", "Invalid username/password supplied");
+                return;
+            }
+            exchange.getResponseHeaders().add("X-Rate-Limit", "5000");
+            exchange.getResponseHeaders().add("X-Expires-After", OffsetDateTime.now().plusHours(1).toString());
+            sendMessage(exchange, 200, "unknown", "logged in user session:" + UUID.randomUUID());
+            return;
+        }
+        if (path.length == 1 && "logout".equals(name) && "GET".equals(method)) {
+            sendMessage(exchange, 200, "unknown", "ok");
+            return;
+        }
+        if (path.length != 1) {
+            sendMessage(exchange, 404, "unknown", "Not found");
+            return;
+        }
+        switch (method) {
+            case "GET": {
+                User user = store.getUser(name);
+                if (user == null) {
+                    sendMessage(exchange, 404, "error", "User not found");
+                } else {
+                    sendCacheable(exchange, write(userAdapter, user));
+                }
+                break;
+            }
+            case "PUT": {
+                User user = readBody(exchange, userAdapter);
+                if (user == null) {
+                    sendMessage(exchange, 400, "unknown", "Invalid user supplied");
+                } else {
+                    user.setUsername(user.getUsername() == null ? name : user.getUsername());
+                    if (!name.equals(user.getUsername())) {
+                        store.deleteUser(name);
+                    }
+                    store.saveUser(user);
+                    sendMessage(exchange, 200, "unknown", String.valueOf(user.getId()));
+                }
+                break;
+            }
+            case "DELETE":
+                drain(exchange.getRequestBody());
+                if (store.deleteUser(name) == null) {
+                    sendEmpty(exchange, 404);
+                } else {
+                    sendMessage(exchange, 200, "unknown", name);
+                }
+                break;
+            default:
+                sendMessage(exchange, 405, "unknown", "Method not allowed");
+        }
+    }
+
+    // Writes the matching pets straight to the response, one pet at a time, via the status index
+    private void sendPetsByStatus(HttpExchange exchange, String statuses) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, 0);  // chunked, the size is not known up front
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), 16384)) {
+            StringBuilder scratch = new StringBuilder(256);
+            boolean[] first = {true};
+            out.write('[');
+            if (statuses != null) {
+                for (String status : statuses.split(",")) {
+                    store.forEachPetWithStatus(status.trim(), pet -> {
+                        scratch.setLength(0);
+                        petAdapter.write(new JsonWriter(scratch), pet);
+                        try {
+                            if (!first[0]) {
+                                out.write(',');
+                            }
+                            first[0] = false;
+                            out.append(scratch);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                }
+            }
+            out.write(']');
+        }
+    }
+
+    // Reads createWithArray/createWithList bodies element by element instead of binding a whole list
+    private int readUsers(HttpExchange exchange) throws IOException {
+        try (JsonReader reader = new JsonReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+            int count = 0;
+            reader.beginArray();
+            while (reader.hasNext()) {
+                User user = userAdapter.read(reader);
+                if (user != null && user.getUsername() != null) {
+                    store.saveUser(user);
+                    count++;
+                }
+            }
+            reader.endArray();
+            return count;
+        } catch (IllegalStateException e) {
+            return -1;
+        }
+    }
+
+    private <T> T readBody(HttpExchange exchange, JsonAdapter<T> adapter) throws IOException {
+        try (JsonReader reader = new JsonReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+            return adapter.read(reader);
+        } catch (IllegalStateException e) {
+            return null;  // malformed JSON
+        }
+    }
+
+    private static String readString(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static long drain(InputStream in) throws IOException {
+        try (InputStream body = in) {
+            byte[] buffer = new byte[16384];
+            long total = 0;
+            for (int read; (read = body.read(buffer)) != -1; ) {
+                total += read;
+            }
+            return total;
+        }
+    }
+
+    private static <T> String write(JsonAdapter<T> adapter, T value) {
+        JsonWriter writer = new JsonWriter();
+        adapter.write(writer, value);
+        return writer.toString();
+    }
+
+    private static void sendMessage(HttpExchange exchange, int status, String type, String message) throws IOException {
+        String json = new JsonWriter().beginObject()
+                .name("code").value(status == 200 ? 200 : status == 404 ? 1 : status)
+                .name("type").value(type)
+                .name("message").value(message)
+                .endObject().toString();
+        sendJson(exchange, status, json);
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] payload = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, payload.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(payload);
+        }
+    }
+
+    /**
+     * Send a 200 with an ETag derived from the content, or 304 without a body when the
+     * client's If-None-Match already names it. Used for the single-resource GETs clients cache.
+     */
+    private static void sendCacheable(HttpExchange exchange, String json) throws IOException {
+        String etag = "\"" + Integer.toHexString(json.hashCode()) + "\"";
+        exchange.getResponseHeaders().add("ETag", etag);
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            sendEmpty(exchange, 304);
+            return;
+        }
+        sendJson(exchange, 200, json);
+    }
+
+    private static void sendEmpty(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+
+    private static Map<String, String> queryParameters(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    private static Long parseId(String text) {
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Splits the path below the context into segments and turns handler failures into a 500
+    private static void handle(HttpExchange exchange, Handler handler) throws IOException {
+        try {
+            String context = exchange.getHttpContext().getPath();
+            String rest = exchange.getRequestURI().getPath().substring(context.length());
+            String[] path = rest.isEmpty() || "/".equals(rest) ? new String[0] : rest.substring(1).split("/");
+            handler.handle(exchange, path);
+        } catch (RuntimeException e) {
+            logger.warning("Request failed: " + exchange.getRequestMethod() + " " + exchange.getRequestURI() + ": " + e);
+            if (exchange.getResponseCode() == -1) {
+                sendMessage(exchange, 500, "unknown", "something bad happened");
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange exchange, String[] path) throws IOException;
+    }
+}
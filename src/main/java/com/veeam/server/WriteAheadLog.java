@@ -0,0 +1,299 @@
+package com.veeam.server;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of DurablePetstore mutations, split into numbered segment files (wal-N.log).
+ * <pre>
+ * segment: "PSWL" version:int record*
+ * record:  length:int crc32:int type:byte payload   (length = payload bytes, crc over type and payload)
+ * </pre>
+ * Appenders copy their framed record into a shared buffer and get a sequence number. Whoever then
+ * needs the record on disk takes the sync lock and writes the whole buffer, with one fsync for GROUP,
+ * so everything appended while the previous fsync ran is committed together (group commit).
+ * Snapshots use the same record framing.
+ */
+final class WriteAheadLog implements AutoCloseable {
+
+    static final int SEGMENT_MAGIC = 0x5053574C;   // "PSWL"
+    static final int VERSION = 1;
+    static final int HEADER = 8;
+    static final int FRAME = 9;                    // length, crc, type
+
+    private static final Logger logger = Logger.getLogger(WriteAheadLog.class.getName());
+
+    private final Path directory;
+    private final DurablePetstore.SyncPolicy policy;
+    private final Object appendLock = new Object();
+    private final Object syncLock = new Object();
+    private final ScheduledExecutorService syncer;
+    private final LongAdder syncs = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+
+    // Guarded by appendLock
+    private byte[] buffer = new byte[64 * 1024];
+    private int size;
+    private long appended;
+    // Guarded by syncLock; channel and segment are only replaced while holding both locks
+    private byte[] spare = new byte[64 * 1024];
+    private FileChannel channel;
+    private long segment;
+    private volatile long written;
+    private volatile long durable;
+    private boolean closed;
+
+    /**
+     * Start a new segment after the given one; existing segments are never appended to.
+     */
+    WriteAheadLog(Path directory, long lastSegment, DurablePetstore.SyncPolicy policy, Duration syncInterval) throws IOException {
+        this.directory = directory;
+        this.policy = policy;
+        this.segment = lastSegment + 1;
+        this.channel = create(segmentFile(directory, segment));
+        if (policy == DurablePetstore.SyncPolicy.INTERVAL) {
+            AtomicInteger counter = new AtomicInteger();
+            this.syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "petstore-wal-sync-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = Math.max(syncInterval.toNanos(), 1);
+            syncer.scheduleAtFixedRate(this::syncQuietly, period, period, TimeUnit.NANOSECONDS);
+        } else {
+            this.syncer = null;
+        }
+    }
+
+    static Path segmentFile(Path directory, long segment) {
+        return directory.resolve(String.format("wal-%016d.log", segment));
+    }
+
+    /**
+     * Append a record. With ALWAYS it is written and forced before returning, one record per fsync;
+     * otherwise it is buffered and await(sequence) makes it as durable as the policy promises.
+     * @return Sequence number of the record
+     */
+    long append(byte type, byte[] payload) {
+        synchronized (appendLock) {
+            if (closed) {
+                throw new IllegalStateException("Write-ahead log closed");
+            }
+            int length = FRAME + payload.length;
+            if (size + length > buffer.length) {
+                byte[] grown = new byte[Math.max(buffer.length * 2, size + length)];
+                System.arraycopy(buffer, 0, grown, 0, size);
+                buffer = grown;
+            }
+            ByteBuffer frame = ByteBuffer.wrap(buffer, size, length);
+            frame.putInt(payload.length).putInt(crc(type, payload, 0, payload.length)).put(type).put(payload);
+            size += length;
+            long sequence = ++appended;
+            if (policy == DurablePetstore.SyncPolicy.ALWAYS) {
+                try {
+                    writeFully(channel, buffer, size);
+                    channel.force(false);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                syncs.increment();
+                size = 0;
+                written = sequence;
+                durable = sequence;
+            }
+            return sequence;
+        }
+    }
+
+    /**
+     * Wait until the record is on disk (GROUP) or handed to the OS (INTERVAL, NONE).
+     */
+    void await(long sequence) {
+        boolean force = policy == DurablePetstore.SyncPolicy.GROUP;
+        if ((force ? durable : written) >= sequence) {
+            return;
+        }
+        synchronized (syncLock) {
+            // The previous holder usually wrote this record already, together with everyone else's
+            if ((force ? durable : written) >= sequence) {
+                return;
+            }
+            try {
+                flush(force);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Close the current segment and continue in a new one.
+     * @return Number of the closed segment; it holds every record appended before this call
+     */
+    long rotate() throws IOException {
+        synchronized (syncLock) {
+            flush(policy != DurablePetstore.SyncPolicy.NONE);
+            FileChannel next = create(segmentFile(directory, segment + 1));
+            synchronized (appendLock) {
+                // ALWAYS appends write under appendLock only; everything else was flushed above
+                writeFully(channel, buffer, size);
+                size = 0;
+                written = appended;
+                if (policy != DurablePetstore.SyncPolicy.NONE) {
+                    channel.force(false);
+                    syncs.increment();
+                    durable = appended;
+                }
+                channel.close();
+                channel = next;
+                return segment++;
+            }
+        }
+    }
+
+    /**
+     * @return Number of fsyncs so far
+     */
+    long getSyncs() {
+        return syncs.sum();
+    }
+
+    long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (syncer != null) {
+            syncer.shutdownNow();
+        }
+        synchronized (syncLock) {
+            if (closed) {
+                return;
+            }
+            flush(policy != DurablePetstore.SyncPolicy.NONE);
+            synchronized (appendLock) {
+                closed = true;
+                writeFully(channel, buffer, size);
+                size = 0;
+                if (policy != DurablePetstore.SyncPolicy.NONE) {
+                    channel.force(false);
+                }
+                channel.close();
+            }
+        }
+    }
+
+    // Caller holds syncLock; swaps the buffers so appenders continue while this batch is written
+    private void flush(boolean force) throws IOException {
+        byte[] batch;
+        int length;
+        long upTo;
+        synchronized (appendLock) {
+            batch = buffer;
+            length = size;
+            upTo = appended;
+            buffer = spare;
+            size = 0;
+        }
+        spare = batch;
+        if (length > 0) {
+            writeFully(channel, batch, length);
+        }
+        written = Math.max(written, upTo);
+        if (force && durable < upTo) {
+            channel.force(false);
+            syncs.increment();
+            durable = upTo;
+        }
+    }
+
+    private void syncQuietly() {
+        synchronized (syncLock) {
+            try {
+                flush(true);
+            } catch (IOException | RuntimeException e) {
+                logger.warning("Write-ahead log sync failed: " + e);
+            }
+        }
+    }
+
+    private void writeFully(FileChannel target, byte[] bytes, int length) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(bytes, 0, length);
+        while (data.hasRemaining()) {
+            target.write(data);
+        }
+        bytesWritten.add(length);
+    }
+
+    private static FileChannel create(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        channel.write(ByteBuffer.allocate(HEADER).putInt(SEGMENT_MAGIC).putInt(VERSION).flip());
+        return channel;
+    }
+
+    static int crc(byte type, byte[] payload, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload, offset, length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Receives the records of a segment or snapshot in order.
+     */
+    @FunctionalInterface
+    interface RecordHandler {
+        void accept(byte type, byte[] payload);
+    }
+
+    /**
+     * Read the records of a memory-mapped file from the given position up to the first incomplete
+     * or corrupt record, which is where a crash stopped the last append.
+     * @return Number of records read
+     */
+    static long read(ByteBuffer file, int position, RecordHandler handler) {
+        long count = 0;
+        int end = file.limit();
+        while (position + FRAME <= end) {
+            int length = file.getInt(position);
+            if (length < 0 || position + FRAME + (long) length > end) {
+                break;
+            }
+            byte type = file.get(position + 8);
+            byte[] payload = new byte[length];
+            ByteBuffer slice = file.duplicate();
+            slice.position(position + FRAME);
+            slice.get(payload);
+            if (crc(type, payload, 0, length) != file.getInt(position + 4)) {
+                break;
+            }
+            handler.accept(type, payload);
+            count++;
+            position += FRAME + length;
+        }
+        return count;
+    }
+
+    static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Files above 2 GB are not supported: " + file);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+}
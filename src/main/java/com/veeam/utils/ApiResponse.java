@@ -1,12 +1,47 @@
 package com.veeam.utils;
 
+import com.veeam.json.JsonCodecs;
+
+import java.net.http.HttpHeaders;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Optional;
+
 public class ApiResponse {
-    private int statusCode;
-    private String body;
+    private static final byte[] EMPTY = new byte[0];
+    private static final HttpHeaders NO_HEADERS = HttpHeaders.of(Collections.emptyMap(), (name, value) -> true);
+
+    private final int statusCode;
+    private final byte[] bodyBytes;
+    private final HttpHeaders headers;
+    private final Duration elapsed;
+    private String body;  // decoded on first getBody()
 
     public ApiResponse(int statusCode, String body) {
         this.statusCode = statusCode;
         this.body = body;
+        this.bodyBytes = body == null ? EMPTY : body.getBytes(StandardCharsets.UTF_8);
+        this.headers = NO_HEADERS;
+        this.elapsed = Duration.ZERO;
+    }
+
+    /**
+     * Response as received from the server. The body is kept as raw bytes and only decoded
+     * when getBody() is called, so callers that check the status code never pay for decoding.
+     * @param statusCode HTTP status code
+     * @param bodyBytes Raw body, owned by this response from now on
+     * @param headers Response headers, or null for none
+     * @param elapsed Time from sending the request to receiving the full body, or null when unknown
+     */
+    public ApiResponse(int statusCode, byte[] bodyBytes, HttpHeaders headers, Duration elapsed) {
+        this.statusCode = statusCode;
+        this.bodyBytes = bodyBytes == null ? EMPTY : bodyBytes;
+        this.headers = headers == null ? NO_HEADERS : headers;
+        this.elapsed = elapsed == null ? Duration.ZERO : elapsed;
     }
 
     public int getStatusCode() {
@@ -14,6 +49,63 @@ public class ApiResponse {
     }
 
     public String getBody() {
-        return body;
+        String decoded = body;
+        if (decoded == null) {
+            decoded = new String(bodyBytes, getCharset());
+            body = decoded;  // racy but idempotent, String is immutable
+        }
+        return decoded;
+    }
+
+    /**
+     * @return The raw body without a copy; callers must not modify it
+     */
+    public byte[] getBodyBytes() {
+        return bodyBytes;
+    }
+
+    public int getBodyLength() {
+        return bodyBytes.length;
+    }
+
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    public Optional<String> getHeader(String name) {
+        return headers.firstValue(name);
+    }
+
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * Bind the JSON body to a DTO with the default codec, straight from the bytes where the codec supports it.
+     * @param type The DTO class, e.g. Pet.class
+     * @return The DTO, or null for an empty body
+     */
+    public <T> T as(Class<T> type) {
+        return JsonCodecs.getDefault().fromJson(bodyBytes, getCharset(), type);
+    }
+
+    /**
+     * @return Charset from the Content-Type header, UTF-8 when absent or unknown
+     */
+    public Charset getCharset() {
+        Optional<String> contentType = headers.firstValue("Content-Type");
+        if (contentType.isPresent()) {
+            for (String parameter : contentType.get().split(";")) {
+                String trimmed = parameter.trim();
+                if (trimmed.regionMatches(true, 0, "charset=", 0, 8)) {
+                    try {
+                        return Charset.forName(trimmed.substring(8).replace("\"", ""));
+                    } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+                        return StandardCharsets.UTF_8;
+                    }
+                }
+            }
+        }
+        return StandardCharsets.UTF_8;
     }
 }
@@ -5,6 +5,8 @@ import com.veeam.utils.ApiResponse;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.stream.Stream;
+
 public class PetTests {
 
 	private PetApi petApi = new PetApi();
@@ -338,4 +340,26 @@ public class PetTests {
 		assertEquals(415, response.getStatusCode()); // Expecting 415 for unsupported file type
 		assertTrue(response.getBody().contains("error")); // Ensure response body contains error message
 	}
+
+	// Positive Test: Stream pets by status without buffering the response
+	@Test
+	public void testStreamPetsByStatus() {
+		try (Stream<Pet> pets = petApi.streamPetsByStatus("available")) {
+			assertTrue(pets.allMatch(pet -> "available".equals(pet.getStatus()))); // Every streamed pet has the requested status
+		}
+		assertTrue(petApi.forEachPetByStatus("available", pet -> assertNotNull(pet)) > 0); // Expecting at least one available pet
+	}
+
+	// Positive Test: Create a pet asynchronously
+	@Test
+	public void testCreatePetAsyncWithValidData() {
+		Pet pet = new Pet();
+		pet.setId(1);
+		pet.setName("Dog");
+		pet.setStatus("available");
+
+		ApiResponse response = petApi.createPetAsync(pet).join();
+		assertEquals(200, response.getStatusCode()); // Expecting successful creation (200 OK)
+		assertNotNull(response.getBody()); // Ensuring there is a response body
+	}
 }
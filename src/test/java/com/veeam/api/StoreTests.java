@@ -6,7 +6,10 @@ import com.veeam.utils.ApiResponse;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class StoreTests {
 
@@ -237,4 +240,24 @@ public class StoreTests {
         assertEquals(200, response.getStatusCode());
         assertNotNull(response.getBody());
     }
+
+    // Positive Test: Get an order by ID asynchronously
+    @Test
+    public void testGetOrderByIdAsync() {
+        ApiResponse response = storeApi.getOrderByIdAsync(1).join();
+        assertEquals(200, response.getStatusCode());
+        assertTrue(response.getBody().contains("\"id\":1"));
+    }
+
+    // Positive Test: Many concurrent inventory requests share the transport
+    @Test
+    public void testGetInventoryAsyncConcurrently() {
+        List<CompletableFuture<ApiResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            responses.add(storeApi.getInventoryAsync());
+        }
+        for (CompletableFuture<ApiResponse> response : responses) {
+            assertEquals(200, response.join().getStatusCode());
+        }
+    }
 }
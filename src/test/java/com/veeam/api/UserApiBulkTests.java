@@ -0,0 +1,177 @@
+package com.veeam.api;
+
+import com.veeam.dto.User;
+import com.veeam.http.CircuitBreaker;
+import com.veeam.http.HttpTransport;
+import com.veeam.server.PetstoreServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class UserApiBulkTests {
+
+    private static PetstoreServer server;
+    private static HttpTransport transport;
+    private static UserApi userApi;
+
+    @BeforeAll
+    public static void startServer() throws Exception {
+        server = PetstoreServer.start();
+        transport = HttpTransport.builder()
+                .baseUrl(server.getBaseUrl())
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        userApi = new UserApi(transport);
+    }
+
+    @AfterAll
+    public static void stopServer() {
+        server.close();
+        transport.shutdown();
+    }
+
+    // Positive Test: A bulk import is split into streamed chunks, all of which arrive
+    @Test
+    public void testChunkedUserImport() {
+        List<User> users = users("bulk", 2_503);
+
+        BulkResult result = userApi.createUsersWithArrayChunked(users, new BulkOptions(100, 4));
+        assertTrue(result.isSuccessful(), result.toString());
+        assertEquals(26, result.getChunks().size());
+        assertEquals(2_503, result.getCreated());
+        assertEquals(3, result.getChunks().get(25).getSize());
+        assertEquals(200, userApi.getUserByUsername("bulk2502").getStatusCode());
+
+        BulkResult single = userApi.createUsersWithListChunked(users.subList(0, 10), new BulkOptions(1, 2));
+        assertEquals(10, single.getChunks().size());
+        assertEquals(10, single.getCreated());
+    }
+
+    // The calibration ramps chunk size, then parallelism, and stops at the first step without enough gain
+    @Test
+    public void testBulkCalibrationStopsAtKnee() {
+        BulkTuner.Calibration flat = BulkTuner.builder(userApi)
+                .chunkSizes(10, 50, 200).parallelisms(1, 2, 4).usersPerStep(100)
+                .minGain(100)  // no step can add 10000%, so the knee is right after the first one
+                .build().calibrate();
+        assertEquals(10, flat.getBest().getChunkSize());
+        assertEquals(1, flat.getBest().getParallelism());
+        assertEquals(4, flat.getSteps().size());
+
+        BulkTuner.Calibration steep = BulkTuner.builder(userApi)
+                .chunkSizes(10, 50).parallelisms(1, 2).usersPerStep(100)
+                .minGain(-1)  // every step counts as a gain
+                .build().calibrate();
+        assertEquals(50, steep.getBest().getChunkSize());
+        assertEquals(2, steep.getBest().getParallelism());
+        assertTrue(steep.getSteps().stream().allMatch(BulkTuner.Step::isSuccessful));
+    }
+
+    // Positive Test: Settings above the users-per-step cap are skipped and calibration users are deleted
+    @Test
+    public void testBulkCalibrationCappedAndCleanedUp() throws Exception {
+        try (PetstoreServer target = PetstoreServer.start()) {
+            HttpTransport targetTransport = HttpTransport.builder()
+                    .baseUrl(target.getBaseUrl())
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .build();
+            try {
+                BulkTuner.Calibration calibration = BulkTuner.builder(new UserApi(targetTransport))
+                        .chunkSizes(10, 50, 200).parallelisms(1, 2, 4).usersPerStep(100).maxUsersPerStep(150)
+                        .minGain(-1)
+                        .build().calibrate();
+                assertEquals(4, calibration.getSteps().size());
+                assertEquals(50, calibration.getBest().getChunkSize());
+                assertEquals(2, calibration.getBest().getParallelism());
+                assertEquals(0, target.getStore().getUserCount());
+            } finally {
+                targetTransport.shutdown();
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> BulkTuner.builder(userApi).usersPerStep(200).maxUsersPerStep(100).build());
+    }
+
+    // Negative Test: A calibration whose first step is rejected falls back to the configured options
+    @Test
+    public void testBulkCalibrationFallsBackWhenRejected() throws Exception {
+        HttpTransport missing = HttpTransport.builder()
+                .baseUrl(server.getBaseUrl().replace("/v2", "/missing"))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        try {
+            BulkTuner.Calibration calibration = BulkTuner.builder(new UserApi(missing))
+                    .chunkSizes(10, 50).parallelisms(1, 2).usersPerStep(20)
+                    .build().calibrate();
+            BulkOptions configured = BulkOptions.fromConfiguration();
+            assertEquals(1, calibration.getSteps().size());
+            assertFalse(calibration.getSteps().get(0).isSuccessful());
+            assertEquals(configured.getChunkSize(), calibration.getBest().getChunkSize());
+            assertEquals(configured.getParallelism(), calibration.getBest().getParallelism());
+        } finally {
+            missing.shutdown();
+        }
+    }
+
+    // Negative Test: Failed chunks are reported per chunk without stopping the others
+    @Test
+    public void testChunkedImportReportsFailures() throws Exception {
+        try (PetstoreServer other = PetstoreServer.start()) {
+            UserApi closed = new UserApi(HttpTransport.builder()
+                    .baseUrl(other.getBaseUrl().replace("/v2", "/missing"))
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .build());
+            User user = new User();
+            user.setUsername("lost");
+            BulkResult result = closed.createUsersWithListChunked(Arrays.asList(user, user, user), new BulkOptions(2, 2));
+            assertFalse(result.isSuccessful());
+            assertEquals(2, result.getFailedChunks().size());
+            assertEquals(404, result.getChunks().get(1).getStatusCode());
+            assertEquals(2, result.getChunks().get(1).getOffset());
+            assertNotNull(result.getChunks().get(1).getMessage());
+            assertEquals(0, result.getCreated());
+        }
+    }
+
+    // Negative Test: Chunks rejected at once by an open circuit do not nest on the stack
+    @Test
+    public void testCompletedChunksDoNotRecurse() {
+        HttpTransport failFast = HttpTransport.builder()
+                .baseUrl(server.getBaseUrl())
+                .version(HttpClient.Version.HTTP_1_1)
+                .circuitBreaker(CircuitBreaker.builder()
+                        .windowSize(1).minimumCalls(1)
+                        .slowCallDuration(Duration.ofNanos(1)).slowCallRateThreshold(1)  // the first call opens it
+                        .openDuration(Duration.ofHours(1))
+                        .build())
+                .build();
+        try {
+            UserApi open = new UserApi(failFast);
+            List<User> users = users("open", 50_001);
+            BulkResult result = open.createUsersWithArrayChunked(users, new BulkOptions(1, 1));
+            assertEquals(50_001, result.getChunks().size());
+            assertEquals(200, result.getChunks().get(0).getStatusCode());
+            assertEquals(503, result.getChunks().get(50_000).getStatusCode());
+            assertEquals(50_000, result.getFailedChunks().size());
+        } finally {
+            failFast.shutdown();
+        }
+    }
+
+    private static List<User> users(String prefix, int count) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            User user = new User();
+            user.setId(i);
+            user.setUsername(prefix + i);
+            users.add(user);
+        }
+        return users;
+    }
+}
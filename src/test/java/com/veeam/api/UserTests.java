@@ -420,4 +420,12 @@ public class UserTests {
         assertEquals(200, response.getStatusCode());  // Expecting successful logout (200 OK)
         assertNotNull(response.getBody());  // Ensuring there is a response body
     }
+
+    // Positive Test: Log out asynchronously
+    @Test
+    public void testLogoutAsync() {
+        ApiResponse response = userApi.logoutUserAsync().join();
+        assertEquals(200, response.getStatusCode());  // Expecting successful logout (200 OK)
+        assertNotNull(response.getBody());  // Ensuring there is a response body
+    }
 }
@@ -0,0 +1,114 @@
+package com.veeam.data;
+
+import com.veeam.dto.Pet;
+import com.veeam.dto.Store;
+import com.veeam.dto.User;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class TestDataGeneratorTests {
+
+    // Same seed and node give the same objects, whatever order or thread they are built in
+    @Test
+    public void testDeterministic() {
+        TestDataGenerator first = TestDataGenerator.builder().seed(7).node(3).build();
+        TestDataGenerator second = TestDataGenerator.builder().seed(7).node(3).build();
+
+        Map<Long, String> sequential = first.pets(10_000).collect(Collectors.toMap(Pet::getId, Pet::toJson));
+        Map<Long, String> parallel = second.pets(10_000).parallel().collect(Collectors.toConcurrentMap(Pet::getId, Pet::toJson));
+        assertEquals(sequential, parallel);
+        assertEquals(first.user(123).toJson(), second.user(123).toJson());
+        assertEquals(first.order(5).toJson(), second.order(5).toJson());
+
+        // Another seed changes the values but not the ids
+        TestDataGenerator reseeded = TestDataGenerator.builder().seed(8).node(3).build();
+        assertEquals(first.pet(42).getId(), reseeded.pet(42).getId());
+        assertNotEquals(first.users(1_000).map(User::getFirstName).collect(Collectors.toList()),
+                reseeded.users(1_000).map(User::getFirstName).collect(Collectors.toList()));
+    }
+
+    // Positive Test: Ids handed out to parallel threads and different nodes never collide
+    @Test
+    public void testIdsUniqueAcrossThreadsAndNodes() {
+        TestDataGenerator nodeA = TestDataGenerator.builder().node(1).build();
+        TestDataGenerator nodeB = TestDataGenerator.builder().node(2).build();
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        Set<String> usernames = ConcurrentHashMap.newKeySet();
+        Set<Integer> userIds = ConcurrentHashMap.newKeySet();
+        IntStream.range(0, 200_000).parallel().forEach(i -> {
+            TestDataGenerator generator = i % 2 == 0 ? nodeA : nodeB;
+            assertTrue(ids.add(generator.nextPet().getId()));
+            User user = generator.nextUser();
+            assertTrue(usernames.add(user.getUsername()));
+            assertTrue(userIds.add(user.getId()));
+        });
+        assertEquals(200_000, ids.size());
+        assertTrue(ids.stream().allMatch(id -> id >>> TestDataGenerator.INDEX_BITS == 1 || id >>> TestDataGenerator.INDEX_BITS == 2));
+    }
+
+    // Field values follow the configured distributions
+    @Test
+    public void testDistributions() {
+        TestDataGenerator generator = TestDataGenerator.builder().seed(1).node(0).petRange(50).build();
+        Map<String, Long> statuses = generator.pets(100_000).collect(Collectors.groupingBy(Pet::getStatus, Collectors.counting()));
+        assertEquals(60_000, statuses.get("available"), 1_500);
+        assertEquals(25_000, statuses.get("pending"), 1_500);
+        assertEquals(15_000, statuses.get("sold"), 1_500);
+
+        Map<Long, Store> orders = generator.orders(10_000).collect(Collectors.toMap(Store::getId, Function.identity()));
+        assertTrue(orders.values().stream().allMatch(order -> order.getPetId() >= 1 && order.getPetId() <= 50 && order.getQuantity() >= 1 && order.getQuantity() <= 5));
+        assertTrue(orders.values().stream().allMatch(order -> order.isComplete() == "delivered".equals(order.getStatus())));
+        for (Store order : orders.values()) {
+            Instant shipDate = Instant.parse(order.getShipDate());
+            assertTrue(shipDate.isAfter(Instant.parse("2023-12-31T23:59:59Z")) && shipDate.isBefore(Instant.parse("2026-01-01T00:00:00Z")));
+        }
+        assertNotNull(orders.values().iterator().next().getShipDateAsDate());
+    }
+
+    // Negative Test: Node numbers outside the id layout are rejected
+    @Test
+    public void testInvalidNode() {
+        assertThrows(IllegalArgumentException.class, () -> TestDataGenerator.builder().node(1 << 16).build());
+        assertThrows(IllegalStateException.class, () -> TestDataGenerator.builder().node(300).build().nextUser());
+    }
+
+    // Negative Test: Without data.node there is no node to keep ids apart, so no generator is built
+    @Test
+    public void testMissingNodeRejected() {
+        String node = System.clearProperty("data.node");
+        try {
+            assertThrows(IllegalStateException.class, TestDataGenerator::fromConfiguration);
+            System.setProperty("data.node", "5");
+            TestDataGenerator generator = TestDataGenerator.fromConfiguration();
+            assertEquals(5, generator.getNode());
+            assertNotNull(generator.nextUser().getUsername());
+        } finally {
+            if (node != null) {
+                System.setProperty("data.node", node);
+            } else {
+                System.clearProperty("data.node");
+            }
+        }
+    }
+
+    // Negative Test: Index 0 is reserved, so node 0 never produces id 0, which the store reads as "assign one"
+    @Test
+    public void testNoZeroIds() {
+        TestDataGenerator generator = TestDataGenerator.builder().node(0).petRange(1).build();
+        assertEquals(1, generator.nextPet().getId());
+        assertEquals(1, generator.nextUser().getId());
+        Store order = generator.nextOrder();
+        assertEquals(1, order.getId());
+        assertEquals(1, order.getPetId());
+        assertThrows(IllegalArgumentException.class, () -> generator.pet(0));
+        assertThrows(IllegalArgumentException.class, () -> generator.user(0));
+    }
+}
@@ -0,0 +1,90 @@
+package com.veeam.http;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveLimitTests {
+
+    private static final long MS = 1_000_000;
+    private static final String ENDPOINT = "GET /pet/{petId}";
+
+    // Positive Test: The limit grows by about one per round trip while it is in use
+    @Test
+    public void testAdditiveIncreaseWhenBusy() {
+        AdaptiveLimit limit = new AdaptiveLimit(10, 1, 0.5, 2.0);
+        int current = 10;
+        for (int i = 0; i < 11; i++) {
+            current = limit.onSample(ENDPOINT, System.nanoTime(), MS, 200, current, 100);
+        }
+        assertEquals(11, current);
+
+        for (int i = 0; i < 100; i++) {
+            current = limit.onSample(ENDPOINT, System.nanoTime(), MS, 200, 1, 100);
+        }
+        assertEquals(11, current);  // one request in flight is no reason to allow more
+    }
+
+    // Positive Test: Overload cuts the limit once per episode, not once per queued request
+    @Test
+    public void testMultiplicativeDecreaseOncePerEpisode() {
+        AdaptiveLimit limit = new AdaptiveLimit(40, 1, 0.5, 2.0);
+        long sentBeforeOverload = System.nanoTime();
+        assertEquals(20, limit.onSample(ENDPOINT, sentBeforeOverload, MS, 503, 40, 100));
+        assertEquals(20, limit.onSample(ENDPOINT, sentBeforeOverload, MS, 0, 40, 100));
+        assertEquals(20, limit.onSample(ENDPOINT, sentBeforeOverload, MS, 429, 40, 100));
+        assertEquals(10, limit.onSample(ENDPOINT, System.nanoTime(), MS, 504, 20, 100));
+        assertEquals(2, limit.getDecreases());
+
+        // Client errors are the caller's fault and do not shrink the limit
+        assertEquals(10, limit.onSample(ENDPOINT, System.nanoTime(), MS, 404, 1, 100));
+    }
+
+    // Positive Test: Latency well above the minimum counts as queueing
+    @Test
+    public void testRisingLatencyDecreases() {
+        AdaptiveLimit limit = new AdaptiveLimit(32, 1, 0.5, 2.0);
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(ENDPOINT, System.nanoTime(), MS, 200, 1, 100);
+        }
+        assertEquals(0, limit.getDecreases());
+        int current = 32;
+        for (int i = 0; i < 200; i++) {
+            current = limit.onSample(ENDPOINT, System.nanoTime(), 20 * MS, 200, current, 100);
+        }
+        assertTrue(limit.getDecreases() > 0);
+        assertTrue(current < 32, "limit " + current);
+    }
+
+    // Negative Test: Fast GETs mixed with slow POSTs are not queueing, each endpoint keeps its own baseline
+    @Test
+    public void testMixedLatencyKeepsLimit() {
+        AdaptiveLimit limit = new AdaptiveLimit(20, 1, 0.5, 2.0);
+        int current = 20;
+        for (int i = 0; i < 2_000; i++) {
+            if (i % 5 == 4) {
+                current = limit.onSample("POST /pet", System.nanoTime(), 45 * MS, 200, current, 100);
+            } else {
+                current = limit.onSample(ENDPOINT, System.nanoTime(), 2 * MS, 200, current, 100);
+            }
+        }
+        assertEquals(0, limit.getDecreases());
+        assertTrue(current > 20, "limit " + current);
+    }
+
+    // Negative Test: The limit stays within min and max
+    @Test
+    public void testBounds() {
+        AdaptiveLimit limit = new AdaptiveLimit(4, 2, 0.5, 2.0);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limit.onSample(ENDPOINT, System.nanoTime(), MS, 503, 4, 100) >= 2);
+        }
+        assertEquals(2, limit.getLimit());
+        int current = 2;
+        for (int i = 0; i < 1000; i++) {
+            current = limit.onSample(ENDPOINT, System.nanoTime(), MS, 200, current, 5);
+        }
+        assertEquals(5, current);
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveLimit(1, 2, 0.5, 2.0));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveLimit(4, 1, 1.5, 2.0));
+    }
+}
@@ -0,0 +1,97 @@
+package com.veeam.http;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+
+public class CircuitBreakerTests {
+
+    private static final String ENDPOINT = "GET /pet/{petId}";
+    private static final long MS = 1_000_000;
+
+    // Positive Test: The circuit opens once the failure rate reaches the threshold
+    @Test
+    public void testOpensOnFailureRate() {
+        CircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+        for (int i = 0; i < 5; i++) {
+            assertTrue(breaker.tryAcquire(ENDPOINT));
+            breaker.onResult(ENDPOINT, 200, MS);
+        }
+        for (int i = 0; i < 4; i++) {
+            breaker.onResult(ENDPOINT, i % 2 == 0 ? 503 : 0, MS);
+            assertEquals(CircuitBreaker.Phase.CLOSED, breaker.getPhase(ENDPOINT));
+        }
+        breaker.onResult(ENDPOINT, 500, MS);  // 5 of 10 failed
+        assertEquals(CircuitBreaker.Phase.OPEN, breaker.getPhase(ENDPOINT));
+        assertFalse(breaker.tryAcquire(ENDPOINT));
+        assertTrue(breaker.tryAcquire("POST /store/order"));  // other endpoints are not affected
+    }
+
+    // Positive Test: Slow calls open the circuit, client errors do not
+    @Test
+    public void testSlowCallsCountClientErrorsDoNot() {
+        CircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+        for (int i = 0; i < 20; i++) {
+            breaker.onResult(ENDPOINT, 404, MS);
+        }
+        assertEquals(CircuitBreaker.Phase.CLOSED, breaker.getPhase(ENDPOINT));
+        for (int i = 0; i < 8; i++) {
+            breaker.onResult(ENDPOINT, 200, 500 * MS);
+        }
+        assertEquals(CircuitBreaker.Phase.OPEN, breaker.getPhase(ENDPOINT));
+    }
+
+    // Positive Test: After the open time a limited number of probes decide whether to close
+    @Test
+    public void testHalfOpenProbes() throws Exception {
+        CircuitBreaker breaker = breaker(Duration.ofMillis(50));
+        for (int i = 0; i < 10; i++) {
+            breaker.onResult(ENDPOINT, 503, MS);
+        }
+        assertFalse(breaker.tryAcquire(ENDPOINT));
+        Thread.sleep(60);
+
+        assertTrue(breaker.tryAcquire(ENDPOINT));
+        assertTrue(breaker.tryAcquire(ENDPOINT));
+        assertFalse(breaker.tryAcquire(ENDPOINT));  // only two probes
+        assertEquals(CircuitBreaker.Phase.HALF_OPEN, breaker.getPhase(ENDPOINT));
+        breaker.onResult(ENDPOINT, 200, MS);
+        breaker.onResult(ENDPOINT, 503, MS);
+        assertEquals(CircuitBreaker.Phase.OPEN, breaker.getPhase(ENDPOINT));
+
+        Thread.sleep(60);
+        assertTrue(breaker.tryAcquire(ENDPOINT));
+        assertTrue(breaker.tryAcquire(ENDPOINT));
+        breaker.onResult(ENDPOINT, 200, MS);
+        breaker.onResult(ENDPOINT, 200, MS);
+        assertEquals(CircuitBreaker.Phase.CLOSED, breaker.getPhase(ENDPOINT));
+
+        // The window starts over: old failures do not reopen it
+        breaker.onResult(ENDPOINT, 503, MS);
+        assertEquals(CircuitBreaker.Phase.CLOSED, breaker.getPhase(ENDPOINT));
+    }
+
+    // Negative Test: Fewer calls than the minimum never open the circuit
+    @Test
+    public void testMinimumCalls() {
+        CircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+        for (int i = 0; i < 9; i++) {
+            breaker.onResult(ENDPOINT, 0, MS);
+        }
+        assertEquals(CircuitBreaker.Phase.CLOSED, breaker.getPhase(ENDPOINT));
+        assertThrows(IllegalArgumentException.class, () -> CircuitBreaker.builder().probeCalls(0).build());
+    }
+
+    private static CircuitBreaker breaker(Duration openDuration) {
+        return CircuitBreaker.builder()
+                .windowSize(20)
+                .minimumCalls(10)
+                .failureRateThreshold(50)
+                .slowCallRateThreshold(25)
+                .slowCallDuration(Duration.ofMillis(100))
+                .openDuration(openDuration)
+                .probeCalls(2)
+                .build();
+    }
+}
@@ -0,0 +1,57 @@
+package com.veeam.http;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CompletableFuture;
+
+public class InFlightLimiterTests {
+
+    // Callers over the limit wait until a permit is released
+    @Test
+    public void testAcquireWaitsForRelease() {
+        InFlightLimiter limiter = new InFlightLimiter(2);
+        assertTrue(limiter.acquire().isDone());
+        assertTrue(limiter.acquire().isDone());
+
+        CompletableFuture<Void> third = limiter.acquire();
+        assertFalse(third.isDone());  // Limit reached, no permit yet
+
+        limiter.release();
+        assertTrue(third.isDone());  // Released permit is handed to the waiter
+        assertEquals(2, limiter.inFlight());
+    }
+
+    // A cancelled waiter does not leak its permit
+    @Test
+    public void testCancelledWaiterIsSkipped() {
+        InFlightLimiter limiter = new InFlightLimiter(1);
+        limiter.acquire();
+        CompletableFuture<Void> cancelled = limiter.acquire();
+        CompletableFuture<Void> next = limiter.acquire();
+        cancelled.cancel(false);
+
+        limiter.release();
+        assertTrue(next.isDone());
+        assertEquals(1, limiter.inFlight());
+    }
+
+    // A raised limit admits waiters at once, a lowered one only holds back new requests
+    @Test
+    public void testLimitCanMove() {
+        InFlightLimiter limiter = new InFlightLimiter(1);
+        limiter.acquire();
+        CompletableFuture<Void> second = limiter.acquire();
+        assertFalse(second.isDone());
+
+        limiter.setLimit(2);
+        assertTrue(second.isDone());
+
+        limiter.setLimit(1);
+        CompletableFuture<Void> third = limiter.acquire();
+        limiter.release();
+        assertFalse(third.isDone());  // still 1 in flight, at the new limit
+        limiter.release();
+        assertTrue(third.isDone());
+    }
+}
@@ -0,0 +1,371 @@
+package com.veeam.http;
+
+import com.sun.net.httpserver.HttpServer;
+import com.veeam.metrics.ApiMetrics;
+import com.veeam.metrics.EndpointSnapshot;
+import com.veeam.utils.ApiResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntUnaryOperator;
+
+public class ResilienceTests {
+
+    private HttpServer server;
+    private final AtomicInteger calls = new AtomicInteger();
+    // Maps the call number (1-based) to a delay in ms; negative values answer with that status instead
+    private volatile IntUnaryOperator behaviour = call -> 0;
+    private ApiMetrics metrics;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            int action = behaviour.applyAsInt(calls.incrementAndGet());
+            int status = action < 0 ? -action : 200;
+            if (action > 0) {
+                try {
+                    Thread.sleep(action);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            byte[] body = "{}".getBytes();
+            try {
+                exchange.sendResponseHeaders(status, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (IOException e) {
+                // client gave up (timeout or losing hedge)
+            }
+        });
+        server.start();
+        metrics = new ApiMetrics();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    // Positive Test: A transient 503 on a GET is retried with backoff
+    @Test
+    public void testGetRetriedAfterTransient5xx() throws Exception {
+        behaviour = call -> call <= 2 ? -503 : 0;
+        HttpTransport transport = transport(new RetryPolicy(3, Duration.ofMillis(5), Duration.ofMillis(20)), null, null);
+
+        ApiResponse response = transport.execute("GET /store/inventory", get());
+        assertEquals(200, response.getStatusCode());
+        assertEquals(3, calls.get());
+        assertEquals(2, metrics.snapshot().get(0).getRetries());
+        assertEquals(200, transport.executeAsync("GET /store/inventory", get()).join().getStatusCode());
+    }
+
+    // Negative Test: POST is not idempotent and is never retried
+    @Test
+    public void testPostNotRetried() throws Exception {
+        behaviour = call -> -503;
+        HttpTransport transport = transport(new RetryPolicy(3, Duration.ofMillis(5), Duration.ofMillis(20)), null, null);
+
+        HttpRequest post = HttpRequest.newBuilder(uri()).POST(HttpRequest.BodyPublishers.ofString("{}")).build();
+        assertEquals(503, transport.execute("POST /store/order", post).getStatusCode());
+        assertEquals(1, calls.get());
+    }
+
+    // Negative Test: Retries are bounded, the last response is returned
+    @Test
+    public void testRetriesExhausted() throws Exception {
+        behaviour = call -> -500;
+        HttpTransport transport = transport(new RetryPolicy(2, Duration.ofMillis(1), Duration.ofMillis(5)), null, null);
+
+        assertEquals(500, transport.executeAsync("GET /pet/{petId}", get()).join().getStatusCode());
+        assertEquals(3, calls.get());
+    }
+
+    // A request past the per-request timeout is retried instead of failing the call
+    @Test
+    public void testTimeoutRetried() throws Exception {
+        behaviour = call -> call == 1 ? 2_000 : 0;
+        HttpTransport transport = transport(new RetryPolicy(1, Duration.ofMillis(1), Duration.ofMillis(5)), null, Duration.ofMillis(200));
+
+        assertEquals(200, transport.execute("GET /pet/{petId}", get()).getStatusCode());
+        assertEquals(1L, metrics.snapshot().get(0).getStatusCounts().get(0));  // the timed-out attempt
+    }
+
+    // A slow GET is hedged once enough latency history exists, and the fast copy wins
+    @Test
+    public void testSlowGetHedged() throws Exception {
+        HttpTransport transport = transport(RetryPolicy.none(), new HedgePolicy(90, Duration.ofMillis(20)), null);
+        for (int i = 0; i < 60; i++) {
+            transport.execute("GET /pet/{petId}", get());
+        }
+        // A warm-up call stalled by a pause on a busy host may already have been hedged; count from here
+        int slow = calls.get() + 1;
+        long hedges = metrics.snapshot().get(0).getHedges();
+        behaviour = call -> call == slow ? 3_000 : 0;
+
+        long start = System.nanoTime();
+        assertEquals(200, transport.execute("GET /pet/{petId}", get()).getStatusCode());
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(2).toNanos());
+        assertEquals(hedges + 1, metrics.snapshot().get(0).getHedges());
+
+        // The losing copy is cancelled: its slot is freed at once and it is not recorded as a failure
+        long deadline = System.nanoTime() + Duration.ofSeconds(1).toNanos();
+        while (transport.getInFlight() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, transport.getInFlight());
+        assertNull(metrics.snapshot().get(0).getStatusCounts().get(0));
+    }
+
+    // Negative Test: Backoff saturates at the maximum instead of overflowing for large bases and attempts
+    @Test
+    public void testBackoffSaturates() {
+        RetryPolicy policy = new RetryPolicy(100, Duration.ofSeconds(10), Duration.ofMinutes(1));
+        for (int attempt = 0; attempt < 100; attempt++) {
+            Duration backoff = policy.backoff(attempt);
+            assertFalse(backoff.isNegative());
+            assertTrue(backoff.compareTo(Duration.ofMinutes(1)) <= 0, backoff.toString());
+        }
+        long longest = 0;
+        for (int i = 0; i < 100; i++) {
+            longest = Math.max(longest, policy.backoff(40).toMillis());
+        }
+        assertTrue(longest > 1_000, "longest backoff " + longest + " ms");  // not collapsed to zero
+    }
+
+    // Positive Test: Concurrent identical GETs, blocking and async, share one request
+    @Test
+    public void testConcurrentGetsCoalesced() throws Exception {
+        behaviour = call -> 300;
+        HttpTransport transport = coalescingTransport();
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<ApiResponse>> blocking = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                blocking.add(callers.submit(() -> transport.execute("GET /store/inventory", get())));
+            }
+            CompletableFuture<ApiResponse> async = transport.executeAsync("GET /store/inventory", get());
+            for (Future<ApiResponse> call : blocking) {
+                assertEquals(200, call.get().getStatusCode());
+            }
+            assertEquals(200, async.join().getStatusCode());
+        } finally {
+            callers.shutdown();
+        }
+        assertEquals(1, calls.get());
+        assertEquals(8, transport.getCoalesced());
+        EndpointSnapshot snapshot = metrics.snapshot().get(0);
+        assertEquals(1, snapshot.getCount());
+        assertEquals(8, snapshot.getCoalesced());
+
+        // Once the response is in, the next call sends again
+        behaviour = call -> 0;
+        assertEquals(200, transport.execute("GET /store/inventory", get()).getStatusCode());
+        assertEquals(2, calls.get());
+    }
+
+    // Negative Test: Writes and GETs with different headers are never coalesced
+    @Test
+    public void testWritesAndDistinctGetsNotCoalesced() throws Exception {
+        behaviour = call -> 200;
+        HttpTransport transport = coalescingTransport();
+        HttpRequest post = HttpRequest.newBuilder(uri()).POST(HttpRequest.BodyPublishers.ofString("{}")).build();
+        HttpRequest other = HttpRequest.newBuilder(uri()).header("api_key", "other").GET().build();
+
+        List<CompletableFuture<ApiResponse>> responses = new ArrayList<>();
+        responses.add(transport.executeAsync("POST /store/order", post));
+        responses.add(transport.executeAsync("POST /store/order", post));
+        responses.add(transport.executeAsync("GET /store/inventory", get()));
+        responses.add(transport.executeAsync("GET /store/inventory", other));
+        responses.forEach(response -> assertEquals(200, response.join().getStatusCode()));
+        assertEquals(4, calls.get());
+        assertEquals(0, transport.getCoalesced());
+    }
+
+    // Positive Test: The adaptive limit backs off while the server sheds load and recovers afterwards
+    @Test
+    public void testAdaptiveLimitFollowsOverload() throws Exception {
+        HttpTransport transport = HttpTransport.builder()
+                .baseUrl(uri().toString())
+                .version(HttpClient.Version.HTTP_1_1)
+                .metrics(metrics)
+                .maxInFlight(64)
+                .adaptiveLimit(new AdaptiveLimit(32, 2, 0.5, 1000.0))  // only status counts here, latency is covered in AdaptiveLimitTests
+                .build();
+        assertEquals(32, transport.getInFlightLimit());
+
+        behaviour = call -> -503;
+        for (int i = 0; i < 10; i++) {
+            transport.execute("GET /store/inventory", get());
+        }
+        assertEquals(2, transport.getInFlightLimit());
+
+        behaviour = call -> 0;
+        List<CompletableFuture<ApiResponse>> burst = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            burst.add(transport.executeAsync("GET /store/inventory", get()));
+        }
+        burst.forEach(response -> assertEquals(200, response.join().getStatusCode()));
+        assertTrue(transport.getInFlightLimit() > 2, "limit " + transport.getInFlightLimit());
+        assertEquals(0, transport.getInFlight());
+    }
+
+    // Negative Test: A caller slow to close a streamed body is not server latency and does not shrink the limit
+    @Test
+    public void testSlowStreamConsumerKeepsLimit() throws Exception {
+        AdaptiveLimit limit = new AdaptiveLimit(8, 1, 0.5, 10.0);
+        HttpTransport transport = HttpTransport.builder()
+                .baseUrl(uri().toString())
+                .version(HttpClient.Version.HTTP_1_1)
+                .metrics(metrics)
+                .adaptiveLimit(limit)
+                .build();
+        // Warm up on another endpoint, so connection setup does not seed the baseline of the one under test
+        for (int i = 0; i < 20; i++) {
+            transport.sendStreaming("GET /store/inventory", get()).body().close();
+        }
+        long warmUpDecreases = limit.getDecreases();
+        for (int i = 0; i < 20; i++) {
+            HttpResponse<InputStream> response = transport.sendStreaming("GET /pet/findByStatus", get());
+            try (InputStream body = response.body()) {
+                body.readAllBytes();
+                if (i % 2 == 1) {
+                    Thread.sleep(200);
+                }
+            }
+        }
+        assertEquals(warmUpDecreases, limit.getDecreases());
+        assertEquals(0, transport.getInFlight());
+    }
+
+    // Positive Test: Once an endpoint keeps timing out, calls fail at once with 503 until it recovers
+    @Test
+    public void testOpenCircuitFailsFast() throws Exception {
+        behaviour = call -> 1_000;
+        HttpTransport transport = HttpTransport.builder()
+                .baseUrl(uri().toString())
+                .version(HttpClient.Version.HTTP_1_1)
+                .requestTimeout(Duration.ofMillis(100))
+                .metrics(metrics)
+                .circuitBreaker(CircuitBreaker.builder().windowSize(10).minimumCalls(5).openDuration(Duration.ofMillis(300)).probeCalls(1).build())
+                .build();
+        for (int i = 0; i < 5; i++) {
+            assertThrows(IOException.class, () -> transport.execute("GET /pet/{petId}", get()));
+        }
+        assertEquals(CircuitBreaker.Phase.OPEN, transport.getCircuitBreaker().getPhase("GET /pet/{petId}"));
+
+        long start = System.nanoTime();
+        ApiResponse rejected = transport.execute("GET /pet/{petId}", get());
+        assertEquals(503, rejected.getStatusCode());
+        assertEquals(503, transport.executeAsync("GET /pet/{petId}", get()).join().getStatusCode());
+        assertTrue(System.nanoTime() - start < Duration.ofMillis(50).toNanos());
+        assertEquals(5, calls.get());
+        assertEquals(2, metrics.snapshot().get(0).getRejected());
+
+        behaviour = call -> 0;
+        Thread.sleep(350);
+        assertEquals(200, transport.execute("GET /pet/{petId}", get()).getStatusCode());  // the probe
+        assertEquals(CircuitBreaker.Phase.CLOSED, transport.getCircuitBreaker().getPhase("GET /pet/{petId}"));
+    }
+
+    // Negative Test: A caller slow to close a streamed body does not make the call slow for the circuit breaker
+    @Test
+    public void testSlowStreamConsumerKeepsCircuitClosed() throws Exception {
+        HttpTransport transport = HttpTransport.builder()
+                .baseUrl(uri().toString())
+                .version(HttpClient.Version.HTTP_1_1)
+                .metrics(metrics)
+                .circuitBreaker(CircuitBreaker.builder().windowSize(10).minimumCalls(5).slowCallRateThreshold(50)
+                        .slowCallDuration(Duration.ofMillis(100)).openDuration(Duration.ofSeconds(10)).build())
+                .build();
+        for (int i = 0; i < 8; i++) {
+            HttpResponse<InputStream> response = transport.sendStreaming("GET /pet/findByStatus", get());
+            try (InputStream body = response.body()) {
+                body.readAllBytes();
+                Thread.sleep(150);
+            }
+        }
+        assertEquals(CircuitBreaker.Phase.CLOSED, transport.getCircuitBreaker().getPhase("GET /pet/findByStatus"));
+        assertEquals(0, metrics.snapshot().get(0).getRejected());
+    }
+
+    // Positive Test: Coalesced followers of a half-open probe share its response instead of using up probe permits
+    @Test
+    public void testCoalescedFollowersShareProbe() throws Exception {
+        behaviour = call -> call <= 5 ? -503 : 300;
+        HttpTransport transport = HttpTransport.builder()
+                .baseUrl(uri().toString())
+                .version(HttpClient.Version.HTTP_1_1)
+                .metrics(metrics)
+                .coalesceGets(true)
+                .circuitBreaker(CircuitBreaker.builder().windowSize(10).minimumCalls(5).openDuration(Duration.ofMillis(300)).probeCalls(1).build())
+                .build();
+        for (int i = 0; i < 5; i++) {
+            assertEquals(503, transport.execute("GET /pet/{petId}", get()).getStatusCode());
+        }
+        assertEquals(CircuitBreaker.Phase.OPEN, transport.getCircuitBreaker().getPhase("GET /pet/{petId}"));
+
+        Thread.sleep(350);
+        List<CompletableFuture<ApiResponse>> burst = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            burst.add(transport.executeAsync("GET /pet/{petId}", get()));
+        }
+        burst.forEach(response -> assertEquals(200, response.join().getStatusCode()));
+        assertEquals(6, calls.get());  // one probe sent, seven followers joined it
+        EndpointSnapshot snapshot = metrics.snapshot().get(0);
+        assertEquals(0, snapshot.getRejected());
+        assertEquals(7, snapshot.getCoalesced());
+        assertEquals(CircuitBreaker.Phase.CLOSED, transport.getCircuitBreaker().getPhase("GET /pet/{petId}"));
+    }
+
+    private HttpTransport coalescingTransport() {
+        return HttpTransport.builder()
+                .baseUrl(uri().toString())
+                .version(HttpClient.Version.HTTP_1_1)
+                .metrics(metrics)
+                .coalesceGets(true)
+                .build();
+    }
+
+    private HttpTransport transport(RetryPolicy retryPolicy, HedgePolicy hedgePolicy, Duration timeout) {
+        return HttpTransport.builder()
+                .baseUrl(uri().toString())
+                .version(HttpClient.Version.HTTP_1_1)
+                .requestTimeout(timeout)
+                .retryPolicy(retryPolicy)
+                .hedgePolicy(hedgePolicy)
+                .metrics(metrics)
+                .build();
+    }
+
+    private HttpRequest get() {
+        return HttpRequest.newBuilder(uri()).GET().build();
+    }
+
+    private URI uri() {
+        return URI.create("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/v2");
+    }
+}
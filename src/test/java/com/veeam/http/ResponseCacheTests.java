@@ -0,0 +1,230 @@
+package com.veeam.http;
+
+import com.veeam.api.PetApi;
+import com.veeam.api.StoreApi;
+import com.veeam.dto.Pet;
+import com.veeam.dto.Store;
+import com.veeam.metrics.ApiMetrics;
+import com.veeam.metrics.EndpointSnapshot;
+import com.veeam.proxy.FaultInjectionProxy;
+import com.veeam.proxy.FaultRule;
+import com.veeam.proxy.LatencyDistribution;
+import com.veeam.server.PetstoreServer;
+import com.veeam.utils.ApiResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static com.veeam.utils.TestUtils.pet;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class ResponseCacheTests {
+
+    private PetstoreServer server;
+    private ApiMetrics metrics;
+
+    @BeforeEach
+    public void startServer() throws Exception {
+        server = PetstoreServer.start();
+        metrics = new ApiMetrics();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.close();
+    }
+
+    // Positive Test: A repeated GET within the TTL is answered without a request
+    @Test
+    public void testRepeatedGetServedFromCache() {
+        ResponseCache cache = cache(Duration.ofMinutes(1), 100);
+        PetApi petApi = new PetApi(transport(cache));
+        assertEquals(200, petApi.createPet(pet(7, "Rex", "available")).getStatusCode());
+
+        assertEquals("Rex", petApi.getPetById(7).getName());
+        assertEquals("Rex", petApi.getPetById(7).getName());
+        assertEquals("Rex", petApi.getPetByIdAsync(7).join().getName());
+
+        assertEquals(1, requests("GET /pet/{petId}"));
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    // Positive Test: Writes through the API invalidate the pet and the inventory
+    @Test
+    public void testWritesInvalidate() {
+        ResponseCache cache = cache(Duration.ofMinutes(1), 100);
+        HttpTransport transport = transport(cache);
+        PetApi petApi = new PetApi(transport);
+        StoreApi storeApi = new StoreApi(transport);
+        Pet pet = pet(8, "Rex", "available");
+        petApi.createPet(pet);
+        assertEquals("Rex", petApi.getPetById(8).getName());
+        assertTrue(storeApi.getInventory().getBody().contains("\"available\":1"));
+
+        pet.setName("Max");
+        pet.setStatus("sold");
+        assertEquals(200, petApi.updatePet(pet).getStatusCode());
+        assertEquals("Max", petApi.getPetById(8).getName());
+        assertTrue(storeApi.getInventory().getBody().contains("\"sold\":1"));
+
+        assertEquals(200, petApi.deletePet(8, "special-key").getStatusCode());
+        assertNull(petApi.getPetById(8));
+
+        Store order = new Store();
+        order.setId(3);
+        order.setPetId(8);
+        order.setQuantity(1);
+        order.setStatus("placed");
+        storeApi.placeOrder(order);
+        assertEquals(200, storeApi.getOrderById(3).getStatusCode());
+        assertEquals(200, storeApi.deleteOrder(3).getStatusCode());
+        assertEquals(404, storeApi.getOrderById(3).getStatusCode());
+    }
+
+    // Positive Test: An expired entry with an ETag is revalidated and renewed on 304
+    @Test
+    public void testExpiredEntryRevalidated() throws Exception {
+        ResponseCache cache = cache(Duration.ZERO, 100);
+        HttpTransport transport = transport(cache);
+        PetApi petApi = new PetApi(transport);
+        petApi.createPet(pet(9, "Rex", "available"));
+
+        ApiResponse first = transport.execute("GET /pet/{petId}", getPet(9));
+        assertTrue(first.getHeader("ETag").isPresent());
+        ApiResponse second = transport.execute("GET /pet/{petId}", getPet(9));
+        assertEquals(200, second.getStatusCode());
+        assertArrayEquals(first.getBodyBytes(), second.getBodyBytes());
+
+        assertEquals(1, cache.getRevalidations());
+        assertEquals(1, statusCount("GET /pet/{petId}", 304));
+    }
+
+    // Negative Test: A 304 does not bring back an entry invalidated while the conditional request was in flight
+    @Test
+    public void testInvalidationDuringRevalidationWins() throws Exception {
+        try (FaultInjectionProxy proxy = FaultInjectionProxy.builder(server.getBaseUrl())
+                .route("GET /pet/{petId}", FaultRule.builder().latency(LatencyDistribution.fixed(Duration.ofMillis(400))).build())
+                .build()) {
+            ResponseCache cache = cache(Duration.ZERO, 100);
+            HttpTransport transport = HttpTransport.builder()
+                    .baseUrl(proxy.getBaseUrl())
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .metrics(metrics)
+                    .requestLog(null)
+                    .responseCache(cache)
+                    .build();
+            new PetApi(transport).createPet(pet(10, "Rex", "available"));
+            HttpRequest get = HttpRequest.newBuilder(URI.create(proxy.getBaseUrl() + "/pet/10")).GET().build();
+            transport.execute("GET /pet/{petId}", get);
+            assertEquals(1, cache.size());
+
+            CompletableFuture<ApiResponse> revalidation = transport.executeAsync("GET /pet/{petId}", get);
+            Thread.sleep(100);
+            transport.invalidate(get.uri().toString());
+            assertEquals(200, revalidation.get(5, TimeUnit.SECONDS).getStatusCode());
+
+            assertEquals(1, cache.getRevalidations());
+            assertEquals(0, cache.size());
+        }
+    }
+
+    // Positive Test: Writes to other keys while a GET is in flight do not stop its response being stored
+    @Test
+    public void testUnrelatedInvalidationKeepsResponse() throws Exception {
+        try (FaultInjectionProxy proxy = FaultInjectionProxy.builder(server.getBaseUrl())
+                .route("GET /pet/{petId}", FaultRule.builder().latency(LatencyDistribution.fixed(Duration.ofMillis(400))).build())
+                .build()) {
+            ResponseCache cache = cache(Duration.ofMinutes(1), 100);
+            HttpTransport transport = HttpTransport.builder()
+                    .baseUrl(proxy.getBaseUrl())
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .metrics(metrics)
+                    .requestLog(null)
+                    .responseCache(cache)
+                    .build();
+            new PetApi(transport).createPet(pet(11, "Rex", "available"));
+            String url = proxy.getBaseUrl() + "/pet/11";
+            // Another pet whose URL falls in a different segment, so invalidating it cannot touch pet 11
+            long other = 12;
+            long version = cache.version("GET /pet/{petId}", url);
+            while (invalidateChanges(cache, url, proxy.getBaseUrl() + "/pet/" + other, version)) {
+                version = cache.version("GET /pet/{petId}", url);
+                other++;
+            }
+
+            CompletableFuture<ApiResponse> get = transport.executeAsync("GET /pet/{petId}",
+                    HttpRequest.newBuilder(URI.create(url)).GET().build());
+            Thread.sleep(100);
+            transport.invalidate(proxy.getBaseUrl() + "/pet/" + other);
+            transport.invalidateEndpoint("GET /store/inventory");
+            assertEquals(200, get.get(5, TimeUnit.SECONDS).getStatusCode());
+
+            assertEquals(1, cache.size());
+            assertEquals("Rex", new PetApi(transport).getPetById(11).getName());
+            assertEquals(1, cache.getHits());
+        }
+    }
+
+    // Negative Test: Errors are not cached and the size stays bounded
+    @Test
+    public void testErrorsNotCachedAndSizeBounded() {
+        ResponseCache cache = cache(Duration.ofMinutes(1), 32);
+        PetApi petApi = new PetApi(transport(cache));
+        assertNull(petApi.getPetById(404));
+        assertNull(petApi.getPetById(404));
+        assertEquals(2, requests("GET /pet/{petId}"));
+        assertEquals(0, cache.size());
+
+        for (int i = 1; i <= 200; i++) {
+            petApi.createPet(pet(i, "Pet" + i, "available"));
+            assertNotNull(petApi.getPetById(i));
+        }
+        assertTrue(cache.size() <= 32, "size " + cache.size());
+        assertTrue(cache.size() > 0);
+    }
+
+    private HttpTransport transport(ResponseCache cache) {
+        return HttpTransport.builder()
+                .baseUrl(server.getBaseUrl())
+                .version(HttpClient.Version.HTTP_1_1)
+                .metrics(metrics)
+                .requestLog(null)
+                .responseCache(cache)
+                .build();
+    }
+
+    private static ResponseCache cache(Duration ttl, int maxEntries) {
+        return ResponseCache.builder()
+                .maxEntries(maxEntries)
+                .ttl("GET /pet/{petId}", ttl)
+                .ttl("GET /store/order/{orderId}", ttl)
+                .ttl("GET /store/inventory", ttl)
+                .build();
+    }
+
+    private HttpRequest getPet(long id) {
+        return HttpRequest.newBuilder(URI.create(server.getBaseUrl() + "/pet/" + id)).GET().build();
+    }
+
+    private static boolean invalidateChanges(ResponseCache cache, String url, String other, long version) {
+        cache.invalidate(other);
+        return cache.version("GET /pet/{petId}", url) != version;
+    }
+
+    private long requests(String endpoint) {
+        return metrics.snapshot().stream().filter(s -> s.getEndpoint().equals(endpoint))
+                .mapToLong(EndpointSnapshot::getCount).sum();
+    }
+
+    private long statusCount(String endpoint, int status) {
+        return metrics.snapshot().stream().filter(s -> s.getEndpoint().equals(endpoint))
+                .mapToLong(s -> s.getStatusCounts().getOrDefault(status, 0L)).sum();
+    }
+}
@@ -0,0 +1,221 @@
+package com.veeam.json;
+
+import com.veeam.dto.Pet;
+import com.veeam.dto.Store;
+import com.veeam.dto.User;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+public class JsonCodecTests {
+
+    private final JsonCodec gson = new GsonCodec();
+    private final List<JsonCodec> codecs = Arrays.asList(gson, new JacksonStreamingCodec(), new HandWrittenCodec(), new GeneratedCodec());
+
+    // Hand-written output is byte-for-byte the same as Gson's, including HTML-safe escaping
+    @Test
+    public void testHandWrittenMatchesGson() {
+        JsonCodec handWritten = new HandWrittenCodec();
+        assertEquals(gson.toJson(samplePet()), handWritten.toJson(samplePet()));
+        assertEquals(gson.toJson(sampleUser()), handWritten.toJson(sampleUser()));
+        assertEquals(gson.toJson(sampleOrder()), handWritten.toJson(sampleOrder()));
+        assertEquals(gson.toJson(new Pet()), handWritten.toJson(new Pet()));
+        assertEquals(gson.toJsonArray(Arrays.asList(sampleUser(), null)),
+                handWritten.toJsonArray(Arrays.asList(sampleUser(), null)));
+    }
+
+    // Direct-to-bytes serialization produces the UTF-8 encoding of toJson, including multi-byte characters
+    @Test
+    public void testToJsonBytesMatchesToJson() {
+        Pet pet = samplePet();
+        pet.setId(Long.MIN_VALUE);
+        pet.setName("Ünïcødé \u20ac \uD83D\uDC36 <tag> & 'quote'");
+        User user = sampleUser();
+        user.setFirstName(new String(new char[2000]).replace('\0', '\u00e9'));  // grows the scratch buffer
+        for (JsonCodec codec : codecs) {
+            if (codec instanceof JacksonStreamingCodec) {
+                // Jackson's byte generator escapes supplementary characters, so compare the parsed result
+                assertEquals(pet.getName(), codec.fromJson(codec.toJsonBytes(pet), StandardCharsets.UTF_8, Pet.class).getName());
+                continue;
+            }
+            for (Object value : Arrays.asList(pet, user, sampleOrder(), samplePet())) {
+                assertArrayEquals(codec.toJson(value).getBytes(StandardCharsets.UTF_8), codec.toJsonBytes(value), codec.name());
+            }
+        }
+    }
+
+    // The streamed array body has the same bytes as toJsonArray, whatever the buffer size
+    @Test
+    public void testJsonArrayPublisherMatchesGson() throws Exception {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            User user = sampleUser();
+            user.setId(i);
+            users.add(i == 7 ? null : user);
+        }
+        for (int bufferSize : new int[]{1, 100, 1 << 20}) {
+            assertEquals(gson.toJsonArray(users), publish(new JsonArrayPublisher<>(users, GeneratedCodec.adapter(User.class), bufferSize)));
+        }
+        assertEquals("[]", publish(new JsonArrayPublisher<>(List.<User>of(), GeneratedCodec.adapter(User.class), 16)));
+    }
+
+    private static String publish(HttpRequest.BodyPublisher publisher) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        publisher.subscribe(new Flow.Subscriber<ByteBuffer>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                byte[] bytes = new byte[item.remaining()];
+                item.get(bytes);
+                out.write(bytes, 0, bytes.length);
+                subscription.request(1);  // re-entrant demand, as the HTTP client may signal
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(null);
+            }
+        });
+        done.get(5, TimeUnit.SECONDS);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    // Adapters generated at compile time produce the same JSON as Gson
+    @Test
+    public void testGeneratedMatchesGson() {
+        JsonCodec generated = new GeneratedCodec();
+        assertEquals(gson.toJson(samplePet()), generated.toJson(samplePet()));
+        assertEquals(gson.toJson(sampleUser()), generated.toJson(sampleUser()));
+        assertEquals(gson.toJson(sampleOrder()), generated.toJson(sampleOrder()));
+        assertEquals(gson.toJson(new Pet()), generated.toJson(new Pet()));
+        assertEquals(gson.toJsonArray(Arrays.asList(sampleUser(), null)),
+                generated.toJsonArray(Arrays.asList(sampleUser(), null)));
+    }
+
+    // Every codec reads back what it wrote, and what Gson wrote
+    @Test
+    public void testRoundTrip() {
+        String expectedPet = gson.toJson(samplePet());
+        String expectedUser = gson.toJson(sampleUser());
+        String expectedOrder = gson.toJson(sampleOrder());
+        for (JsonCodec codec : codecs) {
+            assertEquals(expectedPet, gson.toJson(codec.fromJson(codec.toJson(samplePet()), Pet.class)), codec.name());
+            assertEquals(expectedPet, gson.toJson(codec.fromJson(expectedPet, Pet.class)), codec.name());
+            assertEquals(expectedUser, gson.toJson(codec.fromJson(codec.toJson(sampleUser()), User.class)), codec.name());
+            assertEquals(expectedOrder, gson.toJson(codec.fromJson(codec.toJson(sampleOrder()), Store.class)), codec.name());
+
+            List<User> users = codec.fromJsonArray(codec.toJsonArray(Arrays.asList(sampleUser(), sampleUser())), User.class);
+            assertEquals(2, users.size(), codec.name());
+            assertEquals(expectedUser, gson.toJson(users.get(1)), codec.name());
+        }
+    }
+
+    // Server responses carry unknown fields, nulls and numbers as strings
+    @Test
+    public void testLenientRead() {
+        String json = "{ \"id\" : \"12\", \"extra\": {\"a\": [1, 2, {\"b\": null}]}, \"name\": null,"
+                + " \"category\": {\"id\": 3, \"name\": \"Dogs\"}, \"photoUrls\": [], \"tags\": [{\"id\": 1}] }";
+        for (JsonCodec codec : codecs) {
+            Pet pet = codec.fromJson(json, Pet.class);
+            assertEquals(12, pet.getId(), codec.name());
+            assertNull(pet.getName(), codec.name());
+            assertEquals("Dogs", pet.getCategory().getName(), codec.name());
+            assertTrue(pet.getPhotoUrls().isEmpty(), codec.name());
+            assertEquals(1, pet.getTags().get(0).getId(), codec.name());
+        }
+    }
+
+    // The streaming reader handles values split across reads (as from a socket)
+    @Test
+    public void testReadArrayIncrementally() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 2000; i++) {
+            json.append(i == 0 ? "" : ",").append(gson.toJson(samplePet()));
+        }
+        json.append(']');
+        Reader trickle = new StringReader(json.toString()) {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws java.io.IOException {
+                return super.read(buffer, offset, Math.min(length, 7));
+            }
+        };
+
+        JsonReader reader = new JsonReader(trickle);
+        JsonAdapter<Pet> adapter = GeneratedCodec.adapter(Pet.class);
+        String expected = gson.toJson(samplePet());
+        int count = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            assertEquals(expected, gson.toJson(adapter.read(reader)));
+            count++;
+        }
+        reader.endArray();
+        assertEquals(2000, count);
+        assertEquals(JsonReader.Token.END_DOCUMENT, reader.peek());
+    }
+
+    static Pet samplePet() {
+        Pet pet = new Pet();
+        pet.setId(9_000_000_001L);
+        pet.setName("Rex <\"the\" dog> & co='1'\n é");
+        pet.setStatus("available");
+        Pet.Category category = new Pet.Category();
+        category.setId(2);
+        category.setName("Dogs");
+        pet.setCategory(category);
+        pet.setPhotoUrls(Arrays.asList("https://example.com/rex.jpg", null));
+        Pet.Tag tag = new Pet.Tag();
+        tag.setId(7);
+        tag.setName("friendly\t\u0001");
+        pet.setTags(Arrays.asList(tag, new Pet.Tag()));
+        return pet;
+    }
+
+    static User sampleUser() {
+        User user = new User();
+        user.setId(42);
+        user.setUsername("johnDoe");
+        user.setFirstName("John");
+        user.setLastName("Doe");
+        user.setEmail("johndoe@example.com");
+        user.setPassword("p\\ss");
+        user.setUserStatus(1);
+        return user;
+    }
+
+    static Store sampleOrder() {
+        Store order = new Store();
+        order.setId(5);
+        order.setPetId(9);
+        order.setQuantity(2);
+        order.setShipDate("2024-12-31T20:35:51.374Z");
+        order.setStatus("placed");
+        order.setComplete(true);
+        return order;
+    }
+}
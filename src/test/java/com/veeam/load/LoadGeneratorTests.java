@@ -0,0 +1,83 @@
+package com.veeam.load;
+
+import com.veeam.http.HttpTransport;
+import com.veeam.proxy.FaultInjectionProxy;
+import com.veeam.proxy.FaultRule;
+import com.veeam.proxy.LatencyDistribution;
+import com.veeam.server.PetstoreServer;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+public class LoadGeneratorTests {
+
+    // Positive Test: The schedule is kept and every endpoint of the mix is recorded
+    @Test
+    public void testFixedRateAgainstStandInServer() throws Exception {
+        try (PetstoreServer server = PetstoreServer.start()) {
+            HttpTransport transport = HttpTransport.builder()
+                    .baseUrl(server.getBaseUrl())
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .build();
+            LoadMix mix = LoadMix.parse("GET /pet/{petId}=3,GET /store/inventory=1", transport);
+            LoadMix.seed(transport);
+
+            LoadReport report = LoadGenerator.builder(mix)
+                    .rate(200)
+                    .duration(Duration.ofSeconds(1))
+                    .warmup(Duration.ofMillis(200))
+                    .build()
+                    .run();
+            transport.shutdown();
+
+            assertEquals(200, report.getTotalCount());
+            assertEquals(0, report.getTotalErrors());
+            assertEquals(2, report.getEndpoints().size());
+            for (LoadReport.EndpointResult endpoint : report.getEndpoints()) {
+                assertTrue(endpoint.getCount() > 0, endpoint.getName());
+                assertTrue(endpoint.getLatency().getValueAtPercentile(99) >= endpoint.getServiceTime().getValueAtPercentile(50));
+            }
+            assertTrue(report.format().contains("GET /store/inventory"));
+        }
+    }
+
+    // Negative Test: Requests outstanding at the drain deadline are reported as timeouts, not dropped
+    @Test
+    public void testOutstandingRequestsRecordedAtDrainDeadline() throws Exception {
+        try (PetstoreServer server = PetstoreServer.start();
+             FaultInjectionProxy proxy = FaultInjectionProxy.builder(server.getBaseUrl())
+                     .route("GET /store/inventory", FaultRule.builder().latency(LatencyDistribution.fixed(Duration.ofSeconds(3))).build())
+                     .build()) {
+            HttpTransport transport = HttpTransport.builder()
+                    .baseUrl(proxy.getBaseUrl())
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .build();
+            LoadMix mix = LoadMix.parse("GET /store/inventory=1", transport);
+
+            LoadReport report = LoadGenerator.builder(mix)
+                    .rate(20)
+                    .duration(Duration.ofMillis(500))
+                    .drainTimeout(Duration.ofMillis(200))
+                    .build()
+                    .run();
+            transport.shutdown();
+
+            assertEquals(10, report.getTotalCount());
+            assertEquals(10, report.getTotalTimeouts());
+            assertEquals(10, report.getTotalErrors());
+            LoadReport.EndpointResult inventory = report.getEndpoints().get(0);
+            assertEquals(10L, inventory.getStatusCounts().get(0));
+            assertTrue(inventory.getLatency().getMinValue() >= Duration.ofMillis(200).toNanos());
+            assertTrue(report.format().contains("10 requests timed out"));
+        }
+    }
+
+    // Negative Test: Unknown endpoints in the mix are rejected up front
+    @Test
+    public void testUnknownEndpointRejected() {
+        HttpTransport transport = HttpTransport.builder().build();
+        assertThrows(IllegalArgumentException.class, () -> LoadMix.parse("GET /pet/{petId}=1,GET /nowhere=1", transport));
+    }
+}
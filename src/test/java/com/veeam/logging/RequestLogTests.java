@@ -0,0 +1,109 @@
+package com.veeam.logging;
+
+import com.veeam.api.PetApi;
+import com.veeam.dto.Pet;
+import com.veeam.http.HttpTransport;
+import com.veeam.metrics.ApiMetrics;
+import com.veeam.server.PetstoreServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class RequestLogTests {
+
+    private static final URI REQUEST_URI = URI.create("http://localhost/v2/pet/1");
+    private static final HttpHeaders HEADERS = HttpHeaders.of(Map.of("content-type", List.of("application/json")), (n, v) -> true);
+
+    @TempDir
+    Path dir;
+
+    // Positive Test: Failures are always logged with headers and body, successes follow the sample rate
+    @Test
+    public void testFailuresAlwaysLoggedSuccessesSampled() throws Exception {
+        Path file = dir.resolve("requests.log");
+        try (RequestLog log = new RequestLog(file, 64, 0, Duration.ofSeconds(1))) {
+            for (int i = 0; i < 20; i++) {
+                log.log("GET /pet/{petId}", REQUEST_URI, 200, 1_000_000, 0, 2, HEADERS, "{}".getBytes(), null);
+            }
+            log.log("GET /pet/{petId}", REQUEST_URI, 404, 1_000_000, 0, 9, HEADERS, "not found".getBytes(), null);
+            log.log("GET /pet/{petId}", REQUEST_URI, 0, 1_000_000, 0, 0, null, null, new IOException("reset"));
+            log.flush();
+
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            assertEquals(2, lines.size());
+            assertTrue(lines.get(0).contains("FAILED GET /pet/{petId} status=404"));
+            assertTrue(lines.get(0).contains("content-type=application/json"));
+            assertTrue(lines.get(0).endsWith("body=not found"));
+            assertTrue(lines.get(1).contains("status=0"));
+            assertTrue(lines.get(1).contains("reset"));
+        }
+    }
+
+    // Positive Test: Slow calls are logged in full even with sampling off
+    @Test
+    public void testSlowCallsLogged() throws Exception {
+        Path file = dir.resolve("slow.log");
+        try (RequestLog log = new RequestLog(file, 64, 0, Duration.ofMillis(100))) {
+            log.log("GET /store/inventory", REQUEST_URI, 200, 250_000_000, 0, 2, HEADERS, "{}".getBytes(), null);
+            log.flush();
+            String line = Files.readString(file);
+            assertTrue(line.contains("SLOW GET /store/inventory status=200 latencyMs=250.0"));
+            assertTrue(line.contains("body={}"));
+        }
+    }
+
+    // Negative Test: A full ring drops entries instead of blocking the caller
+    @Test
+    public void testDropsWhenFull() throws Exception {
+        Path file = dir.resolve("dropped.log");
+        try (RequestLog log = new RequestLog(file, 4, 1, Duration.ofSeconds(1))) {
+            for (int i = 0; i < 100_000; i++) {
+                log.log("GET /pet/{petId}", REQUEST_URI, 200, 1_000, 0, 2, null, null, null);
+            }
+            log.flush();
+            long written = Files.lines(file).count();
+            assertEquals(100_000, written + log.getDropped());
+        }
+    }
+
+    // Positive Test: Calls through the API classes reach the log via the transport
+    @Test
+    public void testTransportLogsApiCalls() throws Exception {
+        Path file = dir.resolve("transport.log");
+        try (PetstoreServer server = PetstoreServer.start();
+             RequestLog log = new RequestLog(file, 1024, 1, Duration.ofSeconds(1))) {
+            HttpTransport transport = HttpTransport.builder()
+                    .baseUrl(server.getBaseUrl())
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .metrics(new ApiMetrics())
+                    .requestLog(log)
+                    .build();
+            PetApi petApi = new PetApi(transport);
+            Pet pet = new Pet();
+            pet.setId(4242);
+            pet.setName("Logged");
+            petApi.createPet(pet);
+            assertNull(petApi.getPetById(4243));
+            log.flush();
+            transport.shutdown();
+
+            List<String> lines = Files.lines(file).collect(Collectors.toList());
+            assertEquals(2, lines.size());
+            assertTrue(lines.get(0).contains("SAMPLED POST /pet status=200"));
+            assertTrue(lines.get(1).contains("FAILED GET /pet/{petId} status=404"));
+            assertTrue(lines.get(1).contains("uri=" + server.getBaseUrl() + "/pet/4243"));
+        }
+    }
+}
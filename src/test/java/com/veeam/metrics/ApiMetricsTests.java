@@ -0,0 +1,102 @@
+package com.veeam.metrics;
+
+import com.veeam.api.PetApi;
+import com.veeam.api.StoreApi;
+import com.veeam.dto.Pet;
+import com.veeam.http.HttpTransport;
+import com.veeam.server.PetstoreServer;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.http.HttpClient;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class ApiMetricsTests {
+
+    // Counters, status breakdown and latency percentiles per endpoint
+    @Test
+    public void testRecordAndSnapshot() {
+        ApiMetrics metrics = new ApiMetrics();
+        EndpointMetrics endpoint = metrics.endpoint("GET /pet/{petId}");
+        endpoint.record(200, 1_000_000, 0, 120);
+        endpoint.record(200, 3_000_000, 0, 120);
+        endpoint.record(404, 2_000_000, 0, 50);
+        endpoint.record(0, 5_000_000, 0, 0);
+        metrics.endpoint("PUT /pet").record(200, 4_000_000, 90, 90);
+
+        List<EndpointSnapshot> snapshots = metrics.snapshot();
+        assertEquals(2, snapshots.size());
+        EndpointSnapshot get = snapshots.get(0);
+        assertEquals("GET /pet/{petId}", get.getEndpoint());
+        assertEquals(4, get.getCount());
+        assertEquals(2, get.getErrors());
+        assertEquals(290, get.getResponseBytes());
+        assertEquals(2L, get.getStatusCounts().get(200));
+        assertEquals(1L, get.getStatusCounts().get(0));
+        assertEquals(5_000_000, get.getLatency().getMaxValue(), 5_000);
+        assertEquals(3_000_000, get.getStatusLatencies().get(200).getMaxValue(), 5_000);
+        assertEquals(2_000_000, get.getLatencyPercentile(404, 99), 5_000);
+        assertEquals(0, get.getLatencyPercentile(500, 99));
+        assertEquals(90, snapshots.get(1).getRequestBytes());
+
+        metrics.reset();
+        assertEquals(0, metrics.snapshot().get(0).getCount());
+    }
+
+    // The three export formats carry the same endpoints
+    @Test
+    public void testExportFormats() {
+        ApiMetrics metrics = new ApiMetrics();
+        metrics.endpoint("GET /store/inventory").record(200, 2_000_000, 0, 30);
+
+        String json = metrics.toJson();
+        assertTrue(json.startsWith("[{\"endpoint\":\"GET /store/inventory\",\"count\":1,\"errors\":0,\"retries\":0,\"hedges\":0"));
+        assertTrue(json.contains("\"statuses\":{\"200\":1}"));
+        assertTrue(json.contains("\"latencyMicrosByStatus\":{\"200\":{\"mean\":"));
+
+        String[] csv = metrics.toCsv().split("\n");
+        assertEquals(2, csv.length);
+        assertTrue(csv[0].startsWith("endpoint,count,errors"));
+        assertTrue(csv[1].startsWith("GET /store/inventory,1,0,0,0,0,30,200:1,"));
+        assertTrue(csv[0].endsWith(",status_p50_us,status_p90_us,status_p99_us,status_p99_9_us,status_max_us"));
+        assertTrue(csv[1].endsWith(",200:2000,200:2000,200:2000,200:2000,200:2000"), csv[1]);
+
+        String prometheus = metrics.toPrometheus();
+        assertTrue(prometheus.contains("petstore_client_requests_total{endpoint=\"GET /store/inventory\",status=\"200\"} 1"));
+        assertTrue(prometheus.contains("petstore_client_latency_seconds_count{endpoint=\"GET /store/inventory\"} 1"));
+        assertTrue(prometheus.contains("# TYPE petstore_client_latency_seconds summary"));
+        assertTrue(prometheus.contains("petstore_client_status_latency_seconds_count{endpoint=\"GET /store/inventory\",status=\"200\"} 1"));
+    }
+
+    // Calls through the API classes are recorded under their endpoint names
+    @Test
+    public void testApiCallsRecorded() throws Exception {
+        ApiMetrics metrics = new ApiMetrics();
+        try (PetstoreServer server = PetstoreServer.start()) {
+            HttpTransport transport = HttpTransport.builder()
+                    .baseUrl(server.getBaseUrl())
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .metrics(metrics)
+                    .build();
+            PetApi petApi = new PetApi(transport);
+            Pet pet = new Pet();
+            pet.setId(31);
+            pet.setName("Metered");
+            petApi.updatePet(pet);
+            petApi.getPetById(31);
+            petApi.getPetById(32);
+            new StoreApi(transport).getInventoryAsync().join();
+            transport.shutdown();
+        }
+
+        List<EndpointSnapshot> snapshots = metrics.snapshot();
+        assertEquals(List.of("GET /pet/{petId}", "GET /store/inventory", "PUT /pet"),
+                snapshots.stream().map(EndpointSnapshot::getEndpoint).collect(Collectors.toList()));
+        EndpointSnapshot getPet = snapshots.get(0);
+        assertEquals(2, getPet.getCount());
+        assertEquals(1L, getPet.getStatusCounts().get(404));
+        assertTrue(snapshots.get(2).getRequestBytes() > 0);
+        assertTrue(getPet.getLatencyPercentile(50) > 0);
+    }
+}
@@ -0,0 +1,142 @@
+package com.veeam.proxy;
+
+import com.veeam.api.PetApi;
+import com.veeam.api.UserApi;
+import com.veeam.dto.Pet;
+import com.veeam.http.HttpTransport;
+import com.veeam.metrics.ApiMetrics;
+import com.veeam.server.PetstoreServer;
+import com.veeam.utils.ApiResponse;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+public class FaultInjectionProxyTests {
+
+    private static PetstoreServer server;
+
+    @BeforeAll
+    public static void startServer() throws Exception {
+        server = PetstoreServer.start();
+        for (int i = 1; i <= 200; i++) {
+            Pet pet = new Pet();
+            pet.setId(i);
+            pet.setName("pet-with-a-longer-name-" + i);
+            pet.setStatus("available");
+            server.getStore().savePet(pet);
+        }
+    }
+
+    @AfterAll
+    public static void stopServer() {
+        server.close();
+    }
+
+    // Positive Test: Latency and bandwidth limits apply to their route only
+    @Test
+    public void testLatencyAndBandwidthPerRoute() throws Exception {
+        try (FaultInjectionProxy proxy = FaultInjectionProxy.builder(server.getBaseUrl())
+                .route("GET /pet/{petId}", FaultRule.builder().latency(LatencyDistribution.fixed(Duration.ofMillis(150))).build())
+                .route("/pet/findByStatus", FaultRule.builder().bandwidth(40_000).build())
+                .build()) {
+            HttpTransport transport = transport(proxy);
+            PetApi petApi = new PetApi(transport);
+
+            long start = System.nanoTime();
+            assertEquals("pet-with-a-longer-name-1", petApi.getPetById(1).getName());
+            assertTrue(millisSince(start) >= 150, "GET /pet/1 took " + millisSince(start) + " ms");
+
+            start = System.nanoTime();
+            ApiResponse pets = petApi.getPetsByStatus("available");
+            long elapsed = millisSince(start);
+            assertEquals(200, pets.getStatusCode());
+            long expected = pets.getBodyLength() * 1000L / 40_000;
+            assertTrue(pets.getBodyLength() > 8_000 && elapsed >= expected * 9 / 10,
+                    pets.getBodyLength() + " bytes took " + elapsed + " ms, expected " + expected);
+
+            start = System.nanoTime();
+            assertEquals(200, petApi.deletePet(200, "special-key").getStatusCode());  // no rule for DELETE /pet/{petId}
+            assertTrue(millisSince(start) < 150);
+            assertEquals(3, proxy.getForwarded());
+            transport.shutdown();
+        }
+    }
+
+    // Positive Test: Injected errors answer with the configured status without reaching the backend
+    @Test
+    public void testInjectedErrors() throws Exception {
+        try (FaultInjectionProxy proxy = FaultInjectionProxy.builder(server.getBaseUrl())
+                .route("/user/login", FaultRule.parse("error=1:429"))
+                .build()) {
+            HttpTransport transport = transport(proxy);
+            ApiResponse login = new UserApi(transport).loginUser("alice", "secret");
+            assertEquals(429, login.getStatusCode());
+            assertTrue(login.getBody().contains("fault_injected"));
+            assertEquals(200, new PetApi(transport).getPetsByStatus("sold").getStatusCode());
+            assertEquals(1, proxy.getInjectedErrors());
+            assertEquals(1, proxy.getForwarded());
+            transport.shutdown();
+        }
+    }
+
+    // Negative Test: A reset route closes the connection without a response
+    @Test
+    public void testConnectionReset() throws Exception {
+        try (FaultInjectionProxy proxy = FaultInjectionProxy.builder(server.getBaseUrl())
+                .defaultRule(FaultRule.builder().resetRate(1).build())
+                .build()) {
+            HttpTransport transport = transport(proxy);
+            HttpRequest request = HttpRequest.newBuilder(URI.create(proxy.getBaseUrl() + "/pet/1")).GET().build();
+            assertThrows(IOException.class, () -> transport.execute("GET /pet/{petId}", request));
+            assertTrue(proxy.getResets() >= 1);
+            assertEquals(0, proxy.getForwarded());
+            assertEquals(0, transport.getMetrics().endpoint("GET /pet/{petId}").snapshot().getStatusCounts().getOrDefault(200, 0L));
+            transport.shutdown();
+        }
+    }
+
+    // Positive Test: Distributions match their parameters and rules parse from their text form
+    @Test
+    public void testDistributionsAndParsing() {
+        long[] samples = new long[20_000];
+        LatencyDistribution logNormal = LatencyDistribution.parse("lognormal:20:250");
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = logNormal.sampleNanos(random);
+        }
+        Arrays.sort(samples);
+        assertEquals(20, samples[samples.length / 2] / 1_000_000.0, 2);
+        assertEquals(250, samples[samples.length * 99 / 100] / 1_000_000.0, 40);
+
+        FaultRule rule = FaultRule.parse("latency=uniform:10:20,jitter=5,bandwidth=1024,reset=0.1,error=0.2");
+        assertEquals(5_000_000, rule.getJitterNanos());
+        assertEquals(1024, rule.getBytesPerSecond());
+        assertEquals(503, rule.getErrorStatus());
+        long uniform = rule.getLatency().sampleNanos(random);
+        assertTrue(uniform >= 10_000_000 && uniform <= 20_000_000);
+
+        assertThrows(IllegalArgumentException.class, () -> FaultRule.parse("reset=0.6,error=0.6"));
+        assertThrows(IllegalArgumentException.class, () -> FaultRule.parse("latency=pareto:1"));
+    }
+
+    private static HttpTransport transport(FaultInjectionProxy proxy) {
+        return HttpTransport.builder()
+                .baseUrl(proxy.getBaseUrl())
+                .version(HttpClient.Version.HTTP_1_1)
+                .metrics(new ApiMetrics())
+                .build();
+    }
+
+    private static long millisSince(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
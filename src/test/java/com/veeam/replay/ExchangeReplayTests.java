@@ -0,0 +1,112 @@
+package com.veeam.replay;
+
+import com.veeam.api.PetApi;
+import com.veeam.dto.Pet;
+import com.veeam.http.HttpTransport;
+import com.veeam.metrics.ApiMetrics;
+import com.veeam.server.PetstoreServer;
+import com.veeam.utils.ApiResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static com.veeam.utils.TestUtils.pet;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class ExchangeReplayTests {
+
+    @TempDir
+    Path dir;
+
+    // Positive Test: A recorded session replays offline with the same responses, in the recorded order
+    @Test
+    public void testRecordedSessionReplaysWithoutServer() throws Exception {
+        Path file = dir.resolve("exchanges.bin");
+        String baseUrl;
+        try (PetstoreServer server = PetstoreServer.start(); ExchangeRecorder recorder = new ExchangeRecorder(file)) {
+            baseUrl = server.getBaseUrl();
+            HttpTransport transport = transport(baseUrl).exchangeRecorder(recorder).build();
+            PetApi petApi = new PetApi(transport);
+            assertEquals(200, petApi.createPet(pet(901, "Rex", "available")).getStatusCode());
+            assertEquals("Rex", petApi.getPetById(901).getName());
+            assertEquals(200, petApi.updatePet(pet(901, "Max", "sold")).getStatusCode());
+            assertEquals("Max", petApi.getPetById(901).getName());
+            assertEquals(1, petApi.forEachPetByStatus("sold", p -> { }));
+            assertEquals(5, recorder.getRecorded());
+        }
+
+        ExchangeReplayer replayer = ExchangeReplayer.open(file, 0);
+        assertEquals(5, replayer.size());
+        assertTrue(Files.exists(dir.resolve("exchanges.bin.idx")));
+        HttpTransport transport = transport(baseUrl).exchangeReplayer(replayer).build();
+        PetApi petApi = new PetApi(transport);
+        assertEquals(200, petApi.createPet(pet(901, "Rex", "available")).getStatusCode());
+        assertEquals("Rex", petApi.getPetById(901).getName());
+        assertEquals(200, petApi.updatePet(pet(901, "Max", "sold")).getStatusCode());
+        assertEquals("Max", petApi.getPetById(901).getName());
+        assertEquals("Max", petApi.getPetByIdAsync(901).get().getName());  // the last recording repeats
+        try (Stream<Pet> pets = petApi.streamPetsByStatus("sold")) {
+            assertEquals("Max", pets.map(Pet::getName).collect(Collectors.joining()));
+        }
+        assertEquals(3, transport.getMetrics().endpoint("GET /pet/{petId}").getCount());
+        assertEquals(0, replayer.getMisses());
+    }
+
+    // Positive Test: Replay at a speed reproduces the recorded latency scaled down
+    @Test
+    public void testReplaySpeedScalesLatency() throws Exception {
+        Path file = dir.resolve("slow.bin");
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:1/v2/pet/1")).GET().build();
+        try (ExchangeRecorder recorder = new ExchangeRecorder(file)) {
+            recorder.record(request, new ApiResponse(200, "{\"id\":1}".getBytes(), null, Duration.ofMillis(400)), 0);
+        }
+        ExchangeReplayer replayer = ExchangeReplayer.open(file, 4);
+        long start = System.nanoTime();
+        assertEquals("{\"id\":1}", replayer.respond(request).getBody());
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(elapsedMillis >= 100, "waited " + elapsedMillis + " ms");
+        assertEquals(400, replayer.respond(request).getElapsed().toMillis());
+    }
+
+    // Negative Test: Unrecorded requests fail, and a torn last record is skipped
+    @Test
+    public void testUnrecordedRequestAndTornRecord() throws Exception {
+        Path file = dir.resolve("torn.bin");
+        HttpRequest first = HttpRequest.newBuilder(URI.create("http://localhost:1/v2/pet/1")).GET().build();
+        HttpRequest second = HttpRequest.newBuilder(URI.create("http://localhost:1/v2/pet/2")).GET().build();
+        try (ExchangeRecorder recorder = new ExchangeRecorder(file)) {
+            recorder.record(first, new ApiResponse(200, "{\"id\":1}"), 0);
+            recorder.record(second, new ApiResponse(200, "{\"id\":2}"), 0);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);  // the process died while appending
+        }
+
+        ExchangeReplayer replayer = ExchangeReplayer.open(file, 0);
+        assertEquals(1, replayer.size());
+        assertEquals(200, replayer.respond(first).getStatusCode());
+        IOException error = assertThrows(IOException.class, () -> replayer.respond(second));
+        assertTrue(error.getMessage().contains("/pet/2"));
+        assertEquals(1, replayer.getMisses());
+
+        Files.write(dir.resolve("plain.bin"), "not a log".getBytes());
+        assertThrows(IOException.class, () -> ExchangeReplayer.open(dir.resolve("plain.bin"), 0));
+    }
+
+    private static HttpTransport.Builder transport(String baseUrl) {
+        return HttpTransport.builder()
+                .baseUrl(baseUrl)
+                .version(HttpClient.Version.HTTP_1_1)
+                .metrics(new ApiMetrics());
+    }
+}
@@ -0,0 +1,221 @@
+package com.veeam.server;
+
+import com.veeam.dto.Store;
+import com.veeam.dto.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static com.veeam.utils.TestUtils.pet;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class DurablePetstoreTests {
+
+    @TempDir
+    Path dir;
+
+    // Positive Test: Pets, orders and users survive a restart, and new ids do not reuse recovered ones
+    @Test
+    public void testStateSurvivesRestart() throws Exception {
+        long assignedId;
+        try (DurablePetstore store = open(DurablePetstore.SyncPolicy.GROUP)) {
+            store.savePet(pet(1, "Rex", "available"));
+            store.savePet(pet(2, "Tom", "available"));
+            store.updatePet(1, "Max", "sold");
+            store.deletePet(2);
+            assignedId = store.savePet(pet(0, "New", "pending")).getId();
+            store.placeOrder(order(7, 1));
+            store.placeOrder(order(8, 1));
+            store.deleteOrder(8);
+            store.saveUser(user("alice"));
+            store.saveUser(user("bob"));
+            store.deleteUser("bob");
+        }
+
+        try (DurablePetstore store = open(DurablePetstore.SyncPolicy.GROUP)) {
+            assertEquals(11, store.getRecoveredRecords());
+            assertEquals("Max", store.getPet(1).getName());
+            assertNull(store.getPet(2));
+            assertEquals("New", store.getPet(assignedId).getName());
+            assertEquals(1, store.getInventory().get("sold"));
+            assertNotNull(store.getOrder(7));
+            assertNull(store.getOrder(8));
+            assertNotNull(store.getUser("alice"));
+            assertNull(store.getUser("bob"));
+            assertNotEquals(assignedId, store.savePet(pet(0, "Newer", "pending")).getId());
+        }
+    }
+
+    // Positive Test: A snapshot replaces the log it covers; later mutations are replayed on top of it
+    @Test
+    public void testSnapshotCompactsLog() throws Exception {
+        try (DurablePetstore store = open(DurablePetstore.SyncPolicy.INTERVAL)) {
+            for (int i = 1; i <= 100; i++) {
+                store.savePet(pet(i, "Pet" + i, "available"));
+                store.updatePet(i, null, "sold");
+            }
+            store.snapshot();
+            assertEquals(1, files("wal-").size());  // only the segment started by the snapshot
+            store.deletePet(100);
+            store.snapshot();
+            store.deletePet(99);
+        }
+        assertEquals(1, files("snapshot-").size());
+
+        try (DurablePetstore store = open(DurablePetstore.SyncPolicy.NONE)) {
+            assertEquals(1, store.getRecoveredRecords());  // only the delete after the last snapshot
+            assertEquals(98, store.getPetCount());
+            assertEquals(98, store.getInventory().get("sold"));
+        }
+    }
+
+    // Positive Test: Concurrent mutations share fsyncs with group commit and are all recovered
+    @Test
+    public void testGroupCommit() throws Exception {
+        int threads = 8;
+        int perThread = 100;
+        long syncs;
+        try (DurablePetstore store = open(DurablePetstore.SyncPolicy.GROUP)) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int base = t * perThread;
+                futures.add(executor.submit(() -> {
+                    for (int i = 1; i <= perThread; i++) {
+                        store.savePet(pet(base + i, "Pet", "available"));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+            syncs = store.getSyncs();
+        }
+        assertTrue(syncs < threads * perThread, "syncs " + syncs);
+
+        try (DurablePetstore store = open(DurablePetstore.SyncPolicy.GROUP)) {
+            assertEquals(threads * perThread, store.getPetCount());
+        }
+    }
+
+    // Positive Test: Mutations racing with clear() are recovered in the order they were applied
+    @Test
+    public void testClearOrderedWithMutations() throws Exception {
+        int live;
+        try (DurablePetstore store = open(DurablePetstore.SyncPolicy.NONE)) {
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int base = t * 10_000;
+                futures.add(executor.submit(() -> {
+                    for (int i = 1; i <= 2_000; i++) {
+                        store.savePet(pet(base + i, "Pet", "available"));
+                    }
+                }));
+            }
+            for (int i = 0; i < 50; i++) {
+                store.clear();
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+            live = store.getPetCount();
+        }
+
+        try (DurablePetstore store = open(DurablePetstore.SyncPolicy.NONE)) {
+            assertEquals(live, store.getPetCount());
+        }
+    }
+
+    // Positive Test: A pet created without id is logged before a delete of the id it was given
+    @Test
+    public void testAssignedIdLoggedBeforeDelete() throws Exception {
+        int live;
+        try (DurablePetstore store = open(DurablePetstore.SyncPolicy.NONE)) {
+            long next = store.savePet(pet(0, "Pet", "available")).getId() + 1;
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            Future<?> creates = executor.submit(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    store.savePet(pet(0, "Pet", "available"));
+                }
+            });
+            // Delete each new pet as soon as it is visible, racing with its create being logged
+            while (!creates.isDone() || store.getPet(next) != null) {
+                if (store.getPet(next) != null) {
+                    store.deletePet(next++);
+                }
+            }
+            creates.get();
+            executor.shutdown();
+            live = store.getPetCount();
+        }
+
+        try (DurablePetstore store = open(DurablePetstore.SyncPolicy.NONE)) {
+            assertEquals(live, store.getPetCount());
+        }
+    }
+
+    // Negative Test: A record torn by a crash is dropped, the records before it are recovered
+    @Test
+    public void testTornRecordIgnored() throws Exception {
+        try (DurablePetstore store = open(DurablePetstore.SyncPolicy.ALWAYS)) {
+            store.savePet(pet(1, "Rex", "available"));
+            store.savePet(pet(2, "Tom", "available"));
+            assertEquals(2, store.getSyncs());
+        }
+        Path segment = dir.resolve(files("wal-").get(0));
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5);
+        }
+
+        try (DurablePetstore store = open(DurablePetstore.SyncPolicy.ALWAYS)) {
+            assertEquals(1, store.getRecoveredRecords());
+            assertNotNull(store.getPet(1));
+            assertNull(store.getPet(2));
+            store.savePet(pet(3, "Kit", "pending"));  // appends go to a new segment
+        }
+        try (DurablePetstore store = open(DurablePetstore.SyncPolicy.ALWAYS)) {
+            assertEquals(2, store.getPetCount());
+        }
+    }
+
+    private DurablePetstore open(DurablePetstore.SyncPolicy policy) throws Exception {
+        return DurablePetstore.builder(dir).syncPolicy(policy).snapshotInterval(null).build();
+    }
+
+    private List<String> files(String prefix) throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static Store order(long id, long petId) {
+        Store order = new Store();
+        order.setId(id);
+        order.setPetId(petId);
+        order.setQuantity(1);
+        return order;
+    }
+
+    private static User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        return user;
+    }
+}
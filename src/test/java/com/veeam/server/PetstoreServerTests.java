@@ -0,0 +1,220 @@
+package com.veeam.server;
+
+import com.veeam.api.PetApi;
+import com.veeam.api.StoreApi;
+import com.veeam.api.UserApi;
+import com.veeam.dto.Pet;
+import com.veeam.dto.Store;
+import com.veeam.dto.User;
+import com.veeam.http.HttpTransport;
+import com.veeam.json.JsonCodecs;
+import com.veeam.utils.ApiResponse;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import static com.veeam.utils.TestUtils.pet;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class PetstoreServerTests {
+
+    private static PetstoreServer server;
+    private static HttpTransport transport;
+    private static PetApi petApi;
+    private static StoreApi storeApi;
+    private static UserApi userApi;
+
+    @BeforeAll
+    public static void startServer() throws Exception {
+        server = PetstoreServer.start();
+        transport = HttpTransport.builder()
+                .baseUrl(server.getBaseUrl())
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        petApi = new PetApi(transport);
+        storeApi = new StoreApi(transport);
+        userApi = new UserApi(transport);
+    }
+
+    @AfterAll
+    public static void stopServer() {
+        server.close();
+        transport.shutdown();
+    }
+
+    // Positive Test: Pet lifecycle through PetApi against the stand-in
+    @Test
+    public void testPetLifecycle() {
+        Pet pet = pet(501, "Rex", "available");
+        assertEquals(200, petApi.createPet(pet).getStatusCode());
+
+        Pet found = petApi.getPetById(501);
+        assertNotNull(found);
+        assertEquals("Rex", found.getName());
+
+        pet.setName("Max");
+        pet.setStatus("sold");
+        assertEquals(200, petApi.updatePetUsingPost(pet).getStatusCode());
+        assertEquals("Max", petApi.getPetById(501).getName());
+
+        assertEquals(200, petApi.deletePet(501, "special-key").getStatusCode());
+        assertEquals(404, petApi.deletePet(501, "special-key").getStatusCode());
+        assertNull(petApi.getPetById(501));
+    }
+
+    // The status index follows status changes, so findByStatus and the inventory stay consistent
+    @Test
+    public void testStatusIndexFollowsUpdates() {
+        InMemoryPetstore store = new InMemoryPetstore();
+        store.savePet(pet(1, "a", "available"));
+        store.savePet(pet(2, "b", "available"));
+        store.savePet(pet(3, "c", "pending"));
+
+        store.updatePet(2, null, "pending");
+        store.savePet(pet(3, "c", "sold"));
+        store.deletePet(1);
+
+        assertTrue(store.findPetsByStatus("available").isEmpty());
+        assertEquals(List.of(2L), ids(store.findPetsByStatus("pending")));
+        assertEquals(List.of(3L), ids(store.findPetsByStatus("sold")));
+        assertNull(store.getInventory().get("available"));
+        assertEquals(1, store.getInventory().get("pending"));
+        assertEquals(1, store.getInventory().get("sold"));
+    }
+
+    // Negative Test: Assigned ids never reuse an explicit id, and pets without status stay out of the inventory
+    @Test
+    public void testAssignedIdsSkipExplicitOnes() {
+        InMemoryPetstore store = new InMemoryPetstore();
+        store.savePet(pet(1_000_001, "explicit", "available"));
+        Pet assigned = store.savePet(pet(0, "assigned", null));
+        assertNotEquals(1_000_001, assigned.getId());
+        assertEquals("explicit", store.getPet(1_000_001).getName());
+        assertEquals(1, store.getInventory().size());
+        assertEquals(1, store.getInventory().get("available"));
+
+        Store order = new Store();
+        order.setId(1_000_001);
+        store.placeOrder(order);
+        assertNotEquals(1_000_001, store.placeOrder(new Store()).getId());
+    }
+
+    // Positive Test: findByStatus streams every pet with the requested statuses
+    @Test
+    public void testFindByStatus() {
+        for (int i = 0; i < 50; i++) {
+            petApi.createPet(pet(1_000 + i, "pet" + i, i % 2 == 0 ? "indexed-even" : "indexed-odd"));
+        }
+
+        try (Stream<Pet> pets = petApi.streamPetsByStatus("indexed-even")) {
+            assertEquals(25, pets.count());
+        }
+        ApiResponse both = petApi.getPetsByStatus("indexed-even,indexed-odd");
+        assertEquals(200, both.getStatusCode());
+        assertEquals(50, JsonCodecs.getDefault().fromJsonArray(both.getBody(), Pet.class).size());
+    }
+
+    // Positive Test: Orders and inventory through StoreApi
+    @Test
+    public void testOrdersAndInventory() {
+        petApi.createPet(pet(2_001, "Inventory", "inventory-check"));
+
+        Store order = new Store();
+        order.setId(77);
+        order.setPetId(2_001);
+        order.setQuantity(1);
+        order.setStatus("placed");
+        assertEquals(200, storeApi.placeOrder(order).getStatusCode());
+        assertEquals(200, storeApi.getOrderById(77).getStatusCode());
+        assertEquals(200, storeApi.deleteOrder(77).getStatusCode());
+        assertEquals(404, storeApi.getOrderById(77).getStatusCode());
+
+        ApiResponse inventory = storeApi.getInventory();
+        assertEquals(200, inventory.getStatusCode());
+        assertTrue(inventory.getBody().contains("\"inventory-check\":1"));
+    }
+
+    // Positive Test: User endpoints through UserApi
+    @Test
+    public void testUserEndpoints() {
+        User user = new User();
+        user.setId(9);
+        user.setUsername("standIn");
+        user.setPassword("secret");
+        assertEquals(200, userApi.createUser(user).getStatusCode());
+        assertEquals(200, userApi.getUserByUsername("standIn").getStatusCode());
+
+        User second = new User();
+        second.setUsername("standIn2");
+        assertEquals(200, userApi.createUsersWithList(Arrays.asList(second)).getStatusCode());
+        assertEquals(200, userApi.getUserByUsername("standIn2").getStatusCode());
+
+        ApiResponse login = userApi.loginUser("standIn", "secret");
+        assertEquals(200, login.getStatusCode());
+        assertTrue(login.getHeader("X-Rate-Limit").isPresent());
+        assertEquals(200, userApi.logoutUser().getStatusCode());
+
+        assertEquals(200, userApi.deleteUser("standIn").getStatusCode());
+        assertEquals(404, userApi.getUserByUsername("standIn").getStatusCode());
+    }
+
+    // Positive Test: Images are uploaded as streamed multipart bodies, several at once
+    @Test
+    public void testUploadImages() throws Exception {
+        petApi.createPet(pet(3_001, "Photogenic", "available"));
+        Path dir = Files.createTempDirectory("uploads");
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Path file = dir.resolve("photo" + i + ".png");
+            byte[] content = new byte[1_000_000 + i];
+            new Random(i).nextBytes(content);  // random bytes may contain CR, LF and dashes
+            Files.write(file, content);
+            files.add(file.toString());
+        }
+
+        List<ApiResponse> responses = petApi.uploadImages(3_001, files, "front view");
+        for (int i = 0; i < files.size(); i++) {
+            assertEquals(200, responses.get(i).getStatusCode());
+            assertTrue(responses.get(i).getBody().contains("additionalMetadata: front view"));
+            assertTrue(responses.get(i).getBody().contains("photo" + i + ".png, " + (1_000_000 + i) + " bytes"));
+        }
+        // Found on the test classpath instead of disk
+        assertEquals(200, petApi.uploadImageAsync(3_001, "image.jpg", null).join().getStatusCode());
+    }
+
+    // Negative Test: Upload to a missing pet or of a missing file
+    @Test
+    public void testUploadImageErrors() throws Exception {
+        Path file = Files.createTempFile("upload", ".jpg");
+        Files.write(file, new byte[]{1, 2, 3});
+        assertEquals(404, petApi.uploadImage(999_999, file.toString(), null).getStatusCode());
+        assertEquals(400, petApi.uploadImage(1, "no-such-image.jpg", null).getStatusCode());
+        assertEquals(415, petApi.uploadImage(1, "notes.txt", null).getStatusCode());
+    }
+
+    // Negative Test: Malformed JSON is rejected like on the real server
+    @Test
+    public void testMalformedPetRejected() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(server.getBaseUrl() + "/pet"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"id\":"))
+                .build();
+        assertEquals(405, transport.execute(request).getStatusCode());
+    }
+
+    private static List<Long> ids(List<Pet> pets) {
+        return pets.stream().map(Pet::getId).sorted().collect(Collectors.toList());
+    }
+}
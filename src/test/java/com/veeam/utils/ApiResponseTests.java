@@ -0,0 +1,61 @@
+package com.veeam.utils;
+
+import com.veeam.dto.Pet;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.http.HttpHeaders;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class ApiResponseTests {
+
+    // The body is decoded with the charset from Content-Type, only when asked for
+    @Test
+    public void testBodyDecodedWithContentTypeCharset() {
+        byte[] body = "{\"name\":\"Café\"}".getBytes(StandardCharsets.ISO_8859_1);
+        ApiResponse response = new ApiResponse(200, body, headers("application/json; charset=ISO-8859-1"), Duration.ofMillis(5));
+
+        assertSame(body, response.getBodyBytes());  // Raw bytes are not copied
+        assertEquals("{\"name\":\"Café\"}", response.getBody());
+        assertEquals(Duration.ofMillis(5), response.getElapsed());
+        assertEquals("application/json; charset=ISO-8859-1", response.getHeader("content-type").get());
+    }
+
+    // Typed binding reads the DTO from the raw bytes
+    @Test
+    public void testAsBindsDto() {
+        byte[] body = "{\"id\":7,\"name\":\"Rex\",\"status\":\"sold\"}".getBytes(StandardCharsets.UTF_8);
+        Pet pet = new ApiResponse(200, body, headers("application/json"), Duration.ZERO).as(Pet.class);
+
+        assertEquals(7, pet.getId());
+        assertEquals("Rex", pet.getName());
+        assertEquals("sold", pet.getStatus());
+    }
+
+    // Synthetic responses keep working as before
+    @Test
+    public void testStringConstructor() {
+        ApiResponse response = new ApiResponse(500, "Internal server error");
+        assertEquals("Internal server error", response.getBody());
+        assertEquals(21, response.getBodyLength());
+    }
+
+    // Negative Test: Missing headers and elapsed time fall back to none and zero
+    @Test
+    public void testNullHeadersAndElapsed() {
+        ApiResponse response = new ApiResponse(200, "{\"id\":7}".getBytes(StandardCharsets.UTF_8), null, null);
+        assertEquals("{\"id\":7}", response.getBody());
+        assertEquals(7, response.as(Pet.class).getId());
+        assertFalse(response.getHeader("Content-Type").isPresent());
+        assertEquals(Duration.ZERO, response.getElapsed());
+    }
+
+    private static HttpHeaders headers(String contentType) {
+        Map<String, List<String>> values = Collections.singletonMap("Content-Type", Collections.singletonList(contentType));
+        return HttpHeaders.of(values, (name, value) -> true);
+    }
+}
@@ -1,5 +1,6 @@
 package com.veeam.utils;
 
+import com.veeam.dto.Pet;
 import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
 import static io.restassured.RestAssured.given;
@@ -8,4 +9,18 @@ public class TestUtils {
     private int statusCode;
     private String body;
 
+    /**
+     * Minimal pet fixture for tests that need to control the id.
+     * @param id Pet id, 0 to let the store assign one
+     * @param name Pet name
+     * @param status available, pending or sold
+     * @return A pet with only id, name and status set
+     */
+    public static Pet pet(long id, String name, String status) {
+        Pet pet = new Pet();
+        pet.setId(id);
+        pet.setName(name);
+        pet.setStatus(status);
+        return pet;
+    }
 }